@@ -23,6 +23,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.io.StringReader;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -30,9 +31,12 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.phoenix.jdbc.PhoenixConnection;
@@ -731,6 +735,50 @@ public class CSVCommonsLoaderIT extends BaseHBaseManagedTimeIT {
         }
     }
 
+    @Test
+    public void testCSVCommonsUpsert_Parallel() throws Exception {
+        PhoenixConnection conn = null;
+        File rejectFile = File.createTempFile("csv-rejects", ".csv");
+        try {
+            String statements = "CREATE TABLE IF NOT EXISTS PARALLEL_TABLE "
+                    + "(ID INTEGER NOT NULL PRIMARY KEY, NAME VARCHAR);";
+            Properties props = new Properties();
+            props.setProperty(PhoenixRuntime.UPSERT_BATCH_SIZE_ATTRIB, "7");
+            conn = DriverManager.getConnection(getUrl(), props).unwrap(
+                    PhoenixConnection.class);
+            PhoenixRuntime.executeStatements(conn,
+                    new StringReader(statements), null);
+
+            StringBuilder csv = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                csv.append(i).append(",name").append(i).append("\n");
+            }
+            csv.append("BAD,not a number\n");
+
+            // Upsert CSV file on four connections, seven rows per batch
+            CSVCommonsLoader csvUtil = new CSVCommonsLoader(conn, "PARALLEL_TABLE",
+                    null, false, ',', '"', null, "!", 4, rejectFile.getAbsolutePath());
+            csvUtil.upsert(new StringReader(csv.toString()));
+
+            ResultSet phoenixResultSet = conn.createStatement().executeQuery(
+                    "SELECT ID, NAME FROM PARALLEL_TABLE ORDER BY ID");
+            for (int i = 0; i < 100; i++) {
+                assertTrue(phoenixResultSet.next());
+                assertEquals(i, phoenixResultSet.getInt(1));
+                assertEquals("name" + i, phoenixResultSet.getString(2));
+            }
+            assertFalse(phoenixResultSet.next());
+
+            List<String> rejects = Files.readLines(rejectFile, Charsets.UTF_8);
+            assertEquals(ImmutableList.of("BAD,not a number"), rejects);
+        } finally {
+            if (conn != null) {
+                conn.close();
+            }
+            rejectFile.delete();
+        }
+    }
+
     @Test
     public void testCSVCommonsUpsert_NonExistentTable() throws Exception {
         PhoenixConnection conn = null;
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.end2end;
+
+import static org.apache.phoenix.util.TestUtil.TEST_PROPERTIES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.phoenix.util.PropertiesUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class ExplainAnalyzeIT extends BaseHBaseManagedTimeIT {
+    private static final int NUM_ROWS = 10;
+
+    @Before
+    public void createTable() throws SQLException {
+        Properties props = PropertiesUtil.deepCopy(TEST_PROPERTIES);
+        Connection conn = DriverManager.getConnection(getUrl(), props);
+        try {
+            conn.createStatement().execute("CREATE TABLE analyze_test (k VARCHAR PRIMARY KEY, v INTEGER, g VARCHAR)");
+            PreparedStatement stmt = conn.prepareStatement("UPSERT INTO analyze_test VALUES (?, ?, ?)");
+            for (int i = 0; i < NUM_ROWS; i++) {
+                stmt.setString(1, "k" + i);
+                stmt.setInt(2, i);
+                stmt.setString(3, "g" + (i % 3));
+                stmt.execute();
+            }
+            conn.commit();
+        } finally {
+            conn.close();
+        }
+    }
+
+    private static List<String> explainAnalyze(String query) throws SQLException {
+        Properties props = PropertiesUtil.deepCopy(TEST_PROPERTIES);
+        Connection conn = DriverManager.getConnection(getUrl(), props);
+        try {
+            ResultSet rs = conn.createStatement().executeQuery("EXPLAIN ANALYZE " + query);
+            List<String> planSteps = Lists.newArrayList();
+            while (rs.next()) {
+                planSteps.add(rs.getString(1));
+            }
+            return planSteps;
+        } finally {
+            conn.close();
+        }
+    }
+
+    private static void assertStep(String expectedPrefix, String expectedStatistics, String step) {
+        assertTrue(step, step.startsWith(expectedPrefix));
+        assertTrue(step, step.contains(expectedStatistics));
+    }
+
+    private static void assertRowsReturned(int expectedRows, List<String> planSteps) {
+        assertStep("ACTUAL ROWS RETURNED " + expectedRows + " IN ", "ms", planSteps.get(planSteps.size() - 1));
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        List<String> planSteps = explainAnalyze("SELECT * FROM analyze_test");
+        // The rows counted by the region server come back in the trailing statistics row
+        assertStep("CLIENT PARALLEL 1-WAY FULL SCAN OVER ANALYZE_TEST", "(ACTUAL ROWS=" + NUM_ROWS + ", BYTES=", planSteps.get(0));
+        assertStep("CLIENT PARALLEL 1-WAY FULL SCAN OVER ANALYZE_TEST", "CHUNKS=1", planSteps.get(0));
+        assertStep("CLIENT PARALLEL 1-WAY FULL SCAN OVER ANALYZE_TEST", "SERVER ROWS=" + NUM_ROWS + ",", planSteps.get(0));
+        assertRowsReturned(NUM_ROWS, planSteps);
+
+        // The statistics row is not returned as a result
+        Properties props = PropertiesUtil.deepCopy(TEST_PROPERTIES);
+        Connection conn = DriverManager.getConnection(getUrl(), props);
+        try {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT count(*) FROM analyze_test");
+            assertTrue(rs.next());
+            assertEquals(NUM_ROWS, rs.getInt(1));
+            assertFalse(rs.next());
+        } finally {
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testAggregate() throws Exception {
+        List<String> planSteps = explainAnalyze("SELECT g, count(*) FROM analyze_test GROUP BY g");
+        // The region server reads every row, but only returns one per group
+        assertStep("CLIENT PARALLEL 1-WAY FULL SCAN OVER ANALYZE_TEST", "(ACTUAL ROWS=3,", planSteps.get(0));
+        assertStep("CLIENT PARALLEL 1-WAY FULL SCAN OVER ANALYZE_TEST", "SERVER ROWS=" + NUM_ROWS + ",", planSteps.get(0));
+        assertStep("    SERVER AGGREGATE INTO DISTINCT ROWS BY [G]", "", planSteps.get(1));
+        // The client merge sort is timed by its own iterator
+        assertStep("CLIENT MERGE SORT", "(ACTUAL ROWS=3,", planSteps.get(2));
+        assertRowsReturned(3, planSteps);
+    }
+
+    @Test
+    public void testJoin() throws Exception {
+        List<String> planSteps = explainAnalyze("SELECT a.k, b.k FROM analyze_test a JOIN analyze_test b ON a.v = b.v WHERE a.v >= 2 AND b.v < 5");
+        String probeStep = null;
+        String buildStep = null;
+        String buildScanStep = null;
+        String joinProbeStep = null;
+        for (String step : planSteps) {
+            if (step.startsWith("CLIENT PARALLEL")) {
+                probeStep = step;
+            } else if (step.startsWith("    PARALLEL INNER-JOIN TABLE 0")) {
+                buildStep = step;
+            } else if (step.startsWith("        CLIENT PARALLEL")) {
+                buildScanStep = step;
+            } else if (step.startsWith("    JOIN PROBE")) {
+                joinProbeStep = step;
+            }
+        }
+        // Both sides scan the same table with the same step text, but keep their own statistics
+        assertStep("CLIENT PARALLEL 1-WAY FULL SCAN OVER ANALYZE_TEST", "(ACTUAL ROWS=3,", probeStep);
+        assertStep("        CLIENT PARALLEL 1-WAY FULL SCAN OVER ANALYZE_TEST", "(ACTUAL ROWS=5,", buildScanStep);
+        assertStep("    PARALLEL INNER-JOIN TABLE 0", "(ACTUAL ROWS=5,", buildStep);
+        assertStep("    JOIN PROBE", "(ACTUAL ROWS=3,", joinProbeStep);
+        assertRowsReturned(3, planSteps);
+    }
+}
@@ -32,12 +32,17 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.SortOrder;
 import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.schema.types.PInteger;
 import org.apache.phoenix.schema.types.PLong;
 import org.apache.phoenix.util.PhoenixRuntime;
 import org.apache.phoenix.util.PropertiesUtil;
+import org.apache.phoenix.util.QueryUtil;
 import org.junit.Test;
 
 import com.google.common.base.Function;
@@ -479,4 +484,80 @@ public class InListIT extends BaseHBaseManagedTimeIT {
         conn.close();
     }
 
+
+    private static List<Integer> getIds(Connection conn, String query) throws SQLException {
+        List<Integer> ids = Lists.newArrayList();
+        ResultSet rs = conn.createStatement().executeQuery(query);
+        while (rs.next()) {
+            ids.add(rs.getInt(1));
+        }
+        return ids;
+    }
+
+    private static int countRows(ResultIterator iterator) throws SQLException {
+        int count = 0;
+        while (iterator.next() != null) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testInListThroughServerCache() throws Exception {
+        Properties props = PropertiesUtil.deepCopy(TEST_PROPERTIES);
+        Connection inlineConn = DriverManager.getConnection(getUrl(), props);
+        props.setProperty(QueryServices.IN_LIST_SERVER_CACHE_THRESHOLD_BYTES_ATTRIB, Integer.toString(1));
+        Connection cacheConn = DriverManager.getConnection(getUrl(), props);
+        try {
+            inlineConn.createStatement().execute("CREATE TABLE in_cache_test (id INTEGER PRIMARY KEY, val VARCHAR) SALT_BUCKETS=4");
+            for (int i = 0; i < 100; i++) {
+                inlineConn.createStatement().execute("UPSERT INTO in_cache_test VALUES (" + i + ", 'v" + i + "')");
+            }
+            inlineConn.commit();
+
+            List<String> values = Lists.newArrayList();
+            for (int i = 0; i < 120; i += 3) {
+                values.add("'v" + i + "'");
+            }
+            String query = "SELECT id FROM in_cache_test WHERE val IN (" + Joiner.on(',').join(values) + ") ORDER BY id";
+            List<Integer> expectedIds = getIds(inlineConn, query);
+            assertEquals(34, expectedIds.size());
+            assertEquals(expectedIds, getIds(cacheConn, query));
+            List<Integer> expectedNotInIds = getIds(inlineConn, query.replace(" IN (", " NOT IN ("));
+            assertEquals(66, expectedNotInIds.size());
+            assertEquals(expectedNotInIds, getIds(cacheConn, query.replace(" IN (", " NOT IN (")));
+
+            // EXPLAIN doesn't send the values to the region servers and shows the same plan
+            ResultSet rs = cacheConn.createStatement().executeQuery("EXPLAIN " + query);
+            String cachePlan = QueryUtil.getExplainPlan(rs);
+            rs = inlineConn.createStatement().executeQuery("EXPLAIN " + query);
+            assertEquals(QueryUtil.getExplainPlan(rs), cachePlan);
+
+            // Running the same plan twice at once gives each run its own server cache
+            QueryPlan plan = cacheConn.createStatement().unwrap(PhoenixStatement.class).optimizeQuery(query.replace(" ORDER BY id", ""));
+            ResultIterator first = plan.iterator();
+            try {
+                assertTrue(first.next() != null);
+                ResultIterator second = plan.iterator();
+                try {
+                    assertEquals(34, countRows(second));
+                } finally {
+                    second.close();
+                }
+                assertEquals(33, countRows(first));
+            } finally {
+                first.close();
+            }
+            // and the plan still runs once both are closed
+            ResultIterator third = plan.iterator();
+            try {
+                assertEquals(34, countRows(third));
+            } finally {
+                third.close();
+            }
+        } finally {
+            inlineConn.close();
+            cacheConn.close();
+        }
+    }
 }
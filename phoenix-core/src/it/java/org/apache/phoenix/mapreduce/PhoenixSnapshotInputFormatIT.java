@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import static org.apache.phoenix.query.BaseTest.setUpConfigForMiniCluster;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.db.DBWritable;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.phoenix.end2end.NeedsOwnMiniClusterTest;
+import org.apache.phoenix.jdbc.PhoenixDriver;
+import org.apache.phoenix.mapreduce.util.PhoenixMapReduceUtil;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests for reading the input of a {@link PhoenixInputFormat} from a snapshot
+ */
+@Category(NeedsOwnMiniClusterTest.class)
+public class PhoenixSnapshotInputFormatIT {
+
+    private static HBaseTestingUtility hbaseTestUtil;
+    private static String url;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        hbaseTestUtil = new HBaseTestingUtility();
+        Configuration conf = hbaseTestUtil.getConfiguration();
+        conf.setBoolean("hbase.defaults.for.version.skip", true);
+        setUpConfigForMiniCluster(conf);
+        hbaseTestUtil.startMiniCluster();
+        Class.forName(PhoenixDriver.class.getName());
+        url = PhoenixRuntime.JDBC_PROTOCOL + PhoenixRuntime.JDBC_PROTOCOL_SEPARATOR + "localhost:"
+                + hbaseTestUtil.getZkCluster().getClientPort();
+        createAggregateSnapshot();
+    }
+
+    /**
+     * Create a table with three regions of ten rows each, where the row with id i has
+     * value i and is in group "g" + (i % 3), and take a snapshot of it.
+     */
+    private static void createAggregateSnapshot() throws Exception {
+        Connection conn = DriverManager.getConnection(url);
+        try {
+            conn.createStatement().execute("CREATE TABLE SNAPSHOT_AGG (ID INTEGER NOT NULL PRIMARY KEY, GRP VARCHAR, VAL INTEGER) "
+                    + "SPLIT ON (10, 20)");
+            upsertAggregateRows(conn, 0, 30);
+        } finally {
+            conn.close();
+        }
+        HBaseAdmin admin = hbaseTestUtil.getHBaseAdmin();
+        admin.flush("SNAPSHOT_AGG");
+        admin.snapshot("SNAPSHOT_AGG_SNAPSHOT", "SNAPSHOT_AGG");
+        // Rows written after the snapshot must not be read
+        conn = DriverManager.getConnection(url);
+        try {
+            upsertAggregateRows(conn, 30, 40);
+        } finally {
+            conn.close();
+        }
+    }
+
+    private static void upsertAggregateRows(Connection conn, int from, int to) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("UPSERT INTO SNAPSHOT_AGG VALUES (?, ?, ?)");
+        for (int i = from; i < to; i++) {
+            stmt.setInt(1, i);
+            stmt.setString(2, "g" + (i % 3));
+            stmt.setInt(3, i);
+            stmt.execute();
+        }
+        conn.commit();
+    }
+
+    /**
+     * Read the rows returned by the given query over the snapshot of SNAPSHOT_AGG from every split.
+     * Each split aggregates and limits only its own rows, as the mappers of a job would.
+     */
+    private static List<List<Object>> readAggregateSnapshot(String query) throws Exception {
+        Job job = Job.getInstance(hbaseTestUtil.getConfiguration());
+        PhoenixMapReduceUtil.setInput(job, RowWritable.class, "SNAPSHOT_AGG", query);
+        PhoenixMapReduceUtil.setInputSnapshot(job, "SNAPSHOT_AGG_SNAPSHOT",
+                hbaseTestUtil.getDataTestDirOnTestFS("snapshot-agg-restore"));
+        List<List<Object>> rows = Lists.newArrayList();
+        PhoenixInputFormat<RowWritable> inputFormat = new PhoenixInputFormat<RowWritable>();
+        for (InputSplit split : inputFormat.getSplits(job)) {
+            TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID());
+            RecordReader<NullWritable, RowWritable> reader = inputFormat.createRecordReader(split, context);
+            try {
+                reader.initialize(split, context);
+                while (reader.nextKeyValue()) {
+                    rows.add(reader.getCurrentValue().values);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return rows;
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number)value).longValue();
+    }
+
+    @Test
+    public void testUngroupedAggregateFromSnapshot() throws Exception {
+        long count = 0;
+        long sum = 0;
+        for (List<Object> row : readAggregateSnapshot("SELECT COUNT(*), SUM(VAL) FROM SNAPSHOT_AGG")) {
+            count += toLong(row.get(0));
+            sum += toLong(row.get(1));
+        }
+        assertEquals(30, count);
+        assertEquals(29 * 30 / 2, sum);
+    }
+
+    @Test
+    public void testGroupByPkFromSnapshot() throws Exception {
+        Map<Long, Long> sums = new TreeMap<Long, Long>();
+        for (List<Object> row : readAggregateSnapshot("SELECT ID, SUM(VAL) FROM SNAPSHOT_AGG WHERE ID >= 5 GROUP BY ID")) {
+            long id = toLong(row.get(0));
+            assertNull(sums.put(id, toLong(row.get(1))));
+        }
+        assertEquals(25, sums.size());
+        for (long i = 5; i < 30; i++) {
+            assertEquals(Long.valueOf(i), sums.get(i));
+        }
+    }
+
+    @Test
+    public void testGroupByNonPkFromSnapshot() throws Exception {
+        Map<String, Long> counts = new TreeMap<String, Long>();
+        Map<String, Long> sums = new TreeMap<String, Long>();
+        for (List<Object> row : readAggregateSnapshot("SELECT GRP, COUNT(*), SUM(VAL) FROM SNAPSHOT_AGG GROUP BY GRP")) {
+            // A group may be returned by each split reading rows of it
+            String group = (String)row.get(0);
+            counts.put(group, toLong(counts.get(group)) + toLong(row.get(1)));
+            sums.put(group, toLong(sums.get(group)) + toLong(row.get(2)));
+        }
+        assertEquals(3, counts.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Long.valueOf(10), counts.get("g" + i));
+            // i + (i + 3) + ... + (i + 27)
+            assertEquals(Long.valueOf(10 * i + 135), sums.get("g" + i));
+        }
+    }
+
+    @Test
+    public void testOrderByLimitFromSnapshot() throws Exception {
+        List<Long> ids = Lists.newArrayList();
+        for (List<Object> row : readAggregateSnapshot("SELECT ID FROM SNAPSHOT_AGG ORDER BY VAL DESC LIMIT 5")) {
+            ids.add(toLong(row.get(0)));
+        }
+        // Each region returns no more than its own top rows
+        assertTrue(ids.size() <= 15);
+        Collections.sort(ids, Collections.reverseOrder());
+        assertEquals(Arrays.asList(29L, 28L, 27L, 26L, 25L), ids.subList(0, 5));
+    }
+
+    @Test
+    public void testReadFromSnapshot() throws Exception {
+        Connection conn = DriverManager.getConnection(url);
+        try {
+            conn.createStatement().execute("CREATE TABLE SNAPSHOT_INPUT (ID INTEGER NOT NULL PRIMARY KEY, NAME VARCHAR) "
+                    + "SPLIT ON (10, 20)");
+            upsertRows(conn, 0, 30);
+        } finally {
+            conn.close();
+        }
+        HBaseAdmin admin = hbaseTestUtil.getHBaseAdmin();
+        admin.flush("SNAPSHOT_INPUT");
+        admin.snapshot("SNAPSHOT_INPUT_SNAPSHOT", "SNAPSHOT_INPUT");
+
+        // Rows written after the snapshot must not be read
+        conn = DriverManager.getConnection(url);
+        try {
+            upsertRows(conn, 30, 40);
+        } finally {
+            conn.close();
+        }
+
+        Job job = Job.getInstance(hbaseTestUtil.getConfiguration());
+        PhoenixMapReduceUtil.setInput(job, NameWritable.class, "SNAPSHOT_INPUT", "ID % 2 = 0", "ID", "NAME");
+        PhoenixMapReduceUtil.setInputSnapshot(job, "SNAPSHOT_INPUT_SNAPSHOT",
+                hbaseTestUtil.getDataTestDirOnTestFS("snapshot-restore"));
+
+        Map<Integer, String> rows = new TreeMap<Integer, String>();
+        PhoenixInputFormat<NameWritable> inputFormat = new PhoenixInputFormat<NameWritable>();
+        List<InputSplit> splits = inputFormat.getSplits(job);
+        assertTrue(splits.size() >= 3);
+        for (InputSplit split : splits) {
+            TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID());
+            RecordReader<NullWritable, NameWritable> reader = inputFormat.createRecordReader(split, context);
+            try {
+                reader.initialize(split, context);
+                while (reader.nextKeyValue()) {
+                    NameWritable value = reader.getCurrentValue();
+                    rows.put(value.id, value.name);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        assertEquals(15, rows.size());
+        for (int i = 0; i < 30; i += 2) {
+            assertEquals("name" + i, rows.get(i));
+        }
+    }
+
+    private static void upsertRows(Connection conn, int from, int to) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("UPSERT INTO SNAPSHOT_INPUT VALUES (?, ?)");
+        for (int i = from; i < to; i++) {
+            stmt.setInt(1, i);
+            stmt.setString(2, "name" + i);
+            stmt.execute();
+        }
+        conn.commit();
+    }
+
+    public static class RowWritable implements DBWritable {
+        private List<Object> values;
+
+        @Override
+        public void readFields(ResultSet resultSet) throws SQLException {
+            int columnCount = resultSet.getMetaData().getColumnCount();
+            values = Lists.newArrayListWithExpectedSize(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                values.add(resultSet.getObject(i));
+            }
+        }
+
+        @Override
+        public void write(PreparedStatement statement) throws SQLException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static class NameWritable implements DBWritable {
+        private int id;
+        private String name;
+
+        @Override
+        public void readFields(ResultSet resultSet) throws SQLException {
+            id = resultSet.getInt("ID");
+            name = resultSet.getString("NAME");
+        }
+
+        @Override
+        public void write(PreparedStatement statement) throws SQLException {
+            statement.setInt(1, id);
+            statement.setString(2, name);
+        }
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+        try {
+            PhoenixDriver.INSTANCE.close();
+        } finally {
+            try {
+                DriverManager.deregisterDriver(PhoenixDriver.INSTANCE);
+            } finally {
+                hbaseTestUtil.shutdownMiniCluster();
+            }
+        }
+    }
+}
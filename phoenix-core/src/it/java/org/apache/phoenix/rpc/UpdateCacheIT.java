@@ -26,6 +26,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,6 +45,7 @@ import org.apache.phoenix.end2end.Shadower;
 import org.apache.phoenix.jdbc.PhoenixEmbeddedDriver;
 import org.apache.phoenix.query.ConnectionQueryServices;
 import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.MetaDataClient;
 import org.apache.phoenix.schema.PName;
 import org.apache.phoenix.schema.types.PVarchar;
@@ -59,7 +61,7 @@ import com.google.common.collect.Maps;
 
 /**
  * Verifies the number of rpcs calls from {@link MetaDataClient} updateCache() 
- * for transactional and non-transactional tables.
+ * for transactional and non-transactional tables, and with an update cache frequency.
  */
 public class UpdateCacheIT extends BaseHBaseManagedTimeIT {
 	
@@ -153,4 +155,43 @@ public class UpdateCacheIT extends BaseHBaseManagedTimeIT {
         	conn.close();
         }
 	}
+
+	@Test
+	public void testUpdateCacheFrequency() throws Exception {
+		String fullTableName = INDEX_DATA_SCHEMA + QueryConstants.NAME_SEPARATOR + MUTABLE_INDEX_DATA_TABLE;
+		String selectSql = "SELECT * FROM "+fullTableName;
+		long updateCacheFrequency = 5000;
+		// use a spyed ConnectionQueryServices so we can verify calls to getTable
+		ConnectionQueryServices connectionQueryServices = Mockito.spy(driver.getConnectionQueryServices(getUrl(), PropertiesUtil.deepCopy(TEST_PROPERTIES)));
+		Properties props = new Properties();
+		props.putAll(PhoenixEmbeddedDriver.DEFFAULT_PROPS.asMap());
+		props.setProperty(QueryServices.DEFAULT_UPDATE_CACHE_FREQUENCY_ATTRIB, Long.toString(updateCacheFrequency));
+		Connection conn = connectionQueryServices.connect(getUrl(), props);
+		try {
+			ResultSet rs = conn.createStatement().executeQuery(selectSql);
+			assertFalse(rs.next());
+			reset(connectionQueryServices);
+
+			// within the update cache frequency the cached table is used without an rpc
+			for (int i = 0; i < 3; i++) {
+				rs = conn.createStatement().executeQuery(selectSql);
+				assertFalse(rs.next());
+			}
+			verify(connectionQueryServices, never()).getTable((PName)isNull(), eq(PVarchar.INSTANCE.toBytes(INDEX_DATA_SCHEMA)), eq(PVarchar.INSTANCE.toBytes(MUTABLE_INDEX_DATA_TABLE)), anyLong(), anyLong());
+
+			// once the frequency has elapsed the next statement checks the server again
+			Thread.sleep(updateCacheFrequency + 500);
+			rs = conn.createStatement().executeQuery(selectSql);
+			assertFalse(rs.next());
+			verify(connectionQueryServices, times(1)).getTable((PName)isNull(), eq(PVarchar.INSTANCE.toBytes(INDEX_DATA_SCHEMA)), eq(PVarchar.INSTANCE.toBytes(MUTABLE_INDEX_DATA_TABLE)), anyLong(), anyLong());
+
+			// and the confirmed table is trusted again for another interval
+			rs = conn.createStatement().executeQuery(selectSql);
+			assertFalse(rs.next());
+			verify(connectionQueryServices, times(1)).getTable((PName)isNull(), eq(PVarchar.INSTANCE.toBytes(INDEX_DATA_SCHEMA)), eq(PVarchar.INSTANCE.toBytes(MUTABLE_INDEX_DATA_TABLE)), anyLong(), anyLong());
+		}
+		finally {
+			conn.close();
+		}
+	}
 }
@@ -414,7 +414,8 @@ oneStatement returns [BindableStatement ret]
 finally{ contextStack.pop(); }
     
 explain_node returns [BindableStatement ret]
-    :   EXPLAIN q=oneStatement {$ret=factory.explain(q);}
+    :   EXPLAIN (a=NAME { if (!"analyze".equalsIgnoreCase(a.getText())) { throwRecognitionException(a); } })?
+        q=oneStatement {$ret=factory.explain(q, a != null);}
     ;
 
 // Parse a create table statement.
@@ -22,23 +22,30 @@ import static org.apache.phoenix.query.QueryServices.MAX_MEMORY_SIZE_ATTRIB;
 import static org.apache.phoenix.query.QueryServices.MAX_MEMORY_WAIT_MS_ATTRIB;
 import static org.apache.phoenix.query.QueryServices.MAX_TENANT_MEMORY_PERC_ATTRIB;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.memory.ChildMemoryManager;
 import org.apache.phoenix.memory.GlobalMemoryManager;
+import org.apache.phoenix.metrics.PhoenixServerMetricsSource;
+import org.apache.phoenix.coprocessor.generated.PTableProtos;
 import org.apache.phoenix.parse.PFunction;
 import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.PMetaDataEntity;
 import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableImpl;
 import org.apache.phoenix.util.SizedUtil;
 
+import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.Weigher;
@@ -60,6 +67,9 @@ public class GlobalCache extends TenantCacheImpl {
     private final ConcurrentMap<ImmutableBytesWritable,TenantCache> perTenantCacheMap = new ConcurrentHashMap<ImmutableBytesWritable,TenantCache>();
     // Cache for lastest PTable for a given Phoenix table
     private Cache<ImmutableBytesPtr,PMetaDataEntity> metaDataCache;
+    // Cache of the serialized form of PTables handed out by the metaDataCache. Keyed by
+    // PTable identity, so that an entry goes away once its table is no longer referenced
+    private volatile Cache<PTable,PTableProtos.PTable> serializedTableCache;
     
     public void clearTenantCache() {
         perTenantCacheMap.clear();
@@ -97,6 +107,50 @@ public class GlobalCache extends TenantCacheImpl {
         return result;
     }
 
+    private Cache<PTable,PTableProtos.PTable> getSerializedTableCache() {
+        Cache<PTable,PTableProtos.PTable> result = serializedTableCache;
+        if (result == null) {
+            synchronized(this) {
+                result = serializedTableCache;
+                if(result == null) {
+                    long maxSize = config.getLong(QueryServices.MAX_SERVER_SERIALIZED_METADATA_CACHE_SIZE_ATTRIB,
+                            QueryServicesOptions.DEFAULT_MAX_SERVER_SERIALIZED_METADATA_CACHE_SIZE);
+                    serializedTableCache = result = CacheBuilder.newBuilder()
+                            .weakKeys()
+                            .maximumWeight(maxSize)
+                            .weigher(new Weigher<PTable, PTableProtos.PTable>() {
+                                @Override
+                                public int weigh(PTable table, PTableProtos.PTable proto) {
+                                    return proto.getSerializedSize();
+                                }
+                            })
+                            .build();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the protobuf form of a table, serializing it only the first time a given
+     * PTable instance is requested. Concurrent requests for the same instance wait
+     * on the single serialization in progress rather than each doing their own.
+     * @param table the immutable table to serialize
+     * @return the serialized table
+     */
+    public PTableProtos.PTable getSerializedTable(final PTable table) {
+        try {
+            return getSerializedTableCache().get(table, new Callable<PTableProtos.PTable>() {
+                @Override
+                public PTableProtos.PTable call() throws Exception {
+                    return PTableImpl.toProto(table);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
     public static GlobalCache getInstance(RegionCoprocessorEnvironment env) {
         GlobalCache result = INSTANCE;
         if (result == null) {
@@ -135,6 +189,7 @@ public class GlobalCache extends TenantCacheImpl {
                                       config.getInt(MAX_MEMORY_WAIT_MS_ATTRIB, QueryServicesOptions.DEFAULT_MAX_MEMORY_WAIT_MS)),
               config.getInt(QueryServices.MAX_SERVER_CACHE_TIME_TO_LIVE_MS_ATTRIB, QueryServicesOptions.DEFAULT_MAX_SERVER_CACHE_TIME_TO_LIVE_MS));
         this.config = config;
+        PhoenixServerMetricsSource.getInstance().setMemoryManager(getMemoryManager());
     }
     
     public Configuration getConfig() {
@@ -151,7 +206,8 @@ public class GlobalCache extends TenantCacheImpl {
         if (tenantCache == null) {
             int maxTenantMemoryPerc = config.getInt(MAX_TENANT_MEMORY_PERC_ATTRIB, QueryServicesOptions.DEFAULT_MAX_TENANT_MEMORY_PERC);
             int maxServerCacheTimeToLive = config.getInt(QueryServices.MAX_SERVER_CACHE_TIME_TO_LIVE_MS_ATTRIB, QueryServicesOptions.DEFAULT_MAX_SERVER_CACHE_TIME_TO_LIVE_MS);
-            TenantCacheImpl newTenantCache = new TenantCacheImpl(new ChildMemoryManager(getMemoryManager(), maxTenantMemoryPerc), maxServerCacheTimeToLive);
+            TenantCacheImpl newTenantCache = new TenantCacheImpl(new ChildMemoryManager(getMemoryManager(), maxTenantMemoryPerc,
+                    "tenant " + Bytes.toStringBinary(tenantId.get(), tenantId.getOffset(), tenantId.getLength())), maxServerCacheTimeToLive);
             tenantCache = perTenantCacheMap.putIfAbsent(tenantId, newTenantCache);
             if (tenantCache == null) {
                 tenantCache = newTenantCache;
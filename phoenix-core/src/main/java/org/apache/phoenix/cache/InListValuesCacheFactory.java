@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.sql.SQLException;
+
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.phoenix.coprocessor.ServerCachingProtocol.ServerCacheFactory;
+import org.apache.phoenix.expression.InListExpression;
+import org.apache.phoenix.memory.MemoryManager.MemoryChunk;
+import org.apache.phoenix.util.SizedUtil;
+
+public class InListValuesCacheFactory implements ServerCacheFactory {
+    public InListValuesCacheFactory() {
+    }
+
+    @Override
+    public void readFields(DataInput arg0) throws IOException {
+    }
+
+    @Override
+    public void write(DataOutput arg0) throws IOException {
+    }
+
+    @Override
+    public Closeable newCache (ImmutableBytesWritable cachePtr, final MemoryChunk chunk) throws SQLException {
+        final InListExpression values = new InListExpression();
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(cachePtr.get(), cachePtr.getOffset(), cachePtr.getLength()));
+            try {
+                values.readValues(input);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) { // Not possible with ByteArrayInputStream
+            throw new RuntimeException(e);
+        }
+        long estimatedSize = SizedUtil.sizeOfMap(values.getValuesCount(), SizedUtil.IMMUTABLE_BYTES_PTR_SIZE, 0) + cachePtr.getLength();
+        chunk.resize(estimatedSize);
+        return new InListValuesCache() {
+
+            @Override
+            public void close() throws IOException {
+                chunk.close();
+            }
+
+            @Override
+            public InListExpression getValues() {
+                return values;
+            }
+        };
+    }
+}
@@ -20,15 +20,18 @@ package org.apache.phoenix.cache;
 import java.io.Closeable;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 
 import com.google.common.cache.*;
+import com.google.common.collect.MapMaker;
 import org.apache.phoenix.coprocessor.ServerCachingProtocol.ServerCacheFactory;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.memory.MemoryManager;
 import org.apache.phoenix.memory.MemoryManager.MemoryChunk;
+import org.apache.phoenix.metrics.PhoenixServerMetricsSource;
 import org.apache.phoenix.util.Closeables;
 
 /**
@@ -43,6 +46,8 @@ public class TenantCacheImpl implements TenantCache {
     private final int maxTimeToLiveMs;
     private final MemoryManager memoryManager;
     private volatile Cache<ImmutableBytesPtr, Closeable> serverCaches;
+    // Size of each cache, by identity, so that it can be taken off the metrics when evicted
+    private final ConcurrentMap<Closeable, Long> serverCacheSizes = new MapMaker().weakKeys().makeMap();
 
     public TenantCacheImpl(MemoryManager memoryManager, int maxTimeToLiveMs) {
         this.memoryManager = memoryManager;
@@ -64,6 +69,10 @@ public class TenantCacheImpl implements TenantCache {
                         .removalListener(new RemovalListener<ImmutableBytesPtr, Closeable>(){
                             @Override
                             public void onRemoval(RemovalNotification<ImmutableBytesPtr, Closeable> notification) {
+                                Long size = serverCacheSizes.remove(notification.getValue());
+                                if (size != null) {
+                                    PhoenixServerMetricsSource.getInstance().updateHashCacheBytes(-size);
+                                }
                                 Closeables.closeAllQuietly(Collections.singletonList(notification.getValue()));
                             }
                         })
@@ -85,6 +94,8 @@ public class TenantCacheImpl implements TenantCache {
         boolean success = false;
         try {
             Closeable element = cacheFactory.newCache(cachePtr, chunk);
+            serverCacheSizes.put(element, (long)cachePtr.getLength());
+            PhoenixServerMetricsSource.getInstance().updateHashCacheBytes(cachePtr.getLength());
             getServerCaches().put(cacheId, element);
             success = true;
             return element;
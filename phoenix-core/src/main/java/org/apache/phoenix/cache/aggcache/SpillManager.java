@@ -36,6 +36,7 @@ import org.apache.phoenix.expression.aggregator.Aggregator;
 import org.apache.phoenix.expression.aggregator.ServerAggregators;
 import org.apache.phoenix.expression.function.SingleAggregateFunction;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.metrics.PhoenixServerMetricsSource;
 import org.apache.phoenix.query.QueryConstants;
 import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.KeyValueSchema;
@@ -263,6 +264,7 @@ public class SpillManager implements Closeable {
         ImmutableBytesPtr keyPtr = new ImmutableBytesPtr(key);
         byte[] data = serialize(keyPtr, value, aggregators);
         spillMap.put(keyPtr, data);
+        PhoenixServerMetricsSource.getInstance().incrSpillBytes(data.length);
     }
 
     /**
@@ -25,17 +25,23 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.memory.ChildMemoryManager;
+import org.apache.phoenix.memory.MemoryManager;
 import org.apache.phoenix.monitoring.OverAllQueryMetrics;
 import org.apache.phoenix.monitoring.ReadMetricQueue;
+import org.apache.phoenix.monitoring.RuntimeStatistics;
 import org.apache.phoenix.parse.SelectStatement;
+import org.apache.phoenix.query.ConnectionQueryServices;
 import org.apache.phoenix.query.QueryConstants;
 import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.MetaDataClient;
 import org.apache.phoenix.schema.PColumn;
 import org.apache.phoenix.schema.PTable;
@@ -82,6 +88,9 @@ public class StatementContext {
     private Map<SelectStatement, Object> subqueryResults;
     private final ReadMetricQueue readMetricsQueue;
     private final OverAllQueryMetrics overAllQueryMetrics;
+    private volatile MemoryManager memoryManager;
+    private long executeStartTime = System.nanoTime();
+    private static final AtomicLong QUERY_ID_GENERATOR = new AtomicLong();
     
     public StatementContext(PhoenixStatement statement) {
         this(statement, new Scan());
@@ -212,6 +221,29 @@ public class StatementContext {
         this.currentTable = table;
     }
 
+    /**
+     * @return the physical name of the table the statement runs against, or null if
+     * it does not run against a table. Used to record per table metrics.
+     */
+    public String getPhysicalTableName() {
+        if (currentTable == null || currentTable.getTable() == null) {
+            return null;
+        }
+        return currentTable.getTable().getPhysicalName().getString();
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which execution of the statement started,
+     * from which the latency of its first and last row are measured
+     */
+    public long getExecuteStartTime() {
+        return executeStartTime;
+    }
+
+    public void setExecuteStartTime(long executeStartTime) {
+        this.executeStartTime = executeStartTime;
+    }
+
     public AggregationManager getAggregationManager() {
         return aggregates;
     }
@@ -303,4 +335,36 @@ public class StatementContext {
         return overAllQueryMetrics;
     }
     
+    /**
+     * @return the statistics to collect while running the query for EXPLAIN ANALYZE,
+     * or null if the query is not being analyzed
+     */
+    public RuntimeStatistics getRuntimeStatistics() {
+        return statement.getRuntimeStatistics();
+    }
+    
+    /**
+     * Get the memory manager through which memory for this query is allocated. Each
+     * query gets its own named share of the client memory pool so that its usage and
+     * time spent waiting for memory can be told apart from that of other queries.
+     */
+    public MemoryManager getMemoryManager() {
+        MemoryManager memoryManager = this.memoryManager;
+        if (memoryManager == null) {
+            synchronized (this) {
+                memoryManager = this.memoryManager;
+                if (memoryManager == null) {
+                    ConnectionQueryServices services = getConnection().getQueryServices();
+                    int maxQueryMemoryPerc = services.getProps().getInt(QueryServices.MAX_QUERY_MEMORY_PERC_ATTRIB, QueryServicesOptions.DEFAULT_MAX_QUERY_MEMORY_PERC);
+                    String name = "query" + QUERY_ID_GENERATOR.incrementAndGet();
+                    if (currentTable != null) {
+                        name += " on " + currentTable.getTable().getName().getString();
+                    }
+                    this.memoryManager = memoryManager = new ChildMemoryManager(services.getMemoryManager(), maxQueryMemoryPerc, name);
+                }
+            }
+        }
+        return memoryManager;
+    }
+    
 }
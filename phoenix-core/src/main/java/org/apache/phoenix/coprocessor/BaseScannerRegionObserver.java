@@ -41,11 +41,18 @@ import org.apache.hadoop.hbase.regionserver.ScannerContext;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.htrace.Span;
 import org.apache.htrace.Trace;
+import org.apache.phoenix.cache.GlobalCache;
+import org.apache.phoenix.cache.InListValuesCache;
+import org.apache.phoenix.cache.TenantCache;
 import org.apache.phoenix.execute.TupleProjector;
 import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.InListExpression;
 import org.apache.phoenix.expression.KeyValueColumnExpression;
 import org.apache.phoenix.hbase.index.covered.update.ColumnReference;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.index.IndexMaintainer;
+import org.apache.phoenix.metrics.PhoenixServerMetricsSource;
+import org.apache.phoenix.monitoring.OperatorStatistics;
 import org.apache.phoenix.query.QueryConstants;
 import org.apache.phoenix.schema.KeyValueSchema;
 import org.apache.phoenix.schema.StaleRegionBoundaryCacheException;
@@ -89,6 +96,8 @@ abstract public class BaseScannerRegionObserver extends BaseRegionObserver {
     public static final String GUIDEPOST_WIDTH_BYTES = "_GUIDEPOST_WIDTH_BYTES";
     public static final String GUIDEPOST_PER_REGION = "_GUIDEPOST_PER_REGION";
     public static final String UPGRADE_DESC_ROW_KEY = "_UPGRADE_DESC_ROW_KEY";
+    public static final String IN_LIST_SERVER_CACHE = "_InListServerCache";
+    public static final String RUNTIME_STATISTICS = "_RuntimeStats";
     
     /**
      * Attribute name used to pass custom annotations in Scans and Mutations (later). Custom annotations
@@ -137,6 +146,27 @@ abstract public class BaseScannerRegionObserver extends BaseRegionObserver {
         }
     }
 
+    /**
+     * Replaces the values of IN lists that were sent through the server cache
+     * instead of being serialized with the filter.
+     */
+    private static void resolveInListValues(RegionCoprocessorEnvironment env, Scan scan) throws DoNotRetryIOException {
+        TenantCache cache = GlobalCache.getTenantCache(env, ScanUtil.getTenantId(scan));
+        for (InListExpression inList : ScanUtil.getInListExpressions(scan)) {
+            if (inList.isValuesResolved()) {
+                continue;
+            }
+            ImmutableBytesPtr cacheId = new ImmutableBytesPtr(inList.getValuesCacheId());
+            InListValuesCache valuesCache = (InListValuesCache)cache.getServerCache(cacheId);
+            if (valuesCache == null) {
+                throw new DoNotRetryIOException("Could not find IN list values for cacheId: "
+                        + Bytes.toStringBinary(cacheId.get(), cacheId.getOffset(), cacheId.getLength())
+                        + ". The cache might have expired and have been removed.");
+            }
+            inList.resolveValues(valuesCache.getValues());
+        }
+    }
+
     abstract protected boolean isRegionObserverFor(Scan scan);
     abstract protected RegionScanner doPostScannerOpen(ObserverContext<RegionCoprocessorEnvironment> c, final Scan scan, final RegionScanner s) throws Throwable;
 
@@ -145,6 +175,9 @@ abstract public class BaseScannerRegionObserver extends BaseRegionObserver {
         final Scan scan, final RegionScanner s) throws IOException {
         if (isRegionObserverFor(scan)) {
             throwIfScanOutOfRegion(scan, c.getEnvironment().getRegion());
+            if (scan.getAttribute(IN_LIST_SERVER_CACHE) != null) {
+                resolveInListValues(c.getEnvironment(), scan);
+            }
             // Muck with the start/stop row of the scan and set as reversed at the
             // last possible moment. You need to swap the start/stop and make the
             // start exclusive and the stop inclusive.
@@ -176,8 +209,27 @@ abstract public class BaseScannerRegionObserver extends BaseRegionObserver {
             final Span savedSpan = Trace.currentSpan();
             final Span child = Trace.startSpan(SCANNER_OPENED_TRACE_INFO, savedSpan).getSpan();
             try {
-                RegionScanner scanner = doPostScannerOpen(c, scan, s);
-                scanner = new DelegateRegionScanner(scanner) {
+                // Count the rows read and returned by this scan for the region server metrics
+                // and, if the query is run by EXPLAIN ANALYZE, for the client as well
+                final RuntimeStatisticsRegionScanner.Statistics statistics = new RuntimeStatisticsRegionScanner.Statistics();
+                final boolean isAnalyze = scan.getAttribute(RUNTIME_STATISTICS) != null;
+                final String tableName = c.getEnvironment().getRegion().getTableDesc().getNameAsString();
+                long startTime = System.nanoTime();
+                long startCpuTime = isAnalyze ? OperatorStatistics.currentThreadCpuTime() : 0;
+                RegionScanner scanner = doPostScannerOpen(c, scan, statistics.countRows(s, isAnalyze));
+                if (isAnalyze) {
+                    statistics.addTime(System.nanoTime() - startTime, OperatorStatistics.currentThreadCpuTime() - startCpuTime);
+                    // Counts the rows returned itself, leaving out the row holding the statistics
+                    scanner = new RuntimeStatisticsRegionScanner(scanner, statistics, scan.getStartRow());
+                }
+                scanner = new RuntimeStatisticsRegionScanner.CountingRegionScanner(scanner) {
+                    @Override
+                    protected void count(List<Cell> result, int offset) {
+                        if (!isAnalyze && result.size() > offset) {
+                            statistics.addReturnedRow();
+                        }
+                    }
+
                     // This isn't very obvious but close() could be called in a thread
                     // that is different from the thread that created the scanner.
                     @Override
@@ -185,6 +237,8 @@ abstract public class BaseScannerRegionObserver extends BaseRegionObserver {
                         try {
                             delegate.close();
                         } finally {
+                            PhoenixServerMetricsSource.getInstance().updateScan(tableName,
+                                    statistics.getRows(), statistics.getReturnedRows());
                             if (child != null) {
                                 child.stop();
                             }
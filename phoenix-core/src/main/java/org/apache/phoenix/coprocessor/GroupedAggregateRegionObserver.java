@@ -62,6 +62,7 @@ import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
 import org.apache.phoenix.index.IndexMaintainer;
 import org.apache.phoenix.join.HashJoinInfo;
 import org.apache.phoenix.memory.MemoryManager.MemoryChunk;
+import org.apache.phoenix.metrics.PhoenixServerMetricsSource;
 import org.apache.phoenix.query.QueryConstants;
 import org.apache.phoenix.schema.SortOrder;
 import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
@@ -197,7 +198,7 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver {
 
     }
 
-    private List<Expression> deserializeGroupByExpressions(byte[] expressionBytes, int offset)
+    public static List<Expression> deserializeGroupByExpressions(byte[] expressionBytes, int offset)
             throws IOException {
         List<Expression> expressions = new ArrayList<Expression>(3);
         ByteArrayInputStream stream = new ByteArrayInputStream(expressionBytes);
@@ -442,6 +443,7 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver {
                 region.closeRegionOperation();
             }
 
+            PhoenixServerMetricsSource.getInstance().incrAggregationGroups(groupByCache.size());
             RegionScanner regionScanner = groupByCache.getScanner(scanner);
 
             // Do not sort here, but sort back on the client instead
@@ -540,6 +542,7 @@ public class GroupedAggregateRegionObserver extends BaseScannerRegionObserver {
                                 currentKey.getLength(), SINGLE_COLUMN_FAMILY, SINGLE_COLUMN,
                                 AGG_TIMESTAMP, value, 0, value.length);
                     results.add(keyValue);
+                    PhoenixServerMetricsSource.getInstance().incrAggregationGroups(1);
                     if (logger.isDebugEnabled()) {
                         logger.debug(LogUtil.addCustomAnnotations("Adding new aggregate row: "
                                 + keyValue
@@ -448,7 +448,7 @@ public class MetaDataEndpointImpl extends MetaDataProtocol implements Coprocesso
             builder.setMutationTime(currentTime);
 
             if (table.getTimeStamp() != tableTimeStamp) {
-                builder.setTable(PTableImpl.toProto(table));
+                builder.setTable(GlobalCache.getInstance(this.env).getSerializedTable(table));
             }
             done.run(builder.build());
             return;
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.monitoring.OperatorStatistics;
+
+/**
+ * Region scanner wrapped around the scanner of a Phoenix scan run by EXPLAIN ANALYZE. It
+ * returns the number of rows and bytes read from the region, along with the time spent
+ * by the coprocessor, to the client in an extra row after the last row of the scan. The
+ * client removes this row again in {@link org.apache.phoenix.iterate.ScanningResultIterator}.
+ */
+public class RuntimeStatisticsRegionScanner extends DelegateRegionScanner {
+    private static final byte[] STATISTICS_FAMILY = Bytes.toBytes("_RuntimeStats");
+    private static final byte[] STATISTICS_QUALIFIER = Bytes.toBytes("_RuntimeStats");
+    
+    /**
+     * Counters for a single scan. The scanner is never used by more than one thread at a time.
+     */
+    public static class Statistics {
+        private long rows;
+        private long bytes;
+        private long returnedRows;
+        private long timeNanos;
+        private long cpuTimeNanos;
+        
+        public void addTime(long wallNanos, long cpuNanos) {
+            timeNanos += wallNanos;
+            cpuTimeNanos += cpuNanos;
+        }
+        
+        public long getRows() {
+            return rows;
+        }
+        
+        public long getReturnedRows() {
+            return returnedRows;
+        }
+        
+        void addReturnedRow() {
+            returnedRows++;
+        }
+        
+        /**
+         * Wrap the scanner over the data of the region so that the rows read from it are counted.
+         * @param countBytes whether to count the bytes read as well, which is only needed by
+         *  EXPLAIN ANALYZE as it means going over every cell
+         */
+        public RegionScanner countRows(RegionScanner scanner, boolean countBytes) {
+            if (!countBytes) {
+                return new CountingRegionScanner(scanner) {
+                    @Override
+                    protected void count(List<Cell> result, int offset) {
+                        if (result.size() > offset) {
+                            rows++;
+                        }
+                    }
+                };
+            }
+            return new CountingRegionScanner(scanner) {
+                @Override
+                protected void count(List<Cell> result, int offset) {
+                    if (result.size() > offset) {
+                        rows++;
+                        for (int i = offset; i < result.size(); i++) {
+                            bytes += KeyValueUtil.length(result.get(i));
+                        }
+                    }
+                }
+            };
+        }
+        
+        private byte[] toBytes() {
+            byte[] value = new byte[4 * Bytes.SIZEOF_LONG];
+            int offset = Bytes.putLong(value, 0, rows);
+            offset = Bytes.putLong(value, offset, bytes);
+            offset = Bytes.putLong(value, offset, timeNanos);
+            Bytes.putLong(value, offset, cpuTimeNanos);
+            return value;
+        }
+    }
+    
+    /**
+     * Check whether the result is the row holding the statistics of a scan.
+     */
+    public static boolean isStatisticsResult(Result result) {
+        if (result.size() != 1) {
+            return false;
+        }
+        Cell cell = result.rawCells()[0];
+        return CellUtil.matchingFamily(cell, STATISTICS_FAMILY) && CellUtil.matchingQualifier(cell, STATISTICS_QUALIFIER);
+    }
+    
+    /**
+     * Add the statistics held by a result for which {@link #isStatisticsResult(Result)} is true.
+     */
+    public static void readStatistics(Result result, OperatorStatistics statistics) {
+        Cell cell = result.rawCells()[0];
+        byte[] value = cell.getValueArray();
+        int offset = cell.getValueOffset();
+        statistics.addServerStatistics(
+                Bytes.toLong(value, offset),
+                Bytes.toLong(value, offset + Bytes.SIZEOF_LONG),
+                Bytes.toLong(value, offset + 2 * Bytes.SIZEOF_LONG),
+                Bytes.toLong(value, offset + 3 * Bytes.SIZEOF_LONG));
+    }
+    
+    /**
+     * Scanner calling {@link #count(List, int)} with the cells added by each call to next.
+     */
+    static abstract class CountingRegionScanner extends DelegateRegionScanner {
+        CountingRegionScanner(RegionScanner scanner) {
+            super(scanner);
+        }
+        
+        protected abstract void count(List<Cell> result, int offset);
+
+        @Override
+        public boolean next(List<Cell> result, ScannerContext scannerContext) throws IOException {
+            int offset = result.size();
+            boolean hasMore = delegate.next(result, scannerContext);
+            count(result, offset);
+            return hasMore;
+        }
+
+        @Override
+        public boolean next(List<Cell> result) throws IOException {
+            int offset = result.size();
+            boolean hasMore = delegate.next(result);
+            count(result, offset);
+            return hasMore;
+        }
+
+        @Override
+        public boolean nextRaw(List<Cell> result, ScannerContext scannerContext) throws IOException {
+            int offset = result.size();
+            boolean hasMore = delegate.nextRaw(result, scannerContext);
+            count(result, offset);
+            return hasMore;
+        }
+
+        @Override
+        public boolean nextRaw(List<Cell> result) throws IOException {
+            int offset = result.size();
+            boolean hasMore = delegate.nextRaw(result);
+            count(result, offset);
+            return hasMore;
+        }
+    }
+    
+    private final Statistics statistics;
+    private final byte[] startRow;
+    private byte[] lastRow;
+    private boolean hasPendingStatistics;
+    private boolean isDone;
+
+    public RuntimeStatisticsRegionScanner(RegionScanner scanner, Statistics statistics, byte[] startRow) {
+        super(scanner);
+        this.statistics = statistics;
+        this.startRow = startRow;
+    }
+
+    @Override
+    public boolean next(List<Cell> result, ScannerContext scannerContext) throws IOException {
+        return next(result, scannerContext, false);
+    }
+
+    @Override
+    public boolean next(List<Cell> result) throws IOException {
+        return next(result, null, false);
+    }
+
+    @Override
+    public boolean nextRaw(List<Cell> result, ScannerContext scannerContext) throws IOException {
+        return next(result, scannerContext, true);
+    }
+
+    @Override
+    public boolean nextRaw(List<Cell> result) throws IOException {
+        return next(result, null, true);
+    }
+    
+    @Override
+    public boolean isFilterDone() throws IOException {
+        // Keep the scan going until the statistics have been returned
+        return isDone && delegate.isFilterDone();
+    }
+
+    private boolean next(List<Cell> result, ScannerContext scannerContext, boolean isRaw) throws IOException {
+        if (hasPendingStatistics) {
+            addStatistics(result);
+            return false;
+        }
+        if (isDone) {
+            return false;
+        }
+        int offset = result.size();
+        long startTime = System.nanoTime();
+        long startCpuTime = OperatorStatistics.currentThreadCpuTime();
+        boolean hasMore;
+        try {
+            if (isRaw) {
+                hasMore = scannerContext == null ? delegate.nextRaw(result) : delegate.nextRaw(result, scannerContext);
+            } else {
+                hasMore = scannerContext == null ? delegate.next(result) : delegate.next(result, scannerContext);
+            }
+        } finally {
+            statistics.addTime(System.nanoTime() - startTime, OperatorStatistics.currentThreadCpuTime() - startCpuTime);
+        }
+        if (result.size() > offset) {
+            statistics.returnedRows++;
+        }
+        if (!result.isEmpty()) {
+            lastRow = CellUtil.cloneRow(result.get(result.size() - 1));
+        }
+        if (!hasMore) {
+            if (result.isEmpty()) {
+                addStatistics(result);
+            } else {
+                // Return the statistics in their own row on the next call
+                hasPendingStatistics = true;
+                return true;
+            }
+        }
+        return hasMore;
+    }
+    
+    private void addStatistics(List<Cell> result) {
+        // Use the last row returned, if any, so that the client resumes from the right place if the scan is retried
+        byte[] row = lastRow == null ? startRow : lastRow;
+        result.add(new KeyValue(row, STATISTICS_FAMILY, STATISTICS_QUALIFIER, 0, statistics.toBytes()));
+        hasPendingStatistics = false;
+        isDone = true;
+    }
+}
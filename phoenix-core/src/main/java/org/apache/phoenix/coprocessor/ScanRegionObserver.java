@@ -51,6 +51,7 @@ import org.apache.phoenix.iterate.RegionScannerResultIterator;
 import org.apache.phoenix.iterate.ResultIterator;
 import org.apache.phoenix.join.HashJoinInfo;
 import org.apache.phoenix.memory.MemoryManager.MemoryChunk;
+import org.apache.phoenix.metrics.PhoenixServerMetricsSource;
 import org.apache.phoenix.schema.KeyValueSchema;
 import org.apache.phoenix.schema.KeyValueSchema.KeyValueSchemaBuilder;
 import org.apache.phoenix.schema.ValueBitSet;
@@ -241,6 +242,7 @@ public class ScanRegionObserver extends BaseScannerRegionObserver {
             // Now that the topN are cached, we can resize based on the real size
             long actualSize = iterator.getByteSize();
             chunk.resize(actualSize);
+            PhoenixServerMetricsSource.getInstance().incrSpillBytes(iterator.getSpilledByteSize());
         } catch (Throwable t) {
             ServerUtil.throwIOException(region.getRegionInfo().getRegionNameAsString(), t);
             return null;
@@ -33,6 +33,7 @@ import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.io.TimeRange;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.WritableUtils;
+import org.apache.htrace.Sampler;
 import org.apache.htrace.TraceScope;
 import org.apache.phoenix.compile.ExplainPlan;
 import org.apache.phoenix.compile.FromCompiler;
@@ -64,6 +65,7 @@ import org.apache.phoenix.schema.PTable;
 import org.apache.phoenix.schema.PTable.IndexType;
 import org.apache.phoenix.schema.PTableType;
 import org.apache.phoenix.schema.TableRef;
+import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.trace.TracingIterator;
 import org.apache.phoenix.trace.util.Tracing;
 import org.apache.phoenix.util.ByteUtil;
@@ -239,6 +241,10 @@ public abstract class BaseQueryPlan implements QueryPlan {
         ScanUtil.setTenantId(scan, tenantIdBytes);
         String customAnnotations = LogUtil.customAnnotationsToString(connection);
         ScanUtil.setCustomAnnotations(scan, customAnnotations == null ? null : customAnnotations.getBytes());
+        // Have the region servers return their statistics if the query is being run by EXPLAIN ANALYZE
+        if (context.getRuntimeStatistics() != null) {
+            scan.setAttribute(BaseScannerRegionObserver.RUNTIME_STATISTICS, PDataType.TRUE_BYTES);
+        }
         // Set local index related scan attributes. 
         if (table.getIndexType() == IndexType.LOCAL) {
             ScanUtil.setLocalIndex(scan);
@@ -290,10 +296,14 @@ public abstract class BaseQueryPlan implements QueryPlan {
         	LOG.debug(LogUtil.addCustomAnnotations("Iterator ready: " + iterator, connection));
         }
 
-        // wrap the iterator so we start/end tracing as we expect
+        // wrap the iterator so we start/end tracing as we expect. Ask the sampler first, as
+        // the plan steps of the description are only worth computing if the query is traced.
+        if (!Tracing.isSampled(context.getConnection(), statement)) {
+            return iterator;
+        }
         TraceScope scope =
                 Tracing.startNewSpan(context.getConnection(), "Creating basic query for "
-                        + getPlanSteps(iterator));
+                        + getPlanSteps(iterator), Sampler.ALWAYS);
         return (scope.getSpan() != null) ? new TracingIterator(scope, iterator) : iterator;
     }
 
@@ -429,7 +439,16 @@ public abstract class BaseQueryPlan implements QueryPlan {
         
         // Optimize here when getting explain plan, as queries don't get optimized until after compilation
         QueryPlan plan = context.getConnection().getQueryServices().getOptimizer().optimize(context.getStatement(), this);
-        return plan instanceof BaseQueryPlan ? new ExplainPlan(getPlanSteps(plan.iterator())) : plan.getExplainPlan();
+        if (!(plan instanceof BaseQueryPlan)) {
+            return plan.getExplainPlan();
+        }
+        // The iterator is only built to be described, so release anything it acquired, such as server caches
+        ResultIterator iterator = plan.iterator();
+        try {
+            return new ExplainPlan(getPlanSteps(iterator));
+        } finally {
+            iterator.close();
+        }
     }
 
     private List<String> getPlanSteps(ResultIterator iterator){
@@ -39,6 +39,7 @@ import org.apache.phoenix.expression.OrderByExpression;
 import org.apache.phoenix.expression.aggregator.Aggregators;
 import org.apache.phoenix.expression.aggregator.ServerAggregators;
 import org.apache.phoenix.iterate.AggregatingResultIterator;
+import org.apache.phoenix.iterate.AnalyzingResultIterator;
 import org.apache.phoenix.iterate.BaseGroupedAggregatingResultIterator;
 import org.apache.phoenix.iterate.DistinctAggregatingResultIterator;
 import org.apache.phoenix.iterate.FilterAggregatingResultIterator;
@@ -100,7 +101,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
                 for (Expression keyExpression : keyExpressions) {
                     keyExpressionOrderBy.add(new OrderByExpression(keyExpression, false, true));
                 }
-                iterator = new OrderedResultIterator(iterator, keyExpressionOrderBy, thresholdBytes, limit, projector.getEstimatedRowByteSize());
+                iterator = AnalyzingResultIterator.wrap(context, this, AnalyzingResultIterator.CLIENT_OPERATOR, new OrderedResultIterator(iterator, keyExpressionOrderBy, thresholdBytes, limit, projector.getEstimatedRowByteSize()));
             }
             aggResultIterator = new ClientGroupedAggregatingResultIterator(LookAheadResultIterator.wrap(iterator), serverAggregators, groupBy.getKeyExpressions());
             aggResultIterator = new GroupedAggregatingResultIterator(LookAheadResultIterator.wrap(aggResultIterator), clientAggregators);
@@ -139,7 +140,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
         }
         if (!groupBy.isEmpty()) {
             if (!groupBy.isOrderPreserving()) {
-                planSteps.add("CLIENT SORTED BY " + groupBy.getKeyExpressions().toString());
+                planSteps.add(annotateSortStep("CLIENT SORTED BY " + groupBy.getKeyExpressions().toString()));
             }
             planSteps.add("CLIENT AGGREGATE INTO DISTINCT ROWS BY " + groupBy.getExpressions().toString());
         } else {
@@ -171,7 +172,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
         return groupBy;
     }
     
-    private static class ClientGroupedAggregatingResultIterator extends BaseGroupedAggregatingResultIterator {
+    public static class ClientGroupedAggregatingResultIterator extends BaseGroupedAggregatingResultIterator {
         private final List<Expression> groupByExpressions;
 
         public ClientGroupedAggregatingResultIterator(PeekingResultIterator iterator, Aggregators aggregators, List<Expression> groupByExpressions) {
@@ -204,7 +205,7 @@ public class ClientAggregatePlan extends ClientProcessingPlan {
         }
     }
 
-    private static class ClientUngroupedAggregatingResultIterator extends BaseGroupedAggregatingResultIterator {
+    public static class ClientUngroupedAggregatingResultIterator extends BaseGroupedAggregatingResultIterator {
 
         public ClientUngroupedAggregatingResultIterator(PeekingResultIterator iterator, Aggregators aggregators) {
             super(iterator, aggregators);
@@ -24,8 +24,10 @@ import org.apache.phoenix.compile.RowProjector;
 import org.apache.phoenix.compile.StatementContext;
 import org.apache.phoenix.compile.OrderByCompiler.OrderBy;
 import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.iterate.AnalyzingResultIterator;
 import org.apache.phoenix.iterate.DefaultParallelScanGrouper;
 import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.monitoring.RuntimeStatistics;
 import org.apache.phoenix.parse.FilterableStatement;
 import org.apache.phoenix.schema.TableRef;
 
@@ -88,4 +90,13 @@ public abstract class ClientProcessingPlan extends DelegateQueryPlan {
     public ResultIterator iterator() throws SQLException {
         return iterator(DefaultParallelScanGrouper.getInstance());
     }
+
+    /**
+     * Append the statistics collected for the client side sort of this plan to its
+     * plan step if the query has been run by EXPLAIN ANALYZE.
+     */
+    protected String annotateSortStep(String planStep) {
+        RuntimeStatistics runtimeStatistics = context.getRuntimeStatistics();
+        return runtimeStatistics == null ? planStep : runtimeStatistics.annotate(this, AnalyzingResultIterator.CLIENT_OPERATOR, planStep);
+    }
 }
@@ -26,6 +26,7 @@ import org.apache.phoenix.compile.QueryPlan;
 import org.apache.phoenix.compile.RowProjector;
 import org.apache.phoenix.compile.StatementContext;
 import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.iterate.AnalyzingResultIterator;
 import org.apache.phoenix.iterate.FilterResultIterator;
 import org.apache.phoenix.iterate.LimitingResultIterator;
 import org.apache.phoenix.iterate.OrderedResultIterator;
@@ -59,7 +60,7 @@ public class ClientScanPlan extends ClientProcessingPlan {
         if (!orderBy.getOrderByExpressions().isEmpty()) { // TopN
             int thresholdBytes = context.getConnection().getQueryServices().getProps().getInt(
                     QueryServices.SPOOL_THRESHOLD_BYTES_ATTRIB, QueryServicesOptions.DEFAULT_SPOOL_THRESHOLD_BYTES);
-            iterator = new OrderedResultIterator(iterator, orderBy.getOrderByExpressions(), thresholdBytes, limit, projector.getEstimatedRowByteSize());
+            iterator = AnalyzingResultIterator.wrap(context, this, AnalyzingResultIterator.CLIENT_OPERATOR, new OrderedResultIterator(iterator, orderBy.getOrderByExpressions(), thresholdBytes, limit, projector.getEstimatedRowByteSize()));
         } else if (limit != null) {
             iterator = new LimitingResultIterator(iterator, limit);
         }
@@ -78,7 +79,7 @@ public class ClientScanPlan extends ClientProcessingPlan {
             planSteps.add("CLIENT FILTER BY " + where.toString());
         }
         if (!orderBy.getOrderByExpressions().isEmpty()) {
-            planSteps.add("CLIENT" + (limit == null ? "" : " TOP " + limit + " ROW"  + (limit == 1 ? "" : "S"))  + " SORTED BY " + orderBy.getOrderByExpressions().toString());
+            planSteps.add(annotateSortStep("CLIENT" + (limit == null ? "" : " TOP " + limit + " ROW"  + (limit == 1 ? "" : "S"))  + " SORTED BY " + orderBy.getOrderByExpressions().toString()));
         } else if (limit != null) {
             planSteps.add("CLIENT " + limit + " ROW LIMIT");
         }
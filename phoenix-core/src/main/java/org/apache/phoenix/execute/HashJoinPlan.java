@@ -49,14 +49,19 @@ import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.InListExpression;
 import org.apache.phoenix.expression.LiteralExpression;
 import org.apache.phoenix.expression.RowValueConstructorExpression;
+import org.apache.phoenix.iterate.AnalyzingResultIterator;
 import org.apache.phoenix.iterate.DefaultParallelScanGrouper;
+import org.apache.phoenix.iterate.DelegateResultIterator;
 import org.apache.phoenix.iterate.FilterResultIterator;
+import org.apache.phoenix.iterate.LookAheadResultIterator;
 import org.apache.phoenix.iterate.ParallelScanGrouper;
 import org.apache.phoenix.iterate.ResultIterator;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.job.JobManager.JobCallable;
 import org.apache.phoenix.join.HashCacheClient;
 import org.apache.phoenix.join.HashJoinInfo;
+import org.apache.phoenix.monitoring.OperatorStatistics;
+import org.apache.phoenix.monitoring.RuntimeStatistics;
 import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
 import org.apache.phoenix.parse.FilterableStatement;
 import org.apache.phoenix.parse.ParseNode;
@@ -78,6 +83,9 @@ import com.google.common.collect.Lists;
 
 public class HashJoinPlan extends DelegateQueryPlan {
     private static final Log LOG = LogFactory.getLog(HashJoinPlan.class);
+    // Operators of a hash join whose statistics are collected for EXPLAIN ANALYZE
+    private static final String BUILD_OPERATOR = "BUILD";
+    private static final String PROBE_OPERATOR = "PROBE";
 
     private final SelectStatement statement;
     private final HashJoinInfo joinInfo;
@@ -205,6 +213,10 @@ public class HashJoinPlan extends DelegateQueryPlan {
         if (statement.getInnerSelectStatement() != null && postFilter != null) {
             iterator = new FilterResultIterator(iterator, postFilter);
         }
+        // Record the rows the probe side produces by joining against the hash caches
+        if (getContext().getRuntimeStatistics() != null) {
+            iterator = AnalyzingResultIterator.wrap(getContext(), this, PROBE_OPERATOR, LookAheadResultIterator.wrap(iterator));
+        }
         
         return iterator;
     }
@@ -237,6 +249,10 @@ public class HashJoinPlan extends DelegateQueryPlan {
         if (joinInfo != null && joinInfo.getLimit() != null) {
             planSteps.add("    JOIN-SCANNER " + joinInfo.getLimit() + " ROW LIMIT");
         }
+        RuntimeStatistics runtimeStatistics = getContext().getRuntimeStatistics();
+        if (runtimeStatistics != null) {
+            planSteps.add(runtimeStatistics.annotate(this, PROBE_OPERATOR, "    JOIN PROBE"));
+        }
 
         return new ExplainPlan(planSteps);
     }
@@ -353,8 +369,29 @@ public class HashJoinPlan extends DelegateQueryPlan {
             }
             ServerCache cache = null;
             if (hashExpressions != null) {
-                cache = parent.hashClient.addHashCache(ranges, plan.iterator(), 
+                RuntimeStatistics runtimeStatistics = parent.delegate.getContext().getRuntimeStatistics();
+                final OperatorStatistics statistics = runtimeStatistics == null ? null : runtimeStatistics.getOperatorStatistics(this, BUILD_OPERATOR);
+                long startTime = System.nanoTime();
+                long startCpuTime = OperatorStatistics.currentThreadCpuTime();
+                ResultIterator iterator = plan.iterator();
+                if (statistics != null) {
+                    iterator = new DelegateResultIterator(iterator) {
+                        @Override
+                        public Tuple next() throws SQLException {
+                            Tuple tuple = super.next();
+                            if (tuple != null) {
+                                statistics.addRows(1);
+                            }
+                            return tuple;
+                        }
+                    };
+                }
+                cache = parent.hashClient.addHashCache(ranges, iterator, 
                         plan.getEstimatedSize(), hashExpressions, singleValueOnly, parent.delegate.getTableRef(), keyRangeRhsExpression, keyRangeRhsValues);
+                if (statistics != null) {
+                    statistics.addTime(System.nanoTime() - startTime, OperatorStatistics.currentThreadCpuTime() - startCpuTime);
+                    statistics.addBytes(cache.getSize());
+                }
                 long endTime = System.currentTimeMillis();
                 boolean isSet = parent.firstJobEndTime.compareAndSet(0, endTime);
                 if (!isSet && (endTime - parent.firstJobEndTime.get()) > parent.maxServerCacheTimeToLive) {
@@ -384,18 +421,22 @@ public class HashJoinPlan extends DelegateQueryPlan {
             }
         }
 
+        private String getJoinStep(HashJoinPlan parent) {
+            if (hashExpressions == null) {
+                return "SKIP-SCAN-JOIN TABLE " + index;
+            }
+            boolean earlyEvaluation = parent.joinInfo.earlyEvaluation()[index];
+            boolean skipMerge = parent.joinInfo.getSchemas()[index].getFieldCount() == 0;
+            return "PARALLEL " + parent.joinInfo.getJoinTypes()[index].toString().toUpperCase()
+                    + "-JOIN TABLE " + index + (earlyEvaluation ? "" : "(DELAYED EVALUATION)") + (skipMerge ? " (SKIP MERGE)" : "");
+        }
+
         @Override
         public List<String> getPreSteps(HashJoinPlan parent) throws SQLException {
             List<String> steps = Lists.newArrayList();
-            boolean earlyEvaluation = parent.joinInfo.earlyEvaluation()[index];
-            boolean skipMerge = parent.joinInfo.getSchemas()[index].getFieldCount() == 0;
-            if (hashExpressions != null) {
-                steps.add("    PARALLEL " + parent.joinInfo.getJoinTypes()[index].toString().toUpperCase()
-                        + "-JOIN TABLE " + index + (earlyEvaluation ? "" : "(DELAYED EVALUATION)") + (skipMerge ? " (SKIP MERGE)" : ""));
-            }
-            else {
-                steps.add("    SKIP-SCAN-JOIN TABLE " + index);
-            }
+            String joinStep = getJoinStep(parent);
+            RuntimeStatistics runtimeStatistics = parent.getContext().getRuntimeStatistics();
+            steps.add("    " + (runtimeStatistics == null ? joinStep : runtimeStatistics.annotate(this, BUILD_OPERATOR, joinStep)));
             for (String step : plan.getExplainPlan().getPlanSteps()) {
                 steps.add("        " + step);
             }
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_MUTATION_BATCH_SIZE;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_MUTATION_BYTES;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_MUTATION_COMMIT_TIME;
+import static org.apache.phoenix.monitoring.MetricType.COMMIT_LATENCY;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -50,11 +51,14 @@ import org.apache.phoenix.index.IndexMetaDataCacheClient;
 import org.apache.phoenix.index.PhoenixIndexCodec;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.monitoring.GlobalClientMetrics;
+import org.apache.phoenix.monitoring.LatencyHistograms;
 import org.apache.phoenix.monitoring.MutationMetricQueue;
 import org.apache.phoenix.monitoring.MutationMetricQueue.MutationMetric;
 import org.apache.phoenix.monitoring.MutationMetricQueue.NoOpMutationMetricsQueue;
 import org.apache.phoenix.monitoring.ReadMetricQueue;
 import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.phoenix.schema.IllegalDataException;
 import org.apache.phoenix.schema.MetaDataClient;
 import org.apache.phoenix.schema.PColumn;
@@ -99,6 +103,9 @@ public class MutationState implements SQLCloseable {
     private int numRows = 0;
     private final MutationMetricQueue mutationMetricQueue;
     private ReadMetricQueue readMetricQueue;
+    private final boolean sortOnCommit;
+    // Number of rows per table expected before the next commit, to size their maps up front
+    private int expectedRowCount;
     
     MutationState(long maxSize, PhoenixConnection connection,
             Map<TableRef, Map<ImmutableBytesPtr, RowMutationState>> mutations) {
@@ -108,6 +115,8 @@ public class MutationState implements SQLCloseable {
         boolean isMetricsEnabled = connection.isRequestLevelMetricsEnabled();
         this.mutationMetricQueue = isMetricsEnabled ? new MutationMetricQueue()
                 : NoOpMutationMetricsQueue.NO_OP_MUTATION_METRICS_QUEUE;
+        this.sortOnCommit = connection.getQueryServices().getProps().getBoolean(
+                QueryServices.SORT_MUTATIONS_ON_COMMIT_ATTRIB, QueryServicesOptions.DEFAULT_SORT_MUTATIONS_ON_COMMIT);
     }
 
     public MutationState(long maxSize, PhoenixConnection connection) {
@@ -139,6 +148,15 @@ public class MutationState implements SQLCloseable {
         }
     }
     
+    /**
+     * Hint the number of rows expected to be upserted per table before the next commit, so that
+     * the rows of each table are collected without rehashing as they accumulate.
+     * @param expectedRowCount the expected number of rows, or zero for no hint
+     */
+    public void setExpectedRowCount(int expectedRowCount) {
+        this.expectedRowCount = expectedRowCount;
+    }
+    
     public long getUpdateCount() {
         return sizeOffset + numRows;
     }
@@ -161,6 +179,12 @@ public class MutationState implements SQLCloseable {
             PTable table = tableRef.getTable();
             boolean isIndex = table.getType() == PTableType.INDEX;
             Map<ImmutableBytesPtr,RowMutationState> existingRows = this.mutations.put(tableRef, entry.getValue());
+            if (existingRows == null && entry.getValue().size() < expectedRowCount) {
+                // First rows for the table in this batch, so make room for the rest of the batch
+                Map<ImmutableBytesPtr,RowMutationState> rows = Maps.newHashMapWithExpectedSize(expectedRowCount);
+                rows.putAll(entry.getValue());
+                this.mutations.put(tableRef, rows);
+            }
             if (existingRows != null) { // Rows for that table already exist
                 // Loop through new rows and replace existing with new
                 for (Map.Entry<ImmutableBytesPtr,RowMutationState> rowEntry : entry.getValue().entrySet()) {
@@ -438,6 +462,12 @@ public class MutationState implements SQLCloseable {
                     Pair<byte[],List<Mutation>> pair = mutationsIterator.next();
                     byte[] htableName = pair.getFirst();
                     List<Mutation> mutations = pair.getSecond();
+                    if (sortOnCommit) {
+                        // Rows are kept in a hash map until now. Sending them in row key order lets
+                        // each region server apply its share of the batch as a sequential run.
+                        // The sort is stable, so multiple mutations of the same row keep their order.
+                        Collections.sort(mutations);
+                    }
 
                     //create a span per target table
                     //TODO maybe we can be smarter about the table name to string here?
@@ -487,12 +517,14 @@ public class MutationState implements SQLCloseable {
                             GLOBAL_MUTATION_BATCH_SIZE.update(numMutations);
                             
                             long startTime = System.currentTimeMillis();
+                            long startNanos = System.nanoTime();
                             child.addTimelineAnnotation("Attempt " + retryCount);
                             hTable.batch(mutations);
                             child.stop();
                             shouldRetry = false;
                             long mutationCommitTime = System.currentTimeMillis() - startTime;
                             GLOBAL_MUTATION_COMMIT_TIME.update(mutationCommitTime);
+                            LatencyHistograms.update(connection.getQueryServices().getProps(), COMMIT_LATENCY, Bytes.toString(htableName), System.nanoTime() - startNanos);
                             
                             long mutationSizeBytes = calculateMutationSize(mutations);
                             MutationMetric mutationsMetric = new MutationMetric(numMutations, mutationSizeBytes, mutationCommitTime);
@@ -30,6 +30,7 @@ import org.apache.phoenix.compile.StatementContext;
 import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
 import org.apache.phoenix.coprocessor.ScanRegionObserver;
 import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.iterate.AnalyzingResultIterator;
 import org.apache.phoenix.iterate.ChunkedResultIterator;
 import org.apache.phoenix.iterate.ConcatResultIterator;
 import org.apache.phoenix.iterate.LimitingResultIterator;
@@ -44,6 +45,7 @@ import org.apache.phoenix.iterate.RoundRobinResultIterator;
 import org.apache.phoenix.iterate.SequenceResultIterator;
 import org.apache.phoenix.iterate.SerialIterators;
 import org.apache.phoenix.iterate.SpoolingResultIterator;
+import org.apache.phoenix.iterate.StreamingResultIterator;
 import org.apache.phoenix.parse.FilterableStatement;
 import org.apache.phoenix.query.ConnectionQueryServices;
 import org.apache.phoenix.query.KeyRange;
@@ -139,15 +141,18 @@ public class ScanPlan extends BaseQueryPlan {
         if (isSerial(context, table, orderBy, limit, allowPageFilter) || ScanUtil.isRoundRobinPossible(orderBy, context)) {
             return ParallelIteratorFactory.NOOP_FACTORY;
         }
+        ConnectionQueryServices services = context.getConnection().getQueryServices();
         ParallelIteratorFactory spoolingResultIteratorFactory =
-                new SpoolingResultIterator.SpoolingResultIteratorFactory(
-                        context.getConnection().getQueryServices());
+                new SpoolingResultIterator.SpoolingResultIteratorFactory(services);
 
         // If we're doing an order by then we need the full result before we can do anything,
-        // so we don't bother chunking it. If we're just doing a simple scan then we chunk
-        // the scan to have a quicker initial response.
+        // so we don't bother chunking it. If we're just doing a simple scan then we either
+        // stream the results with flow control or chunk the scan to have a quicker initial response.
         if (!orderBy.getOrderByExpressions().isEmpty()) {
             return spoolingResultIteratorFactory;
+        } else if (services.getProps().getBoolean(QueryServices.STREAMING_RESULTS_ENABLED_ATTRIB,
+                QueryServicesOptions.DEFAULT_STREAMING_RESULTS_ENABLED)) {
+            return new StreamingResultIterator.StreamingResultIteratorFactory(services);
         } else {
             return new ChunkedResultIterator.ChunkedResultIteratorFactory(
                     spoolingResultIteratorFactory, table);
@@ -188,7 +193,7 @@ public class ScanPlan extends BaseQueryPlan {
         splits = iterators.getSplits();
         scans = iterators.getScans();
         if (isOrdered) {
-            scanner = new MergeSortTopNResultIterator(iterators, limit, orderBy.getOrderByExpressions());
+            scanner = AnalyzingResultIterator.wrap(context, this, AnalyzingResultIterator.CLIENT_OPERATOR, new MergeSortTopNResultIterator(iterators, limit, orderBy.getOrderByExpressions()));
         } else {
             if ((isSalted || table.getIndexType() == IndexType.LOCAL) && ScanUtil.shouldRowsBeInRowKeyOrder(orderBy, context)) {
                 /*
@@ -197,7 +202,7 @@ public class ScanPlan extends BaseQueryPlan {
                  * 2) Or if the query has an order by that wants to sort
                  * the results by the row key (forward or reverse ordering)
                  */
-                scanner = new MergeSortRowKeyResultIterator(iterators, isSalted ? SaltingUtil.NUM_SALTING_BYTES : 0, orderBy == OrderBy.REV_ROW_KEY_ORDER_BY);
+                scanner = AnalyzingResultIterator.wrap(context, this, AnalyzingResultIterator.CLIENT_OPERATOR, new MergeSortRowKeyResultIterator(iterators, isSalted ? SaltingUtil.NUM_SALTING_BYTES : 0, orderBy == OrderBy.REV_ROW_KEY_ORDER_BY));
             } else if (useRoundRobinIterator()) {
                 /*
                  * For any kind of tables, round robin is possible if there is
@@ -17,8 +17,9 @@
  */
 package org.apache.phoenix.execute;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.nio.MappedByteBuffer;
 import java.sql.ParameterMetaData;
 import java.sql.SQLException;
 import java.util.Collections;
@@ -44,8 +45,8 @@ import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.execute.TupleProjector.ProjectedValueTuple;
 import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.iterate.BufferedQueue;
 import org.apache.phoenix.iterate.DefaultParallelScanGrouper;
-import org.apache.phoenix.iterate.MappedByteBufferQueue;
 import org.apache.phoenix.iterate.ParallelScanGrouper;
 import org.apache.phoenix.iterate.ResultIterator;
 import org.apache.phoenix.jdbc.PhoenixParameterMetaData;
@@ -225,7 +226,7 @@ public class SortMergeJoinPlan implements QueryPlan {
         private ValueBitSet lhsBitSet;
         private ValueBitSet rhsBitSet;
         private byte[] emptyProjectedValue;
-        private MappedByteBufferTupleQueue queue;
+        private BufferedTupleQueue queue;
         private Iterator<Tuple> queueIterator;
         
         public BasicJoinIterator(ResultIterator lhsIterator, ResultIterator rhsIterator) {
@@ -247,7 +248,7 @@ public class SortMergeJoinPlan implements QueryPlan {
             int len = lhsBitSet.getEstimatedLength();
             this.emptyProjectedValue = new byte[len];
             lhsBitSet.toBytes(emptyProjectedValue, 0);
-            this.queue = new MappedByteBufferTupleQueue(thresholdBytes);
+            this.queue = new BufferedTupleQueue(thresholdBytes);
             this.queueIterator = null;
         }
         
@@ -537,24 +538,24 @@ public class SortMergeJoinPlan implements QueryPlan {
         }
     }
     
-    private static class MappedByteBufferTupleQueue extends MappedByteBufferQueue<Tuple> {
+    private static class BufferedTupleQueue extends BufferedQueue<Tuple> {
 
-        public MappedByteBufferTupleQueue(int thresholdBytes) {
+        public BufferedTupleQueue(int thresholdBytes) {
             super(thresholdBytes);
         }
 
         @Override
-        protected MappedByteBufferSegmentQueue<Tuple> createSegmentQueue(
+        protected BufferedSegmentQueue<Tuple> createSegmentQueue(
                 int index, int thresholdBytes) {
-            return new MappedByteBufferTupleSegmentQueue(index, thresholdBytes, false);
+            return new BufferedTupleSegmentQueue(index, thresholdBytes, false);
         }
 
         @Override
-        protected Comparator<MappedByteBufferSegmentQueue<Tuple>> getSegmentQueueComparator() {
-            return new Comparator<MappedByteBufferSegmentQueue<Tuple>>() {
+        protected Comparator<BufferedSegmentQueue<Tuple>> getSegmentQueueComparator() {
+            return new Comparator<BufferedSegmentQueue<Tuple>>() {
                 @Override
-                public int compare(MappedByteBufferSegmentQueue<Tuple> q1, 
-                        MappedByteBufferSegmentQueue<Tuple> q2) {
+                public int compare(BufferedSegmentQueue<Tuple> q1, 
+                        BufferedSegmentQueue<Tuple> q2) {
                     return q1.index() - q2.index();
                 }                
             };
@@ -563,7 +564,7 @@ public class SortMergeJoinPlan implements QueryPlan {
         @Override
         public Iterator<Tuple> iterator() {
             return new Iterator<Tuple>() {
-                private Iterator<MappedByteBufferSegmentQueue<Tuple>> queueIter;
+                private Iterator<BufferedSegmentQueue<Tuple>> queueIter;
                 private Iterator<Tuple> currentIter;
                 {
                     this.queueIter = getSegmentQueues().iterator();
@@ -596,10 +597,10 @@ public class SortMergeJoinPlan implements QueryPlan {
             };
         }
         
-        private static class MappedByteBufferTupleSegmentQueue extends MappedByteBufferSegmentQueue<Tuple> {
+        private static class BufferedTupleSegmentQueue extends BufferedSegmentQueue<Tuple> {
             private LinkedList<Tuple> results;
             
-            public MappedByteBufferTupleSegmentQueue(int index,
+            public BufferedTupleSegmentQueue(int index,
                     int thresholdBytes, boolean hasMaxQueueSize) {
                 super(index, thresholdBytes, hasMaxQueueSize);
                 this.results = Lists.newLinkedList();
@@ -618,21 +619,21 @@ public class SortMergeJoinPlan implements QueryPlan {
 
             @SuppressWarnings("deprecation")
             @Override
-            protected void writeToBuffer(MappedByteBuffer buffer, Tuple e) {
+            protected void writeToStream(DataOutputStream out, Tuple e) throws IOException {
                 KeyValue kv = KeyValueUtil.ensureKeyValue(e.getValue(0));
-                buffer.putInt(kv.getLength() + Bytes.SIZEOF_INT);
-                buffer.putInt(kv.getLength());
-                buffer.put(kv.getBuffer(), kv.getOffset(), kv.getLength());
+                out.writeInt(kv.getLength() + Bytes.SIZEOF_INT);
+                out.writeInt(kv.getLength());
+                out.write(kv.getBuffer(), kv.getOffset(), kv.getLength());
             }
 
             @Override
-            protected Tuple readFromBuffer(MappedByteBuffer buffer) {
-                int length = buffer.getInt();
+            protected Tuple readFromStream(DataInputStream in) throws IOException {
+                int length = in.readInt();
                 if (length < 0)
                     return null;
                 
                 byte[] b = new byte[length];
-                buffer.get(b);
+                in.readFully(b);
                 Result result = ResultUtil.toResult(new ImmutableBytesWritable(b));
                 return new ResultTuple(result);
             }
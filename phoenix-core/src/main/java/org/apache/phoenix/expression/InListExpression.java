@@ -58,6 +58,7 @@ public class InListExpression extends BaseSingleExpression {
     private int fixedWidth = -1;
     private List<Expression> keyExpressions; // client side only
     private boolean rowKeyOrderOptimizable; // client side only
+    private byte[] valuesCacheId;
 
 
     public static Expression create (List<Expression> children, boolean isNegate, ImmutableBytesWritable ptr, boolean rowKeyOrderOptimizable) throws SQLException {
@@ -203,7 +204,20 @@ public class InListExpression extends BaseSingleExpression {
     @Override
     public void readFields(DataInput input) throws IOException {
         super.readFields(input);
-        input.readBoolean(); // Unused, but left for b/w compat. TODO: remove in next major release
+        // Formerly unused, now indicates that the values were sent through the server cache
+        boolean isValuesCached = input.readBoolean();
+        if (isValuesCached) {
+            valuesCacheId = Bytes.readByteArray(input);
+            values = null;
+        } else {
+            readValues(input);
+        }
+    }
+
+    /**
+     * Reads the values as written by {@link #writeValues(DataOutput)}.
+     */
+    public void readValues(DataInput input) throws IOException {
         fixedWidth = WritableUtils.readVInt(input);
         byte[] valuesBytes = Bytes.readByteArray(input);
         valuesByteLength = valuesBytes.length;
@@ -230,7 +244,19 @@ public class InListExpression extends BaseSingleExpression {
     @Override
     public void write(DataOutput output) throws IOException {
         super.write(output);
-        output.writeBoolean(false); // Unused, but left for b/w compat. TODO: remove in next major release
+        output.writeBoolean(valuesCacheId != null);
+        if (valuesCacheId != null) {
+            Bytes.writeByteArray(output, valuesCacheId);
+        } else {
+            writeValues(output);
+        }
+    }
+
+    /**
+     * Writes the values of the IN list, used both for the expression itself
+     * and for the payload of the server cache.
+     */
+    public void writeValues(DataOutput output) throws IOException {
         WritableUtils.writeVInt(output, fixedWidth);
         WritableUtils.writeVInt(output, valuesByteLength);
         for (ImmutableBytesPtr ptr : values) {
@@ -244,6 +270,45 @@ public class InListExpression extends BaseSingleExpression {
         }
     }
 
+    /**
+     * @return the server cache id from which the values are resolved on the
+     * server-side, or null if the values are serialized with the expression.
+     */
+    public byte[] getValuesCacheId() {
+        return valuesCacheId;
+    }
+
+    public void setValuesCacheId(byte[] valuesCacheId) {
+        this.valuesCacheId = valuesCacheId;
+    }
+
+    /**
+     * @return true if the values are available, false if they still need
+     * to be resolved from the server cache.
+     */
+    public boolean isValuesResolved() {
+        return values != null;
+    }
+
+    /**
+     * Resolves the values from an expression deserialized out of the server cache.
+     */
+    public void resolveValues(InListExpression cached) {
+        this.fixedWidth = cached.fixedWidth;
+        this.valuesByteLength = cached.valuesByteLength;
+        this.minValue = cached.minValue;
+        this.maxValue = cached.maxValue;
+        this.values = cached.values;
+    }
+
+    public int getValuesByteLength() {
+        return valuesByteLength;
+    }
+
+    public int getValuesCount() {
+        return values.size();
+    }
+
     @Override
     public final <T> T accept(ExpressionVisitor<T> visitor) {
         List<T> l = acceptChildren(visitor, visitor.visitEnter(this));
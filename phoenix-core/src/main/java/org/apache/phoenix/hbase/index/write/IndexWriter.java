@@ -36,6 +36,8 @@ import com.google.common.collect.Multimap;
 import org.apache.phoenix.hbase.index.exception.IndexWriteException;
 import org.apache.phoenix.hbase.index.table.HTableInterfaceReference;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.metrics.PhoenixServerMetricsSource;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
 
 /**
  * Do the actual work of writing to the index tables. Ensures that if we do fail to write to the
@@ -176,7 +178,15 @@ public class IndexWriter implements Stoppable {
    */
   public void write(Multimap<HTableInterfaceReference, Mutation> toWrite)
       throws IndexWriteException {
-    this.writer.write(toWrite);
+    long start = EnvironmentEdgeManager.currentTimeMillis();
+    boolean success = false;
+    try {
+      this.writer.write(toWrite);
+      success = true;
+    } finally {
+      PhoenixServerMetricsSource.getInstance().updateIndexWrite(
+        EnvironmentEdgeManager.currentTimeMillis() - start, success);
+    }
   }
 
 
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.monitoring.OperatorStatistics;
+import org.apache.phoenix.monitoring.RuntimeStatistics;
+import org.apache.phoenix.schema.tuple.Tuple;
+
+/**
+ * Iterator that records the rows returned by a client side operator along with the wall
+ * and CPU time spent producing them, including the time spent in its children. Only used
+ * when the query is being run by EXPLAIN ANALYZE.
+ */
+public class AnalyzingResultIterator implements PeekingResultIterator {
+    /**
+     * Operator of a query plan that merges or sorts the rows of its scans on the client
+     */
+    public static final String CLIENT_OPERATOR = "CLIENT";
+    
+    private final PeekingResultIterator delegate;
+    private final OperatorStatistics statistics;
+    
+    /**
+     * Wrap the iterator to collect statistics for its operator if the query is being run
+     * by EXPLAIN ANALYZE. The plan step of the iterator is the last step it explains.
+     * @param owner the object owning the operator, usually its query plan
+     * @param operator the kind of operator, distinguishing operators with the same owner
+     */
+    public static PeekingResultIterator wrap(StatementContext context, Object owner, String operator, PeekingResultIterator iterator) {
+        RuntimeStatistics runtimeStatistics = context.getRuntimeStatistics();
+        if (runtimeStatistics == null) {
+            return iterator;
+        }
+        return new AnalyzingResultIterator(iterator, runtimeStatistics.getOperatorStatistics(owner, operator));
+    }
+    
+    public AnalyzingResultIterator(PeekingResultIterator delegate, OperatorStatistics statistics) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Tuple next() throws SQLException {
+        long startTime = System.nanoTime();
+        long startCpuTime = OperatorStatistics.currentThreadCpuTime();
+        try {
+            Tuple tuple = delegate.next();
+            if (tuple != null) {
+                statistics.addRows(1);
+            }
+            return tuple;
+        } finally {
+            statistics.addTime(System.nanoTime() - startTime, OperatorStatistics.currentThreadCpuTime() - startCpuTime);
+        }
+    }
+
+    @Override
+    public Tuple peek() throws SQLException {
+        long startTime = System.nanoTime();
+        long startCpuTime = OperatorStatistics.currentThreadCpuTime();
+        try {
+            return delegate.peek();
+        } finally {
+            statistics.addTime(System.nanoTime() - startTime, OperatorStatistics.currentThreadCpuTime() - startCpuTime);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (delegate instanceof OrderedResultIterator) {
+            statistics.addSpillBytes(((OrderedResultIterator)delegate).getSpilledByteSize());
+        }
+        delegate.close();
+    }
+
+    @Override
+    public void explain(List<String> planSteps) {
+        int nSteps = planSteps.size();
+        delegate.explain(planSteps);
+        if (planSteps.size() > nSteps) {
+            planSteps.set(planSteps.size() - 1, planSteps.get(planSteps.size() - 1) + " " + statistics);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AnalyzingResultIterator [delegate=" + delegate + "]";
+    }
+}
@@ -20,11 +20,16 @@ package org.apache.phoenix.iterate;
 import static org.apache.phoenix.coprocessor.BaseScannerRegionObserver.EXPECTED_UPPER_REGION_KEY;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_FAILED_QUERY_COUNTER;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_QUERY_TIMEOUT_COUNTER;
+import static org.apache.phoenix.monitoring.MetricType.SCAN_SUBMISSION_LATENCY;
 import static org.apache.phoenix.util.ByteUtil.EMPTY_BYTE_ARRAY;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -43,10 +48,17 @@ import java.util.concurrent.TimeoutException;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
 import org.apache.hadoop.hbase.filter.PageFilter;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.cache.InListValuesCacheFactory;
+import org.apache.phoenix.cache.ServerCacheClient;
+import org.apache.phoenix.cache.ServerCacheClient.ServerCache;
 import org.apache.phoenix.compile.QueryPlan;
 import org.apache.phoenix.compile.RowProjector;
 import org.apache.phoenix.compile.ScanRanges;
@@ -55,8 +67,12 @@ import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
 import org.apache.phoenix.coprocessor.UngroupedAggregateRegionObserver;
 import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.expression.InListExpression;
 import org.apache.phoenix.filter.ColumnProjectionFilter;
 import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.monitoring.LatencyHistograms;
+import org.apache.phoenix.monitoring.OperatorStatistics;
+import org.apache.phoenix.monitoring.RuntimeStatistics;
 import org.apache.phoenix.parse.FilterableStatement;
 import org.apache.phoenix.parse.HintNode.Hint;
 import org.apache.phoenix.query.ConnectionQueryServices;
@@ -73,7 +89,9 @@ import org.apache.phoenix.schema.StaleRegionBoundaryCacheException;
 import org.apache.phoenix.schema.TableRef;
 import org.apache.phoenix.schema.stats.GuidePostsInfo;
 import org.apache.phoenix.schema.stats.PTableStats;
+import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.util.LogUtil;
+import org.apache.phoenix.util.SQLCloseable;
 import org.apache.phoenix.util.SQLCloseables;
 import org.apache.phoenix.util.ScanUtil;
 import org.apache.phoenix.util.SchemaUtil;
@@ -84,6 +102,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 
 /**
@@ -97,6 +116,7 @@ import com.google.common.collect.Lists;
 public abstract class BaseResultIterators extends ExplainTable implements ResultIterators {
 	private static final Logger logger = LoggerFactory.getLogger(BaseResultIterators.class);
     private static final int ESTIMATED_GUIDEPOSTS_PER_REGION = 20;
+    private static final String SCAN_OPERATOR = "SCAN";
 
     private final List<List<Scan>> scans;
     private final List<KeyRange> splits;
@@ -107,6 +127,10 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
     private final ParallelScanGrouper scanGrouper;
     // TODO: too much nesting here - breakup into new classes.
     private final List<List<List<Pair<Scan,Future<PeekingResultIterator>>>>> allFutures;
+    // Copies of the WHERE clause filters whose large IN lists were sent through the server
+    // cache, private to this execution so that the compiled plan itself is never modified
+    private Map<Filter,Filter> inListFilters;
+    private final List<SQLCloseable> inListCaches = Lists.newArrayList();
     
     static final Function<HRegionLocation, KeyRange> TO_KEY_RANGE = new Function<HRegionLocation, KeyRange>() {
         @Override
@@ -535,7 +559,10 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
         final long startTime = System.currentTimeMillis();
         final long maxQueryEndTime = startTime + queryTimeOut;
         try {
+            long submitStartTime = System.nanoTime();
+            addInListServerCaches(scans);
             submitWork(scans, futures, allIterators, splits.size());
+            LatencyHistograms.update(context.getConnection().getQueryServices().getProps(), SCAN_SUBMISSION_LATENCY, getTable().getPhysicalName().getString(), System.nanoTime() - submitStartTime);
             boolean clearedCache = false;
             for (List<Pair<Scan,Future<PeekingResultIterator>>> future : reverseIfNecessary(futures,isReverse)) {
                 List<PeekingResultIterator> concatIterators = Lists.newArrayListWithExpectedSize(future.size());
@@ -570,6 +597,7 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
                             // as we need these to be in order
                             addIterator(iterators, concatIterators);
                             concatIterators = Lists.newArrayList();
+                            addInListServerCaches(newNestedScans);
                             submitWork(newNestedScans, newFutures, allIterators, newNestedScans.size());
                             allFutures.add(newFutures);
                             for (List<Pair<Scan,Future<PeekingResultIterator>>> newFuture : reverseIfNecessary(newFutures, isReverse)) {
@@ -659,8 +687,134 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
                 }
             }
         } finally {
-            if (cancelledWork) {
-                context.getConnection().getQueryServices().getExecutor().purge();
+            try {
+                if (cancelledWork) {
+                    context.getConnection().getQueryServices().getExecutor().purge();
+                }
+            } finally {
+                // Nothing can read from the server caches anymore once the scans are closed
+                List<SQLCloseable> caches = Lists.newArrayList(inListCaches);
+                inListCaches.clear();
+                SQLCloseables.closeAll(caches);
+            }
+        }
+    }
+
+    /**
+     * Sends the values of large IN lists once per region server instead of with every
+     * parallel scan. This is only done when the scans are about to be submitted, so that
+     * building the plan steps for EXPLAIN doesn't reach out to the region servers.
+     */
+    private void addInListServerCaches(List<List<Scan>> nestedScans) throws SQLException {
+        if (inListFilters == null) {
+            inListFilters = newInListFilters();
+        }
+        if (inListFilters.isEmpty()) {
+            return;
+        }
+        for (List<Scan> scanList : nestedScans) {
+            for (Scan scan : scanList) {
+                Filter filter = scan.getFilter();
+                boolean replaced = false;
+                if (filter instanceof FilterList) {
+                    // The filter list may be shared with the plan's scan, so build a new one
+                    FilterList filterList = (FilterList)filter;
+                    List<Filter> filters = Lists.newArrayList(filterList.getFilters());
+                    for (int i = 0; i < filters.size(); i++) {
+                        Filter copy = inListFilters.get(filters.get(i));
+                        if (copy != null) {
+                            filters.set(i, copy);
+                            replaced = true;
+                        }
+                    }
+                    if (replaced) {
+                        scan.setFilter(new FilterList(filterList.getOperator(), filters));
+                    }
+                } else if (filter != null) {
+                    Filter copy = inListFilters.get(filter);
+                    if (copy != null) {
+                        scan.setFilter(copy);
+                        replaced = true;
+                    }
+                }
+                if (replaced) {
+                    scan.setAttribute(BaseScannerRegionObserver.IN_LIST_SERVER_CACHE, PDataType.TRUE_BYTES);
+                }
+            }
+        }
+    }
+
+    /**
+     * Uploads the values of the IN lists at or above the configured threshold and
+     * returns a copy of each filter containing them that refers to the cache ids.
+     */
+    private Map<Filter,Filter> newInListFilters() throws SQLException {
+        Map<Filter,Filter> copies = Maps.newIdentityHashMap();
+        int thresholdBytes = context.getConnection().getQueryServices().getProps().getInt(
+                QueryServices.IN_LIST_SERVER_CACHE_THRESHOLD_BYTES_ATTRIB,
+                QueryServicesOptions.DEFAULT_IN_LIST_SERVER_CACHE_THRESHOLD_BYTES);
+        if (thresholdBytes <= 0) {
+            return copies;
+        }
+        ServerCacheClient cacheClient = null;
+        Iterator<Filter> filterIterator = ScanUtil.getFilterIterator(context.getScan());
+        while (filterIterator.hasNext()) {
+            Filter filter = filterIterator.next();
+            if (!hasInListAtOrAbove(filter, thresholdBytes)) {
+                continue;
+            }
+            Filter copy = copyFilter(filter);
+            for (InListExpression inList : ScanUtil.getInListExpressions(copy)) {
+                if (inList.getValuesByteLength() < thresholdBytes) {
+                    continue;
+                }
+                if (cacheClient == null) {
+                    cacheClient = new ServerCacheClient(context.getConnection());
+                }
+                ImmutableBytesWritable ptr = new ImmutableBytesWritable(serializeInListValues(inList));
+                ServerCache cache = cacheClient.addServerCache(context.getScanRanges(), ptr, new InListValuesCacheFactory(), plan.getTableRef());
+                inListCaches.add(cache);
+                inList.setValuesCacheId(cache.getId());
+            }
+            copies.put(filter, copy);
+        }
+        if (logger.isDebugEnabled() && !inListCaches.isEmpty()) {
+            logger.debug(LogUtil.addCustomAnnotations("Sent " + inListCaches.size() + " IN list(s) through the server cache",
+                    ScanUtil.getCustomAnnotations(context.getScan())));
+        }
+        return copies;
+    }
+
+    private static boolean hasInListAtOrAbove(Filter filter, int thresholdBytes) {
+        for (InListExpression inList : ScanUtil.getInListExpressions(filter)) {
+            if (inList.getValuesByteLength() >= thresholdBytes) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Filter copyFilter(Filter filter) throws SQLException {
+        try {
+            return ProtobufUtil.toFilter(ProtobufUtil.toFilter(filter));
+        } catch (IOException e) {
+            throw ServerUtil.parseServerException(e);
+        }
+    }
+
+    private static byte[] serializeInListValues(InListExpression inList) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(inList.getValuesByteLength() + Bytes.SIZEOF_INT);
+        try {
+            DataOutputStream output = new DataOutputStream(stream);
+            inList.writeValues(output);
+            return stream.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
         }
     }
@@ -712,6 +866,15 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
         return this.scans.size();
     }
 
+    /**
+     * Get the statistics to collect for the scans of this step if the query is
+     * being run by EXPLAIN ANALYZE, or null otherwise.
+     */
+    protected OperatorStatistics getOperatorStatistics() {
+        RuntimeStatistics runtimeStatistics = context.getRuntimeStatistics();
+        return runtimeStatistics == null ? null : runtimeStatistics.getOperatorStatistics(plan, SCAN_OPERATOR);
+    }
+
     @Override
     public void explain(List<String> planSteps) {
         boolean displayChunkCount = context.getConnection().getQueryServices().getProps().getBoolean(
@@ -719,7 +882,12 @@ public abstract class BaseResultIterators extends ExplainTable implements Result
                 QueryServicesOptions.DEFAULT_EXPLAIN_CHUNK_COUNT);
         StringBuilder buf = new StringBuilder();
         buf.append("CLIENT " + (displayChunkCount ? (this.splits.size() + "-CHUNK ") : "") + getName() + " " + size() + "-WAY ");
+        int scanStep = planSteps.size();
         explain(buf.toString(),planSteps);
+        RuntimeStatistics runtimeStatistics = context.getRuntimeStatistics();
+        if (runtimeStatistics != null && planSteps.size() > scanStep) {
+            planSteps.set(scanStep, runtimeStatistics.annotate(plan, SCAN_OPERATOR, planSteps.get(scanStep)));
+        }
     }
 
 	@Override
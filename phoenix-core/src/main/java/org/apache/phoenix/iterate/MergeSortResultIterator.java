@@ -38,6 +38,8 @@ public abstract class MergeSortResultIterator implements PeekingResultIterator {
     protected final ResultIterators resultIterators;
     protected final ImmutableBytesWritable tempPtr = new ImmutableBytesWritable();
     private List<PeekingResultIterator> iterators;
+    private Tuple[] heads;
+    private int[] tree;
     
     public MergeSortResultIterator(ResultIterators iterators) {
         this.resultIterators = iterators;
@@ -80,35 +82,119 @@ public abstract class MergeSortResultIterator implements PeekingResultIterator {
 
     abstract protected int compare(Tuple t1, Tuple t2);
     
-    private PeekingResultIterator minIterator() throws SQLException {
+    /**
+     * Called once the number of iterators to merge is known, before any call
+     * to {@link #setHead(int, Tuple)}.
+     */
+    protected void initHeads(int size) {
+    }
+    
+    /**
+     * Called when a tuple becomes the head of the iterator at the given index, so
+     * that subclasses may cache its sort key instead of re-evaluating it on every
+     * comparison. The tuple is null once the iterator is exhausted.
+     */
+    protected void setHead(int index, Tuple tuple) {
+    }
+    
+    /**
+     * Compares the current heads of the iterators at the given indexes. Neither head is null.
+     */
+    protected int compareHeads(int index1, int index2) {
+        return compare(heads[index1], heads[index2]);
+    }
+    
+    private boolean isLess(int index1, int index2) {
+        if (heads[index1] == null) {
+            return false;
+        }
+        if (heads[index2] == null) {
+            return true;
+        }
+        int cmp = compareHeads(index1, index2);
+        return cmp < 0 || (cmp == 0 && index1 < index2);
+    }
+    
+    /*
+     * Builds a loser tree over the iterators: leaf i is at node size+i, each internal
+     * node holds the loser of the match between its children and node 0 holds the
+     * overall winner. Advancing the winner then replays only the matches on the path
+     * from its leaf to the root, taking about log2(size) comparisons per row.
+     */
+    private void initTree() throws SQLException {
         List<PeekingResultIterator> iterators = getIterators();
-        Tuple minResult = null;
-        PeekingResultIterator minIterator = EMPTY_ITERATOR;
-        for (int i = iterators.size()-1; i >= 0; i--) {
-            PeekingResultIterator iterator = iterators.get(i);
-            Tuple r = iterator.peek();
-            if (r != null) {
-                if (minResult == null || compare(r, minResult) < 0) {
-                    minResult = r;
-                    minIterator = iterator;
-                }
-                continue;
+        int size = iterators.size();
+        heads = new Tuple[size];
+        tree = new int[Math.max(size, 1)];
+        initHeads(size);
+        for (int i = 0; i < size; i++) {
+            setHead(i, peekHead(i));
+        }
+        if (size == 0) {
+            tree[0] = -1;
+            return;
+        }
+        int[] winners = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            winners[size + i] = i;
+        }
+        for (int node = size - 1; node >= 1; node--) {
+            int left = winners[2 * node];
+            int right = winners[2 * node + 1];
+            if (isLess(left, right)) {
+                winners[node] = left;
+                tree[node] = right;
+            } else {
+                winners[node] = right;
+                tree[node] = left;
             }
+        }
+        tree[0] = winners[1];
+    }
+    
+    private Tuple peekHead(int index) throws SQLException {
+        PeekingResultIterator iterator = iterators.get(index);
+        Tuple head = iterator.peek();
+        heads[index] = head;
+        if (head == null) {
             iterator.close();
-            iterators.remove(i);
+            iterators.set(index, EMPTY_ITERATOR);
+        }
+        return head;
+    }
+    
+    private void replay(int winner) {
+        for (int node = (heads.length + winner) / 2; node >= 1; node /= 2) {
+            int loser = tree[node];
+            if (isLess(loser, winner)) {
+                tree[node] = winner;
+                winner = loser;
+            }
         }
-        return minIterator;
+        tree[0] = winner;
     }
     
     @Override
     public Tuple peek() throws SQLException {
-        PeekingResultIterator iterator = minIterator();
-        return iterator.peek();
+        if (tree == null) {
+            initTree();
+        }
+        int winner = tree[0];
+        return winner < 0 ? null : heads[winner];
     }
 
     @Override
     public Tuple next() throws SQLException {
-        PeekingResultIterator iterator = minIterator();
-        return iterator.next();
+        if (tree == null) {
+            initTree();
+        }
+        int winner = tree[0];
+        if (winner < 0 || heads[winner] == null) {
+            return null;
+        }
+        Tuple next = iterators.get(winner).next();
+        setHead(winner, peekHead(winner));
+        replay(winner);
+        return next;
     }
 }
@@ -24,6 +24,7 @@ import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.phoenix.expression.Expression;
 import org.apache.phoenix.expression.OrderByExpression;
 import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ByteUtil;
 
 /**
  * 
@@ -39,6 +40,8 @@ public class MergeSortTopNResultIterator extends MergeSortResultIterator {
     private final List<OrderByExpression> orderByColumns;
     private final ImmutableBytesWritable ptr1 = new ImmutableBytesWritable();
     private final ImmutableBytesWritable ptr2 = new ImmutableBytesWritable();
+    // Sort key of the head tuple of each iterator, evaluated once per tuple
+    private ImmutableBytesWritable[][] sortKeys;
     
     public MergeSortTopNResultIterator(ResultIterators iterators, Integer limit, List<OrderByExpression> orderByColumns) {
         super(iterators);
@@ -69,6 +72,56 @@ public class MergeSortTopNResultIterator extends MergeSortResultIterator {
         return 0;
     }
 
+    @Override
+    protected void initHeads(int size) {
+        sortKeys = new ImmutableBytesWritable[size][];
+    }
+
+    @Override
+    protected void setHead(int index, Tuple tuple) {
+        if (tuple == null) {
+            sortKeys[index] = null;
+            return;
+        }
+        ImmutableBytesWritable[] keys = sortKeys[index];
+        if (keys == null) {
+            keys = new ImmutableBytesWritable[orderByColumns.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = new ImmutableBytesWritable();
+            }
+            sortKeys[index] = keys;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (!orderByColumns.get(i).getExpression().evaluate(tuple, keys[i])) {
+                keys[i].set(ByteUtil.EMPTY_BYTE_ARRAY);
+            }
+        }
+    }
+
+    @Override
+    protected int compareHeads(int index1, int index2) {
+        ImmutableBytesWritable[] keys1 = sortKeys[index1];
+        ImmutableBytesWritable[] keys2 = sortKeys[index2];
+        for (int i = 0; i < keys1.length; i++) {
+            OrderByExpression order = orderByColumns.get(i);
+            boolean isNull1 = keys1[i].getLength() == 0;
+            boolean isNull2 = keys2[i].getLength() == 0;
+            if (isNull1 && isNull2) {
+                continue;
+            } else if (isNull1) {
+                return order.isNullsLast() ? 1 : -1;
+            } else if (isNull2) {
+                return order.isNullsLast() ? -1 : 1;
+            }
+            int cmp = keys1[i].compareTo(keys2[i]);
+            if (cmp == 0) {
+                continue;
+            }
+            return order.isAscending() ? cmp : -cmp;
+        }
+        return 0;
+    }
+
     @Override
     public Tuple peek() throws SQLException {
         if (limit >= 0 && count >= limit) {
@@ -98,6 +98,7 @@ public class OrderedResultIterator implements PeekingResultIterator {
     
     private PeekingResultIterator resultIterator;
     private long byteSize;
+    private long spilledByteSize;
 
     protected ResultIterator getDelegate() {
         return delegate;
@@ -146,6 +147,13 @@ public class OrderedResultIterator implements PeekingResultIterator {
     public long getByteSize() {
         return byteSize;
     }
+
+    /**
+     * Get the number of bytes spilled to disk while sorting, available once the first row has been read.
+     */
+    public long getSpilledByteSize() {
+        return spilledByteSize;
+    }
     /**
      * Builds a comparator from the list of columns in ORDER BY clause.
      * @param orderByExpressions the columns in ORDER BY clause.
@@ -202,7 +210,7 @@ public class OrderedResultIterator implements PeekingResultIterator {
         List<Expression> expressions = Lists.newArrayList(Collections2.transform(orderByExpressions, TO_EXPRESSION));
         final Comparator<ResultEntry> comparator = buildComparator(orderByExpressions);
         try{
-            final MappedByteBufferSortedQueue queueEntries = new MappedByteBufferSortedQueue(comparator, limit, thresholdBytes);
+            final BufferedSortedQueue queueEntries = new BufferedSortedQueue(comparator, limit, thresholdBytes);
             resultIterator = new PeekingResultIterator() {
                 int count = 0;
                 @Override
@@ -249,6 +257,7 @@ public class OrderedResultIterator implements PeekingResultIterator {
                 queueEntries.add(new ResultEntry(sortKeys, result));
             }
             this.byteSize = queueEntries.getByteSize();
+            this.spilledByteSize = queueEntries.getSpilledByteSize();
         } catch (IOException e) {
             throw new SQLException("", e);
         } finally {
@@ -265,7 +274,12 @@ public class OrderedResultIterator implements PeekingResultIterator {
 
     @Override
     public void close() throws SQLException {
-        resultIterator.close();
+        // Guard against resultIterator being null, which happens when close is called before next
+        if (resultIterator == null) {
+            delegate.close();
+        } else {
+            resultIterator.close();
+        }
         resultIterator = PeekingResultIterator.EMPTY_ITERATOR;
     }
 
@@ -32,6 +32,7 @@ import org.apache.phoenix.compile.QueryPlan;
 import org.apache.phoenix.job.JobManager.JobCallable;
 import org.apache.phoenix.monitoring.MetricType;
 import org.apache.phoenix.monitoring.CombinableMetric;
+import org.apache.phoenix.monitoring.OperatorStatistics;
 import org.apache.phoenix.monitoring.ReadMetricQueue;
 import org.apache.phoenix.monitoring.TaskExecutionMetricsHolder;
 import org.apache.phoenix.trace.util.Tracing;
@@ -89,6 +90,7 @@ public class ParallelIterators extends BaseResultIterators {
         // before we fill up the thread pool
         Collections.shuffle(scanLocations);
         ReadMetricQueue readMetrics = context.getReadMetricsQueue();
+        final OperatorStatistics statistics = getOperatorStatistics();
         final String physicalTableName = tableRef.getTable().getPhysicalName().getString();
         int numScans = scanLocations.size();
         context.getOverallQueryMetrics().updateNumParallelScans(numScans);
@@ -102,7 +104,7 @@ public class ParallelIterators extends BaseResultIterators {
                 @Override
                 public PeekingResultIterator call() throws Exception {
                     long startTime = System.currentTimeMillis();
-                    ResultIterator scanner = new TableResultIterator(context, tableRef, scan, scanMetrics);
+                    ResultIterator scanner = new TableResultIterator(context, tableRef, scan, scanMetrics, statistics);
                     if (logger.isDebugEnabled()) {
                         logger.debug(LogUtil.addCustomAnnotations("Id: " + scanId + ", Time: " + (System.currentTimeMillis() - startTime) + "ms, Scan: " + scan, ScanUtil.getCustomAnnotations(scan)));
                     }
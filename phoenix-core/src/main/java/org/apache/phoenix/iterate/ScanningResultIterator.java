@@ -28,9 +28,11 @@ import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.phoenix.coprocessor.RuntimeStatisticsRegionScanner;
 import org.apache.phoenix.monitoring.CombinableMetric.NoOpRequestMetric;
 import org.apache.phoenix.monitoring.GlobalClientMetrics;
 import org.apache.phoenix.monitoring.CombinableMetric;
+import org.apache.phoenix.monitoring.OperatorStatistics;
 import org.apache.phoenix.schema.tuple.ResultTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.ServerUtil;
@@ -38,21 +40,33 @@ import org.apache.phoenix.util.ServerUtil;
 public class ScanningResultIterator implements ResultIterator {
     private final ResultScanner scanner;
     private final CombinableMetric scanMetrics;
+    private final OperatorStatistics statistics;
+    private long timeNanos;
+    private long cpuTimeNanos;
     
     public ScanningResultIterator(ResultScanner scanner, CombinableMetric scanMetrics) {
+        this(scanner, scanMetrics, null);
+    }
+    
+    public ScanningResultIterator(ResultScanner scanner, CombinableMetric scanMetrics, OperatorStatistics statistics) {
         this.scanner = scanner;
         this.scanMetrics = scanMetrics;
+        this.statistics = statistics;
     }
     
     @Override
     public void close() throws SQLException {
         scanner.close();
+        if (statistics != null) {
+            statistics.addTime(timeNanos, cpuTimeNanos);
+            statistics.addChunk(timeNanos);
+        }
     }
 
     @Override
     public Tuple next() throws SQLException {
         try {
-            Result result = scanner.next();
+            Result result = statistics == null ? scanner.next() : nextAnalyzed();
             calculateScanSize(result);
             // TODO: use ResultTuple.setResult(result)
             // Need to create a new one if holding on to it (i.e. OrderedResultIterator)
@@ -62,6 +76,31 @@ public class ScanningResultIterator implements ResultIterator {
         }
     }
 
+    private Result nextAnalyzed() throws IOException {
+        long startTime = System.nanoTime();
+        long startCpuTime = OperatorStatistics.currentThreadCpuTime();
+        try {
+            Result result = scanner.next();
+            // Skip over the statistics the server appends after the last row of the scan
+            while (result != null && RuntimeStatisticsRegionScanner.isStatisticsResult(result)) {
+                RuntimeStatisticsRegionScanner.readStatistics(result, statistics);
+                result = scanner.next();
+            }
+            if (result != null) {
+                long resultSize = 0;
+                for (Cell cell : result.rawCells()) {
+                    resultSize += KeyValueUtil.length(cell);
+                }
+                statistics.addRows(1);
+                statistics.addBytes(resultSize);
+            }
+            return result;
+        } finally {
+            timeNanos += System.nanoTime() - startTime;
+            cpuTimeNanos += OperatorStatistics.currentThreadCpuTime() - startCpuTime;
+        }
+    }
+
     @Override
     public void explain(List<String> planSteps) {
     }
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.iterate.SpoolFileOutputStream.BLOCK_HEADER_SIZE;
+import static org.apache.phoenix.iterate.SpoolFileOutputStream.BLOCK_SIZE;
+import static org.apache.phoenix.iterate.SpoolFileOutputStream.CODEC_NONE;
+import static org.apache.phoenix.iterate.SpoolFileOutputStream.CODEC_SNAPPY;
+import static org.apache.phoenix.iterate.SpoolFileOutputStream.MAX_STORED_BLOCK_SIZE;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import org.iq80.snappy.CorruptionException;
+import org.iq80.snappy.Snappy;
+
+/**
+ * Input stream reading back the blocks written by {@link SpoolFileOutputStream}, verifying
+ * the checksum of each block before decompressing it.
+ */
+public class SpoolFileInputStream extends InputStream {
+    private final File file;
+    private final FileInputStream fileIn;
+    private final FileChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+    private final byte[] stored = new byte[MAX_STORED_BLOCK_SIZE];
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final CRC32 crc = new CRC32();
+    private long blockStart;
+    private long nextBlockStart;
+    private int blockLength;
+    private int position;
+
+    public SpoolFileInputStream(File file) throws IOException {
+        this(file, 0, 0);
+    }
+
+    /**
+     * Opens the file at a position previously obtained through {@link #getBlockStart()}
+     * and {@link #getPositionInBlock()}.
+     */
+    public SpoolFileInputStream(File file, long blockStart, int positionInBlock) throws IOException {
+        this.file = file;
+        this.fileIn = new FileInputStream(file);
+        this.channel = fileIn.getChannel();
+        this.nextBlockStart = blockStart;
+        boolean success = false;
+        try {
+            if (positionInBlock > 0) {
+                if (!readBlock() || positionInBlock > blockLength) {
+                    throw new EOFException("Invalid position " + positionInBlock + " in block at " + blockStart + " of " + file);
+                }
+                position = positionInBlock;
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                fileIn.close();
+            }
+        }
+    }
+
+    public long getBlockStart() {
+        return blockStart;
+    }
+
+    public int getPositionInBlock() {
+        return position;
+    }
+
+    private boolean readBlock() throws IOException {
+        header.clear();
+        if (!readFully(header, nextBlockStart, true)) {
+            return false;
+        }
+        header.flip();
+        byte codec = header.get();
+        int length = header.getInt();
+        int storedLength = header.getInt();
+        int checksum = header.getInt();
+        if (length < 0 || length > BLOCK_SIZE || storedLength < 0 || storedLength > MAX_STORED_BLOCK_SIZE) {
+            throw new IOException("Corrupt block header at " + nextBlockStart + " of " + file);
+        }
+        readFully(ByteBuffer.wrap(stored, 0, storedLength), nextBlockStart + BLOCK_HEADER_SIZE, false);
+        crc.reset();
+        crc.update(stored, 0, storedLength);
+        if ((int)crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch for block at " + nextBlockStart + " of " + file);
+        }
+        if (codec == CODEC_SNAPPY) {
+            try {
+                Snappy.uncompress(stored, 0, storedLength, block, 0);
+            } catch (CorruptionException e) {
+                throw new IOException("Corrupt block at " + nextBlockStart + " of " + file, e);
+            }
+        } else if (codec == CODEC_NONE) {
+            System.arraycopy(stored, 0, block, 0, storedLength);
+        } else {
+            throw new IOException("Unknown codec " + codec + " for block at " + nextBlockStart + " of " + file);
+        }
+        blockStart = nextBlockStart;
+        nextBlockStart += BLOCK_HEADER_SIZE + storedLength;
+        blockLength = length;
+        position = 0;
+        return true;
+    }
+
+    private boolean readFully(ByteBuffer buffer, long offset, boolean allowEOF) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, offset);
+            if (n < 0) {
+                if (allowEOF && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Truncated block at " + nextBlockStart + " of " + file);
+            }
+            offset += n;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == blockLength && !readBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == blockLength && !readBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, blockLength - position);
+        System.arraycopy(block, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return blockLength - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileIn.close();
+    }
+}
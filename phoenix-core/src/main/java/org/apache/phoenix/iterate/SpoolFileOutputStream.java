@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.iq80.snappy.Snappy;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Output stream for the temporary files used to spool and sort results. Data is cut into
+ * blocks of {@link #BLOCK_SIZE} bytes, each compressed with Snappy (or stored as is if it
+ * does not compress) and protected by a CRC32 checksum. Blocks are copied into a direct
+ * buffer and written by a background thread, so that filling and compressing the next
+ * block overlaps with the disk write of the previous one. Read back with
+ * {@link SpoolFileInputStream}.
+ *
+ * Block layout: codec (byte), uncompressed length (int), stored length (int),
+ * CRC32 of the stored bytes (int), stored bytes.
+ */
+public class SpoolFileOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int BLOCK_HEADER_SIZE = 1 + 3 * Bytes.SIZEOF_INT;
+    static final int MAX_STORED_BLOCK_SIZE = Snappy.maxCompressedLength(BLOCK_SIZE);
+    static final byte CODEC_NONE = 0;
+    static final byte CODEC_SNAPPY = 1;
+
+    private static class WriterPoolHolder {
+        private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
+                new ThreadFactoryBuilder().setNameFormat("phoenix-spool-writer-%s").setDaemon(true).build());
+    }
+
+    // Direct buffers are costly to allocate and only freed on GC, so reuse them across files
+    private static final int MAX_POOLED_BUFFERS = 32;
+    private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<ByteBuffer>();
+    private static final AtomicInteger POOLED_BUFFER_COUNT = new AtomicInteger();
+
+    private final FileOutputStream fileOut;
+    private final FileChannel channel;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[MAX_STORED_BLOCK_SIZE];
+    private final CRC32 crc = new CRC32();
+    // Written alternately, one of them possibly in flight
+    private final ByteBuffer[] writeBuffers = new ByteBuffer[2];
+    private int writeBufferIndex;
+    private int blockLength;
+    private Future<?> pendingWrite;
+    private boolean isClosed;
+
+    public SpoolFileOutputStream(File file) throws IOException {
+        this.fileOut = new FileOutputStream(file);
+        this.channel = fileOut.getChannel();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (blockLength == BLOCK_SIZE) {
+            writeBlock();
+        }
+        block[blockLength++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (blockLength == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int n = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (blockLength > 0) {
+            writeBlock();
+        }
+        awaitPendingWrite();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        try {
+            flush();
+        } finally {
+            try {
+                fileOut.close();
+            } finally {
+                // Only return the buffers once no write can be in flight
+                if (pendingWrite == null) {
+                    for (int i = 0; i < writeBuffers.length; i++) {
+                        if (writeBuffers[i] != null) {
+                            returnBuffer(writeBuffers[i]);
+                            writeBuffers[i] = null;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer takeBuffer() {
+        ByteBuffer buffer = BUFFER_POOL.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BLOCK_HEADER_SIZE + MAX_STORED_BLOCK_SIZE);
+        }
+        POOLED_BUFFER_COUNT.decrementAndGet();
+        return buffer;
+    }
+
+    private static void returnBuffer(ByteBuffer buffer) {
+        if (POOLED_BUFFER_COUNT.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            BUFFER_POOL.offer(buffer);
+        } else {
+            POOLED_BUFFER_COUNT.decrementAndGet();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        byte codec;
+        byte[] stored;
+        int storedLength = Snappy.compress(block, 0, blockLength, compressed, 0);
+        if (storedLength < blockLength) {
+            codec = CODEC_SNAPPY;
+            stored = compressed;
+        } else {
+            codec = CODEC_NONE;
+            stored = block;
+            storedLength = blockLength;
+        }
+        crc.reset();
+        crc.update(stored, 0, storedLength);
+        ByteBuffer buffer = writeBuffers[writeBufferIndex];
+        if (buffer == null) {
+            buffer = writeBuffers[writeBufferIndex] = takeBuffer();
+        }
+        // Not in flight: only the other buffer can still be being written
+        buffer.clear();
+        buffer.put(codec);
+        buffer.putInt(blockLength);
+        buffer.putInt(storedLength);
+        buffer.putInt((int)crc.getValue());
+        buffer.put(stored, 0, storedLength);
+        buffer.flip();
+        blockLength = 0;
+        awaitPendingWrite();
+        final ByteBuffer toWrite = buffer;
+        pendingWrite = WriterPoolHolder.INSTANCE.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                while (toWrite.hasRemaining()) {
+                    channel.write(toWrite);
+                }
+                return null;
+            }
+        });
+        writeBufferIndex ^= 1;
+    }
+
+    private void awaitPendingWrite() throws IOException {
+        if (pendingWrite == null) {
+            return;
+        }
+        try {
+            pendingWrite.get();
+            pendingWrite = null;
+        } catch (InterruptedException e) {
+            // Leave pendingWrite set, as the write may still be using its buffer
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            pendingWrite = null;
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -22,17 +22,17 @@ import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_MEMORY_WA
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_SPOOL_FILE_COUNTER;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_SPOOL_FILE_SIZE;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.util.List;
 
-import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.apache.commons.io.output.ThresholdingOutputStream;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.io.WritableUtils;
@@ -75,12 +75,12 @@ public class SpoolingResultIterator implements PeekingResultIterator {
             ReadMetricQueue readRequestMetric = context.getReadMetricsQueue();
             SpoolingMetricsHolder spoolMetrics = new SpoolingMetricsHolder(readRequestMetric, physicalTableName);
             MemoryMetricsHolder memoryMetrics = new MemoryMetricsHolder(readRequestMetric, physicalTableName);
-            return new SpoolingResultIterator(spoolMetrics, memoryMetrics, scanner, services);
+            return new SpoolingResultIterator(spoolMetrics, memoryMetrics, scanner, context.getMemoryManager(), services);
         }
     }
 
-    private SpoolingResultIterator(SpoolingMetricsHolder spoolMetrics, MemoryMetricsHolder memoryMetrics, ResultIterator scanner, QueryServices services) throws SQLException {
-        this (spoolMetrics, memoryMetrics, scanner, services.getMemoryManager(),
+    private SpoolingResultIterator(SpoolingMetricsHolder spoolMetrics, MemoryMetricsHolder memoryMetrics, ResultIterator scanner, MemoryManager mm, QueryServices services) throws SQLException {
+        this (spoolMetrics, memoryMetrics, scanner, mm,
                 services.getProps().getInt(QueryServices.SPOOL_THRESHOLD_BYTES_ATTRIB, QueryServicesOptions.DEFAULT_SPOOL_THRESHOLD_BYTES),
                 services.getProps().getLong(QueryServices.MAX_SPOOL_TO_DISK_BYTES_ATTRIB, QueryServicesOptions.DEFAULT_MAX_SPOOL_TO_DISK_BYTES),
                 services.getProps().get(QueryServices.SPOOL_DIRECTORY, QueryServicesOptions.DEFAULT_SPOOL_DIRECTORY));
@@ -104,11 +104,11 @@ public class SpoolingResultIterator implements PeekingResultIterator {
         long waitTime = System.currentTimeMillis() - startTime;
         GLOBAL_MEMORY_WAIT_TIME.update(waitTime);
         memoryMetrics.getMemoryWaitTimeMetric().change(waitTime);
-        DeferredFileOutputStream spoolTo = null;
+        DeferredSpoolFileOutputStream spoolTo = null;
         try {
             // Can't be bigger than int, since it's the max of the above allocation
             int size = (int)chunk.getSize();
-            spoolTo = new DeferredFileOutputStream(size, "ResultSpooler",".bin", new File(spoolDirectory)) {
+            spoolTo = new DeferredSpoolFileOutputStream(size, new File(spoolDirectory)) {
                 @Override
                 protected void thresholdReached() throws IOException {
                     try {
@@ -129,6 +129,8 @@ public class SpoolingResultIterator implements PeekingResultIterator {
                 		throw new SpoolTooBigToDiskException("result too big, max allowed(bytes): " + maxBytesAllowed);
                 }
             }
+            // Write out any buffered block so that the spool file is complete
+            spoolTo.close();
             if (spoolTo.isInMemory()) {
                 byte[] data = spoolTo.getData();
                 chunk.resize(data.length);
@@ -186,6 +188,50 @@ public class SpoolingResultIterator implements PeekingResultIterator {
         spoolFrom.close();
     }
 
+    /**
+     * Output stream that keeps data in memory until the threshold is reached, and then
+     * moves it to a compressed spool file written through {@link SpoolFileOutputStream}.
+     */
+    private static class DeferredSpoolFileOutputStream extends ThresholdingOutputStream {
+        private final File directory;
+        private ByteArrayOutputStream memoryOutputStream;
+        private OutputStream currentOutputStream;
+        private File outputFile;
+
+        private DeferredSpoolFileOutputStream(int threshold, File directory) {
+            super(threshold);
+            this.directory = directory;
+            this.memoryOutputStream = new ByteArrayOutputStream();
+            this.currentOutputStream = memoryOutputStream;
+        }
+
+        @Override
+        protected OutputStream getStream() {
+            return currentOutputStream;
+        }
+
+        @Override
+        protected void thresholdReached() throws IOException {
+            outputFile = File.createTempFile("ResultSpooler", ".bin", directory);
+            OutputStream fileOutputStream = new SpoolFileOutputStream(outputFile);
+            memoryOutputStream.writeTo(fileOutputStream);
+            currentOutputStream = fileOutputStream;
+            memoryOutputStream = null;
+        }
+
+        public boolean isInMemory() {
+            return !isThresholdExceeded();
+        }
+
+        public byte[] getData() {
+            return memoryOutputStream == null ? null : memoryOutputStream.toByteArray();
+        }
+
+        public File getFile() {
+            return outputFile;
+        }
+    }
+
     /**
      *
      * Backing result iterator if it was not necessary to spool results to disk.
@@ -258,7 +304,7 @@ public class SpoolingResultIterator implements PeekingResultIterator {
 
         private synchronized void init() throws IOException {
             if (spoolFrom == null) {
-                spoolFrom = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+                spoolFrom = new DataInputStream(new SpoolFileInputStream(file));
                 advance();
             }
         }
@@ -286,17 +332,12 @@ public class SpoolingResultIterator implements PeekingResultIterator {
                 reachedEnd();
                 return next;
             }
-            int totalBytesRead = 0;
-            int offset = 0;
             byte[] buffer = new byte[length];
-            while(totalBytesRead < length) {
-                int bytesRead = spoolFrom.read(buffer, offset, length);
-                if (bytesRead == -1) {
-                    reachedEnd();
-                    return next;
-                }
-                offset += bytesRead;
-                totalBytesRead += bytesRead;
+            try {
+                spoolFrom.readFully(buffer);
+            } catch (EOFException e) {
+                reachedEnd();
+                return next;
             }
             next = new ResultTuple(ResultUtil.toResult(new ImmutableBytesWritable(buffer,0,length)));
             return next;
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.exception.SQLExceptionCode;
+import org.apache.phoenix.exception.SQLExceptionInfo;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.apache.phoenix.util.ServerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * {@code PeekingResultIterator} that streams the results of a scan through a bounded buffer
+ * instead of spooling them. Batches of rows are read ahead on the query executor until
+ * {@link QueryServices#STREAMING_MAX_BUFFERED_BATCHES_ATTRIB} batches are buffered, at which
+ * point reading pauses until the consumer catches up. While paused, a single batch is read
+ * every half scanner timeout period so that the region server does not expire the scanner lease,
+ * up to {@link QueryServices#STREAMING_MAX_KEEP_ALIVE_BATCHES_ATTRIB} more batches. Beyond that
+ * the buffer is not grown any further and the lease is left to expire, in which case reading
+ * the rest of the results fails with an error saying so.
+ */
+public class StreamingResultIterator implements PeekingResultIterator {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingResultIterator.class);
+
+    private final ResultIterator scanner;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int maxBufferedBatches;
+    private final int maxKeepAliveBatches;
+    private final long keepAliveMs;
+    // Guarded by this
+    private final Deque<List<Tuple>> batches = new ArrayDeque<List<Tuple>>();
+    private boolean isFetching;
+    private boolean isExhausted;
+    private boolean isClosed;
+    private SQLException fetchException;
+    private long lastFetchTime;
+    private boolean isKeepAliveStopped;
+    private ScheduledFuture<?> keepAliveFuture;
+    // Only accessed by the consumer
+    private Iterator<Tuple> currentBatch = Iterators.emptyIterator();
+    private Tuple next;
+
+    public static class StreamingResultIteratorFactory implements ParallelIteratorFactory {
+        private final QueryServices services;
+
+        public StreamingResultIteratorFactory(QueryServices services) {
+            this.services = services;
+        }
+
+        @Override
+        public PeekingResultIterator newIterator(StatementContext context, ResultIterator scanner, Scan scan, String physicalTableName) throws SQLException {
+            ReadOnlyProps props = services.getProps();
+            // Match the scanner caching so that reading each batch renews the scanner lease
+            int batchSize = scan.getCaching() > 0 ? scan.getCaching()
+                    : props.getInt(QueryServices.SCAN_CACHE_SIZE_ATTRIB, QueryServicesOptions.DEFAULT_SCAN_CACHE_SIZE);
+            int maxBufferedBatches = props.getInt(QueryServices.STREAMING_MAX_BUFFERED_BATCHES_ATTRIB,
+                    QueryServicesOptions.DEFAULT_STREAMING_MAX_BUFFERED_BATCHES);
+            int maxKeepAliveBatches = props.getInt(QueryServices.STREAMING_MAX_KEEP_ALIVE_BATCHES_ATTRIB,
+                    QueryServicesOptions.DEFAULT_STREAMING_MAX_KEEP_ALIVE_BATCHES);
+            long keepAliveMs = props.getLong(HConstants.HBASE_CLIENT_SCANNER_TIMEOUT_PERIOD,
+                    HConstants.DEFAULT_HBASE_CLIENT_SCANNER_TIMEOUT_PERIOD) / 2;
+            return new StreamingResultIterator(scanner, services.getExecutor(), batchSize, maxBufferedBatches,
+                    maxKeepAliveBatches, keepAliveMs);
+        }
+    }
+
+    private static class KeepAliveSchedulerHolder {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("phoenix-scanner-keep-alive-%s").setDaemon(true).build());
+    }
+
+    /**
+     * Create a result iterator that streams the results of a scan. The first batch is read
+     * before returning, so that errors opening the scan are raised to the caller.
+     * @param scanner the results of a table scan, closed when this iterator is closed
+     * @param executor executor on which batches are read ahead
+     * @param batchSize number of rows read at a time
+     * @param maxBufferedBatches number of batches read ahead before pausing
+     * @param maxKeepAliveBatches number of batches a paused scanner may buffer beyond maxBufferedBatches
+     *  to keep its lease, after which the lease is left to expire
+     * @param keepAliveMs time after which a paused scanner reads another batch to keep its lease
+     * @throws SQLException
+     */
+    StreamingResultIterator(ResultIterator scanner, ExecutorService executor, int batchSize, int maxBufferedBatches,
+            int maxKeepAliveBatches, long keepAliveMs) throws SQLException {
+        this.scanner = scanner;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBufferedBatches = Math.max(1, maxBufferedBatches);
+        this.maxKeepAliveBatches = Math.max(0, maxKeepAliveBatches);
+        this.keepAliveMs = keepAliveMs;
+        boolean success = false;
+        try {
+            synchronized (this) {
+                isFetching = true;
+            }
+            fetch(false);
+            success = true;
+        } finally {
+            if (!success) {
+                scanner.close();
+            }
+        }
+        advance();
+    }
+
+    private List<Tuple> readBatch() throws SQLException {
+        List<Tuple> batch = Lists.newArrayListWithExpectedSize(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Tuple tuple = scanner.next();
+            if (tuple == null) {
+                break;
+            }
+            batch.add(tuple);
+        }
+        return batch;
+    }
+
+    /*
+     * Reads batches until the buffer is full or the scan is exhausted, or only a single
+     * batch to keep a paused scanner alive. Must only be called
+     * by the thread that set isFetching, so that the scanner is never used concurrently.
+     */
+    private void fetch(boolean isSingleBatch) throws SQLException {
+        try {
+            while (true) {
+                List<Tuple> batch = readBatch();
+                synchronized (this) {
+                    lastFetchTime = System.currentTimeMillis();
+                    isKeepAliveStopped = false;
+                    if (!batch.isEmpty() && !isClosed) {
+                        batches.add(batch);
+                    }
+                    isExhausted = batch.size() < batchSize;
+                    if (isClosed || isExhausted || isSingleBatch || batches.size() >= maxBufferedBatches) {
+                        isFetching = false;
+                        if (!isClosed && !isExhausted) {
+                            scheduleKeepAlive();
+                        }
+                        notifyAll();
+                        return;
+                    }
+                    notifyAll();
+                }
+            }
+        } catch (SQLException e) {
+            synchronized (this) {
+                fetchException = isKeepAliveStopped ? newLeaseExpiredException(e) : e;
+                isFetching = false;
+                notifyAll();
+                throw fetchException;
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                fetchException = isKeepAliveStopped ? newLeaseExpiredException(e) : ServerUtil.parseServerException(e);
+                isFetching = false;
+                notifyAll();
+                if (isKeepAliveStopped) {
+                    throw fetchException;
+                }
+            }
+            throw e;
+        }
+    }
+
+    // Must hold the lock on this
+    private SQLException newLeaseExpiredException(Throwable cause) {
+        return new SQLExceptionInfo.Builder(SQLExceptionCode.OPERATION_TIMED_OUT)
+                .setMessage("Results were not read for " + (System.currentTimeMillis() - lastFetchTime)
+                        + " ms with " + (maxBufferedBatches + maxKeepAliveBatches)
+                        + " batches buffered, so the scanner lease may have expired. Read results sooner or increase "
+                        + QueryServices.STREAMING_MAX_KEEP_ALIVE_BATCHES_ATTRIB + " or "
+                        + HConstants.HBASE_CLIENT_SCANNER_TIMEOUT_PERIOD)
+                .setRootCause(cause).build().buildException();
+    }
+
+    private class FetchTask implements Runnable {
+        private final boolean isSingleBatch;
+
+        private FetchTask(boolean isSingleBatch) {
+            this.isSingleBatch = isSingleBatch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                fetch(isSingleBatch);
+            } catch (Exception e) {
+                // Raised to the consumer through fetchException
+                logger.debug("Failed to read ahead results of " + scanner, e);
+            }
+        }
+    }
+
+    // Must hold the lock on this
+    private boolean submitFetch(boolean isSingleBatch) {
+        isFetching = true;
+        try {
+            executor.submit(new FetchTask(isSingleBatch));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // The consumer reads the next batch itself once the buffer is drained
+            isFetching = false;
+            return false;
+        }
+    }
+
+    // Must hold the lock on this
+    private void scheduleKeepAlive() {
+        if (batches.size() >= maxBufferedBatches + maxKeepAliveBatches) {
+            // Don't grow the buffer any further while the consumer is paused
+            isKeepAliveStopped = true;
+            logger.warn("Stopped keeping the lease of " + scanner + " alive after buffering " + batches.size()
+                    + " batches. The lease expires unless results are read within "
+                    + HConstants.HBASE_CLIENT_SCANNER_TIMEOUT_PERIOD);
+            return;
+        }
+        keepAliveFuture = KeepAliveSchedulerHolder.INSTANCE.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (StreamingResultIterator.this) {
+                    if (isFetching || isExhausted || isClosed || fetchException != null) {
+                        return;
+                    }
+                    if (System.currentTimeMillis() - lastFetchTime >= keepAliveMs) {
+                        // Reading a batch renews the scanner lease on the region server
+                        submitFetch(true);
+                    } else {
+                        scheduleKeepAlive();
+                    }
+                }
+            }
+        }, keepAliveMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Must hold the lock on this
+    private void cancelKeepAlive() {
+        if (keepAliveFuture != null) {
+            keepAliveFuture.cancel(false);
+            keepAliveFuture = null;
+        }
+    }
+
+    private List<Tuple> takeBatch() throws SQLException {
+        boolean isConsumerFetch = false;
+        synchronized (this) {
+            while (batches.isEmpty() && !isExhausted && fetchException == null) {
+                if (!isFetching) {
+                    cancelKeepAlive();
+                    if (!submitFetch(false)) {
+                        isFetching = isConsumerFetch = true;
+                        break;
+                    }
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw ServerUtil.parseServerException(e);
+                }
+            }
+        }
+        if (isConsumerFetch) {
+            fetch(true);
+        }
+        synchronized (this) {
+            if (fetchException != null && batches.isEmpty()) {
+                throw fetchException;
+            }
+            List<Tuple> batch = batches.poll();
+            // Resume reading ahead now that there is room in the buffer
+            if (!isFetching && !isExhausted && fetchException == null) {
+                cancelKeepAlive();
+                submitFetch(false);
+            }
+            return batch;
+        }
+    }
+
+    private void advance() throws SQLException {
+        while (!currentBatch.hasNext()) {
+            List<Tuple> batch = takeBatch();
+            if (batch == null) {
+                next = null;
+                return;
+            }
+            currentBatch = batch.iterator();
+        }
+        next = currentBatch.next();
+    }
+
+    @Override
+    public Tuple peek() throws SQLException {
+        return next;
+    }
+
+    @Override
+    public Tuple next() throws SQLException {
+        Tuple current = next;
+        if (current != null) {
+            advance();
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        synchronized (this) {
+            isClosed = true;
+            cancelKeepAlive();
+            batches.clear();
+            // Wait for an in progress read so that the scanner is not closed under it
+            while (isFetching) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            next = null;
+            currentBatch = Iterators.emptyIterator();
+        }
+        scanner.close();
+    }
+
+    @Override
+    public void explain(List<String> planSteps) {
+        scanner.explain(planSteps);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingResultIterator [scanner=" + scanner + ", batchSize=" + batchSize
+                + ", maxBufferedBatches=" + maxBufferedBatches + ", maxKeepAliveBatches=" + maxKeepAliveBatches + "]";
+    }
+}
@@ -24,7 +24,9 @@ import java.util.List;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
 import org.apache.phoenix.monitoring.CombinableMetric;
+import org.apache.phoenix.monitoring.OperatorStatistics;
 import org.apache.phoenix.schema.TableRef;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.Closeables;
@@ -46,6 +48,7 @@ public class TableResultIterator extends ExplainTable implements ResultIterator
     private final HTableInterface htable;
     private volatile ResultIterator delegate;
     private final CombinableMetric scanMetrics;
+    private final OperatorStatistics statistics;
     
     public TableResultIterator(StatementContext context, TableRef tableRef, CombinableMetric scanMetrics) throws SQLException {
         this(context, tableRef, context.getScan(), scanMetrics);
@@ -64,7 +67,7 @@ public class TableResultIterator extends ExplainTable implements ResultIterator
                 delegate = this.delegate;
                 if (delegate == null) {
                     try {
-                        this.delegate = delegate = isClosing ? ResultIterator.EMPTY_ITERATOR : new ScanningResultIterator(htable.getScanner(scan), scanMetrics);
+                        this.delegate = delegate = isClosing ? ResultIterator.EMPTY_ITERATOR : new ScanningResultIterator(htable.getScanner(scan), scanMetrics, statistics);
                     } catch (IOException e) {
                         Closeables.closeQuietly(htable);
                         throw ServerUtil.parseServerException(e);
@@ -79,10 +82,21 @@ public class TableResultIterator extends ExplainTable implements ResultIterator
         this(context, tableRef, scan, scanMetrics, ScannerCreation.IMMEDIATE);
     }
 
+    public TableResultIterator(StatementContext context, TableRef tableRef, Scan scan, CombinableMetric scanMetrics, OperatorStatistics statistics) throws SQLException {
+        this(context, tableRef, scan, scanMetrics, ScannerCreation.IMMEDIATE, statistics);
+    }
+
     public TableResultIterator(StatementContext context, TableRef tableRef, Scan scan, CombinableMetric scanMetrics, ScannerCreation creationMode) throws SQLException {
+        this(context, tableRef, scan, scanMetrics, creationMode, null);
+    }
+
+    public TableResultIterator(StatementContext context, TableRef tableRef, Scan scan, CombinableMetric scanMetrics, ScannerCreation creationMode, OperatorStatistics statistics) throws SQLException {
         super(context, tableRef);
         this.scan = scan;
         this.scanMetrics = scanMetrics;
+        // The statistics rows returned for EXPLAIN ANALYZE must be removed even if nobody collects them
+        this.statistics = statistics == null && scan.getAttribute(BaseScannerRegionObserver.RUNTIME_STATISTICS) != null
+                ? new OperatorStatistics() : statistics;
         htable = context.getConnection().getQueryServices().getTable(tableRef.getTable().getPhysicalName().getBytes());
         if (creationMode == ScannerCreation.IMMEDIATE) {
         	getDelegate(false);
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.client.IsolationLevel;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.protobuf.generated.HBaseProtos.SnapshotDescription;
+import org.apache.hadoop.hbase.protobuf.generated.SnapshotProtos.SnapshotRegionManifest;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.snapshot.SnapshotDescriptionUtils;
+import org.apache.hadoop.hbase.snapshot.SnapshotManifest;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
+import org.apache.phoenix.coprocessor.BaseScannerRegionObserver;
+import org.apache.phoenix.coprocessor.GroupedAggregateRegionObserver;
+import org.apache.phoenix.coprocessor.ScanRegionObserver;
+import org.apache.phoenix.execute.ClientAggregatePlan.ClientGroupedAggregatingResultIterator;
+import org.apache.phoenix.execute.ClientAggregatePlan.ClientUngroupedAggregatingResultIterator;
+import org.apache.phoenix.execute.TupleProjector;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.OrderByExpression;
+import org.apache.phoenix.expression.aggregator.ServerAggregators;
+import org.apache.phoenix.join.HashJoinInfo;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.IndexUtil;
+import org.apache.phoenix.util.ScanUtil;
+import org.apache.phoenix.util.ServerUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Result iterator that runs a scan directly against the HFiles of a restored table snapshot
+ * instead of going through the region servers, one region at a time. The work the Phoenix
+ * coprocessors would do on the region server for the scan, aggregation and TopN, is done
+ * in process, so the rows returned are the same as those of a {@link TableResultIterator}.
+ *
+ * Local index scans and scans of joins or projected tables are not supported.
+ */
+public class TableSnapshotResultIterator implements ResultIterator {
+    private static final Logger logger = LoggerFactory.getLogger(TableSnapshotResultIterator.class);
+
+    private final Configuration conf;
+    private final HTableDescriptor htd;
+    private final SnapshotRegions snapshotRegions;
+    private final Scan scan;
+    private final Iterator<HRegionInfo> regions;
+    private HRegionInfo currentRegion;
+    private RegionScanner regionScanner;
+    private ResultIterator regionIterator;
+
+    private TableSnapshotResultIterator(Configuration conf, HTableDescriptor htd, SnapshotRegions snapshotRegions,
+            List<HRegionInfo> regions, Scan scan) {
+        this.conf = conf;
+        this.htd = htd;
+        this.snapshotRegions = snapshotRegions;
+        this.scan = scan;
+        this.regions = regions.iterator();
+    }
+
+    /**
+     * Regions of the snapshot opened for the iterators of one call to {@link #newIterators},
+     * so that a region read by several scans is opened once. Each region is closed once
+     * every iterator that reads it is done with it.
+     */
+    private static class SnapshotRegions {
+        private final Configuration conf;
+        private final FileSystem fs;
+        private final Path restoreDir;
+        private final HTableDescriptor htd;
+        private final Map<HRegionInfo, HRegion> openRegions = Maps.newHashMap();
+        // Number of iterators yet to be done with each region
+        private final Map<HRegionInfo, Integer> refCounts = Maps.newHashMap();
+
+        private SnapshotRegions(Configuration conf, FileSystem fs, Path restoreDir, HTableDescriptor htd) {
+            this.conf = conf;
+            this.fs = fs;
+            this.restoreDir = restoreDir;
+            this.htd = htd;
+        }
+
+        synchronized void retain(HRegionInfo hri) {
+            Integer refCount = refCounts.get(hri);
+            refCounts.put(hri, refCount == null ? 1 : refCount + 1);
+        }
+
+        synchronized HRegion open(HRegionInfo hri) throws IOException {
+            HRegion region = openRegions.get(hri);
+            if (region == null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Opening snapshot region " + hri.getRegionNameAsString());
+                }
+                // Without region server services no coprocessors are loaded on the region
+                region = HRegion.openHRegion(conf, fs, restoreDir, hri, htd, null, null, null);
+                try {
+                    region.startRegionOperation();
+                } catch (IOException e) {
+                    region.close(true);
+                    throw e;
+                }
+                openRegions.put(hri, region);
+            }
+            return region;
+        }
+
+        synchronized void release(HRegionInfo hri) throws IOException {
+            int refCount = refCounts.get(hri) - 1;
+            if (refCount > 0) {
+                refCounts.put(hri, refCount);
+                return;
+            }
+            refCounts.remove(hri);
+            HRegion region = openRegions.remove(hri);
+            if (region != null) {
+                try {
+                    region.closeRegionOperation();
+                } finally {
+                    region.close(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create an iterator for each of the given scans of a table, reading the regions of a
+     * snapshot of the table restored to the given directory.
+     * @param conf configuration of the HBase cluster the snapshot was taken on
+     * @param snapshotName name of the snapshot
+     * @param restoreDir directory the snapshot was restored to
+     * @param physicalTableName name of the HBase table the scans are for
+     * @param scans scans to run, in row key order
+     */
+    public static List<PeekingResultIterator> newIterators(Configuration conf, String snapshotName,
+            Path restoreDir, byte[] physicalTableName, List<Scan> scans) throws SQLException {
+        for (Scan scan : scans) {
+            checkSupported(scan);
+        }
+        try {
+            Configuration snapshotConf = new Configuration(conf);
+            // Rows are read once, so don't churn the heap with a block cache
+            snapshotConf.setFloat(HConstants.HFILE_BLOCK_CACHE_SIZE_KEY, 0.0f);
+            Path rootDir = FSUtils.getRootDir(snapshotConf);
+            FileSystem fs = rootDir.getFileSystem(snapshotConf);
+            Path snapshotDir = SnapshotDescriptionUtils.getCompletedSnapshotDir(snapshotName, rootDir);
+            SnapshotDescription snapshotDesc = SnapshotDescriptionUtils.readSnapshotInfo(fs, snapshotDir);
+            SnapshotManifest manifest = SnapshotManifest.open(snapshotConf, fs, snapshotDir, snapshotDesc);
+            HTableDescriptor htd = manifest.getTableDescriptor();
+            if (!Bytes.equals(htd.getTableName().getName(), physicalTableName)) {
+                throw new IllegalArgumentException("Snapshot " + snapshotName + " is of table "
+                        + htd.getTableName() + " rather than " + Bytes.toString(physicalTableName));
+            }
+            List<HRegionInfo> snapshotRegions = Lists.newArrayList();
+            for (SnapshotRegionManifest regionManifest : manifest.getRegionManifests()) {
+                HRegionInfo hri = HRegionInfo.convert(regionManifest.getRegionInfo());
+                if (hri.isOffline() && (hri.isSplit() || hri.isSplitParent())) {
+                    continue;
+                }
+                snapshotRegions.add(hri);
+            }
+            SnapshotRegions openedRegions = new SnapshotRegions(snapshotConf, fs, restoreDir, htd);
+            List<PeekingResultIterator> iterators = Lists.newArrayListWithExpectedSize(scans.size());
+            for (Scan scan : scans) {
+                List<HRegionInfo> scanRegions = Lists.newArrayList();
+                for (HRegionInfo hri : snapshotRegions) {
+                    if (hri.getStartKey().length != 0 && scan.getStopRow().length != 0
+                            && Bytes.compareTo(hri.getStartKey(), scan.getStopRow()) >= 0) {
+                        continue;
+                    }
+                    if (hri.getEndKey().length != 0
+                            && Bytes.compareTo(hri.getEndKey(), scan.getStartRow()) <= 0) {
+                        continue;
+                    }
+                    scanRegions.add(hri);
+                    openedRegions.retain(hri);
+                }
+                Collections.sort(scanRegions);
+                iterators.add(LookAheadResultIterator.wrap(new TableSnapshotResultIterator(
+                        snapshotConf, htd, openedRegions, scanRegions, scan)));
+            }
+            return iterators;
+        } catch (IOException e) {
+            throw ServerUtil.parseServerException(e);
+        }
+    }
+
+    private static void checkSupported(Scan scan) throws SQLException {
+        if (ScanUtil.isLocalIndex(scan) || IndexUtil.deserializeDataTableColumnsToJoin(scan) != null) {
+            throw new SQLFeatureNotSupportedException("Local indexes cannot be read from a snapshot");
+        }
+        if (HashJoinInfo.deserializeHashJoinFromScan(scan) != null
+                || TupleProjector.deserializeProjectorFromScan(scan) != null) {
+            throw new SQLFeatureNotSupportedException("Joins cannot be read from a snapshot");
+        }
+        if (scan.getAttribute(BaseScannerRegionObserver.SPECIFIC_ARRAY_INDEX) != null) {
+            throw new SQLFeatureNotSupportedException("Array element projections cannot be read from a snapshot");
+        }
+    }
+
+    @Override
+    public Tuple next() throws SQLException {
+        while (true) {
+            if (regionIterator == null) {
+                if (!regions.hasNext()) {
+                    return null;
+                }
+                openRegion(regions.next());
+            }
+            Tuple tuple = regionIterator.next();
+            if (tuple != null) {
+                return tuple;
+            }
+            closeRegion();
+        }
+    }
+
+    private void openRegion(HRegionInfo hri) throws SQLException {
+        Scan regionScan;
+        try {
+            regionScan = new Scan(scan);
+            // Restrict the scan to the region, as the region does not check it
+            if (hri.getStartKey().length != 0 && Bytes.compareTo(hri.getStartKey(), scan.getStartRow()) > 0) {
+                regionScan.setStartRow(hri.getStartKey());
+            }
+            if (hri.getEndKey().length != 0 && (scan.getStopRow().length == 0
+                    || Bytes.compareTo(hri.getEndKey(), scan.getStopRow()) < 0)) {
+                regionScan.setStopRow(hri.getEndKey());
+            }
+            // The snapshot is immutable and nothing else reads these blocks
+            regionScan.setIsolationLevel(IsolationLevel.READ_UNCOMMITTED);
+            regionScan.setCacheBlocks(false);
+            currentRegion = hri;
+            regionScanner = snapshotRegions.open(hri).getScanner(regionScan);
+        } catch (IOException e) {
+            closeRegion();
+            throw ServerUtil.parseServerException(e);
+        }
+        regionIterator = newRegionIterator(regionScan, regionScanner);
+    }
+
+    /**
+     * Process the rows of a region the way the coprocessor handling the scan on the region
+     * server would.
+     */
+    private ResultIterator newRegionIterator(Scan scan, RegionScanner scanner) throws SQLException {
+        OrderedResultIterator topN = ScanRegionObserver.deserializeFromScan(scan, scanner);
+        if (topN != null) {
+            return topN;
+        }
+        ResultIterator iterator = new RegionScannerResultIterator(scanner);
+        byte[] aggregators = scan.getAttribute(BaseScannerRegionObserver.AGGREGATORS);
+        if (scan.getAttribute(BaseScannerRegionObserver.UNGROUPED_AGG) != null) {
+            return new ClientUngroupedAggregatingResultIterator(LookAheadResultIterator.wrap(iterator),
+                    ServerAggregators.deserialize(aggregators, conf));
+        }
+        byte[] groupByExpressions = scan.getAttribute(BaseScannerRegionObserver.KEY_ORDERED_GROUP_BY_EXPRESSIONS);
+        boolean keyOrdered = groupByExpressions != null;
+        if (!keyOrdered) {
+            groupByExpressions = scan.getAttribute(BaseScannerRegionObserver.UNORDERED_GROUP_BY_EXPRESSIONS);
+        }
+        if (groupByExpressions != null) {
+            List<Expression> keyExpressions;
+            try {
+                keyExpressions = GroupedAggregateRegionObserver.deserializeGroupByExpressions(groupByExpressions, 0);
+            } catch (IOException e) {
+                throw ServerUtil.parseServerException(e);
+            }
+            if (!keyOrdered) {
+                // Group rows with the same key together before aggregating them
+                List<OrderByExpression> keyExpressionOrderBy = Lists.newArrayListWithExpectedSize(keyExpressions.size());
+                for (Expression keyExpression : keyExpressions) {
+                    keyExpressionOrderBy.add(new OrderByExpression(keyExpression, false, true));
+                }
+                int thresholdBytes = conf.getInt(QueryServices.SPOOL_THRESHOLD_BYTES_ATTRIB,
+                        QueryServicesOptions.DEFAULT_SPOOL_THRESHOLD_BYTES);
+                iterator = new OrderedResultIterator(iterator, keyExpressionOrderBy, thresholdBytes);
+            }
+            return new ClientGroupedAggregatingResultIterator(LookAheadResultIterator.wrap(iterator),
+                    ServerAggregators.deserialize(aggregators, conf), keyExpressions);
+        }
+        return iterator;
+    }
+
+    private void closeRegion() throws SQLException {
+        IOException exception = null;
+        try {
+            if (regionIterator != null) {
+                regionIterator.close();
+            }
+        } finally {
+            regionIterator = null;
+            try {
+                if (regionScanner != null) {
+                    regionScanner.close();
+                }
+            } catch (IOException e) {
+                exception = e;
+            }
+            regionScanner = null;
+            if (currentRegion != null) {
+                try {
+                    snapshotRegions.release(currentRegion);
+                } catch (IOException e) {
+                    exception = exception == null ? e : exception;
+                }
+                currentRegion = null;
+            }
+        }
+        if (exception != null) {
+            throw ServerUtil.parseServerException(exception);
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            closeRegion();
+        } finally {
+            // Let go of the regions this iterator has not read, in case it is closed early
+            try {
+                while (regions.hasNext()) {
+                    snapshotRegions.release(regions.next());
+                }
+            } catch (IOException e) {
+                throw ServerUtil.parseServerException(e);
+            }
+        }
+    }
+
+    @Override
+    public void explain(List<String> planSteps) {
+        planSteps.add("SNAPSHOT SCAN OVER " + htd.getTableName());
+    }
+
+    @Override
+    public String toString() {
+        return "TableSnapshotResultIterator [table=" + htd.getTableName() + ", scan=" + scan + "]";
+    }
+}
@@ -126,6 +126,7 @@ public class PhoenixConnection implements Connection, org.apache.phoenix.jdbc.Jd
     private final Map<PDataType<?>, Format> formatters = new HashMap<>();
     private final MutationState mutationState;
     private final int mutateBatchSize;
+    private final long updateCacheFrequency;
     private final Long scn;
     private boolean isAutoCommit = false;
     private PMetaData metaData;
@@ -218,6 +219,7 @@ public class PhoenixConnection implements Connection, org.apache.phoenix.jdbc.Jd
                          QueryServicesOptions.DEFAULT_CONSISTENCY_LEVEL));
         this.tenantId = tenantId;
         this.mutateBatchSize = JDBCUtil.getMutateBatchSize(url, this.info, this.services.getProps());
+        this.updateCacheFrequency = this.services.getProps().getLong(QueryServices.DEFAULT_UPDATE_CACHE_FREQUENCY_ATTRIB, QueryServicesOptions.DEFAULT_UPDATE_CACHE_FREQUENCY);
         datePattern = this.services.getProps().get(QueryServices.DATE_FORMAT_ATTRIB, DateUtil.DEFAULT_DATE_FORMAT);
         timePattern = this.services.getProps().get(QueryServices.TIME_FORMAT_ATTRIB, DateUtil.DEFAULT_TIME_FORMAT);
         timestampPattern = this.services.getProps().get(QueryServices.TIMESTAMP_FORMAT_ATTRIB, DateUtil.DEFAULT_TIMESTAMP_FORMAT);
@@ -406,6 +408,15 @@ public class PhoenixConnection implements Connection, org.apache.phoenix.jdbc.Jd
         return mutateBatchSize;
     }
     
+    /**
+     * @return the number of milliseconds a cached table is considered up-to-date
+     * before the server is checked again for a newer version. Zero means every
+     * statement checks the server.
+     */
+    public long getUpdateCacheFrequency() {
+        return updateCacheFrequency;
+    }
+
     public PMetaData getMetaDataCache() {
         return metaData;
     }
@@ -813,6 +824,14 @@ public class PhoenixConnection implements Connection, org.apache.phoenix.jdbc.Jd
         return metaData;
     }
     
+    @Override
+    public PMetaData updateResolvedTimestamp(PTable table, long resolvedTime) throws SQLException {
+        metaData = metaData.updateResolvedTimestamp(table, resolvedTime);
+        //Cascade through to connectionQueryServices too
+        getQueryServices().updateResolvedTimestamp(table, resolvedTime);
+        return metaData;
+    }
+
     @Override
     public PMetaData addFunction(PFunction function) throws SQLException {
         // TODO: since a connection is only used by one thread at a time,
@@ -17,6 +17,9 @@
  */
 package org.apache.phoenix.jdbc;
 
+import static org.apache.phoenix.monitoring.MetricType.EXECUTION_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.FIRST_ROW_LATENCY;
+
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
@@ -39,19 +42,23 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.text.Format;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.phoenix.compile.ColumnProjector;
+import org.apache.phoenix.compile.QueryPlan;
 import org.apache.phoenix.compile.RowProjector;
 import org.apache.phoenix.compile.StatementContext;
 import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.monitoring.LatencyHistograms;
 import org.apache.phoenix.monitoring.OverAllQueryMetrics;
 import org.apache.phoenix.monitoring.ReadMetricQueue;
+import org.apache.phoenix.monitoring.SlowQueryLog;
 import org.apache.phoenix.schema.tuple.ResultTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.schema.types.PBoolean;
@@ -68,9 +75,11 @@ import org.apache.phoenix.schema.types.PTimestamp;
 import org.apache.phoenix.schema.types.PTinyint;
 import org.apache.phoenix.schema.types.PVarbinary;
 import org.apache.phoenix.schema.types.PVarchar;
+import org.apache.phoenix.trace.util.Tracing;
 import org.apache.phoenix.util.SQLCloseable;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 
 
 
@@ -121,6 +130,8 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable, org.apache.pho
     private boolean isClosed = false;
     private boolean wasNull = false;
     private boolean firstRecordRead = false;
+    private boolean lastRecordRead = false;
+    private QueryPlan queryPlan;
     
     public PhoenixResultSet(ResultIterator resultIterator, RowProjector rowProjector, StatementContext ctx) throws SQLException {
         this.rowProjector = rowProjector;
@@ -165,6 +176,38 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable, org.apache.pho
             statement.getResultSets().remove(this);
             overAllQueryMetrics.endQuery();
             overAllQueryMetrics.stopResultSetWatch();
+            logIfSlow();
+        }
+    }
+    
+    /**
+     * Set the plan of the query this result set is returned for, so that the query
+     * may be written to the {@link SlowQueryLog} once it completes.
+     */
+    void setQueryPlan(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
+    }
+    
+    private void logIfSlow() {
+        QueryPlan plan = queryPlan;
+        if (plan == null) {
+            return;
+        }
+        // Only log the query once, when it first completes
+        queryPlan = null;
+        long elapsedNanos = System.nanoTime() - context.getExecuteStartTime();
+        Tracing.updateSampler(statement.getConnection(), plan.getStatement(), elapsedNanos);
+        SlowQueryLog slowQueryLog = statement.getSlowQueryLog();
+        if (!slowQueryLog.isEnabled()) {
+            return;
+        }
+        Map<String, Map<String, Long>> readMetrics = readMetricsQueue.snapshot();
+        long bytesRead = SlowQueryLog.getBytesRead(readMetrics);
+        if (slowQueryLog.isSlow(elapsedNanos, bytesRead)) {
+            List<String> planSteps = Lists.newArrayList();
+            scanner.explain(planSteps);
+            slowQueryLog.add(plan.getStatement().toString(), statement.getParameters(), planSteps,
+                    elapsedNanos, bytesRead, overAllQueryMetrics.publish(), readMetrics);
         }
     }
 
@@ -760,16 +803,24 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable, org.apache.pho
         return currentRow;
     }
 
+    public RowProjector getRowProjector() {
+        return rowProjector;
+    }
+
     @Override
     public boolean next() throws SQLException {
         checkOpen();
         try {
-            if (!firstRecordRead) {
+            boolean isFirstRecord = !firstRecordRead;
+            if (isFirstRecord) {
                 firstRecordRead = true;
                 overAllQueryMetrics.startResultSetWatch();
             }
             currentRow = scanner.next();
             rowProjector.reset();
+            if (isFirstRecord) {
+                LatencyHistograms.update(context.getConnection().getQueryServices().getProps(), FIRST_ROW_LATENCY, context.getPhysicalTableName(), System.nanoTime() - context.getExecuteStartTime());
+            }
         } catch (RuntimeException e) {
             // FIXME: Expression.evaluate does not throw SQLException
             // so this will unwrap throws from that.
@@ -781,6 +832,11 @@ public class PhoenixResultSet implements ResultSet, SQLCloseable, org.apache.pho
         if (currentRow == null) {
             overAllQueryMetrics.endQuery();
             overAllQueryMetrics.stopResultSetWatch();
+            if (!lastRecordRead) {
+                lastRecordRead = true;
+                LatencyHistograms.update(context.getConnection().getQueryServices().getProps(), EXECUTION_LATENCY, context.getPhysicalTableName(), System.nanoTime() - context.getExecuteStartTime());
+                logIfSlow();
+            }
         }
         return currentRow != null;
     }
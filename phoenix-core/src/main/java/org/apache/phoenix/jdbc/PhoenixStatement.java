@@ -20,6 +20,9 @@ package org.apache.phoenix.jdbc;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_MUTATION_SQL_COUNTER;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_QUERY_TIME;
 import static org.apache.phoenix.monitoring.GlobalClientMetrics.GLOBAL_SELECT_SQL_COUNTER;
+import static org.apache.phoenix.monitoring.MetricType.COMPILE_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.EXECUTION_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.PARSE_LATENCY;
 
 import java.io.File;
 import java.io.IOException;
@@ -81,6 +84,9 @@ import org.apache.phoenix.expression.RowKeyColumnExpression;
 import org.apache.phoenix.iterate.MaterializedResultIterator;
 import org.apache.phoenix.iterate.ParallelScanGrouper;
 import org.apache.phoenix.iterate.ResultIterator;
+import org.apache.phoenix.monitoring.LatencyHistograms;
+import org.apache.phoenix.monitoring.RuntimeStatistics;
+import org.apache.phoenix.monitoring.SlowQueryLog;
 import org.apache.phoenix.parse.AddColumnStatement;
 import org.apache.phoenix.parse.AddJarsStatement;
 import org.apache.phoenix.parse.AliasedNode;
@@ -218,6 +224,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
     private int maxRows;
     private int fetchSize = -1;
     private int queryTimeoutMillis;
+    private volatile RuntimeStatistics runtimeStatistics;
     
     public PhoenixStatement(PhoenixConnection connection) {
         this.connection = connection;
@@ -241,9 +248,9 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
         return new PhoenixResultSet(iterator, projector, context);
     }
     
-    protected boolean execute(final CompilableStatement stmt) throws SQLException {
+    protected boolean execute(final CompilableStatement stmt, String sql) throws SQLException {
         if (stmt.getOperation().isMutation()) {
-            executeMutation(stmt);
+            executeMutation(stmt, sql);
             return false;
         }
         executeQuery(stmt);
@@ -263,10 +270,13 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
                 @Override
                     public PhoenixResultSet call() throws SQLException {
                     final long startTime = System.currentTimeMillis();
+                    final long startNanos = System.nanoTime();
                     try {
                         QueryPlan plan = stmt.compilePlan(PhoenixStatement.this, Sequence.ValueOp.VALIDATE_SEQUENCE);
                         plan = connection.getQueryServices().getOptimizer().optimize(
                                 PhoenixStatement.this, plan);
+                        plan.getContext().setExecuteStartTime(startNanos);
+                        LatencyHistograms.update(connection.getQueryServices().getProps(), COMPILE_LATENCY, plan.getContext().getPhysicalTableName(), System.nanoTime() - startNanos);
                          // this will create its own trace internally, so we don't wrap this
                          // whole thing in tracing
                         ResultIterator resultIterator = plan.iterator();
@@ -277,6 +287,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
                         StatementContext context = plan.getContext();
                         context.getOverallQueryMetrics().startQuery();
                         PhoenixResultSet rs = newResultSet(resultIterator, plan.getProjector(), context);
+                        rs.setQueryPlan(plan);
                         resultSets.add(rs);
                         setLastQueryPlan(plan);
                         setLastResultSet(rs);
@@ -305,7 +316,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
         }
     }
     
-    protected int executeMutation(final CompilableStatement stmt) throws SQLException {
+    protected int executeMutation(final CompilableStatement stmt, final String sql) throws SQLException {
 	 if (connection.isReadOnly()) {
             throw new SQLExceptionInfo.Builder(
                 SQLExceptionCode.READ_ONLY_CONNECTION).
@@ -322,12 +333,18 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
                             // since they'd update data directly from coprocessors, and should thus operate on
                             // the latest state
                             try {
+                                long startNanos = System.nanoTime();
                                 MutationPlan plan = stmt.compilePlan(PhoenixStatement.this, Sequence.ValueOp.VALIDATE_SEQUENCE);
+                                String tableName = plan.getContext().getPhysicalTableName();
+                                LatencyHistograms.update(connection.getQueryServices().getProps(), COMPILE_LATENCY, tableName, System.nanoTime() - startNanos);
                                 MutationState state = plan.execute();
                                 connection.getMutationState().join(state);
                                 if (connection.getAutoCommit()) {
                                     connection.commit();
                                 }
+                                long elapsedNanos = System.nanoTime() - startNanos;
+                                LatencyHistograms.update(connection.getQueryServices().getProps(), EXECUTION_LATENCY, tableName, elapsedNanos);
+                                logIfSlow(stmt, sql, plan, elapsedNanos);
                                 setLastResultSet(null);
                                 setLastQueryPlan(null);
                                 // Unfortunately, JDBC uses an int for update count, so we
@@ -354,6 +371,32 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
         }
     }
 
+    /**
+     * @return the log slow statements are written to
+     */
+    protected SlowQueryLog getSlowQueryLog() {
+        return connection.getQueryServices().getSlowQueryLog();
+    }
+
+    /**
+     * Write a mutation or DDL statement to the {@link SlowQueryLog} if it was slow. Queries
+     * are logged by their {@link PhoenixResultSet} instead, once it is closed.
+     */
+    private void logIfSlow(CompilableStatement stmt, String sql, MutationPlan plan, long elapsedNanos) throws SQLException {
+        SlowQueryLog slowQueryLog = getSlowQueryLog();
+        if (!slowQueryLog.isEnabled()) {
+            return;
+        }
+        // The read metrics are those of the query of an UPSERT SELECT or DELETE, if any
+        StatementContext context = plan.getContext();
+        Map<String, Map<String, Long>> readMetrics = context.getReadMetricsQueue().snapshot();
+        long bytesRead = SlowQueryLog.getBytesRead(readMetrics);
+        if (slowQueryLog.isSlow(elapsedNanos, bytesRead)) {
+            slowQueryLog.add(sql == null ? stmt.toString() : sql, getParameters(), plan.getExplainPlan().getPlanSteps(),
+                    elapsedNanos, bytesRead, context.getOverallQueryMetrics().publish(), readMetrics);
+        }
+    }
+
     protected static interface CompilableStatement extends BindableStatement {
         public <T extends StatementPlan> T compilePlan (PhoenixStatement stmt, Sequence.ValueOp seqAction) throws SQLException;
     }
@@ -425,8 +468,8 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
             ), 0, true);
     private static class ExecutableExplainStatement extends ExplainStatement implements CompilableStatement {
 
-        public ExecutableExplainStatement(BindableStatement statement) {
-            super(statement);
+        public ExecutableExplainStatement(BindableStatement statement, boolean isAnalyze) {
+            super(statement, isAnalyze);
         }
 
         @Override
@@ -444,13 +487,19 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
         public QueryPlan compilePlan(PhoenixStatement stmt, Sequence.ValueOp seqAction) throws SQLException {
             CompilableStatement compilableStmt = getStatement();
             final StatementPlan plan = compilableStmt.compilePlan(stmt, Sequence.ValueOp.VALIDATE_SEQUENCE);
-            List<String> planSteps = plan.getExplainPlan().getPlanSteps();
-            List<Tuple> tuples = Lists.newArrayListWithExpectedSize(planSteps.size());
-            for (String planStep : planSteps) {
-                Tuple tuple = new SingleKeyValueTuple(KeyValueUtil.newKeyValue(PVarchar.INSTANCE.toBytes(planStep), EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_COLUMN, MetaDataProtocol.MIN_TABLE_TIMESTAMP, ByteUtil.EMPTY_BYTE_ARRAY));
-                tuples.add(tuple);
+            final QueryPlan analyzedPlan;
+            final ResultIterator iterator;
+            if (isAnalyze()) {
+                if (!(plan instanceof QueryPlan)) {
+                    throw new SQLFeatureNotSupportedException("EXPLAIN ANALYZE is only supported for queries");
+                }
+                // Run the plan the query would run so that the statistics match it
+                analyzedPlan = stmt.getConnection().getQueryServices().getOptimizer().optimize(stmt, (QueryPlan)plan);
+                iterator = null;
+            } else {
+                analyzedPlan = null;
+                iterator = newExplainIterator(plan.getExplainPlan().getPlanSteps());
             }
-            final ResultIterator iterator = new MaterializedResultIterator(tuples);
             return new QueryPlan() {
 
                 @Override
@@ -465,12 +514,12 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
 
                 @Override
                 public ResultIterator iterator() throws SQLException {
-                    return iterator;
+                    return analyzedPlan == null ? iterator : newExplainIterator(analyze(stmt, analyzedPlan));
                 }
                 
                 @Override
                 public ResultIterator iterator(ParallelScanGrouper scanGrouper) throws SQLException {
-                    return iterator;
+                    return iterator();
                 }
 
                 @Override
@@ -515,7 +564,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
 
                 @Override
                 public StatementContext getContext() {
-                    return plan.getContext();
+                    return analyzedPlan == null ? plan.getContext() : analyzedPlan.getContext();
                 }
 
                 @Override
@@ -540,6 +589,54 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
                 
             };
         }
+
+        private static ResultIterator newExplainIterator(List<String> planSteps) {
+            List<Tuple> tuples = Lists.newArrayListWithExpectedSize(planSteps.size());
+            for (String planStep : planSteps) {
+                Tuple tuple = new SingleKeyValueTuple(KeyValueUtil.newKeyValue(PVarchar.INSTANCE.toBytes(planStep), EXPLAIN_PLAN_FAMILY, EXPLAIN_PLAN_COLUMN, MetaDataProtocol.MIN_TABLE_TIMESTAMP, ByteUtil.EMPTY_BYTE_ARRAY));
+                tuples.add(tuple);
+            }
+            return new MaterializedResultIterator(tuples);
+        }
+
+        /**
+         * Run the query to completion, discarding its rows, and return its plan with
+         * each step annotated with the statistics collected while it ran.
+         */
+        private static List<String> analyze(PhoenixStatement stmt, QueryPlan plan) throws SQLException {
+            StatementContext context = plan.getContext();
+            RuntimeStatistics statistics = new RuntimeStatistics();
+            long rowCount = 0;
+            long startTime = System.currentTimeMillis();
+            long elapsedTime;
+            List<String> planSteps;
+            stmt.setRuntimeStatistics(statistics);
+            try {
+                context.getOverallQueryMetrics().startQuery();
+                ResultIterator iterator = plan.iterator();
+                try {
+                    while (iterator.next() != null) {
+                        rowCount++;
+                    }
+                } finally {
+                    iterator.close();
+                    context.getOverallQueryMetrics().endQuery();
+                }
+                elapsedTime = System.currentTimeMillis() - startTime;
+                // Each operator of the plan appends its statistics to the step it explains
+                planSteps = Lists.newArrayList(plan.getExplainPlan().getPlanSteps());
+            } finally {
+                stmt.setRuntimeStatistics(null);
+            }
+            planSteps.add("ACTUAL ROWS RETURNED " + rowCount + " IN " + elapsedTime + " ms");
+            if (stmt.getConnection().isRequestLevelMetricsEnabled()) {
+                for (Map.Entry<String, Map<String, Long>> entry : context.getReadMetricsQueue().aggregate().entrySet()) {
+                    planSteps.add("    READ METRICS FOR " + entry.getKey() + " " + entry.getValue());
+                }
+                planSteps.add("    QUERY METRICS " + context.getOverallQueryMetrics().publish());
+            }
+            return planSteps;
+        }
     }
 
     private static class ExecutableUpsertStatement extends UpsertStatement implements CompilableStatement {
@@ -1260,8 +1357,8 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
         }
 
         @Override
-        public ExplainStatement explain(BindableStatement statement) {
-            return new ExecutableExplainStatement(statement);
+        public ExplainStatement explain(BindableStatement statement, boolean isAnalyze) {
+            return new ExecutableExplainStatement(statement, isAnalyze);
         }
 
         @Override
@@ -1361,6 +1458,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
     }
     
     protected CompilableStatement parseStatement(String sql) throws SQLException {
+        long startNanos = System.nanoTime();
         PhoenixStatementParser parser = null;
         try {
             parser = new PhoenixStatementParser(sql, new ExecutableNodeFactory());
@@ -1368,6 +1466,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
             throw ServerUtil.parseServerException(e);
         }
         CompilableStatement statement = parser.parseStatement();
+        LatencyHistograms.update(connection.getQueryServices().getProps(), PARSE_LATENCY, null, System.nanoTime() - startNanos);
         return statement;
     }
     
@@ -1425,7 +1524,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
             throw new SQLExceptionInfo.Builder(SQLExceptionCode.EXECUTE_UPDATE_WITH_NON_EMPTY_BATCH)
             .build().buildException();
         }
-        return executeMutation(stmt);
+        return executeMutation(stmt, sql);
     }
 
     @Override
@@ -1436,7 +1535,7 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
                 throw new SQLExceptionInfo.Builder(SQLExceptionCode.EXECUTE_UPDATE_WITH_NON_EMPTY_BATCH)
                 .build().buildException();
             }
-            executeMutation(stmt);
+            executeMutation(stmt, sql);
             return false;
         }
         executeQuery(stmt);
@@ -1711,6 +1810,18 @@ public class PhoenixStatement implements Statement, SQLCloseable, org.apache.pho
         this.lastQueryPlan = lastQueryPlan;
     }
     
+    /**
+     * @return the statistics being collected for the query run by EXPLAIN ANALYZE,
+     * or null if no query is being analyzed
+     */
+    public RuntimeStatistics getRuntimeStatistics() {
+        return runtimeStatistics;
+    }
+    
+    private void setRuntimeStatistics(RuntimeStatistics runtimeStatistics) {
+        this.runtimeStatistics = runtimeStatistics;
+    }
+    
     private void throwIfUnallowedUserDefinedFunctions(Map<String, UDFParseNode> udfParseNodes) throws SQLException {
         if (!connection
                 .getQueryServices()
@@ -199,18 +199,7 @@ public class CsvBulkLoadTool extends Configured implements Tool {
         	qualifiedIndexTableName = getQualifiedTableName(schemaName, indexTableName);
         }
 
-        if (cmdLine.hasOption(ZK_QUORUM_OPT.getOpt())) {
-            // ZK_QUORUM_OPT is optional, but if it's there, use it for both the conn and the job.
-            String zkQuorum = cmdLine.getOptionValue(ZK_QUORUM_OPT.getOpt());
-            PhoenixDriver.ConnectionInfo info = PhoenixDriver.ConnectionInfo.create(zkQuorum);
-            LOG.info("Configuring HBase connection to {}", info);
-            for (Map.Entry<String,String> entry : info.asProps()) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Setting {} = {}", entry.getKey(), entry.getValue());
-                }
-                conf.set(entry.getKey(), entry.getValue());
-            }
-        }
+        configureZookeeper(cmdLine, conf);
 
         final Connection conn = QueryUtil.getConnection(conf);
         if (LOG.isDebugEnabled()) {
@@ -287,6 +276,27 @@ public class CsvBulkLoadTool extends Configured implements Tool {
 		return retCode;
 	}
 
+    /**
+     * Point the configuration at the zookeeper quorum given on the command line, if any.
+     *
+     * @param cmdLine supplied command line options
+     * @param conf configuration used for both the connection and the import
+     */
+    static void configureZookeeper(CommandLine cmdLine, Configuration conf) throws SQLException {
+        if (cmdLine.hasOption(ZK_QUORUM_OPT.getOpt())) {
+            // ZK_QUORUM_OPT is optional, but if it's there, use it for both the conn and the job.
+            String zkQuorum = cmdLine.getOptionValue(ZK_QUORUM_OPT.getOpt());
+            PhoenixDriver.ConnectionInfo info = PhoenixDriver.ConnectionInfo.create(zkQuorum);
+            LOG.info("Configuring HBase connection to {}", info);
+            for (Map.Entry<String,String> entry : info.asProps()) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Setting {} = {}", entry.getKey(), entry.getValue());
+                }
+                conf.set(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     /**
      * Build up the list of columns to be imported. The list is taken from the command line if
      * present, otherwise it is taken from the table description.
@@ -296,7 +306,7 @@ public class CsvBulkLoadTool extends Configured implements Tool {
      * @param qualifiedTableName table name (possibly with schema) of the table to be imported
      * @return the list of columns to be imported
      */
-    List<ColumnInfo> buildImportColumns(Connection conn, CommandLine cmdLine,
+    static List<ColumnInfo> buildImportColumns(Connection conn, CommandLine cmdLine,
             String qualifiedTableName) throws SQLException {
         List<String> userSuppliedColumnNames = null;
         if (cmdLine.hasOption(IMPORT_COLUMNS_OPT.getOpt())) {
@@ -332,7 +342,7 @@ public class CsvBulkLoadTool extends Configured implements Tool {
      * @param importColumns descriptors of columns to be imported
      * @param conf job configuration
      */
-    private static void configureOptions(CommandLine cmdLine, List<ColumnInfo> importColumns,
+    static void configureOptions(CommandLine cmdLine, List<ColumnInfo> importColumns,
             Configuration conf) throws SQLException {
 
         // we don't parse ZK_QUORUM_OPT here because we need it in order to
@@ -383,7 +393,7 @@ public class CsvBulkLoadTool extends Configured implements Tool {
      * - ensure no column family names start with '_', as they'd be ignored leading to problems.
      * @throws java.sql.SQLException
      */
-    private void validateTable(Connection conn, String schemaName,
+    static void validateTable(Connection conn, String schemaName,
             String tableName) throws SQLException {
 
         ResultSet rs = conn.getMetaData().getColumns(
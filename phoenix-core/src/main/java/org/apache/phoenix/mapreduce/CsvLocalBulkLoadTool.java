@@ -0,0 +1,551 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.mapreduce.CsvToKeyValueMapper.CsvLineParser;
+import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil;
+import org.apache.phoenix.util.CSVCommonsLoader;
+import org.apache.phoenix.util.ColumnInfo;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.QueryUtil;
+import org.apache.phoenix.util.csv.CsvUpsertExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Tool for bulk loading CSV data into a Phoenix table and its indexes from a single machine,
+ * without running a MapReduce job.
+ * <p/>
+ * The input is read on the calling thread and handed out in batches of lines to a pool of
+ * worker threads. Each worker encodes its lines the same way as {@link CsvToKeyValueMapper}:
+ * it executes UPSERT statements on its own Phoenix connection, takes the uncommitted KeyValues
+ * of the data table and its indexes, passes them through the configured
+ * {@link ImportPreUpsertKeyValueProcessor} and rolls back. KeyValues are buffered in memory per
+ * worker. A full buffer is sorted and spilled to disk as HFiles, one per table, column family
+ * and region, so that each file can be loaded without being split. Once all input has been
+ * encoded the HFiles are bulk loaded and removed.
+ */
+@SuppressWarnings("deprecation")
+public class CsvLocalBulkLoadTool extends Configured implements Tool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CsvLocalBulkLoadTool.class);
+
+    /** Configuration key for the number of bytes of KeyValues each thread buffers before spilling */
+    public static final String BUFFER_SIZE_CONFKEY = "phoenix.mapreduce.import.local.buffersize";
+
+    static final long DEFAULT_BUFFER_SIZE = 128 * 1024 * 1024;
+
+    static final Option THREAD_COUNT_OPT = new Option("tc", "thread-count", true,
+            "Number of threads encoding rows, defaults to the number of available processors");
+
+    private static final int LINES_PER_BATCH = 1000;
+    private static final List<String> END_OF_INPUT = Collections.emptyList();
+
+    public static void main(String[] args) throws Exception {
+        ToolRunner.run(new CsvLocalBulkLoadTool(), args);
+    }
+
+    /**
+     * Parses the commandline arguments, throws IllegalStateException if mandatory arguments are
+     * missing.
+     *
+     * @param args supplied command line arguments
+     * @return the parsed command line
+     */
+    CommandLine parseOptions(String[] args) {
+
+        Options options = getOptions();
+
+        CommandLineParser parser = new PosixParser();
+        CommandLine cmdLine = null;
+        try {
+            cmdLine = parser.parse(options, args);
+        } catch (ParseException e) {
+            printHelpAndExit("Error parsing command line options: " + e.getMessage(), options);
+        }
+
+        if (cmdLine.hasOption(CsvBulkLoadTool.HELP_OPT.getOpt())) {
+            printHelpAndExit(options, 0);
+        }
+
+        if (!cmdLine.hasOption(CsvBulkLoadTool.TABLE_NAME_OPT.getOpt())) {
+            throw new IllegalStateException(CsvBulkLoadTool.TABLE_NAME_OPT.getLongOpt()
+                    + " is a mandatory parameter");
+        }
+
+        if (!cmdLine.getArgList().isEmpty()) {
+            throw new IllegalStateException("Got unexpected extra parameters: "
+                    + cmdLine.getArgList());
+        }
+
+        if (!cmdLine.hasOption(CsvBulkLoadTool.INPUT_PATH_OPT.getOpt())) {
+            throw new IllegalStateException(CsvBulkLoadTool.INPUT_PATH_OPT.getLongOpt()
+                    + " is a mandatory parameter");
+        }
+
+        return cmdLine;
+    }
+
+    private Options getOptions() {
+        Options options = new Options();
+        options.addOption(CsvBulkLoadTool.INPUT_PATH_OPT);
+        options.addOption(CsvBulkLoadTool.TABLE_NAME_OPT);
+        options.addOption(CsvBulkLoadTool.ZK_QUORUM_OPT);
+        options.addOption(CsvBulkLoadTool.OUTPUT_PATH_OPT);
+        options.addOption(CsvBulkLoadTool.SCHEMA_NAME_OPT);
+        options.addOption(CsvBulkLoadTool.DELIMITER_OPT);
+        options.addOption(CsvBulkLoadTool.QUOTE_OPT);
+        options.addOption(CsvBulkLoadTool.ESCAPE_OPT);
+        options.addOption(CsvBulkLoadTool.ARRAY_DELIMITER_OPT);
+        options.addOption(CsvBulkLoadTool.IMPORT_COLUMNS_OPT);
+        options.addOption(CsvBulkLoadTool.IGNORE_ERRORS_OPT);
+        options.addOption(THREAD_COUNT_OPT);
+        options.addOption(CsvBulkLoadTool.HELP_OPT);
+        return options;
+    }
+
+    private void printHelpAndExit(String errorMessage, Options options) {
+        System.err.println(errorMessage);
+        printHelpAndExit(options, 1);
+    }
+
+    private void printHelpAndExit(Options options, int exitCode) {
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("help", options);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+
+        Configuration conf = HBaseConfiguration.create(getConf());
+
+        CommandLine cmdLine = null;
+        try {
+            cmdLine = parseOptions(args);
+        } catch (IllegalStateException e) {
+            printHelpAndExit(e.getMessage(), getOptions());
+        }
+        return loadData(conf, cmdLine);
+    }
+
+    private int loadData(Configuration conf, CommandLine cmdLine) throws Exception {
+        String tableName = cmdLine.getOptionValue(CsvBulkLoadTool.TABLE_NAME_OPT.getOpt());
+        String schemaName = cmdLine.getOptionValue(CsvBulkLoadTool.SCHEMA_NAME_OPT.getOpt());
+        String qualifiedTableName = CsvBulkLoadTool.getQualifiedTableName(schemaName, tableName);
+
+        CsvBulkLoadTool.configureZookeeper(cmdLine, conf);
+        Connection conn = QueryUtil.getConnection(conf);
+        try {
+            List<ColumnInfo> importColumns =
+                    CsvBulkLoadTool.buildImportColumns(conn, cmdLine, qualifiedTableName);
+            CsvBulkLoadTool.configureOptions(cmdLine, importColumns, conf);
+            CsvBulkLoadTool.validateTable(conn, schemaName, tableName);
+        } finally {
+            conn.close();
+        }
+
+        Path inputPath = new Path(cmdLine.getOptionValue(CsvBulkLoadTool.INPUT_PATH_OPT.getOpt()));
+        Path outputPath;
+        if (cmdLine.hasOption(CsvBulkLoadTool.OUTPUT_PATH_OPT.getOpt())) {
+            outputPath = new Path(cmdLine.getOptionValue(CsvBulkLoadTool.OUTPUT_PATH_OPT.getOpt()));
+        } else {
+            outputPath = new Path("/tmp/" + UUID.randomUUID());
+        }
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        if (cmdLine.hasOption(THREAD_COUNT_OPT.getOpt())) {
+            threadCount = Integer.parseInt(cmdLine.getOptionValue(THREAD_COUNT_OPT.getOpt()));
+        }
+
+        LOG.info("Encoding {} into HFiles under {} with {} threads",
+                inputPath, outputPath, threadCount);
+        long startTime = System.currentTimeMillis();
+        FileSystem fs = outputPath.getFileSystem(conf);
+        // Remove the HFiles spilled so far even if encoding or loading them fails part way
+        try {
+            if (!encodeData(conf, inputPath, outputPath, threadCount)) {
+                return -1;
+            }
+            LOG.info("Encoded {} into HFiles in {} ms", inputPath,
+                    System.currentTimeMillis() - startTime);
+
+            if (fs.exists(outputPath)) {
+                LoadIncrementalHFiles loader = new LoadIncrementalHFiles(conf);
+                for (FileStatus tableDir : fs.listStatus(outputPath)) {
+                    String physicalTableName = tableDir.getPath().getName();
+                    LOG.info("Loading HFiles from {}", tableDir.getPath());
+                    HTable htable = new HTable(conf, physicalTableName);
+                    try {
+                        loader.doBulkLoad(tableDir.getPath(), htable);
+                    } finally {
+                        htable.close();
+                    }
+                    LOG.info("Incremental load complete for table=" + physicalTableName);
+                }
+            }
+            return 0;
+        } finally {
+            // Nothing may have been spilled if the encoding failed early
+            if (fs.exists(outputPath)) {
+                LOG.info("Removing output directory {}", outputPath);
+                if (!fs.delete(outputPath, true)) {
+                    LOG.error("Removing output directory {} failed", outputPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read all input files and encode their lines into HFiles on a pool of worker threads.
+     *
+     * @return true if all input was encoded
+     */
+    private boolean encodeData(Configuration conf, Path inputPath, Path outputPath,
+            int threadCount) throws IOException, InterruptedException {
+        byte[] timestamp = Bytes.toBytes(System.currentTimeMillis());
+        BlockingQueue<List<String>> queue = new ArrayBlockingQueue<List<String>>(threadCount * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+                new ThreadFactoryBuilder().setNameFormat("csv-local-bulk-load-%d")
+                        .setDaemon(true).build());
+        List<Future<Long>> workers = new ArrayList<Future<Long>>(threadCount);
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                workers.add(executor.submit(new EncodingWorker(conf, queue, outputPath, timestamp)));
+            }
+            FileSystem fs = inputPath.getFileSystem(conf);
+            CompressionCodecFactory codecs = new CompressionCodecFactory(conf);
+            for (FileStatus file : fs.globStatus(inputPath)) {
+                for (FileStatus inputFile : file.isDirectory() ? fs.listStatus(file.getPath()) :
+                        new FileStatus[] { file }) {
+                    String name = inputFile.getPath().getName();
+                    if (inputFile.isDirectory() || name.startsWith("_") || name.startsWith(".")) {
+                        continue;
+                    }
+                    if (!readFile(fs, codecs, inputFile.getPath(), queue, workers)) {
+                        return false;
+                    }
+                }
+            }
+            for (int i = 0; i < threadCount; i++) {
+                if (!put(queue, END_OF_INPUT, workers)) {
+                    return false;
+                }
+            }
+            long rowCount = 0;
+            for (Future<Long> worker : workers) {
+                rowCount += worker.get();
+            }
+            LOG.info("Encoded {} rows", rowCount);
+            return true;
+        } catch (ExecutionException e) {
+            LOG.error("Encoding of " + inputPath + " failed due to exception.", e.getCause());
+            return false;
+        } finally {
+            executor.shutdownNow();
+            // Let workers still spilling finish, so that no HFiles are written once this returns
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.warn("Encoding threads did not stop within a minute");
+            }
+        }
+    }
+
+    private boolean readFile(FileSystem fs, CompressionCodecFactory codecs, Path path,
+            BlockingQueue<List<String>> queue, List<Future<Long>> workers)
+            throws IOException, InterruptedException, ExecutionException {
+        LOG.info("Reading {}", path);
+        CompressionCodec codec = codecs.getCodec(path);
+        InputStream in = fs.open(path);
+        if (codec != null) {
+            in = codec.createInputStream(in);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charsets.UTF_8));
+        try {
+            List<String> lines = new ArrayList<String>(LINES_PER_BATCH);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == LINES_PER_BATCH) {
+                    if (!put(queue, lines, workers)) {
+                        return false;
+                    }
+                    lines = new ArrayList<String>(LINES_PER_BATCH);
+                }
+            }
+            return lines.isEmpty() || put(queue, lines, workers);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Hand a batch of lines to the workers, waiting for room in the queue as long as none of
+     * the workers has stopped.
+     *
+     * @return false if a worker stopped before the batch could be queued
+     */
+    private static boolean put(BlockingQueue<List<String>> queue, List<String> lines,
+            List<Future<Long>> workers) throws InterruptedException, ExecutionException {
+        while (!queue.offer(lines, 1, TimeUnit.SECONDS)) {
+            for (Future<Long> worker : workers) {
+                if (worker.isDone()) {
+                    // Surfaces the failure of the worker
+                    worker.get();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes batches of CSV lines into KeyValues and spills them to HFiles.
+     */
+    private static class EncodingWorker implements Callable<Long> {
+
+        private final Configuration conf;
+        private final BlockingQueue<List<String>> queue;
+        private final Path outputPath;
+        private final byte[] timestamp;
+        private final long bufferSize;
+        private final AtomicLong upsertCount = new AtomicLong();
+        private final AtomicLong errorCount = new AtomicLong();
+        // KeyValues waiting to be written, by physical table name
+        private final Map<String, List<KeyValue>> keyValues = new TreeMap<String, List<KeyValue>>();
+        private long bufferedBytes;
+        private PhoenixConnection conn;
+
+        EncodingWorker(Configuration conf, BlockingQueue<List<String>> queue, Path outputPath,
+                byte[] timestamp) {
+            this.conf = new Configuration(conf);
+            this.queue = queue;
+            this.outputPath = outputPath;
+            this.timestamp = timestamp;
+            this.bufferSize = conf.getLong(BUFFER_SIZE_CONFKEY, DEFAULT_BUFFER_SIZE);
+        }
+
+        @Override
+        public Long call() throws Exception {
+            // pass client configuration into driver
+            Properties clientInfos = new Properties();
+            for (Entry<String, String> entry : conf) {
+                clientInfos.setProperty(entry.getKey(), entry.getValue());
+            }
+            conn = (PhoenixConnection) QueryUtil.getConnection(clientInfos, conf);
+            try {
+                final boolean ignoreRecordErrors =
+                        conf.getBoolean(CsvToKeyValueMapper.IGNORE_INVALID_ROW_CONFKEY, true);
+                CsvUpsertExecutor.UpsertListener upsertListener = new CsvUpsertExecutor.UpsertListener() {
+                    @Override
+                    public void upsertDone(long count) {
+                        upsertCount.set(count);
+                    }
+
+                    @Override
+                    public void errorOnRecord(CSVRecord csvRecord, Throwable throwable) {
+                        LOG.error("Error on record " + csvRecord, throwable);
+                        errorCount.incrementAndGet();
+                        if (!ignoreRecordErrors) {
+                            throw Throwables.propagate(throwable);
+                        }
+                    }
+                };
+                CsvUpsertExecutor csvUpsertExecutor = CsvUpsertExecutor.create(conn,
+                        conf.get(CsvToKeyValueMapper.TABLE_NAME_CONFKEY),
+                        CsvToKeyValueMapper.buildColumnInfoList(conf), upsertListener,
+                        conf.get(CsvToKeyValueMapper.ARRAY_DELIMITER_CONFKEY,
+                                CSVCommonsLoader.DEFAULT_ARRAY_ELEMENT_SEPARATOR));
+                CsvLineParser csvLineParser = new CsvLineParser(
+                        CsvBulkImportUtil.getCharacter(conf, CsvToKeyValueMapper.FIELD_DELIMITER_CONFKEY),
+                        CsvBulkImportUtil.getCharacter(conf, CsvToKeyValueMapper.QUOTE_CHAR_CONFKEY),
+                        CsvBulkImportUtil.getCharacter(conf, CsvToKeyValueMapper.ESCAPE_CHAR_CONFKEY));
+                ImportPreUpsertKeyValueProcessor preUpdateProcessor =
+                        PhoenixConfigurationUtil.loadPreUpsertProcessor(conf);
+
+                List<String> lines;
+                while ((lines = queue.take()) != END_OF_INPUT) {
+                    List<CSVRecord> csvRecords = new ArrayList<CSVRecord>(lines.size());
+                    for (String line : lines) {
+                        CSVRecord csvRecord = null;
+                        try {
+                            csvRecord = csvLineParser.parse(line);
+                        } catch (IOException e) {
+                            LOG.error("Error parsing line " + line, e);
+                            errorCount.incrementAndGet();
+                        }
+                        if (csvRecord != null) {
+                            csvRecords.add(csvRecord);
+                        }
+                    }
+                    csvUpsertExecutor.execute(csvRecords);
+                    bufferUncommittedData(preUpdateProcessor);
+                    if (bufferedBytes >= bufferSize) {
+                        spill();
+                    }
+                }
+                spill();
+                csvUpsertExecutor.close();
+                if (errorCount.get() > 0) {
+                    LOG.warn("{} records could not be imported", errorCount.get());
+                }
+                return upsertCount.get();
+            } finally {
+                conn.close();
+            }
+        }
+
+        private void bufferUncommittedData(ImportPreUpsertKeyValueProcessor preUpdateProcessor)
+                throws SQLException {
+            Iterator<Pair<byte[], List<KeyValue>>> uncommittedDataIterator =
+                    PhoenixRuntime.getUncommittedDataIterator(conn, true);
+            while (uncommittedDataIterator.hasNext()) {
+                Pair<byte[], List<KeyValue>> kvPair = uncommittedDataIterator.next();
+                List<KeyValue> keyValueList =
+                        preUpdateProcessor.preUpsert(kvPair.getFirst(), kvPair.getSecond());
+                String physicalTableName = Bytes.toString(kvPair.getFirst());
+                List<KeyValue> tableKeyValues = keyValues.get(physicalTableName);
+                if (tableKeyValues == null) {
+                    tableKeyValues = new ArrayList<KeyValue>();
+                    keyValues.put(physicalTableName, tableKeyValues);
+                }
+                for (KeyValue kv : keyValueList) {
+                    kv.updateLatestStamp(timestamp);
+                    tableKeyValues.add(kv);
+                    bufferedBytes += kv.getLength();
+                }
+            }
+            conn.rollback();
+        }
+
+        /**
+         * Sort the buffered KeyValues and write them out as HFiles, starting a new HFile for
+         * each region of the target table.
+         */
+        private void spill() throws SQLException, IOException {
+            FileSystem fs = outputPath.getFileSystem(conf);
+            for (Map.Entry<String, List<KeyValue>> entry : keyValues.entrySet()) {
+                List<KeyValue> tableKeyValues = entry.getValue();
+                if (tableKeyValues.isEmpty()) {
+                    continue;
+                }
+                Collections.sort(tableKeyValues, KeyValue.COMPARATOR);
+                byte[] physicalTableName = Bytes.toBytes(entry.getKey());
+                HTableDescriptor tableDesc =
+                        conn.getQueryServices().getTableDescriptor(physicalTableName);
+                List<HRegionLocation> regions =
+                        conn.getQueryServices().getAllTableRegions(physicalTableName);
+                Path tablePath = new Path(outputPath, entry.getKey());
+                Map<byte[], StoreFile.Writer> writers =
+                        new TreeMap<byte[], StoreFile.Writer>(Bytes.BYTES_COMPARATOR);
+                int region = 0;
+                try {
+                    for (KeyValue kv : tableKeyValues) {
+                        // Roll the files over once the row passes the end of the current region
+                        byte[] regionEndKey = regions.get(region).getRegionInfo().getEndKey();
+                        if (regionEndKey.length > 0 && Bytes.compareTo(kv.getRowArray(),
+                                kv.getRowOffset(), kv.getRowLength(),
+                                regionEndKey, 0, regionEndKey.length) >= 0) {
+                            closeWriters(writers);
+                            while (regionEndKey.length > 0 && Bytes.compareTo(kv.getRowArray(),
+                                    kv.getRowOffset(), kv.getRowLength(),
+                                    regionEndKey, 0, regionEndKey.length) >= 0) {
+                                regionEndKey = regions.get(++region).getRegionInfo().getEndKey();
+                            }
+                        }
+                        byte[] family = kv.getFamily();
+                        StoreFile.Writer writer = writers.get(family);
+                        if (writer == null) {
+                            writer = HFileWriterUtil.newWriter(conf, fs, tablePath,
+                                    tableDesc.getFamily(family));
+                            writers.put(family, writer);
+                        }
+                        writer.append(kv);
+                    }
+                } finally {
+                    closeWriters(writers);
+                }
+                LOG.info("Spilled {} KeyValues of {}", tableKeyValues.size(), entry.getKey());
+                tableKeyValues.clear();
+            }
+            bufferedBytes = 0;
+        }
+
+        private static void closeWriters(Map<byte[], StoreFile.Writer> writers)
+                throws IOException {
+            for (StoreFile.Writer writer : writers.values()) {
+                HFileWriterUtil.close(writer, Thread.currentThread().getName());
+            }
+            writers.clear();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Utility functions for writing HFiles outside of a MapReduce job, to be bulk loaded with
+ * {@link org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles}. The files are laid out as
+ * the loader expects them, in one directory per column family under the directory of a table.
+ */
+public class HFileWriterUtil {
+
+    private HFileWriterUtil() {
+    }
+
+    /**
+     * Create a writer for a new HFile of a column family, using the compression, block size,
+     * data block encoding and bloom filter of the family.
+     *
+     * @param conf configuration of the writer
+     * @param fs file system to write the file to
+     * @param tablePath directory of the table under which the directory of the family is created
+     * @param familyDesc descriptor of the column family
+     * @return a writer to append sorted KeyValues to, to be closed with {@link #close}
+     */
+    public static StoreFile.Writer newWriter(Configuration conf, FileSystem fs, Path tablePath,
+            HColumnDescriptor familyDesc) throws IOException {
+        Configuration writerConf = new Configuration(conf);
+        // Nothing reads the HFiles while they are written
+        writerConf.setFloat(HConstants.HFILE_BLOCK_CACHE_SIZE_KEY, 0.0f);
+        HFileContext context = new HFileContextBuilder()
+                .withCompression(familyDesc.getCompression())
+                .withBlockSize(familyDesc.getBlocksize())
+                .withDataBlockEncoding(familyDesc.getDataBlockEncoding())
+                .withChecksumType(HStore.getChecksumType(writerConf))
+                .withBytesPerCheckSum(HStore.getBytesPerChecksum(writerConf))
+                .build();
+        return new StoreFile.WriterBuilder(writerConf, new CacheConfig(writerConf), fs)
+                .withOutputDir(new Path(tablePath, familyDesc.getNameAsString()))
+                .withBloomType(familyDesc.getBloomFilterType())
+                .withComparator(KeyValue.COMPARATOR)
+                .withFileContext(context)
+                .build();
+    }
+
+    /**
+     * Add the metadata of a bulk loaded file to an HFile and close it.
+     *
+     * @param writer writer created by {@link #newWriter}
+     * @param taskName name of the task that wrote the file, recorded in its metadata
+     */
+    public static void close(StoreFile.Writer writer, String taskName) throws IOException {
+        writer.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY,
+                Bytes.toBytes(System.currentTimeMillis()));
+        writer.appendFileInfo(StoreFile.BULKLOAD_TASK_KEY, Bytes.toBytes(taskName));
+        writer.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(true));
+        writer.appendFileInfo(StoreFile.EXCLUDE_FROM_MINOR_COMPACTION_KEY,
+                Bytes.toBytes(false));
+        writer.appendTrackedTimestampsToMetadata();
+        writer.close();
+    }
+}
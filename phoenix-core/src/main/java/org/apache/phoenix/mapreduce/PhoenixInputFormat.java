@@ -21,12 +21,23 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.ClusterStatus;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.RegionLoad;
+import org.apache.hadoop.hbase.ServerLoad;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.NullWritable;
@@ -41,11 +52,17 @@ import org.apache.phoenix.iterate.MapReduceParallelScanGrouper;
 import org.apache.phoenix.jdbc.PhoenixStatement;
 import org.apache.phoenix.mapreduce.util.ConnectionUtil;
 import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil;
+import org.apache.phoenix.query.ConnectionQueryServices;
 import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTable.IndexType;
+import org.apache.phoenix.schema.stats.GuidePostsInfo;
 import org.apache.phoenix.util.PhoenixRuntime;
+import org.apache.phoenix.util.SchemaUtil;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * {@link InputFormat} implementation from Phoenix.
@@ -79,19 +96,245 @@ public class PhoenixInputFormat<T extends DBWritable> extends InputFormat<NullWr
         final Configuration configuration = context.getConfiguration();
         final QueryPlan queryPlan = getQueryPlan(context,configuration);
         final List<KeyRange> allSplits = queryPlan.getSplits();
-        final List<InputSplit> splits = generateSplits(queryPlan,allSplits);
+        final List<InputSplit> splits = generateSplits(queryPlan, allSplits,
+                PhoenixConfigurationUtil.getSplitTargetSize(configuration));
         return splits;
     }
 
-    private List<InputSplit> generateSplits(final QueryPlan qplan, final List<KeyRange> splits) throws IOException {
+    /**
+     * Builds one split per run of adjacent scan chunks of a region, combining chunks until
+     * their estimated size reaches the target size and dividing chunks estimated to be bigger
+     * than it. Each split is located on the region server hosting its region.
+     */
+    private List<InputSplit> generateSplits(final QueryPlan qplan, final List<KeyRange> splits,
+            final long targetSize) throws IOException {
         Preconditions.checkNotNull(qplan);
         Preconditions.checkNotNull(splits);
-        final List<InputSplit> psplits = Lists.newArrayListWithExpectedSize(splits.size());
-        for (List<Scan> scans : qplan.getScans()) {
-            psplits.add(new PhoenixInputSplit(scans));
+        Preconditions.checkArgument(targetSize > 0, "Split target size must be positive");
+        try {
+            final PTable table = qplan.getTableRef().getTable();
+            final byte[] physicalTableName = table.getPhysicalName().getBytes();
+            final ConnectionQueryServices services = qplan.getContext().getConnection().getQueryServices();
+            final List<HRegionLocation> regions = services.getAllTableRegions(physicalTableName);
+            final GuidePostsInfo guidePosts = table.getTableStats().getGuidePosts().get(SchemaUtil.getEmptyColumnFamily(table));
+            // Scans of local indexes are bound to their region through scan attributes
+            final boolean canDivideScans = table.getIndexType() != IndexType.LOCAL;
+            final List<Scan> scans = Lists.newArrayList();
+            for (List<Scan> parallelScans : qplan.getScans()) {
+                scans.addAll(parallelScans);
+            }
+            final List<InputSplit> psplits = generateSplits(scans, regions, getRegionSizes(services, regions),
+                    guidePosts, canDivideScans, targetSize);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Generated %d input splits from %d scans with a target size of %d bytes",
+                        psplits.size(), scans.size(), targetSize));
+            }
+            return psplits;
+        } catch (SQLException e) {
+            LOG.error(String.format("Failed to generate input splits with error [%s]", e.getMessage()));
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Builds the splits for the given scans, which are in key order.
+     * @param regions the regions of the table in key order
+     * @param regionSizes the store file sizes of the regions by region name
+     * @param guidePosts the guideposts of the table, or null without statistics
+     * @param canDivideScans whether a scan may be divided into several scans
+     * @param targetSize the number of bytes a split should read
+     */
+    static List<InputSplit> generateSplits(List<Scan> scans, List<HRegionLocation> regions,
+            Map<byte[], Long> regionSizes, GuidePostsInfo guidePosts, boolean canDivideScans, long targetSize)
+            throws IOException {
+        // Group the scans by region, keeping them in the order of the plan
+        final List<List<Scan>> regionScans = Lists.newArrayList();
+        final List<HRegionLocation> scanRegions = Lists.newArrayList();
+        for (Scan scan : scans) {
+            HRegionLocation region = regions.get(getRegionIndex(regions, scan.getStartRow()));
+            int last = scanRegions.size() - 1;
+            if (last >= 0 && scanRegions.get(last) == region) {
+                regionScans.get(last).add(scan);
+            } else {
+                scanRegions.add(region);
+                regionScans.add(Lists.newArrayList(scan));
+            }
+        }
+
+        final List<InputSplit> psplits = Lists.newArrayListWithExpectedSize(scans.size());
+        for (int i = 0; i < regionScans.size(); i++) {
+            HRegionLocation region = scanRegions.get(i);
+            List<Scan> scansOfRegion = regionScans.get(i);
+            Long regionSize = regionSizes.get(region.getRegionInfo().getRegionName());
+            String location = region.getHostname();
+            List<Scan> splitScans = Lists.newArrayList();
+            long splitSize = 0;
+            for (Scan scan : scansOfRegion) {
+                long scanSize = estimateScanSize(scan, region, regionSize, scansOfRegion.size(), guidePosts);
+                List<Scan> chunks = Collections.singletonList(scan);
+                long size = scanSize;
+                if (canDivideScans && scanSize > targetSize) {
+                    chunks = divideScan(scan, (int) Math.min(Integer.MAX_VALUE,
+                            (scanSize + targetSize - 1) / targetSize));
+                    size = scanSize / chunks.size();
+                }
+                for (Scan chunk : chunks) {
+                    if (!splitScans.isEmpty() && splitSize + size > targetSize) {
+                        psplits.add(new PhoenixInputSplit(splitScans, splitSize, location));
+                        splitScans = Lists.newArrayList();
+                        splitSize = 0;
+                    }
+                    splitScans.add(chunk);
+                    splitSize += size;
+                }
+            }
+            if (!splitScans.isEmpty()) {
+                psplits.add(new PhoenixInputSplit(splitScans, splitSize, location));
+            }
         }
         return psplits;
     }
+
+    /**
+     * Estimated number of bytes read by a scan. With statistics, this is the number of
+     * guidepost intervals the scan overlaps times the average width of an interval. Without
+     * them, a scan over a whole region is estimated at the store file size of the region, and
+     * a scan over part of it at an even share of that size, or zero if the size is unknown.
+     * @param regionScanCount the number of scans over the region
+     */
+    private static long estimateScanSize(Scan scan, HRegionLocation region, Long regionSize,
+            int regionScanCount, GuidePostsInfo guidePosts) {
+        if (guidePosts != null && !guidePosts.getGuidePosts().isEmpty()) {
+            List<byte[]> keys = guidePosts.getGuidePosts();
+            long guidePostWidth = guidePosts.getByteCount() / (keys.size() + 1);
+            // Guideposts strictly inside the scan each start another interval
+            int first = getGuidePostIndex(keys, scan.getStartRow(), true);
+            int last = scan.getStopRow().length == 0 ? keys.size() : getGuidePostIndex(keys, scan.getStopRow(), false);
+            return (Math.max(0, last - first) + 1) * guidePostWidth;
+        }
+        if (regionSize == null || regionSize <= 0) {
+            return 0;
+        }
+        byte[] regionStartKey = region.getRegionInfo().getStartKey();
+        byte[] regionEndKey = region.getRegionInfo().getEndKey();
+        boolean isFullRegionScan = Bytes.compareTo(scan.getStartRow(), regionStartKey) <= 0
+                && (scan.getStopRow().length == 0
+                        || (regionEndKey.length != 0 && Bytes.compareTo(scan.getStopRow(), regionEndKey) >= 0));
+        return isFullRegionScan ? regionSize : regionSize / regionScanCount;
+    }
+
+    /**
+     * Index of the first guidepost after the given key, or at or after it if not exclusive.
+     */
+    private static int getGuidePostIndex(List<byte[]> guidePosts, byte[] key, boolean isExclusive) {
+        int low = 0;
+        int high = guidePosts.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Bytes.compareTo(guidePosts.get(mid), key);
+            if (cmp < 0 || (isExclusive && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the region containing the given row, given the regions of a table in key order.
+     */
+    private static int getRegionIndex(List<HRegionLocation> regions, byte[] row) {
+        int low = 0;
+        int high = regions.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            byte[] endKey = regions.get(mid).getRegionInfo().getEndKey();
+            if (endKey.length == 0 || Bytes.compareTo(row, endKey) < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Store file sizes of the given regions as last reported by their region servers. Regions
+     * that did not report a size are left out.
+     */
+    private static Map<byte[], Long> getRegionSizes(ConnectionQueryServices services,
+            List<HRegionLocation> regions) {
+        Map<byte[], Long> regionSizes = new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+        Set<ServerName> servers = Sets.newHashSet();
+        for (HRegionLocation region : regions) {
+            servers.add(region.getServerName());
+        }
+        try {
+            HBaseAdmin admin = services.getAdmin();
+            try {
+                ClusterStatus clusterStatus = admin.getClusterStatus();
+                for (ServerName server : servers) {
+                    ServerLoad serverLoad = clusterStatus.getLoad(server);
+                    if (serverLoad == null) {
+                        continue;
+                    }
+                    for (RegionLoad regionLoad : serverLoad.getRegionsLoad().values()) {
+                        regionSizes.put(regionLoad.getName(), regionLoad.getStorefileSizeMB() * 1024L * 1024L);
+                    }
+                }
+            } finally {
+                admin.close();
+            }
+        } catch (Exception e) {
+            LOG.warn(String.format("Unable to get region sizes, estimating split sizes from statistics only [%s]",
+                    e.getMessage()));
+        }
+        return regionSizes;
+    }
+
+    /**
+     * Divide the key range of a scan into about the given number of contiguous scans.
+     */
+    private static List<Scan> divideScan(Scan scan, int count) throws IOException {
+        byte[] startRow = scan.getStartRow();
+        byte[] stopRow = scan.getStopRow();
+        if (count <= 1 || scan.isReversed()) {
+            return Collections.singletonList(scan);
+        }
+        byte[] upperBound = stopRow;
+        if (upperBound.length == 0) {
+            upperBound = new byte[Math.max(1, startRow.length)];
+            Arrays.fill(upperBound, (byte) 0xFF);
+        }
+        if (Bytes.compareTo(startRow, upperBound) >= 0) {
+            return Collections.singletonList(scan);
+        }
+        byte[][] boundaries;
+        try {
+            boundaries = Bytes.split(startRow, upperBound, count - 1);
+        } catch (IllegalArgumentException e) {
+            boundaries = null;
+        }
+        if (boundaries == null) {
+            return Collections.singletonList(scan);
+        }
+        List<Scan> scans = Lists.newArrayListWithExpectedSize(count);
+        byte[] lowerBound = startRow;
+        for (int i = 1; i < boundaries.length; i++) {
+            byte[] boundary = i == boundaries.length - 1 ? stopRow : boundaries[i];
+            // Rounding may produce the same boundary twice for short keys
+            if (boundary.length != 0 && Bytes.compareTo(lowerBound, boundary) >= 0) {
+                continue;
+            }
+            Scan chunk = new Scan(scan);
+            chunk.setStartRow(lowerBound);
+            chunk.setStopRow(boundary);
+            scans.add(chunk);
+            lowerBound = boundary;
+        }
+        return scans;
+    }
     
     /**
      * Returns the query plan associated with the select query.
@@ -41,6 +41,8 @@ public class PhoenixInputSplit extends InputSplit implements Writable {
 
     private List<Scan> scans;
     private KeyRange keyRange;
+    private long length;
+    private String regionLocation;
    
     /**
      * No Arg constructor
@@ -53,9 +55,20 @@ public class PhoenixInputSplit extends InputSplit implements Writable {
     * @param keyRange
     */
     public PhoenixInputSplit(final List<Scan> scans) {
+        this(scans, 0, null);
+    }
+
+    /**
+     * @param scans scans of a single region
+     * @param length estimated number of bytes read by the scans
+     * @param regionLocation host name of the region server hosting the region, can be null
+     */
+    public PhoenixInputSplit(final List<Scan> scans, final long length, final String regionLocation) {
         Preconditions.checkNotNull(scans);
         Preconditions.checkState(!scans.isEmpty());
         this.scans = scans;
+        this.length = length;
+        this.regionLocation = regionLocation;
         init();
     }
     
@@ -82,6 +95,8 @@ public class PhoenixInputSplit extends InputSplit implements Writable {
             Scan scan = ProtobufUtil.toScan(protoScan);
             scans.add(scan);
         }
+        length = WritableUtils.readVLong(input);
+        regionLocation = input.readBoolean() ? WritableUtils.readString(input) : null;
         init();
     }
     
@@ -95,16 +110,21 @@ public class PhoenixInputSplit extends InputSplit implements Writable {
             WritableUtils.writeVInt(output, protoScanBytes.length);
             output.write(protoScanBytes);
         }
+        WritableUtils.writeVLong(output, length);
+        output.writeBoolean(regionLocation != null);
+        if (regionLocation != null) {
+            WritableUtils.writeString(output, regionLocation);
+        }
     }
 
     @Override
     public long getLength() throws IOException, InterruptedException {
-         return 0;
+         return length;
     }
 
     @Override
     public String[] getLocations() throws IOException, InterruptedException {
-        return new String[]{};
+        return regionLocation == null ? new String[]{} : new String[]{ regionLocation };
     }
 
     @Override
@@ -26,6 +26,7 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
@@ -35,14 +36,20 @@ import org.apache.hadoop.mapreduce.lib.db.DBWritable;
 import org.apache.hadoop.util.ReflectionUtils;
 import org.apache.phoenix.compile.QueryPlan;
 import org.apache.phoenix.compile.StatementContext;
+import org.apache.phoenix.execute.AggregatePlan;
+import org.apache.phoenix.expression.aggregator.Aggregators;
 import org.apache.phoenix.iterate.ConcatResultIterator;
+import org.apache.phoenix.iterate.GroupedAggregatingResultIterator;
 import org.apache.phoenix.iterate.LookAheadResultIterator;
 import org.apache.phoenix.iterate.PeekingResultIterator;
 import org.apache.phoenix.iterate.ResultIterator;
 import org.apache.phoenix.iterate.RoundRobinResultIterator;
 import org.apache.phoenix.iterate.SequenceResultIterator;
 import org.apache.phoenix.iterate.TableResultIterator;
+import org.apache.phoenix.iterate.TableSnapshotResultIterator;
+import org.apache.phoenix.iterate.UngroupedAggregatingResultIterator;
 import org.apache.phoenix.jdbc.PhoenixResultSet;
+import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil;
 import org.apache.phoenix.monitoring.ReadMetricQueue;
 
 import com.google.common.base.Preconditions;
@@ -107,13 +114,29 @@ public class PhoenixRecordReader<T extends DBWritable> extends RecordReader<Null
             StatementContext ctx = queryPlan.getContext();
             ReadMetricQueue readMetrics = ctx.getReadMetricsQueue();
             String tableName = queryPlan.getTableRef().getTable().getPhysicalName().getString();
-            for (Scan scan : scans) {
-                final TableResultIterator tableResultIterator = new TableResultIterator(queryPlan.getContext(),
-                        queryPlan.getTableRef(), scan, readMetrics.allotMetric(SCAN_BYTES, tableName));
-                PeekingResultIterator peekingResultIterator = LookAheadResultIterator.wrap(tableResultIterator);
-                iterators.add(peekingResultIterator);
+            String snapshotName = PhoenixConfigurationUtil.getSnapshotName(configuration);
+            if (snapshotName != null) {
+                // Read the HFiles of the snapshot in this task rather than going through the region servers
+                iterators.addAll(TableSnapshotResultIterator.newIterators(configuration, snapshotName,
+                        new Path(PhoenixConfigurationUtil.getRestoreDir(configuration)),
+                        queryPlan.getTableRef().getTable().getPhysicalName().getBytes(), scans));
+            } else {
+                for (Scan scan : scans) {
+                    final TableResultIterator tableResultIterator = new TableResultIterator(queryPlan.getContext(),
+                            queryPlan.getTableRef(), scan, readMetrics.allotMetric(SCAN_BYTES, tableName));
+                    PeekingResultIterator peekingResultIterator = LookAheadResultIterator.wrap(tableResultIterator);
+                    iterators.add(peekingResultIterator);
+                }
             }
             ResultIterator iterator = queryPlan.useRoundRobinIterator() ? RoundRobinResultIterator.newIterator(iterators, queryPlan) : ConcatResultIterator.newIterator(iterators);
+            if (queryPlan instanceof AggregatePlan) {
+                // The aggregate functions projected are evaluated from the client aggregators, so
+                // aggregate the rows of the split with them. Each split returns its own aggregates.
+                Aggregators aggregators = ctx.getAggregationManager().getAggregators();
+                iterator = queryPlan.getGroupBy().isEmpty()
+                        ? new UngroupedAggregatingResultIterator(LookAheadResultIterator.wrap(iterator), aggregators)
+                        : new GroupedAggregatingResultIterator(LookAheadResultIterator.wrap(iterator), aggregators);
+            }
             if(queryPlan.getContext().getSequenceManager().getSequenceCount() > 0) {
                 iterator = new SequenceResultIterator(iterator, queryPlan.getContext().getSequenceManager());
             }
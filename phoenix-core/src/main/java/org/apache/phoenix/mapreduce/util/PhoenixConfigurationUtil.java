@@ -99,6 +99,17 @@ public final class PhoenixConfigurationUtil {
     
     public static final String HBASE_ZOOKEEPER_CLIENT_PORT = "hbase.zookeeper.property.clientPort";
 
+    /** Estimated number of bytes each input split reads. Smaller scan chunks are combined, bigger ones are split. */
+    public static final String MAPREDUCE_SPLIT_TARGET_SIZE = "phoenix.mapreduce.split.targetsize";
+
+    public static final long DEFAULT_MAPREDUCE_SPLIT_TARGET_SIZE = 256 * 1024 * 1024;
+
+    /** Name of the snapshot to read the input table from instead of the region servers */
+    public static final String SNAPSHOT_NAME_KEY = "phoenix.mapreduce.snapshot.name";
+
+    /** Directory the input snapshot has been restored to */
+    public static final String RESTORE_DIR_KEY = "phoenix.mapreduce.snapshot.restore.dir";
+
     public enum SchemaType {
         TABLE,
         QUERY;
@@ -325,6 +336,39 @@ public final class PhoenixConfigurationUtil {
         return batchSize;
     }
     
+    public static void setSplitTargetSize(final Configuration configuration, final long targetSize) {
+        Preconditions.checkNotNull(configuration);
+        Preconditions.checkArgument(targetSize > 0);
+        configuration.setLong(MAPREDUCE_SPLIT_TARGET_SIZE, targetSize);
+    }
+
+    public static long getSplitTargetSize(final Configuration configuration) {
+        Preconditions.checkNotNull(configuration);
+        return configuration.getLong(MAPREDUCE_SPLIT_TARGET_SIZE, DEFAULT_MAPREDUCE_SPLIT_TARGET_SIZE);
+    }
+    
+    public static void setSnapshotNameKey(final Configuration configuration, final String snapshotName) {
+        Preconditions.checkNotNull(configuration);
+        Preconditions.checkNotNull(snapshotName);
+        configuration.set(SNAPSHOT_NAME_KEY, snapshotName);
+    }
+
+    public static String getSnapshotName(final Configuration configuration) {
+        Preconditions.checkNotNull(configuration);
+        return configuration.get(SNAPSHOT_NAME_KEY);
+    }
+
+    public static void setRestoreDirKey(final Configuration configuration, final String restoreDir) {
+        Preconditions.checkNotNull(configuration);
+        Preconditions.checkNotNull(restoreDir);
+        configuration.set(RESTORE_DIR_KEY, restoreDir);
+    }
+
+    public static String getRestoreDir(final Configuration configuration) {
+        Preconditions.checkNotNull(configuration);
+        return configuration.get(RESTORE_DIR_KEY);
+    }
+    
     public static int getSelectColumnsCount(Configuration configuration,
             String tableName) throws SQLException {
         Preconditions.checkNotNull(configuration);
@@ -17,7 +17,14 @@
  */
 package org.apache.phoenix.mapreduce.util;
 
+import java.io.IOException;
+import java.util.UUID;
+
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.snapshot.RestoreSnapshotHelper;
+import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.db.DBWritable;
 import org.apache.phoenix.mapreduce.PhoenixInputFormat;
@@ -67,6 +74,27 @@ public final class PhoenixMapReduceUtil {
           
      }
     
+    /**
+     * Read the input table of the job from a snapshot rather than through the region servers.
+     * The snapshot is restored to a new directory under restoreDir, from which the tasks open
+     * its regions. The directory can be removed once the job completes.
+     * @param job MapReduce Job
+     * @param snapshotName name of a snapshot of the physical table of the input
+     * @param restoreDir a directory on the file system of the HBase root directory that the
+     *                   current user can write to
+     * @throws IOException if the snapshot could not be restored
+     */
+    public static void setInputSnapshot(final Job job, final String snapshotName, final Path restoreDir) throws IOException {
+        final Configuration configuration = job.getConfiguration();
+        final Path rootDir = FSUtils.getRootDir(configuration);
+        final FileSystem fs = rootDir.getFileSystem(configuration);
+        final Path snapshotRestoreDir = new Path(restoreDir, UUID.randomUUID().toString());
+        // Only references to the snapshot files are created, no data is copied
+        RestoreSnapshotHelper.copySnapshotForScanner(configuration, fs, rootDir, snapshotRestoreDir, snapshotName);
+        PhoenixConfigurationUtil.setSnapshotNameKey(configuration, snapshotName);
+        PhoenixConfigurationUtil.setRestoreDirKey(configuration, snapshotRestoreDir.toString());
+    }
+
     /**
      * A method to override which HBase cluster for {@link PhoenixInputFormat} to read from
      * @param job MapReduce Job
@@ -17,6 +17,8 @@
  */
 package org.apache.phoenix.memory;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.http.annotation.GuardedBy;
 import org.apache.http.annotation.ThreadSafe;
 
@@ -26,91 +28,163 @@ import org.apache.http.annotation.ThreadSafe;
  * but enforces that at most a threshold percentage is used by this
  * memory manager.  No blocking is done if the threshold is exceeded,
  * but the standard blocking will be done by the global memory manager.
+ * Child memory managers may be nested (for example per query within
+ * per tenant), in which case the percentage is of the parent's maximum.
+ * A named child memory manager shows up in
+ * {@link GlobalMemoryManager#getMemoryUsage()}.
  *
  * 
  * @since 0.1
  */
 @ThreadSafe
 public class ChildMemoryManager extends DelegatingMemoryManager {
-    private final Object sync = new Object();
     private final int maxPercOfTotal;
-    @GuardedBy("sync")
-    private long allocatedBytes;
+    private final String name;
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong waitTimeMs = new AtomicLong();
     
     public ChildMemoryManager(MemoryManager mm, int maxPercOfTotal) {
+        this(mm, maxPercOfTotal, null);
+    }
+    
+    public ChildMemoryManager(MemoryManager mm, int maxPercOfTotal, String name) {
         super(mm);
-        if (mm instanceof ChildMemoryManager) {
-            throw new IllegalStateException("ChildMemoryManager cannot delegate to another ChildMemoryManager");
-        }
         this.maxPercOfTotal = maxPercOfTotal;
         if (maxPercOfTotal <= 0 || maxPercOfTotal > 100) {
             throw new IllegalArgumentException("Max percentage of total memory (" + maxPercOfTotal + "%) must be greater than zero and less than or equal to 100");
         }
+        if (name != null && mm instanceof ChildMemoryManager && ((ChildMemoryManager)mm).getName() != null) {
+            name = ((ChildMemoryManager)mm).getName() + "/" + name;
+        }
+        this.name = name;
+        if (name != null) {
+            MemoryManager root = mm;
+            while (root instanceof DelegatingMemoryManager) {
+                root = ((DelegatingMemoryManager)root).getParent();
+            }
+            if (root instanceof GlobalMemoryManager) {
+                ((GlobalMemoryManager)root).addConsumer(this);
+            }
+        }
     }
 
-
-    private long adjustAllocation(long minBytes, long reqBytes) {
+    /**
+     * Reserve at most reqBytes, but at least minBytes, of this memory manager's share.
+     * @return the number of bytes reserved
+     */
+    private long reserveBytes(long minBytes, long reqBytes) {
         assert(reqBytes >= minBytes);
-        long availBytes = getAvailableMemory();
-        // Check if this memory managers percentage of allocated bytes exceeds its allowed maximum
-        if (minBytes > availBytes) {
-            throw new InsufficientMemoryException("Attempt to allocate more memory than the max allowed of " + maxPercOfTotal + "%");
+        while (true) {
+            long allocated = allocatedBytes.get();
+            long availBytes = getMaxMemory() - allocated;
+            // Check if this memory managers percentage of allocated bytes exceeds its allowed maximum
+            if (minBytes > availBytes) {
+                throw new InsufficientMemoryException("Attempt to allocate more memory than the max allowed of " + maxPercOfTotal + "%");
+            }
+            // Revise reqBytes down to available memory if necessary
+            long nBytes = Math.min(reqBytes, availBytes);
+            if (allocatedBytes.compareAndSet(allocated, allocated + nBytes)) {
+                return nBytes;
+            }
         }
-        // Revise reqBytes down to available memory if necessary
-        return Math.min(reqBytes,availBytes);
+    }
+    
+    private void releaseBytes(long nBytes) {
+        allocatedBytes.addAndGet(-nBytes);
     }
     
     @Override
     public MemoryChunk allocate(long minBytes, long nBytes) {
-        synchronized (sync) {
-            nBytes = adjustAllocation(minBytes, nBytes);
-            final MemoryChunk chunk = super.allocate(minBytes, nBytes);
-            allocatedBytes += chunk.getSize();
-            // Instantiate delegate chunk to track allocatedBytes correctly
-            return new MemoryChunk() {
-                @Override
-                public void close() {
-                    synchronized (sync) {
-                        allocatedBytes -= chunk.getSize();
-                        chunk.close();
-                    }
-                }
-    
-                @Override
-                public long getSize() {
-                    return chunk.getSize();
+        nBytes = reserveBytes(minBytes, nBytes);
+        final MemoryChunk chunk;
+        long startWaitTimeMs = GlobalMemoryManager.getThreadWaitTimeMs();
+        try {
+            chunk = super.allocate(minBytes, nBytes);
+        } catch (RuntimeException e) {
+            releaseBytes(nBytes);
+            throw e;
+        } finally {
+            waitTimeMs.addAndGet(GlobalMemoryManager.getThreadWaitTimeMs() - startWaitTimeMs);
+        }
+        // Give back what we reserved beyond what the parent could provide
+        releaseBytes(nBytes - chunk.getSize());
+        // Instantiate delegate chunk to track allocatedBytes correctly
+        return new MemoryChunk() {
+            @GuardedBy("this")
+            private long size = chunk.getSize();
+            
+            @Override
+            public synchronized void close() {
+                chunk.close();
+                releaseBytes(size);
+                size = 0;
+            }
+
+            @Override
+            public long getSize() {
+                return chunk.getSize();
+            }
+
+            @Override
+            public synchronized void resize(long nBytes) {
+                long deltaBytes = nBytes - size;
+                if (deltaBytes > 0) {
+                    reserveBytes(deltaBytes,deltaBytes); // Throw if too much memory
                 }
-    
-                @Override
-                public void resize(long nBytes) {
-                    synchronized (sync) {
-                        long size = getSize();
-                        long deltaBytes = nBytes - size;
-                        if (deltaBytes > 0) {
-                            adjustAllocation(deltaBytes,deltaBytes); // Throw if too much memory
-                        }
-                        chunk.resize(nBytes);
-                        allocatedBytes += deltaBytes;
+                long startWaitTimeMs = GlobalMemoryManager.getThreadWaitTimeMs();
+                try {
+                    chunk.resize(nBytes);
+                } catch (RuntimeException e) {
+                    if (deltaBytes > 0) {
+                        releaseBytes(deltaBytes);
                     }
+                    throw e;
+                } finally {
+                    waitTimeMs.addAndGet(GlobalMemoryManager.getThreadWaitTimeMs() - startWaitTimeMs);
                 }
-            };
-        }
+                if (deltaBytes < 0) {
+                    releaseBytes(-deltaBytes);
+                }
+                size = nBytes;
+            }
+        };
     }
 
     @Override
     public long getAvailableMemory() {
-        synchronized (sync) {
-            long availBytes = getMaxMemory() - allocatedBytes;
-            // Sanity check (should never happen)
-            if (availBytes < 0) {
-                throw new IllegalStateException("Available memory has become negative: " + availBytes + " bytes.  Allocated memory: " + allocatedBytes + " bytes.");
-            }
-            return availBytes;
+        long availBytes = getMaxMemory() - allocatedBytes.get();
+        // Sanity check (should never happen)
+        if (availBytes < 0) {
+            throw new IllegalStateException("Available memory has become negative: " + availBytes + " bytes.  Allocated memory: " + allocatedBytes.get() + " bytes.");
         }
+        return availBytes;
     }
     
     @Override
     public long getMaxMemory() {
         return maxPercOfTotal  * super.getMaxMemory() / 100;
     }
+    
+    /**
+     * Get the name of this memory manager, qualified by the name of its parent,
+     * or null if it was not given a name.
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Get the number of bytes currently allocated through this memory manager.
+     */
+    public long getAllocatedMemory() {
+        return allocatedBytes.get();
+    }
+    
+    /**
+     * Get the total number of milliseconds spent waiting for memory allocated
+     * through this memory manager.
+     */
+    public long getWaitTimeMs() {
+        return waitTimeMs.get();
+    }
 }
@@ -17,12 +17,29 @@
  */
 package org.apache.phoenix.memory;
 
-import org.apache.http.annotation.GuardedBy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 /**
  * 
  * Global memory manager to track course grained memory usage across all requests.
+ * Memory is reserved through a compare-and-set on the used byte count, so allocations
+ * that can be satisfied immediately never take a lock. Requests that must wait are
+ * queued. A request that fits may go ahead of those waiting, unless the request at the
+ * head of the queue has already waited half of the maximum wait time, in which case
+ * requests are served in arrival order so that a big request is not starved by a
+ * stream of smaller ones.
  *
  * 
  * @since 0.1
@@ -30,11 +47,34 @@ import org.slf4j.LoggerFactory;
 public class GlobalMemoryManager implements MemoryManager {
     private static final Logger logger = LoggerFactory.getLogger(GlobalMemoryManager.class);
     
-    private final Object sync = new Object();
     private final long maxMemoryBytes;
     private final int maxWaitMs;
-    @GuardedBy("sync")
-    private volatile long usedMemoryBytes;
+    private final int maxBypassMs;
+    private final AtomicLong usedMemoryBytes;
+    private final AtomicLong waitTimeMs = new AtomicLong();
+    // Requests waiting for memory to be freed, in arrival order
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<Waiter>();
+    // Named memory managers delegating to this one. Held weakly so that per query
+    // managers disappear along with their query.
+    private final Set<ChildMemoryManager> consumers = Collections.newSetFromMap(new MapMaker().weakKeys().<ChildMemoryManager, Boolean>makeMap());
+    // Time the current thread has spent waiting for memory in any global memory manager
+    private static final ThreadLocal<long[]> threadWaitTimeMs = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+    
+    private static class Waiter {
+        private final Thread thread;
+        private final long startTimeMs;
+        
+        private Waiter(Thread thread, long startTimeMs) {
+            this.thread = thread;
+            this.startTimeMs = startTimeMs;
+        }
+    }
+    
     public GlobalMemoryManager(long maxBytes, int maxWaitMs) {
         if (maxBytes <= 0) {
             throw new IllegalStateException("Total number of available bytes (" + maxBytes + ") must be greater than zero");
@@ -44,14 +84,13 @@ public class GlobalMemoryManager implements MemoryManager {
         }
         this.maxMemoryBytes = maxBytes;
         this.maxWaitMs = maxWaitMs;
-        this.usedMemoryBytes = 0;
+        this.maxBypassMs = maxWaitMs / 2;
+        this.usedMemoryBytes = new AtomicLong();
     }
     
     @Override
     public long getAvailableMemory() {
-        synchronized(sync) {
-            return maxMemoryBytes - usedMemoryBytes;
-        }
+        return maxMemoryBytes - usedMemoryBytes.get();
     }
 
     @Override
@@ -59,8 +98,89 @@ public class GlobalMemoryManager implements MemoryManager {
         return maxMemoryBytes;
     }
 
+    void addConsumer(ChildMemoryManager consumer) {
+        consumers.add(consumer);
+    }
+    
+    /**
+     * Get a point in time view of the named memory managers that currently hold memory
+     * allocated from this memory manager, largest first.
+     */
+    public List<MemoryConsumerUsage> getMemoryUsage() {
+        List<MemoryConsumerUsage> usage = Lists.newArrayList();
+        for (ChildMemoryManager consumer : consumers.toArray(new ChildMemoryManager[0])) {
+            long allocatedBytes = consumer.getAllocatedMemory();
+            if (allocatedBytes > 0) {
+                usage.add(new MemoryConsumerUsage(consumer.getName(), allocatedBytes, consumer.getMaxMemory(), consumer.getWaitTimeMs()));
+            }
+        }
+        Collections.sort(usage);
+        return usage;
+    }
+
+    /**
+     * Get the total number of milliseconds requests have spent waiting for memory to be freed.
+     */
+    public long getWaitTimeMs() {
+        return waitTimeMs.get();
+    }
+    
+    /**
+     * Get the number of requests currently waiting for memory to be freed.
+     */
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+    
+    /**
+     * Get the total number of milliseconds the current thread has spent waiting
+     * for memory to be freed in any global memory manager.
+     */
+    static long getThreadWaitTimeMs() {
+        return threadWaitTimeMs.get()[0];
+    }
 
-    // TODO: Work on fairness: One big memory request can cause all others to block here.
+    /**
+     * Reserve at most reqBytes, but at least minBytes without blocking.
+     * @return the number of bytes reserved or -1 if minBytes are not available
+     */
+    private long tryReserveBytes(long minBytes, long reqBytes) {
+        while (true) {
+            long usedBytes = usedMemoryBytes.get();
+            long availBytes = maxMemoryBytes - usedBytes;
+            if (availBytes < minBytes) {
+                return -1;
+            }
+            long nBytes = Math.min(reqBytes, availBytes);
+            if (usedMemoryBytes.compareAndSet(usedBytes, usedBytes + nBytes)) {
+                return nBytes;
+            }
+        }
+    }
+    
+    private void releaseBytes(long nBytes) {
+        if (nBytes > 0) {
+            usedMemoryBytes.addAndGet(-nBytes);
+            signalWaiters();
+        }
+    }
+    
+    private void signalWaiters() {
+        // Any waiting request may fit in what has been freed, not only the one at the head
+        for (Waiter waiter : waiters) {
+            LockSupport.unpark(waiter.thread);
+        }
+    }
+    
+    /**
+     * Whether a request may take memory ahead of the requests waiting for it.
+     * @param self the waiting request, or null if the request is not waiting
+     */
+    private boolean mayGoAhead(Waiter self) {
+        Waiter head = waiters.peek();
+        return head == null || head == self || System.currentTimeMillis() - head.startTimeMs < maxBypassMs;
+    }
+    
     private long allocateBytes(long minBytes, long reqBytes) {
         if (minBytes < 0 || reqBytes < 0) {
             throw new IllegalStateException("Minimum requested bytes (" + minBytes + ") and requested bytes (" + reqBytes + ") must be greater than zero");
@@ -68,28 +188,45 @@ public class GlobalMemoryManager implements MemoryManager {
         if (minBytes > maxMemoryBytes) { // No need to wait, since we'll never have this much available
             throw new InsufficientMemoryException("Requested memory of " + minBytes + " bytes is larger than global pool of " + maxMemoryBytes + " bytes.");
         }
-        long startTimeMs = System.currentTimeMillis(); // Get time outside of sync block to account for waiting for lock
-        long nBytes;
-        synchronized(sync) {
-            while (usedMemoryBytes + minBytes > maxMemoryBytes) { // Only wait if minBytes not available
-                try {
-                    long remainingWaitTimeMs = maxWaitMs - (System.currentTimeMillis() - startTimeMs);
-                    if (remainingWaitTimeMs <= 0) { // Ran out of time waiting for some memory to get freed up
-                        throw new InsufficientMemoryException("Requested memory of " + minBytes + " bytes could not be allocated from remaining memory of " + usedMemoryBytes + " bytes from global pool of " + maxMemoryBytes + " bytes after waiting for " + maxWaitMs + "ms.");
+        // Don't jump ahead of a request that has already waited too long
+        if (mayGoAhead(null)) {
+            long nBytes = tryReserveBytes(minBytes, reqBytes);
+            if (nBytes >= 0) {
+                return nBytes;
+            }
+        }
+        return awaitBytes(minBytes, reqBytes);
+    }
+
+    private long awaitBytes(long minBytes, long reqBytes) {
+        long startTimeMs = System.currentTimeMillis();
+        Waiter current = new Waiter(Thread.currentThread(), startTimeMs);
+        waiters.add(current);
+        try {
+            while (true) {
+                if (mayGoAhead(current)) {
+                    long nBytes = tryReserveBytes(minBytes, reqBytes);
+                    if (nBytes >= 0) {
+                        return nBytes;
                     }
-                    sync.wait(remainingWaitTimeMs);
-                } catch (InterruptedException ie) {
-                    throw new RuntimeException("Interrupted allocation of " + minBytes + " bytes", ie);
+                }
+                long remainingWaitTimeMs = maxWaitMs - (System.currentTimeMillis() - startTimeMs);
+                if (remainingWaitTimeMs <= 0) { // Ran out of time waiting for some memory to get freed up
+                    throw new InsufficientMemoryException("Requested memory of " + minBytes + " bytes could not be allocated from remaining memory of " + getAvailableMemory() + " bytes from global pool of " + maxMemoryBytes + " bytes after waiting for " + maxWaitMs + "ms.");
+                }
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(remainingWaitTimeMs));
+                if (Thread.interrupted()) {
+                    throw new RuntimeException("Interrupted allocation of " + minBytes + " bytes", new InterruptedException());
                 }
             }
-            // Allocate at most reqBytes, but at least minBytes
-            nBytes = Math.min(reqBytes, maxMemoryBytes - usedMemoryBytes);
-            if (nBytes < minBytes) {
-                throw new IllegalStateException("Allocated bytes (" + nBytes + ") should be at least the minimum requested bytes (" + minBytes + ")");
-            }
-            usedMemoryBytes += nBytes;
+        } finally {
+            waiters.remove(current);
+            long elapsedMs = System.currentTimeMillis() - startTimeMs;
+            waitTimeMs.addAndGet(elapsedMs);
+            threadWaitTimeMs.get()[0] += elapsedMs;
+            // Let the other requests see if what's left is enough for them
+            signalWaiters();
         }
-        return nBytes;
     }
 
     @Override
@@ -119,9 +256,7 @@ public class GlobalMemoryManager implements MemoryManager {
 
         @Override
         public long getSize() {
-            synchronized(sync) {
-                return size; // TODO: does this need to be synchronized?
-            }
+            return size;
         }
         
         @Override
@@ -129,12 +264,12 @@ public class GlobalMemoryManager implements MemoryManager {
             if (nBytes < 0) {
                 throw new IllegalStateException("Number of bytes to resize to must be greater than zero, but instead is " + nBytes);
             }
-            synchronized(sync) {
+            // Only serializes changes to this chunk, not to the pool as a whole
+            synchronized(this) {
                 long nAdditionalBytes = (nBytes - size);
                 if (nAdditionalBytes < 0) {
-                    usedMemoryBytes += nAdditionalBytes;
                     size = nBytes;
-                    sync.notifyAll();
+                    releaseBytes(-nAdditionalBytes);
                 } else {
                     allocateBytes(nAdditionalBytes, nAdditionalBytes);
                     size = nBytes;
@@ -162,11 +297,12 @@ public class GlobalMemoryManager implements MemoryManager {
         
         @Override
         public void close() {
-            synchronized(sync) {
-                usedMemoryBytes -= size;
+            long nBytes;
+            synchronized(this) {
+                nBytes = size;
                 size = 0;
-                sync.notifyAll();
             }
+            releaseBytes(nBytes);
         }
     }
 }
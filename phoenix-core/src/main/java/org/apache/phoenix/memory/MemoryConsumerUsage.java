@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.memory;
+
+/**
+ * 
+ * Point in time view of the memory held by a named memory manager,
+ * as returned by {@link GlobalMemoryManager#getMemoryUsage()}.
+ *
+ * 
+ * @since 4.6
+ */
+public class MemoryConsumerUsage implements Comparable<MemoryConsumerUsage> {
+    private final String name;
+    private final long allocatedBytes;
+    private final long maxBytes;
+    private final long waitTimeMs;
+    
+    public MemoryConsumerUsage(String name, long allocatedBytes, long maxBytes, long waitTimeMs) {
+        this.name = name;
+        this.allocatedBytes = allocatedBytes;
+        this.maxBytes = maxBytes;
+        this.waitTimeMs = waitTimeMs;
+    }
+
+    /**
+     * Get the name of the consumer, qualified by the names of its parents.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of bytes currently allocated by the consumer.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Get the maximum number of bytes the consumer may allocate.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Get the total number of milliseconds the consumer has waited for memory.
+     */
+    public long getWaitTimeMs() {
+        return waitTimeMs;
+    }
+
+    @Override
+    public int compareTo(MemoryConsumerUsage o) {
+        return allocatedBytes > o.allocatedBytes ? -1 : allocatedBytes == o.allocatedBytes ? 0 : 1;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + allocatedBytes + " of " + maxBytes + " bytes, waited " + waitTimeMs + "ms";
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.metrics;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.MetricsSource;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.metrics2.lib.Interns;
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+import org.apache.hadoop.metrics2.lib.MutableGaugeLong;
+import org.apache.hadoop.metrics2.lib.MutableRate;
+import org.apache.phoenix.memory.GlobalMemoryManager;
+import org.apache.phoenix.memory.MemoryConsumerUsage;
+import org.apache.phoenix.memory.MemoryManager;
+
+/**
+ * Hadoop metrics2 source for the work done by the Phoenix coprocessors of a region server:
+ * rows scanned and returned by Phoenix scans, aggregation groups, bytes spilled to disk,
+ * bytes held by hash join caches, index write latency and failures, and memory manager
+ * usage. Rows scanned are also broken down by table so that hot tables stand out.
+ * <p>
+ * There is a single instance per region server. It is registered with the metrics system
+ * the region server already runs, so its metrics go wherever the HBase metrics go (JMX
+ * under {@code Hadoop:service=HBase,name=Phoenix} and any configured sinks).
+ */
+public class PhoenixServerMetricsSource implements MetricsSource {
+    private static final Log LOG = LogFactory.getLog(PhoenixServerMetricsSource.class);
+
+    public static final String METRICS_NAME = "Phoenix";
+    public static final String METRICS_DESCRIPTION = "Metrics about the Phoenix coprocessors of a region server";
+    public static final String METRICS_CONTEXT = "regionserver";
+
+    public static final String ROWS_SCANNED = "rowsScanned";
+    public static final String ROWS_RETURNED = "rowsReturned";
+    public static final String ROWS_FILTERED = "rowsFiltered";
+    public static final String AGGREGATION_GROUPS = "aggregationGroups";
+    public static final String SPILL_BYTES = "spillBytes";
+    public static final String HASH_CACHE_BYTES = "hashCacheBytes";
+    public static final String INDEX_WRITE = "indexWrite";
+    public static final String INDEX_WRITE_FAILURES = "indexWriteFailures";
+    public static final String MEMORY_USED = "memoryUsedBytes";
+    public static final String MEMORY_MAX = "memoryMaxBytes";
+    public static final String MEMORY_WAIT_TIME = "memoryWaitTimeMs";
+    public static final String MEMORY_WAITERS = "memoryWaiters";
+    // Number of largest memory consumers, such as tenant caches, reported individually
+    private static final int MAX_REPORTED_MEMORY_CONSUMERS = 10;
+
+    private static volatile PhoenixServerMetricsSource INSTANCE;
+
+    private final MetricsRegistry registry = new MetricsRegistry(METRICS_NAME).setContext(METRICS_CONTEXT);
+    private final MutableCounterLong rowsScanned = registry.newCounter(ROWS_SCANNED,
+            "Rows read from regions by Phoenix scans", 0L);
+    private final MutableCounterLong rowsReturned = registry.newCounter(ROWS_RETURNED,
+            "Rows returned to clients by Phoenix scans", 0L);
+    private final MutableCounterLong rowsFiltered = registry.newCounter(ROWS_FILTERED,
+            "Rows read by Phoenix scans but not returned, as they were aggregated, joined away or past a limit", 0L);
+    private final MutableCounterLong aggregationGroups = registry.newCounter(AGGREGATION_GROUPS,
+            "Groups produced by server side aggregation", 0L);
+    private final MutableCounterLong spillBytes = registry.newCounter(SPILL_BYTES,
+            "Bytes spilled to disk by server side aggregation and sorting", 0L);
+    private final MutableGaugeLong hashCacheBytes = registry.newGauge(HASH_CACHE_BYTES,
+            "Bytes held by hash join and other server caches", 0L);
+    private final MutableRate indexWrite = registry.newRate(INDEX_WRITE,
+            "Time in milliseconds spent writing index updates", false);
+    private final MutableCounterLong indexWriteFailures = registry.newCounter(INDEX_WRITE_FAILURES,
+            "Failed index writes", 0L);
+    private final ConcurrentMap<String, MutableCounterLong> tableRowsScanned = new ConcurrentHashMap<String, MutableCounterLong>();
+    private volatile MemoryManager memoryManager;
+
+    private PhoenixServerMetricsSource() {
+    }
+
+    /**
+     * Get the metrics source of this region server, registering it on first use.
+     */
+    public static PhoenixServerMetricsSource getInstance() {
+        PhoenixServerMetricsSource result = INSTANCE;
+        if (result == null) {
+            synchronized (PhoenixServerMetricsSource.class) {
+                result = INSTANCE;
+                if (result == null) {
+                    result = new PhoenixServerMetricsSource();
+                    try {
+                        DefaultMetricsSystem.instance().register(METRICS_NAME, METRICS_DESCRIPTION, result);
+                    } catch (Exception e) {
+                        // Keep counting even if the metrics cannot be published
+                        LOG.warn("Unable to register Phoenix server metrics source", e);
+                    }
+                    INSTANCE = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record the rows read and returned by a scan once it is closed
+     * @param tableName name of the table of the scanned region
+     */
+    public void updateScan(String tableName, long nRowsScanned, long nRowsReturned) {
+        rowsScanned.incr(nRowsScanned);
+        rowsReturned.incr(nRowsReturned);
+        if (nRowsScanned > nRowsReturned) {
+            rowsFiltered.incr(nRowsScanned - nRowsReturned);
+        }
+        getTableRowsScanned(tableName).incr(nRowsScanned);
+    }
+
+    private MutableCounterLong getTableRowsScanned(String tableName) {
+        MutableCounterLong counter = tableRowsScanned.get(tableName);
+        if (counter == null) {
+            synchronized (registry) {
+                counter = tableRowsScanned.get(tableName);
+                if (counter == null) {
+                    counter = registry.newCounter("table." + tableName + "." + ROWS_SCANNED,
+                            "Rows read from regions of " + tableName + " by Phoenix scans", 0L);
+                    tableRowsScanned.put(tableName, counter);
+                }
+            }
+        }
+        return counter;
+    }
+
+    public void incrAggregationGroups(long nGroups) {
+        aggregationGroups.incr(nGroups);
+    }
+
+    public void incrSpillBytes(long nBytes) {
+        spillBytes.incr(nBytes);
+    }
+
+    /**
+     * Track the bytes held by server caches
+     * @param delta bytes added to (positive) or removed from (negative) the caches
+     */
+    public void updateHashCacheBytes(long delta) {
+        if (delta >= 0) {
+            hashCacheBytes.incr(delta);
+        } else {
+            hashCacheBytes.decr(-delta);
+        }
+    }
+
+    public void updateIndexWrite(long timeMs, boolean success) {
+        indexWrite.add(timeMs);
+        if (!success) {
+            indexWriteFailures.incr();
+        }
+    }
+
+    /**
+     * Set the memory manager of the region server whose usage is reported
+     */
+    public void setMemoryManager(MemoryManager memoryManager) {
+        this.memoryManager = memoryManager;
+    }
+
+    @Override
+    public void getMetrics(MetricsCollector collector, boolean all) {
+        MetricsRecordBuilder builder = collector.addRecord(registry.info());
+        MemoryManager memoryManager = this.memoryManager;
+        if (memoryManager != null) {
+            long maxMemory = memoryManager.getMaxMemory();
+            builder.addGauge(Interns.info(MEMORY_USED, "Bytes allocated through the memory manager"),
+                    maxMemory - memoryManager.getAvailableMemory());
+            builder.addGauge(Interns.info(MEMORY_MAX, "Bytes available to the memory manager"), maxMemory);
+            if (memoryManager instanceof GlobalMemoryManager) {
+                GlobalMemoryManager globalMemoryManager = (GlobalMemoryManager)memoryManager;
+                builder.addCounter(Interns.info(MEMORY_WAIT_TIME, "Time in milliseconds spent waiting for memory to be freed"),
+                        globalMemoryManager.getWaitTimeMs());
+                builder.addGauge(Interns.info(MEMORY_WAITERS, "Requests waiting for memory to be freed"),
+                        globalMemoryManager.getWaiterCount());
+                List<MemoryConsumerUsage> usages = globalMemoryManager.getMemoryUsage();
+                for (MemoryConsumerUsage usage : usages.subList(0, Math.min(usages.size(), MAX_REPORTED_MEMORY_CONSUMERS))) {
+                    builder.addGauge(Interns.info("memory." + usage.getName() + "." + MEMORY_USED,
+                            "Bytes allocated through the memory manager by " + usage.getName()), usage.getAllocatedBytes());
+                }
+            }
+        }
+        registry.snapshot(builder, all);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Low overhead histogram of latencies, recorded in microseconds. Latencies are counted in
+ * log-linear buckets: values below 64 each have their own bucket and every power of two
+ * above that is split into 32 buckets, so a percentile is never off by more than about
+ * 3%. Recording a value is a couple of shifts and an atomic increment, without locking.
+ * Values above about 19 hours are counted in the last bucket.
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_TRACKABLE_VALUE = (1L << 36) - 1;
+    private static final int BUCKET_COUNT = getBucketIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    private final MetricType type;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public LatencyHistogram(MetricType type) {
+        this.type = type;
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int)(value >>> shift);
+    }
+
+    /**
+     * @return the highest value counted in the bucket with the given index
+     */
+    static long getBucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Record a latency
+     * @param micros latency in microseconds
+     */
+    public void update(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_TRACKABLE_VALUE));
+        counts.incrementAndGet(getBucketIndex(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return type.name();
+    }
+
+    public String getDescription() {
+        return type.description();
+    }
+
+    @Override
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    @Override
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double)totalSum.get() / count;
+    }
+
+    @Override
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * Get the latency at or below which the given percentage of the recorded latencies fall.
+     * As recording is not synchronized with reading, the result may be slightly off while
+     * latencies are being recorded concurrently.
+     * @param percentile between 0 and 100
+     * @return the latency in microseconds, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long max = maxValue.get();
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public long getMedian() {
+        return getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getPercentile90() {
+        return getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getPercentile99() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getPercentile999() {
+        return getValueAtPercentile(99.9);
+    }
+
+    /**
+     * @return the count, mean, max and common percentiles by name, in microseconds
+     */
+    public Map<String, Long> getSummary() {
+        Map<String, Long> summary = new LinkedHashMap<String, Long>();
+        summary.put("COUNT", getCount());
+        summary.put("MEAN", Math.round(getMean()));
+        summary.put("P50", getMedian());
+        summary.put("P90", getPercentile90());
+        summary.put("P99", getPercentile99());
+        summary.put("P999", getPercentile999());
+        summary.put("MAX", getMax());
+        return summary;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return getName() + ": " + getSummary();
+    }
+}
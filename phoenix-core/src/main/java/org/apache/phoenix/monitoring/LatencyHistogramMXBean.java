@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+/**
+ * JMX view of a {@link LatencyHistogram}. All latencies are in microseconds.
+ */
+public interface LatencyHistogramMXBean {
+    /**
+     * @return Name of the phase whose latency is recorded
+     */
+    public String getName();
+
+    /**
+     * @return Number of latencies recorded since the last {@link #reset()} call
+     */
+    public long getCount();
+
+    public double getMean();
+
+    public long getMax();
+
+    public long getMedian();
+
+    public long getPercentile90();
+
+    public long getPercentile99();
+
+    public long getPercentile999();
+
+    /**
+     * Discard all recorded latencies
+     */
+    public void reset();
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.apache.phoenix.monitoring.MetricType.COMMIT_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.COMPILE_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.EXECUTION_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.FIRST_ROW_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.METADATA_LOOKUP_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.PARSE_LATENCY;
+import static org.apache.phoenix.monitoring.MetricType.SCAN_SUBMISSION_LATENCY;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.ObjectName;
+
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+
+/**
+ * Central place where we keep the latency histograms of each phase of executing a statement
+ * on the client: parse, compile, metadata lookup, scan submission, first row, full execution
+ * and commit. Each latency is recorded both across all tables and, unless disabled through
+ * {@link org.apache.phoenix.query.QueryServices#TABLE_LATENCY_HISTOGRAMS_ENABLED}, for the
+ * table the statement ran against, so that tail latencies can be watched without tracing.
+ * Like {@link GlobalClientMetrics}, the histograms are kept at the client JVM level and are
+ * only updated when global metrics are enabled. They are also registered as MBeans under
+ * {@code org.apache.phoenix:type=LatencyHistograms}.
+ * <p>
+ * Whether latencies are recorded is decided by the properties of the connection recording
+ * them. The histograms of at most
+ * {@link org.apache.phoenix.query.QueryServices#TABLE_LATENCY_HISTOGRAMS_MAX_TABLES_ATTRIB}
+ * tables are kept, as taken from the first connection recording a table latency. The
+ * histograms of the least recently used table are discarded, and unregistered from JMX, to make
+ * room for a new one.
+ */
+public class LatencyHistograms {
+    private static final Logger logger = LoggerFactory.getLogger(LatencyHistograms.class);
+    private static final String JMX_DOMAIN = "org.apache.phoenix";
+    private static final MetricType[] PHASES = {
+        PARSE_LATENCY, COMPILE_LATENCY, METADATA_LOOKUP_LATENCY, SCAN_SUBMISSION_LATENCY, FIRST_ROW_LATENCY, EXECUTION_LATENCY, COMMIT_LATENCY
+    };
+
+    private static final Map<MetricType, LatencyHistogram> globalHistograms = new EnumMap<MetricType, LatencyHistogram>(MetricType.class);
+    private static final AtomicBoolean isGlobalHistogramsRegistered = new AtomicBoolean();
+    private static volatile Cache<String, TableHistograms> tableHistograms;
+
+    static {
+        for (MetricType phase : PHASES) {
+            globalHistograms.put(phase, new LatencyHistogram(phase));
+        }
+    }
+
+    private LatencyHistograms() {
+    }
+
+    /**
+     * Histograms of each phase recorded for a table, along with whether they were registered with JMX
+     */
+    private static class TableHistograms {
+        private final Map<MetricType, LatencyHistogram> histograms = new EnumMap<MetricType, LatencyHistogram>(MetricType.class);
+        private final boolean isRegistered;
+
+        private TableHistograms(String tableName, boolean isJmxEnabled) {
+            for (MetricType phase : PHASES) {
+                histograms.put(phase, new LatencyHistogram(phase));
+            }
+            if (isJmxEnabled) {
+                for (LatencyHistogram histogram : histograms.values()) {
+                    register(histogram, tableName);
+                }
+            }
+            this.isRegistered = isJmxEnabled;
+        }
+    }
+
+    /**
+     * Record the latency of a phase of executing a statement
+     * @param props the properties of the connection executing the statement
+     * @param phase one of the latency {@link MetricType}s
+     * @param tableName the table the statement ran against, or null if not known
+     * @param elapsedNanos the latency in nanoseconds
+     */
+    public static void update(ReadOnlyProps props, MetricType phase, String tableName, long elapsedNanos) {
+        if (!props.getBoolean(QueryServices.GLOBAL_METRICS_ENABLED, QueryServicesOptions.DEFAULT_IS_GLOBAL_METRICS_ENABLED)) {
+            return;
+        }
+        boolean isJmxEnabled = props.getBoolean(QueryServices.LATENCY_HISTOGRAMS_JMX_ENABLED, QueryServicesOptions.DEFAULT_LATENCY_HISTOGRAMS_JMX_ENABLED);
+        if (isJmxEnabled && !isGlobalHistogramsRegistered.get() && isGlobalHistogramsRegistered.compareAndSet(false, true)) {
+            for (LatencyHistogram histogram : globalHistograms.values()) {
+                register(histogram, null);
+            }
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        globalHistograms.get(phase).update(micros);
+        if (tableName != null && props.getBoolean(QueryServices.TABLE_LATENCY_HISTOGRAMS_ENABLED, QueryServicesOptions.DEFAULT_TABLE_LATENCY_HISTOGRAMS_ENABLED)) {
+            getTableHistograms(props, tableName, isJmxEnabled).histograms.get(phase).update(micros);
+        }
+    }
+
+    private static TableHistograms getTableHistograms(ReadOnlyProps props, final String tableName, final boolean isJmxEnabled) {
+        Cache<String, TableHistograms> cache = tableHistograms;
+        if (cache == null) {
+            synchronized (LatencyHistograms.class) {
+                cache = tableHistograms;
+                if (cache == null) {
+                    int maxTables = props.getInt(QueryServices.TABLE_LATENCY_HISTOGRAMS_MAX_TABLES_ATTRIB, QueryServicesOptions.DEFAULT_TABLE_LATENCY_HISTOGRAMS_MAX_TABLES);
+                    cache = tableHistograms = CacheBuilder.newBuilder()
+                            .maximumSize(maxTables)
+                            .removalListener(new RemovalListener<String, TableHistograms>() {
+                                @Override
+                                public void onRemoval(RemovalNotification<String, TableHistograms> notification) {
+                                    TableHistograms evicted = notification.getValue();
+                                    if (evicted != null && evicted.isRegistered) {
+                                        for (LatencyHistogram histogram : evicted.histograms.values()) {
+                                            unregister(histogram, notification.getKey());
+                                        }
+                                    }
+                                }
+                            })
+                            .build();
+                }
+            }
+        }
+        try {
+            return cache.get(tableName, new Callable<TableHistograms>() {
+                @Override
+                public TableHistograms call() {
+                    return new TableHistograms(tableName, isJmxEnabled);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private static String getObjectName(LatencyHistogram histogram, String tableName) {
+        StringBuilder name = new StringBuilder(JMX_DOMAIN).append(":type=LatencyHistograms");
+        if (tableName != null) {
+            name.append(",table=").append(ObjectName.quote(tableName));
+        }
+        name.append(",phase=").append(histogram.getName());
+        return name.toString();
+    }
+
+    private static void register(LatencyHistogram histogram, String tableName) {
+        String name = getObjectName(histogram, tableName);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(histogram, new ObjectName(name));
+        } catch (Exception e) {
+            // Most likely registered already by another class loader
+            logger.warn("Unable to register latency histogram " + name + " with JMX: " + e);
+        }
+    }
+
+    private static void unregister(LatencyHistogram histogram, String tableName) {
+        String name = getObjectName(histogram, tableName);
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(name));
+        } catch (Exception e) {
+            logger.warn("Unable to unregister latency histogram " + name + " from JMX: " + e);
+        }
+    }
+
+    /**
+     * @return the latency histograms of each phase across all tables
+     */
+    public static Collection<LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableCollection(globalHistograms.values());
+    }
+
+    /**
+     * @return a map of table name -> latency histograms of the phases recorded for that table
+     */
+    public static Map<String, Collection<LatencyHistogram>> getTableHistograms() {
+        Map<String, Collection<LatencyHistogram>> histograms = new HashMap<String, Collection<LatencyHistogram>>();
+        Cache<String, TableHistograms> cache = tableHistograms;
+        if (cache != null) {
+            for (Map.Entry<String, TableHistograms> entry : cache.asMap().entrySet()) {
+                histograms.put(entry.getKey(), Collections.unmodifiableCollection(entry.getValue().histograms.values()));
+            }
+        }
+        return histograms;
+    }
+
+    /**
+     * Discard the latencies recorded in all histograms
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : globalHistograms.values()) {
+            histogram.reset();
+        }
+        Cache<String, TableHistograms> cache = tableHistograms;
+        if (cache != null) {
+            for (TableHistograms histograms : cache.asMap().values()) {
+                for (LatencyHistogram histogram : histograms.histograms.values()) {
+                    histogram.reset();
+                }
+            }
+        }
+    }
+}
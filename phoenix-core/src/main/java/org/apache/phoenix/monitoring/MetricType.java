@@ -40,7 +40,14 @@ public enum MetricType {
     SPOOL_FILE_COUNTER("Number of spool files created"),
     CACHE_REFRESH_SPLITS_COUNTER("Number of times cache was refreshed because of splits"),
     WALL_CLOCK_TIME_MS("Wall clock time elapsed for the overall query execution"),
-    RESULT_SET_TIME_MS("Wall clock time elapsed for reading all records using resultSet.next()");
+    RESULT_SET_TIME_MS("Wall clock time elapsed for reading all records using resultSet.next()"),
+    PARSE_LATENCY("Time in microseconds spent parsing sql statements"),
+    COMPILE_LATENCY("Time in microseconds spent compiling and optimizing sql statements"),
+    METADATA_LOOKUP_LATENCY("Time in microseconds spent fetching table metadata from the server"),
+    SCAN_SUBMISSION_LATENCY("Time in microseconds spent submitting the parallel scans of a query"),
+    FIRST_ROW_LATENCY("Time in microseconds from executing a query to its first row being returned"),
+    EXECUTION_LATENCY("Time in microseconds from executing a statement to its last row being returned or its mutations being prepared"),
+    COMMIT_LATENCY("Time in microseconds spent sending a batch of mutations to a table");
     
     private final String description;
 
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime statistics of a single step of a query plan, collected while executing
+ * EXPLAIN ANALYZE. Counters may be updated concurrently by the threads running the
+ * parallel scans of the step.
+ */
+public class OperatorStatistics {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong timeNanos = new AtomicLong();
+    private final AtomicLong cpuTimeNanos = new AtomicLong();
+    private final AtomicLong spillBytes = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong chunkTimeNanos = new AtomicLong();
+    private final AtomicLong maxChunkTimeNanos = new AtomicLong();
+    private final AtomicLong serverRows = new AtomicLong();
+    private final AtomicLong serverBytes = new AtomicLong();
+    private final AtomicLong serverTimeNanos = new AtomicLong();
+    private final AtomicLong serverCpuTimeNanos = new AtomicLong();
+
+    /**
+     * Get the CPU time of the current thread in nanoseconds, or zero if the JVM doesn't measure it.
+     */
+    public static long currentThreadCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+    
+    public void addRows(long nRows) {
+        rows.addAndGet(nRows);
+    }
+    
+    public void addBytes(long nBytes) {
+        bytes.addAndGet(nBytes);
+    }
+    
+    public void addTime(long wallNanos, long cpuNanos) {
+        timeNanos.addAndGet(wallNanos);
+        cpuTimeNanos.addAndGet(cpuNanos);
+    }
+    
+    public void addSpillBytes(long nBytes) {
+        spillBytes.addAndGet(nBytes);
+    }
+    
+    /**
+     * Record the time taken by one of the parallel chunks of the step, used to report skew.
+     */
+    public void addChunk(long wallNanos) {
+        chunks.incrementAndGet();
+        chunkTimeNanos.addAndGet(wallNanos);
+        long max;
+        while ((max = maxChunkTimeNanos.get()) < wallNanos && !maxChunkTimeNanos.compareAndSet(max, wallNanos)) {
+        }
+    }
+    
+    /**
+     * Record the counters a region server returned for the part of the step it executed.
+     */
+    public void addServerStatistics(long nRows, long nBytes, long wallNanos, long cpuNanos) {
+        serverRows.addAndGet(nRows);
+        serverBytes.addAndGet(nBytes);
+        serverTimeNanos.addAndGet(wallNanos);
+        serverCpuTimeNanos.addAndGet(cpuNanos);
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getTimeNanos() {
+        return timeNanos.get();
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos.get();
+    }
+
+    public long getSpillBytes() {
+        return spillBytes.get();
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    /**
+     * Get the ratio of the slowest chunk's time to the average chunk time, or zero if
+     * no chunks were recorded.
+     */
+    public double getChunkSkew() {
+        long nChunks = chunks.get();
+        long totalNanos = chunkTimeNanos.get();
+        return nChunks == 0 || totalNanos == 0 ? 0 : (double)maxChunkTimeNanos.get() * nChunks / totalNanos;
+    }
+
+    public long getServerRows() {
+        return serverRows.get();
+    }
+
+    public long getServerBytes() {
+        return serverBytes.get();
+    }
+
+    public long getServerTimeNanos() {
+        return serverTimeNanos.get();
+    }
+
+    public long getServerCpuTimeNanos() {
+        return serverCpuTimeNanos.get();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("(ACTUAL ROWS=").append(getRows());
+        if (getBytes() > 0) {
+            buf.append(", BYTES=").append(getBytes());
+        }
+        buf.append(", TIME=").append(toMillis(getTimeNanos())).append("ms");
+        if (getCpuTimeNanos() > 0) {
+            buf.append(", CPU=").append(toMillis(getCpuTimeNanos())).append("ms");
+        }
+        if (getSpillBytes() > 0) {
+            buf.append(", SPILL BYTES=").append(getSpillBytes());
+        }
+        if (getChunks() > 0) {
+            buf.append(", CHUNKS=").append(getChunks()).append(String.format(", SKEW=%.2f", getChunkSkew()));
+        }
+        if (getServerRows() > 0 || getServerTimeNanos() > 0) {
+            buf.append(", SERVER ROWS=").append(getServerRows())
+               .append(", SERVER BYTES=").append(getServerBytes())
+               .append(", SERVER TIME=").append(toMillis(getServerTimeNanos())).append("ms")
+               .append(", SERVER CPU=").append(toMillis(getServerCpuTimeNanos())).append("ms");
+        }
+        return buf.append(")").toString();
+    }
+}
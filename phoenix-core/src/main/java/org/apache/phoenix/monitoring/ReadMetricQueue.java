@@ -86,6 +86,33 @@ public class ReadMetricQueue {
         return publishedMetrics;
     }
     
+    /**
+     * Like {@link #aggregate()}, but leaves the queued metrics untouched so that it may be called
+     * before the metrics are aggregated for the client.
+     * @return map of table name -> list of pair of (metric name, metric value)
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshotMetrics = new HashMap<>();
+        for (Entry<MetricKey, Queue<CombinableMetric>> entry : metricsMap.entrySet()) {
+            String tableName = entry.getKey().tableName;
+            String metricName = null;
+            long value = 0;
+            for (CombinableMetric metric : entry.getValue()) {
+                metricName = metric.getName();
+                value += metric.getValue();
+            }
+            if (metricName != null) {
+                Map<String, Long> map = snapshotMetrics.get(tableName);
+                if (map == null) {
+                    map = new HashMap<>();
+                    snapshotMetrics.put(tableName, map);
+                }
+                map.put(metricName, value);
+            }
+        }
+        return snapshotMetrics;
+    }
+    
     public void clearMetrics() {
         metricsMap.clear(); // help gc
     }
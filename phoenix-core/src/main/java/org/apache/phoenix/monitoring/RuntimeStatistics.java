@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Statistics collected for the steps of a query plan while executing EXPLAIN ANALYZE.
+ * Statistics are looked up by the operator they belong to, identified by the object
+ * that owns it (such as its query plan) and the kind of operator, so that steps with
+ * the same text, as in a self join, each get their own statistics. The plan explains
+ * itself again once the query has run, and each operator appends its statistics to
+ * the step it explains.
+ */
+public class RuntimeStatistics {
+    private final ConcurrentMap<OperatorKey, OperatorStatistics> operators = new ConcurrentHashMap<OperatorKey, OperatorStatistics>();
+    
+    private static class OperatorKey {
+        private final Object owner;
+        private final String operator;
+        
+        private OperatorKey(Object owner, String operator) {
+            this.owner = owner;
+            this.operator = operator;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + operator.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            OperatorKey other = (OperatorKey)obj;
+            return owner == other.owner && operator.equals(other.operator);
+        }
+    }
+    
+    /**
+     * Get the statistics for the given operator, creating them if necessary.
+     * @param owner the object owning the operator, compared by identity
+     * @param operator the kind of operator, distinguishing operators with the same owner
+     */
+    public OperatorStatistics getOperatorStatistics(Object owner, String operator) {
+        OperatorKey key = new OperatorKey(owner, operator);
+        OperatorStatistics statistics = operators.get(key);
+        if (statistics == null) {
+            OperatorStatistics newStatistics = new OperatorStatistics();
+            statistics = operators.putIfAbsent(key, newStatistics);
+            if (statistics == null) {
+                statistics = newStatistics;
+            }
+        }
+        return statistics;
+    }
+    
+    /**
+     * Append the statistics collected for the given operator, if any, to its plan step.
+     */
+    public String annotate(Object owner, String operator, String planStep) {
+        OperatorStatistics statistics = operators.get(new OperatorKey(owner, operator));
+        return statistics == null ? planStep : planStep + " " + statistics;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.apache.phoenix.monitoring.MetricType.SCAN_BYTES;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of the queries that took longer than
+ * {@link org.apache.phoenix.query.QueryServices#SLOW_QUERY_LOG_THRESHOLD_MS_ATTRIB} or read more than
+ * {@link org.apache.phoenix.query.QueryServices#SLOW_QUERY_LOG_THRESHOLD_BYTES_ATTRIB}, with their SQL,
+ * the types of their bind parameters, their plan and their metrics. Entries are written to the
+ * {@link #LOGGER_NAME} logger, or the one named by
+ * {@link org.apache.phoenix.query.QueryServices#SLOW_QUERY_LOG_LOGGER_ATTRIB}, which can be routed to
+ * its own rolling file through the log4j configuration of the client.
+ * <p>
+ * Queries only add their entry to a bounded buffer; a single daemon thread formats and writes the
+ * entries. When the buffer is full, entries are dropped rather than making the query wait. Each
+ * {@link org.apache.phoenix.query.ConnectionQueryServices} has its own log, configured from its
+ * properties.
+ */
+public class SlowQueryLog {
+    public static final String LOGGER_NAME = "org.apache.phoenix.SlowQueryLog";
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+    // How often the writer reports the entries dropped while it was waiting for new ones
+    private static final long DROPPED_REPORT_INTERVAL_MS = 1000;
+
+    private final boolean isEnabled;
+    private final long thresholdNanos;
+    private final long thresholdBytes;
+    private final Logger slowQueryLogger;
+    private final BlockingQueue<Entry> buffer;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicBoolean isWriterStarted = new AtomicBoolean();
+    private volatile Thread writer;
+
+    /**
+     * Create a log configured from the properties of a {@link org.apache.phoenix.query.ConnectionQueryServices}
+     */
+    public SlowQueryLog(ReadOnlyProps props) {
+        this(props.getBoolean(QueryServices.SLOW_QUERY_LOG_ENABLED, QueryServicesOptions.DEFAULT_SLOW_QUERY_LOG_ENABLED),
+                props.getLong(QueryServices.SLOW_QUERY_LOG_THRESHOLD_MS_ATTRIB, QueryServicesOptions.DEFAULT_SLOW_QUERY_LOG_THRESHOLD_MS),
+                props.getLong(QueryServices.SLOW_QUERY_LOG_THRESHOLD_BYTES_ATTRIB, QueryServicesOptions.DEFAULT_SLOW_QUERY_LOG_THRESHOLD_BYTES),
+                props.getInt(QueryServices.SLOW_QUERY_LOG_BUFFER_SIZE_ATTRIB, QueryServicesOptions.DEFAULT_SLOW_QUERY_LOG_BUFFER_SIZE),
+                props.get(QueryServices.SLOW_QUERY_LOG_LOGGER_ATTRIB, LOGGER_NAME));
+    }
+
+    SlowQueryLog(boolean isEnabled, long thresholdMs, long thresholdBytes, int bufferSize) {
+        this(isEnabled, thresholdMs, thresholdBytes, bufferSize, LOGGER_NAME);
+    }
+
+    private SlowQueryLog(boolean isEnabled, long thresholdMs, long thresholdBytes, int bufferSize, String loggerName) {
+        this.isEnabled = isEnabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.thresholdBytes = thresholdBytes;
+        this.slowQueryLogger = LoggerFactory.getLogger(loggerName);
+        this.buffer = new LinkedBlockingQueue<Entry>(Math.max(1, bufferSize));
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return true if a query with the given latency and bytes read should be logged
+     */
+    public boolean isSlow(long elapsedNanos, long bytesRead) {
+        return isEnabled && (elapsedNanos >= thresholdNanos || (thresholdBytes > 0 && bytesRead >= thresholdBytes));
+    }
+
+    /**
+     * Get the total number of bytes read by scans from the read metrics of a query
+     */
+    public static long getBytesRead(Map<String, Map<String, Long>> readMetrics) {
+        long bytesRead = 0;
+        for (Map<String, Long> tableMetrics : readMetrics.values()) {
+            Long scanBytes = tableMetrics.get(SCAN_BYTES.name());
+            if (scanBytes != null) {
+                bytesRead += scanBytes;
+            }
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Add a query to the log. Never blocks: if the buffer is full, the entry is dropped.
+     * @param sql the SQL of the query
+     * @param parameters the bind parameters of the query, of which only the types are logged
+     * @param planSteps the steps of the plan as shown by EXPLAIN
+     * @param elapsedNanos time from executing the query to its completion
+     * @param bytesRead total bytes read by scans
+     * @param queryMetrics the {@link OverAllQueryMetrics} of the query
+     * @param readMetrics the {@link ReadMetricQueue} totals of the query by table
+     * @return true if the entry was buffered and false if it was dropped
+     */
+    public boolean add(String sql, List<Object> parameters, List<String> planSteps, long elapsedNanos, long bytesRead,
+            Map<String, Long> queryMetrics, Map<String, Map<String, Long>> readMetrics) {
+        if (!isWriterStarted.get() && isWriterStarted.compareAndSet(false, true)) {
+            startWriter();
+        }
+        if (!buffer.offer(new Entry(sql, getParameterTypes(parameters), planSteps, elapsedNanos, bytesRead, queryMetrics, readMetrics))) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private static List<String> getParameterTypes(List<Object> parameters) {
+        if (parameters.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> types = new ArrayList<String>(parameters.size());
+        for (Object parameter : parameters) {
+            types.add(parameter == null ? "null" : parameter.getClass().getSimpleName());
+        }
+        return types;
+    }
+
+    /**
+     * @return the next buffered entry, or null if there is none
+     */
+    Entry poll() {
+        return buffer.poll();
+    }
+
+    /**
+     * @return the number of entries dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stop the writer once it has written the entries already buffered
+     */
+    public void close() {
+        // No writer is started once the log is closed
+        isWriterStarted.set(true);
+        Thread writer = this.writer;
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    void startWriter() {
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long reportedDroppedCount = 0;
+                try {
+                    while (true) {
+                        Entry entry = buffer.poll(DROPPED_REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                        if (entry == null) {
+                            long dropped = droppedCount.get();
+                            if (dropped != reportedDroppedCount) {
+                                logger.warn("Dropped " + (dropped - reportedDroppedCount) + " slow query log entries as the buffer was full");
+                                reportedDroppedCount = dropped;
+                            }
+                        } else {
+                            write(entry);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    for (Entry entry = buffer.poll(); entry != null; entry = buffer.poll()) {
+                        write(entry);
+                    }
+                }
+            }
+        }, "phoenix-slow-query-log");
+        writer.setDaemon(true);
+        this.writer = writer;
+        writer.start();
+    }
+
+    private void write(Entry entry) {
+        try {
+            slowQueryLogger.info(entry.toString());
+        } catch (Throwable t) {
+            logger.warn("Unable to write slow query log entry", t);
+        }
+    }
+
+    static class Entry {
+        private final String sql;
+        private final List<String> parameterTypes;
+        private final List<String> planSteps;
+        private final long elapsedNanos;
+        private final long bytesRead;
+        private final Map<String, Long> queryMetrics;
+        private final Map<String, Map<String, Long>> readMetrics;
+
+        Entry(String sql, List<String> parameterTypes, List<String> planSteps, long elapsedNanos, long bytesRead,
+                Map<String, Long> queryMetrics, Map<String, Map<String, Long>> readMetrics) {
+            this.sql = sql;
+            this.parameterTypes = parameterTypes;
+            this.planSteps = planSteps;
+            this.elapsedNanos = elapsedNanos;
+            this.bytesRead = bytesRead;
+            this.queryMetrics = queryMetrics;
+            this.readMetrics = readMetrics;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder();
+            buf.append("elapsedMs=").append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            buf.append(" bytesRead=").append(bytesRead);
+            buf.append(" sql=\"").append(sql).append('"');
+            buf.append(" parameterTypes=").append(parameterTypes);
+            buf.append(" plan=").append(planSteps);
+            buf.append(" queryMetrics=").append(queryMetrics);
+            buf.append(" readMetrics=").append(readMetrics);
+            return buf.toString();
+        }
+    }
+}
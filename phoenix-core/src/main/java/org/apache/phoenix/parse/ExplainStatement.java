@@ -21,15 +21,29 @@ import org.apache.phoenix.jdbc.PhoenixStatement.Operation;
 
 public class ExplainStatement implements BindableStatement {
     private final BindableStatement statement;
+    private final boolean isAnalyze;
     
     public ExplainStatement(BindableStatement statement) {
+        this(statement, false);
+    }
+
+    public ExplainStatement(BindableStatement statement, boolean isAnalyze) {
         this.statement = statement;
+        this.isAnalyze = isAnalyze;
     }
 
     public BindableStatement getStatement() {
         return statement;
     }
 
+    /**
+     * @return true if the statement should be run and the plan annotated with
+     * the statistics collected while running it (EXPLAIN ANALYZE)
+     */
+    public boolean isAnalyze() {
+        return isAnalyze;
+    }
+
     @Override
     public int getBindCount() {
         return statement.getBindCount();
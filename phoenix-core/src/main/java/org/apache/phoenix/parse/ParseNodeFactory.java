@@ -191,7 +191,11 @@ public class ParseNodeFactory {
     }
 
     public ExplainStatement explain(BindableStatement statement) {
-        return new ExplainStatement(statement);
+        return explain(statement, false);
+    }
+
+    public ExplainStatement explain(BindableStatement statement, boolean isAnalyze) {
+        return new ExplainStatement(statement, isAnalyze);
     }
 
     public AliasedNode aliasedNode(String alias, ParseNode expression) {
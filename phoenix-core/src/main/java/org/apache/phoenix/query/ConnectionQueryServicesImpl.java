@@ -40,6 +40,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -118,6 +119,7 @@ import org.apache.phoenix.index.PhoenixIndexCodec;
 import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.jdbc.PhoenixDatabaseMetaData;
 import org.apache.phoenix.jdbc.PhoenixEmbeddedDriver.ConnectionInfo;
+import org.apache.phoenix.monitoring.SlowQueryLog;
 import org.apache.phoenix.parse.PFunction;
 import org.apache.phoenix.protobuf.ProtobufUtil;
 import org.apache.phoenix.schema.ColumnAlreadyExistsException;
@@ -214,6 +216,9 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
     // setting this member variable guarded by "connectionCountLock"
     private volatile ConcurrentMap<SequenceKey,Sequence> sequenceMap = Maps.newConcurrentMap();
     private KeyValueBuilder kvBuilder;
+    // Percentage of a sequence cache left at which the next block is reserved in the background
+    private final int sequencePrefetchThresholdPerc;
+    private final SlowQueryLog slowQueryLog;
 
     private static interface FeatureSupported {
         boolean isSupported(ConnectionQueryServices services);
@@ -278,6 +283,10 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
                 .maximumSize(MAX_TABLE_STATS_CACHE_ENTRIES)
                 .expireAfterWrite(halfStatsUpdateFreq, TimeUnit.MILLISECONDS)
                 .build();
+        this.sequencePrefetchThresholdPerc = props.getInt(
+                QueryServices.SEQUENCE_PREFETCH_THRESHOLD_PERC_ATTRIB,
+                QueryServicesOptions.DEFAULT_SEQUENCE_PREFETCH_THRESHOLD_PERC);
+        this.slowQueryLog = new SlowQueryLog(props);
     }
 
     private void openConnection() throws SQLException {
@@ -377,6 +386,7 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
                 } finally {
                     try {
                         tableStatsCache.invalidateAll();
+                        slowQueryLog.close();
                         super.close();
                     } catch (SQLException e) {
                         if (sqlE == null) {
@@ -472,6 +482,16 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
         }
     }
 
+    @Override
+    public PMetaData updateResolvedTimestamp(PTable table, long resolvedTime) throws SQLException {
+        synchronized (latestMetaDataLock) {
+            throwConnectionClosedIfNullMetaData();
+            latestMetaData = latestMetaData.updateResolvedTimestamp(table, resolvedTime);
+            latestMetaDataLock.notifyAll();
+            return latestMetaData;
+        }
+    }
+
     private static interface Mutator {
         PMetaData mutate(PMetaData metaData) throws SQLException;
     }
@@ -2344,6 +2364,10 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
 
     @SuppressWarnings("deprecation")
     private void incrementSequenceValues(List<SequenceAllocation> sequenceAllocations, long timestamp, long[] values, SQLException[] exceptions, Sequence.ValueOp op) throws SQLException {
+        // Only prefetch for the latest values, as blocks reserved at an SCN are not reused
+        boolean isPrefetchEnabled = sequencePrefetchThresholdPerc > 0 && op == Sequence.ValueOp.INCREMENT_SEQUENCE && timestamp == HConstants.LATEST_TIMESTAMP;
+        List<Sequence> toPrefetchList = null;
+        List<Increment> prefetchBatch = null;
         List<Sequence> sequences = Lists.newArrayListWithExpectedSize(sequenceAllocations.size());
         for (SequenceAllocation sequenceAllocation : sequenceAllocations) {
             SequenceKey key = sequenceAllocation.getSequenceKey();
@@ -2366,6 +2390,17 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
                 Sequence sequence = sequences.get(i);
                 try {
                     values[i] = sequence.incrementValue(timestamp, op, sequenceAllocations.get(i).getNumAllocations());
+                    if (isPrefetchEnabled) {
+                        Increment inc = sequence.newPrefetchIncrement(timestamp, sequencePrefetchThresholdPerc);
+                        if (inc != null) {
+                            if (toPrefetchList == null) {
+                                toPrefetchList = Lists.newArrayListWithExpectedSize(sequences.size());
+                                prefetchBatch = Lists.newArrayListWithExpectedSize(sequences.size());
+                            }
+                            toPrefetchList.add(sequence);
+                            prefetchBatch.add(inc);
+                        }
+                    }
                 } catch (EmptySequenceCacheException e) {
                     indexes[toIncrementList.size()] = i;
                     toIncrementList.add(sequence);
@@ -2418,6 +2453,85 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
             for (Sequence sequence : sequences) {
                 sequence.getLock().unlock();
             }
+            // Issue prefetches only once the locks are released, so that the RPC
+            // doesn't hold up other threads asking for values from these sequences
+            if (toPrefetchList != null) {
+                prefetchSequenceValues(toPrefetchList, prefetchBatch, timestamp);
+            }
+        }
+    }
+
+    /**
+     * Asynchronously reserve the next block of values for sequences whose cache is running low.
+     */
+    private void prefetchSequenceValues(final List<Sequence> sequences, final List<Increment> incrementBatch, final long timestamp) {
+        Runnable prefetchTask = new Runnable() {
+            @Override
+            public void run() {
+                Object[] resultObjects = null;
+                try {
+                    HTableInterface hTable = getTable(PhoenixDatabaseMetaData.SEQUENCE_FULLNAME_BYTES);
+                    try {
+                        resultObjects = hTable.batch(incrementBatch);
+                    } finally {
+                        hTable.close();
+                    }
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    logger.warn("Unable to prefetch sequence values", e);
+                }
+                List<Append> returns = null;
+                for (int i = 0; i < sequences.size(); i++) {
+                    Sequence sequence = sequences.get(i);
+                    sequence.getLock().lock();
+                    try {
+                        if (resultObjects == null || !(resultObjects[i] instanceof Result)) {
+                            sequence.clearPrefetch();
+                        } else {
+                            Append append = sequence.setPrefetchedValues(timestamp, (Result)resultObjects[i]);
+                            if (append != null) {
+                                if (returns == null) {
+                                    returns = Lists.newArrayListWithExpectedSize(sequences.size());
+                                }
+                                returns.add(append);
+                            }
+                        }
+                    } finally {
+                        sequence.getLock().unlock();
+                    }
+                }
+                // Hand back blocks that arrived after their sequence was returned
+                if (returns != null) {
+                    try {
+                        HTableInterface hTable = getTable(PhoenixDatabaseMetaData.SEQUENCE_FULLNAME_BYTES);
+                        try {
+                            hTable.batch(returns);
+                        } finally {
+                            hTable.close();
+                        }
+                    } catch (Exception e) {
+                        if (e instanceof InterruptedException) {
+                            Thread.currentThread().interrupt();
+                        }
+                        logger.warn("Unable to return prefetched sequence values", e);
+                    }
+                }
+            }
+        };
+        try {
+            getExecutor().submit(prefetchTask);
+        } catch (RejectedExecutionException e) {
+            // Fall back to reserving values synchronously once the cache is exhausted
+            for (Sequence sequence : sequences) {
+                sequence.getLock().lock();
+                try {
+                    sequence.clearPrefetch();
+                } finally {
+                    sequence.getLock().unlock();
+                }
+            }
         }
     }
 
@@ -2543,13 +2657,18 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
         }
     }
 
-    // Take no locks, as this only gets run when there are no open connections
-    // so there's no danger of contention.
+    // Only gets run when there are no open connections, so the locks are
+    // only contended by prefetches still in flight.
     @SuppressWarnings("deprecation")
     private void returnAllSequences(ConcurrentMap<SequenceKey,Sequence> sequenceMap) throws SQLException {
         List<Append> mutations = Lists.newArrayListWithExpectedSize(sequenceMap.size());
         for (Sequence sequence : sequenceMap.values()) {
-            mutations.addAll(sequence.newReturns());
+            sequence.getLock().lock();
+            try {
+                mutations.addAll(sequence.newReturns());
+            } finally {
+                sequence.getLock().unlock();
+            }
         }
         if (mutations.isEmpty()) {
             return;
@@ -2682,6 +2801,11 @@ public class ConnectionQueryServicesImpl extends DelegateQueryServices implement
         return nSequenceSaltBuckets;
     }
 
+    @Override
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
     @Override
     public PMetaData addFunction(PFunction function) throws SQLException {
         synchronized (latestMetaDataLock) {
@@ -64,6 +64,13 @@ public interface QueryServices extends SQLCloseable {
 	 */
 	public static final String MAX_SPOOL_TO_DISK_BYTES_ATTRIB = "phoenix.query.maxSpoolToDiskBytes";
 
+    // Stream the results of unordered parallel scans through a bounded buffer instead of spooling them
+    public static final String STREAMING_RESULTS_ENABLED_ATTRIB = "phoenix.query.streamingResultsEnabled";
+    // Number of batches of rows read ahead per parallel scan before the scan pauses
+    public static final String STREAMING_MAX_BUFFERED_BATCHES_ATTRIB = "phoenix.query.streamingMaxBufferedBatches";
+    // Number of batches a paused scan may read beyond the read ahead limit to keep its scanner lease
+    public static final String STREAMING_MAX_KEEP_ALIVE_BATCHES_ATTRIB = "phoenix.query.streamingMaxKeepAliveBatches";
+
     /**
      * Number of records to read per chunk when streaming records of a basic scan.
      */
@@ -72,6 +79,8 @@ public interface QueryServices extends SQLCloseable {
     public static final String MAX_MEMORY_PERC_ATTRIB = "phoenix.query.maxGlobalMemoryPercentage";
     public static final String MAX_MEMORY_WAIT_MS_ATTRIB = "phoenix.query.maxGlobalMemoryWaitMs";
     public static final String MAX_TENANT_MEMORY_PERC_ATTRIB = "phoenix.query.maxTenantMemoryPercentage";
+    // Percentage of the client memory pool (or tenant share of it) a single query may use
+    public static final String MAX_QUERY_MEMORY_PERC_ATTRIB = "phoenix.query.maxQueryMemoryPercentage";
     public static final String MAX_SERVER_CACHE_SIZE_ATTRIB = "phoenix.query.maxServerCacheBytes";
     public static final String DATE_FORMAT_TIMEZONE_ATTRIB = "phoenix.query.dateFormatTimeZone";
     public static final String DATE_FORMAT_ATTRIB = "phoenix.query.dateFormat";
@@ -83,7 +92,12 @@ public interface QueryServices extends SQLCloseable {
     public static final String SCAN_CACHE_SIZE_ATTRIB = "hbase.client.scanner.caching";
     public static final String MAX_MUTATION_SIZE_ATTRIB = "phoenix.mutate.maxSize";
     public static final String MUTATE_BATCH_SIZE_ATTRIB = "phoenix.mutate.batchSize";
+    // Whether the mutations of each table are sent to HBase in row key order on commit
+    public static final String SORT_MUTATIONS_ON_COMMIT_ATTRIB = "phoenix.mutate.sortOnCommit";
     public static final String MAX_SERVER_CACHE_TIME_TO_LIVE_MS_ATTRIB = "phoenix.coprocessor.maxServerCacheTimeToLiveMs";
+    // Byte size of the values of a non row key IN list above which the values are sent once to each
+    // region server through the server cache instead of with every scan. Zero disables this.
+    public static final String IN_LIST_SERVER_CACHE_THRESHOLD_BYTES_ATTRIB = "phoenix.query.inListServerCacheThresholdBytes";
     
     // Deprecated. Use FORCE_ROW_KEY_ORDER instead.
     public static final String ROW_KEY_ORDER_SALTED_TABLE_ATTRIB  = "phoenix.query.rowKeyOrderSaltedTable";
@@ -109,10 +123,18 @@ public interface QueryServices extends SQLCloseable {
     public static final String ZOOKEEPER_ROOT_NODE_ATTRIB = "zookeeper.znode.parent";
     public static final String DISTINCT_VALUE_COMPRESS_THRESHOLD_ATTRIB = "phoenix.distinct.value.compress.threshold";
     public static final String SEQUENCE_CACHE_SIZE_ATTRIB = "phoenix.sequence.cacheSize";
+    // Percentage of a client-side sequence cache remaining at which the next block of values
+    // is reserved in the background. Zero disables prefetching.
+    public static final String SEQUENCE_PREFETCH_THRESHOLD_PERC_ATTRIB = "phoenix.sequence.prefetchThresholdPercentage";
     public static final String INDEX_MAX_FILESIZE_PERC_ATTRIB = "phoenix.index.maxDataFileSizePerc";
     public static final String MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS_ATTRIB = "phoenix.coprocessor.maxMetaDataCacheTimeToLiveMs";
     public static final String MAX_SERVER_METADATA_CACHE_SIZE_ATTRIB = "phoenix.coprocessor.maxMetaDataCacheSize";
+    // Size of the server-side cache of serialized tables, on top of the metadata cache itself
+    public static final String MAX_SERVER_SERIALIZED_METADATA_CACHE_SIZE_ATTRIB = "phoenix.coprocessor.maxSerializedMetaDataCacheSize";
     public static final String MAX_CLIENT_METADATA_CACHE_SIZE_ATTRIB = "phoenix.client.maxMetaDataCacheSize";
+    // Number of milliseconds a cached table is trusted before the client checks the server for a newer version.
+    // May be overridden per connection through the connection properties.
+    public static final String DEFAULT_UPDATE_CACHE_FREQUENCY_ATTRIB = "phoenix.default.update.cache.frequency";
 
     public static final String AUTO_UPGRADE_WHITELIST_ATTRIB = "phoenix.client.autoUpgradeWhiteList";
     // Mainly for testing to force spilling
@@ -141,6 +163,14 @@ public interface QueryServices extends SQLCloseable {
     public static final String TRACING_PROBABILITY_THRESHOLD_ATTRIB = "phoenix.trace.probability.threshold";
     public static final String TRACING_STATS_TABLE_NAME_ATTRIB = "phoenix.trace.statsTableName";
     public static final String TRACING_CUSTOM_ANNOTATION_ATTRIB_PREFIX = "phoenix.trace.custom.annotation.";
+    // Number of traces per second the adaptive sampler aims for, across all connections of the JVM
+    public static final String TRACING_ADAPTIVE_TARGET_RATE_ATTRIB = "phoenix.trace.adaptive.targetRate";
+    // Statements slower than this are always traced on their next execution by the adaptive sampler
+    public static final String TRACING_ADAPTIVE_SLOW_THRESHOLD_MS_ATTRIB = "phoenix.trace.adaptive.slowThresholdMs";
+    // Maximum number of finished spans waiting to be written, beyond which spans are dropped
+    public static final String TRACING_SPAN_BUFFER_SIZE_ATTRIB = "phoenix.trace.spanBufferSize";
+    // Number of spans upserted into the tracing table before committing
+    public static final String TRACING_BATCH_SIZE_ATTRIB = "phoenix.trace.batchSize";
 
     public static final String USE_REVERSE_SCAN_ATTRIB = "phoenix.query.useReverseScan";
 
@@ -160,6 +190,21 @@ public interface QueryServices extends SQLCloseable {
     public static final String DEFAULT_KEEP_DELETED_CELLS_ATTRIB = "phoenix.table.default.keep.deleted.cells";
     public static final String DEFAULT_STORE_NULLS_ATTRIB = "phoenix.table.default.store.nulls";
     public static final String GLOBAL_METRICS_ENABLED = "phoenix.query.global.metrics.enabled";
+    // Whether latency histograms are also kept per table, in addition to across all tables
+    public static final String TABLE_LATENCY_HISTOGRAMS_ENABLED = "phoenix.query.table.latency.histograms.enabled";
+    // Whether latency histograms are registered as JMX MBeans
+    public static final String LATENCY_HISTOGRAMS_JMX_ENABLED = "phoenix.query.latency.histograms.jmx.enabled";
+    // Maximum number of tables for which latency histograms are kept, beyond which the least recently used are dropped
+    public static final String TABLE_LATENCY_HISTOGRAMS_MAX_TABLES_ATTRIB = "phoenix.query.table.latency.histograms.maxTables";
+    // Whether queries exceeding the slow query thresholds are written to the slow query log
+    public static final String SLOW_QUERY_LOG_ENABLED = "phoenix.query.slow.query.log.enabled";
+    public static final String SLOW_QUERY_LOG_THRESHOLD_MS_ATTRIB = "phoenix.query.slow.query.log.thresholdMs";
+    // Bytes read by a query above which it is logged. Only applies when request level metrics are collected
+    public static final String SLOW_QUERY_LOG_THRESHOLD_BYTES_ATTRIB = "phoenix.query.slow.query.log.thresholdBytes";
+    // Maximum number of entries waiting to be written, beyond which entries are dropped
+    public static final String SLOW_QUERY_LOG_BUFFER_SIZE_ATTRIB = "phoenix.query.slow.query.log.bufferSize";
+    // Name of the logger the slow query log writes to, through which it may be routed to its own file
+    public static final String SLOW_QUERY_LOG_LOGGER_ATTRIB = "phoenix.query.slow.query.log.logger";
     
     // rpc queue configs
     public static final String INDEX_HANDLER_COUNT_ATTRIB = "phoenix.rpc.index.handler.count";
@@ -96,6 +96,7 @@ public class QueryServicesOptions {
 	public static final int DEFAULT_MAX_MEMORY_PERC = 15; // 15% of heap
 	public static final int DEFAULT_MAX_MEMORY_WAIT_MS = 10000;
 	public static final int DEFAULT_MAX_TENANT_MEMORY_PERC = 100;
+	public static final int DEFAULT_MAX_QUERY_MEMORY_PERC = 100;
 	public static final long DEFAULT_MAX_SERVER_CACHE_SIZE = 1024*1024*100;  // 100 Mb
     public static final int DEFAULT_TARGET_QUERY_CONCURRENCY = 32;
     public static final int DEFAULT_MAX_QUERY_CONCURRENCY = 64;
@@ -108,13 +109,18 @@ public class QueryServicesOptions {
     public static final boolean DEFAULT_DROP_METADATA = true; // Drop meta data also.
 
     public final static int DEFAULT_MUTATE_BATCH_SIZE = 1000; // Batch size for UPSERT SELECT and DELETE
+    public static final boolean DEFAULT_SORT_MUTATIONS_ON_COMMIT = false;
 	// The only downside of it being out-of-sync is that the parallelization of the scan won't be as balanced as it could be.
     public static final int DEFAULT_MAX_SERVER_CACHE_TIME_TO_LIVE_MS = 30000; // 30 sec (with no activity)
+    public static final int DEFAULT_IN_LIST_SERVER_CACHE_THRESHOLD_BYTES = 0; // disabled
     public static final int DEFAULT_SCAN_CACHE_SIZE = 1000;
     public static final int DEFAULT_MAX_INTRA_REGION_PARALLELIZATION = DEFAULT_MAX_QUERY_CONCURRENCY;
     public static final int DEFAULT_DISTINCT_VALUE_COMPRESS_THRESHOLD = 1024 * 1024 * 1; // 1 Mb
     public static final int DEFAULT_INDEX_MUTATE_BATCH_SIZE_THRESHOLD = 5;
     public static final long DEFAULT_MAX_SPOOL_TO_DISK_BYTES = 1024000000;
+    public static final boolean DEFAULT_STREAMING_RESULTS_ENABLED = false;
+    public static final int DEFAULT_STREAMING_MAX_BUFFERED_BATCHES = 4;
+    public static final int DEFAULT_STREAMING_MAX_KEEP_ALIVE_BATCHES = 4;
     // Only the first chunked batches are fetched in parallel, so this default
     // should be on the relatively bigger side of things. Bigger means more
     // latency and client-side spooling/buffering. Smaller means less initial
@@ -133,10 +139,13 @@ public class QueryServicesOptions {
     public static final long DEFAULT_GROUPBY_MAX_CACHE_MAX = 1024L*1024L*100L;  // 100 Mb
 
     public static final long DEFAULT_SEQUENCE_CACHE_SIZE = 100;  // reserve 100 sequences at a time
+    public static final int DEFAULT_SEQUENCE_PREFETCH_THRESHOLD_PERC = 0; // prefetch disabled
     public static final int DEFAULT_INDEX_MAX_FILESIZE_PERC = 50; // % of data table max file size for index table
     public static final long DEFAULT_MAX_SERVER_METADATA_CACHE_TIME_TO_LIVE_MS =  60000 * 30; // 30 mins
     public static final long DEFAULT_MAX_SERVER_METADATA_CACHE_SIZE =  1024L*1024L*20L; // 20 Mb
+    public static final long DEFAULT_MAX_SERVER_SERIALIZED_METADATA_CACHE_SIZE =  1024L*1024L*5L; // 5 Mb
     public static final long DEFAULT_MAX_CLIENT_METADATA_CACHE_SIZE =  1024L*1024L*10L; // 10 Mb
+    public static final long DEFAULT_UPDATE_CACHE_FREQUENCY = 0; // Check the server on every statement
     public static final int DEFAULT_GROUPBY_ESTIMATED_DISTINCT_VALUES = 1000;
     public static final int DEFAULT_CLOCK_SKEW_INTERVAL = 2000;
     public static final boolean DEFAULT_INDEX_FAILURE_HANDLING_REBUILD = true; // auto rebuild on
@@ -160,6 +169,10 @@ public class QueryServicesOptions {
     public static final String DEFAULT_TRACING_STATS_TABLE_NAME = "SYSTEM.TRACING_STATS";
     public static final String DEFAULT_TRACING_FREQ = Tracing.Frequency.NEVER.getKey();
     public static final double DEFAULT_TRACING_PROBABILITY_THRESHOLD = 0.05;
+    public static final double DEFAULT_TRACING_ADAPTIVE_TARGET_RATE = 10;
+    public static final long DEFAULT_TRACING_ADAPTIVE_SLOW_THRESHOLD_MS = 5000;
+    public static final int DEFAULT_TRACING_SPAN_BUFFER_SIZE = 10000;
+    public static final int DEFAULT_TRACING_BATCH_SIZE = 100;
 
     public static final int DEFAULT_STATS_UPDATE_FREQ_MS = 15 * 60000; // 15min
     public static final int DEFAULT_STATS_GUIDEPOST_PER_REGION = 0; // Uses guidepost width by default
@@ -189,6 +202,13 @@ public class QueryServicesOptions {
     // TODO Change this to true as part of PHOENIX-1543
     public static final boolean DEFAULT_AUTO_COMMIT = false;
     public static final boolean DEFAULT_IS_GLOBAL_METRICS_ENABLED = true;
+    public static final boolean DEFAULT_TABLE_LATENCY_HISTOGRAMS_ENABLED = true;
+    public static final boolean DEFAULT_LATENCY_HISTOGRAMS_JMX_ENABLED = true;
+    public static final int DEFAULT_TABLE_LATENCY_HISTOGRAMS_MAX_TABLES = 100;
+    public static final boolean DEFAULT_SLOW_QUERY_LOG_ENABLED = false;
+    public static final long DEFAULT_SLOW_QUERY_LOG_THRESHOLD_MS = 10000;
+    public static final long DEFAULT_SLOW_QUERY_LOG_THRESHOLD_BYTES = 1024L * 1024L * 1024L; // 1 GB
+    public static final int DEFAULT_SLOW_QUERY_LOG_BUFFER_SIZE = 1024;
     
     private static final String DEFAULT_CLIENT_RPC_CONTROLLER_FACTORY = ClientRpcControllerFactory.class.getName();
     
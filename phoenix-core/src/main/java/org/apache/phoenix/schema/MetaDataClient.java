@@ -77,6 +77,7 @@ import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.VIEW_CONSTANT;
 import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.VIEW_INDEX_ID;
 import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.VIEW_STATEMENT;
 import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.VIEW_TYPE;
+import static org.apache.phoenix.monitoring.MetricType.METADATA_LOOKUP_LATENCY;
 import static org.apache.phoenix.query.QueryConstants.BASE_TABLE_BASE_COLUMN_COUNT;
 import static org.apache.phoenix.query.QueryServices.DROP_METADATA_ATTRIB;
 import static org.apache.phoenix.query.QueryServicesOptions.DEFAULT_DROP_METADATA;
@@ -145,6 +146,7 @@ import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.jdbc.PhoenixDatabaseMetaData;
 import org.apache.phoenix.jdbc.PhoenixParameterMetaData;
 import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.monitoring.LatencyHistograms;
 import org.apache.phoenix.parse.AddColumnStatement;
 import org.apache.phoenix.parse.AlterIndexStatement;
 import org.apache.phoenix.parse.ColumnDef;
@@ -403,15 +405,26 @@ public class MetaDataClient {
         PTable table = null;
         String fullTableName = SchemaUtil.getTableName(schemaName, tableName);
         long tableTimestamp = HConstants.LATEST_TIMESTAMP;
+        long tableResolvedTimestamp = HConstants.LATEST_TIMESTAMP;
         try {
-            table = connection.getMetaDataCache().getTable(new PTableKey(tenantId, fullTableName));
+            PTableRef tableRef = connection.getMetaDataCache().getTableRef(new PTableKey(tenantId, fullTableName));
+            table = tableRef.getTable();
             tableTimestamp = table.getTimeStamp();
+            tableResolvedTimestamp = tableRef.getResolvedTimeStamp();
         } catch (TableNotFoundException e) {
         }
         // Don't bother with server call: we can't possibly find a newer table
         if (table != null && !alwaysHitServer && (systemTable || tableTimestamp == clientTimeStamp - 1)) {
             return new MetaDataMutationResult(MutationCode.TABLE_ALREADY_EXISTS,QueryConstants.UNSET_TIMESTAMP,table);
         }
+        // Don't bother with server call: the cached table was resolved recently enough
+        long updateCacheFrequency = connection.getUpdateCacheFrequency();
+        long currentTime = System.currentTimeMillis();
+        if (table != null && !alwaysHitServer && updateCacheFrequency > 0
+                && clientTimeStamp == HConstants.LATEST_TIMESTAMP
+                && currentTime - tableResolvedTimestamp < updateCacheFrequency) {
+            return new MetaDataMutationResult(MutationCode.TABLE_ALREADY_EXISTS,QueryConstants.UNSET_TIMESTAMP,table);
+        }
 
         int maxTryCount = tenantId == null ? 1 : 2;
         int tryCount = 0;
@@ -420,7 +433,12 @@ public class MetaDataClient {
         do {
             final byte[] schemaBytes = PVarchar.INSTANCE.toBytes(schemaName);
             final byte[] tableBytes = PVarchar.INSTANCE.toBytes(tableName);
+            long startNanos = System.nanoTime();
             result = connection.getQueryServices().getTable(tenantId, schemaBytes, tableBytes, tableTimestamp, clientTimeStamp);
+            // Key the latency by physical table, like the other phases of the statement, so that
+            // lookups through views and tenant specific names add up with the table they resolve to
+            PTable lookedUpTable = result.getTable() != null ? result.getTable() : table;
+            LatencyHistograms.update(connection.getQueryServices().getProps(), METADATA_LOOKUP_LATENCY, lookedUpTable == null ? null : lookedUpTable.getPhysicalName().getString(), System.nanoTime() - startNanos);
 
             if (SYSTEM_CATALOG_SCHEMA.equals(schemaName)) {
                 return result;
@@ -452,6 +470,9 @@ public class MetaDataClient {
                         // in indexes to add to this table.
                         if (addIndexesFromPhysicalTable(result)) {
                             connection.addTable(result.getTable());
+                        } else if (updateCacheFrequency > 0) {
+                            // Remember that the cached table was just confirmed as current
+                            connection.updateResolvedTimestamp(table, currentTime);
                         }
                         return result;
                     }
@@ -29,6 +29,7 @@ public interface PMetaData extends MetaDataMutated, Iterable<PTable>, Cloneable
     public int size();
     public PMetaData clone();
     public PTable getTable(PTableKey key) throws TableNotFoundException;
+    public PTableRef getTableRef(PTableKey key) throws TableNotFoundException;
     public PMetaData pruneTables(Pruner pruner);
     public PFunction getFunction(PTableKey key) throws FunctionNotFoundException;
     public PMetaData pruneFunctions(Pruner pruner);
@@ -101,6 +101,12 @@ public class Sequence {
     private final SequenceKey key;
     private final ReentrantLock lock;
     private List<SequenceValue> values;
+    // Whether a block of values is being reserved in the background. Tracked here rather than
+    // on the SequenceValue, as the value may be replaced while the prefetch is in flight.
+    private boolean isPrefetching;
+    // Whether the sequence was returned while a prefetch was in flight, in which
+    // case the prefetched block must be handed back to the server once it arrives
+    private boolean isPrefetchReturned;
     
     public Sequence(SequenceKey key) {
         if (key == null) throw new NullPointerException();
@@ -191,10 +197,85 @@ public class Sequence {
             if (op == ValueOp.VALIDATE_SEQUENCE) {
                 return value.currentValue;
             }
-            throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+            // Switch over to the block reserved in the background, if there is one
+            if (!value.hasPrefetchedValues || SequenceUtil.isBulkAllocation(numToAllocate)) {
+                throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
+            }
+            value.currentValue = value.prefetchedCurrentValue;
+            value.nextValue = value.prefetchedNextValue;
+            value.hasPrefetchedValues = false;
         }
         return increment(value, op, numToAllocate);
     }
+
+    /**
+     * Creates the Increment to reserve the next block of sequence values ahead of time if
+     * the number of values left in the current block has fallen to the given percentage
+     * of the cache size. Must be called while holding the sequence lock.
+     * @return the Increment to issue or null if no prefetch is needed. If non null, the
+     * caller must later call either {@link #setPrefetchedValues(long, Result)} or
+     * {@link #clearPrefetch()}.
+     */
+    @SuppressWarnings("deprecation")
+    public Increment newPrefetchIncrement(long timestamp, int prefetchThresholdPercentage) {
+        SequenceValue value = findSequenceValue(timestamp);
+        if (isPrefetching || value == null || value.isUnitialized() || value.cycle || value.limitReached
+                || value.hasPrefetchedValues) {
+            return null;
+        }
+        long remaining = (value.nextValue - value.currentValue) / value.incrementBy;
+        if (remaining > value.cacheSize * prefetchThresholdPercentage / 100) {
+            return null;
+        }
+        isPrefetching = true;
+        isPrefetchReturned = false;
+        return newIncrement(timestamp, ValueOp.INCREMENT_SEQUENCE, 1);
+    }
+
+    /**
+     * Keeps the block of values reserved by a prefetch Increment for use once the
+     * current block is exhausted. Must be called while holding the sequence lock.
+     * @return an Append handing the block back to the server if it can no longer be used,
+     * because the sequence was returned or recreated while the prefetch was in flight,
+     * or null if the block was kept or there is nothing to hand back.
+     */
+    public Append setPrefetchedValues(long timestamp, Result result) {
+        boolean isReturned = isPrefetchReturned;
+        isPrefetching = false;
+        isPrefetchReturned = false;
+        // An error result means the sequence is gone or at its limit, which the
+        // next synchronous increment will report
+        if (result.rawCells().length == 1) {
+            return null;
+        }
+        SequenceValue prefetchedValue = new SequenceValue(result, ValueOp.INCREMENT_SEQUENCE, 1);
+        SequenceValue value = findSequenceValue(timestamp);
+        // Only keep the block if it's for the same sequence we've cached
+        if (!isReturned && value != null && value.isInitialized() && !value.hasPrefetchedValues
+                && prefetchedValue.timestamp == value.timestamp) {
+            value.prefetchedCurrentValue = prefetchedValue.currentValue;
+            value.prefetchedNextValue = prefetchedValue.nextValue;
+            value.hasPrefetchedValues = true;
+            return null;
+        }
+        return newReturn(prefetchedValue);
+    }
+
+    /**
+     * Resets the state of a prefetch that failed. Must be called while holding the sequence lock.
+     */
+    public void clearPrefetch() {
+        isPrefetching = false;
+        isPrefetchReturned = false;
+    }
+
+    /**
+     * @return true if a block of values is being reserved in the background.
+     * Must be called while holding the sequence lock.
+     */
+    public boolean isPrefetching() {
+        return isPrefetching;
+    }
     
     /**
      * This method first checks whether value.currentValue = value.nextValue, this check is what 
@@ -270,12 +351,14 @@ public class Sequence {
     }
 
     public List<Append> newReturns() {
+        // A block still being reserved is handed back once it arrives
+        isPrefetchReturned = isPrefetching;
         if (values == null) {
             return Collections.emptyList();
         }
         List<Append> appends = Lists.newArrayListWithExpectedSize(values.size());
         for (SequenceValue value : values) {
-            if (value.isInitialized() && value.currentValue != value.nextValue) {
+            if (value.isInitialized() && (value.currentValue != value.nextValue || value.hasPrefetchedValues)) {
                 appends.add(newReturn(value));
             }
         }
@@ -283,11 +366,13 @@ public class Sequence {
     }
     
     public Append newReturn(long timestamp) throws EmptySequenceCacheException {
+        // A block still being reserved is handed back once it arrives
+        isPrefetchReturned = isPrefetching;
         SequenceValue value = findSequenceValue(timestamp);
         if (value == null) {
             throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
         }
-        if (value.currentValue == value.nextValue) {
+        if (value.currentValue == value.nextValue && !value.hasPrefetchedValues) {
             throw EMPTY_SEQUENCE_CACHE_EXCEPTION;
         }
         return newReturn(value);
@@ -297,11 +382,22 @@ public class Sequence {
         byte[] key = this.key.getKey();
         Append append = new Append(key);
         byte[] opBuf = new byte[] {(byte)MetaOp.RETURN_SEQUENCE.ordinal()};
+        // With a prefetched block, the server value is the end of that block. Unused values of the
+        // current block can only be returned too if no other client allocated values in between.
+        long expectedValue;
+        long returnedValue;
+        if (value.hasPrefetchedValues) {
+            expectedValue = value.prefetchedNextValue;
+            returnedValue = value.nextValue == value.prefetchedCurrentValue ? value.currentValue : value.prefetchedCurrentValue;
+        } else {
+            expectedValue = value.nextValue;
+            returnedValue = value.currentValue;
+        }
         append.setAttribute(SequenceRegionObserver.OPERATION_ATTRIB, opBuf);
-        append.setAttribute(SequenceRegionObserver.CURRENT_VALUE_ATTRIB, PLong.INSTANCE.toBytes(value.nextValue));
+        append.setAttribute(SequenceRegionObserver.CURRENT_VALUE_ATTRIB, PLong.INSTANCE.toBytes(expectedValue));
         Map<byte[], List<Cell>> familyMap = append.getFamilyCellMap();
         familyMap.put(PhoenixDatabaseMetaData.SEQUENCE_FAMILY_BYTES, Arrays.<Cell>asList(
-        		(Cell)KeyValueUtil.newKeyValue(key, PhoenixDatabaseMetaData.SEQUENCE_FAMILY_BYTES, PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES, value.timestamp, PLong.INSTANCE.toBytes(value.currentValue)),
+        		(Cell)KeyValueUtil.newKeyValue(key, PhoenixDatabaseMetaData.SEQUENCE_FAMILY_BYTES, PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES, value.timestamp, PLong.INSTANCE.toBytes(returnedValue)),
         		(Cell)KeyValueUtil.newKeyValue(key, PhoenixDatabaseMetaData.SEQUENCE_FAMILY_BYTES, PhoenixDatabaseMetaData.LIMIT_REACHED_FLAG_BYTES, value.timestamp, PBoolean.INSTANCE.toBytes(value.limitReached))
                 ));
         return append;
@@ -345,6 +441,13 @@ public class Sequence {
         }
         // If we found the sequence, we update our cache with the new value
         SequenceValue value = new SequenceValue(result, op, numToAllocate);
+        // Carry over a block reserved in the background for the value being replaced
+        SequenceValue replacedValue = findSequenceValue(value.timestamp + 1);
+        if (replacedValue != null && replacedValue.timestamp == value.timestamp && replacedValue.hasPrefetchedValues) {
+            value.prefetchedCurrentValue = replacedValue.prefetchedCurrentValue;
+            value.prefetchedNextValue = replacedValue.prefetchedNextValue;
+            value.hasPrefetchedValues = true;
+        }
         insertSequenceValue(value);
         return increment(value, op, numToAllocate);
     }
@@ -465,6 +568,10 @@ public class Sequence {
         public boolean cycle;
         public boolean isDeleted;
         public boolean limitReached;
+        // Next block of values reserved in the background before this one runs out
+        public long prefetchedCurrentValue;
+        public long prefetchedNextValue;
+        public boolean hasPrefetchedValues;
         
         public SequenceValue(long timestamp, long minValue, long maxValue, boolean cycle) {
             this(timestamp, false);
@@ -527,6 +634,8 @@ public class Sequence {
             if (value == null) {
                 throw new EmptySequenceCacheException(key.getSchemaName(),key.getSequenceName());
             }
+            // The prefetched block now belongs to the server again
+            value.hasPrefetchedValues = false;
             return true;
         }
         SQLExceptionCode code = SQLExceptionCode.fromErrorCode(statusCode);
@@ -93,6 +93,13 @@ public class PhoenixMetricsSink implements MetricsSink {
 
     private String table;
 
+    /**
+     * Number of spans to upsert before committing them together
+     */
+    private int batchSize = QueryServicesOptions.DEFAULT_TRACING_BATCH_SIZE;
+
+    private int uncommittedCount;
+
     public PhoenixMetricsSink() {
         LOG.info("Writing tracing metrics to phoenix table");
 
@@ -119,8 +126,10 @@ public class PhoenixMetricsSink implements MetricsSink {
                         Tracing.Frequency.NEVER.getKey());
                 org.apache.hadoop.conf.Configuration conf = HBaseConfiguration.create();
                 Connection conn = QueryUtil.getConnection(props, conf);
-                // enable bulk loading when we have enough data
-                conn.setAutoCommit(true);
+                // batch the upserts, committing them once we have enough spans or on flush
+                conn.setAutoCommit(false);
+                this.batchSize = conf.getInt(QueryServices.TRACING_BATCH_SIZE_ATTRIB,
+                        QueryServicesOptions.DEFAULT_TRACING_BATCH_SIZE);
 
                 String tableName =
                         conf.get(QueryServices.TRACING_STATS_TABLE_NAME_ATTRIB,
@@ -183,14 +192,22 @@ public class PhoenixMetricsSink implements MetricsSink {
 
     @Override
     public void flush() {
+        if (this.conn == null) {
+            return;
+        }
         try {
-            this.conn.commit();
+            commit();
             this.conn.rollback();
         } catch (SQLException e) {
             LOG.error("Failed to commit changes to table", e);
         }
     }
 
+    private void commit() throws SQLException {
+        uncommittedCount = 0;
+        this.conn.commit();
+    }
+
     /**
      * Add a new metric record to be written.
      *
@@ -275,6 +292,10 @@ public class PhoenixMetricsSink implements MetricsSink {
                 ps.setString(index++, tag);
             }
             ps.execute();
+            ps.close();
+            if (++uncommittedCount >= batchSize) {
+                commit();
+            }
         } catch (SQLException e) {
             LOG.error("Could not write metric: \n" + record + " to prepared statement:\n" + stmt,
                     e);
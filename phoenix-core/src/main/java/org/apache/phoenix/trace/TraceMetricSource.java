@@ -22,6 +22,8 @@ import org.apache.hadoop.metrics2.*;
 import org.apache.hadoop.metrics2.lib.Interns;
 import org.apache.phoenix.metrics.MetricInfo;
 import org.apache.phoenix.metrics.Metrics;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
 import org.apache.htrace.HTraceConfiguration;
 import org.apache.htrace.Span;
 import org.apache.htrace.SpanReceiver;
@@ -33,6 +35,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.phoenix.metrics.MetricInfo.*;
 
@@ -70,8 +76,10 @@ import static org.apache.phoenix.metrics.MetricInfo.*;
  * that starts to get complicated fast (its not as easy as it sounds) so we use metrics2 to abstract
  * out that pipeline and also provides us flexibility to dump metrics to other sources.
  * <p>
- * This is a somewhat rough implementation - we do excessive locking for correctness,
- * rather than trying to make it fast, for the moment.
+ * Finished spans are kept in a bounded, lock-free queue until the metrics system collects them, so
+ * that the threads finishing spans never wait on each other or on the sink. Once
+ * {@link QueryServices#TRACING_SPAN_BUFFER_SIZE_ATTRIB} spans are waiting, further spans are dropped
+ * and counted, rather than letting tracing slow down or exhaust the memory of a loaded process.
  */
 public class TraceMetricSource implements SpanReceiver, MetricsSource {
 
@@ -79,9 +87,18 @@ public class TraceMetricSource implements SpanReceiver, MetricsSource {
 
   private static final String CONTEXT = "tracing";
 
-  private List<Metric> spans = new ArrayList<Metric>();
+  private final Queue<Metric> spans = new ConcurrentLinkedQueue<Metric>();
+  private final AtomicInteger spanCount = new AtomicInteger();
+  private final AtomicLong droppedSpanCount = new AtomicLong();
+  private final int maxSpans;
 
   public TraceMetricSource() {
+    this(QueryServicesOptions.withDefaults().getConfiguration().getInt(
+      QueryServices.TRACING_SPAN_BUFFER_SIZE_ATTRIB, QueryServicesOptions.DEFAULT_TRACING_SPAN_BUFFER_SIZE));
+  }
+
+  public TraceMetricSource(int maxSpans) {
+    this.maxSpans = maxSpans;
 
     MetricsSystem manager = Metrics.initialize();
 
@@ -93,6 +110,11 @@ public class TraceMetricSource implements SpanReceiver, MetricsSource {
 
   @Override
   public void receiveSpan(Span span) {
+    if (spanCount.incrementAndGet() > maxSpans) {
+      spanCount.decrementAndGet();
+      droppedSpanCount.incrementAndGet();
+      return;
+    }
     Metric builder = new Metric(span);
     // add all the metrics for the span
     builder.addCounter(Interns.info(SPAN.traceName, EMPTY_STRING), span.getSpanId());
@@ -115,10 +137,8 @@ public class TraceMetricSource implements SpanReceiver, MetricsSource {
           .getSecond()));
     }
 
-    // add the span to the list we care about
-    synchronized (this) {
-      spans.add(builder);
-    }
+    // add the span to the queue we care about
+    spans.offer(builder);
   }
 
   @Override
@@ -128,26 +148,33 @@ public class TraceMetricSource implements SpanReceiver, MetricsSource {
     // runtime warning)
     MetricsRecordBuilder marker = collector.addRecord(TracingUtils.METRICS_MARKER_CONTEXT);
     marker.add(new MetricsTag(new MetricsInfoImpl("stat", "num spans"), Integer
-        .toString(spans.size())));
-
-    // actually convert the known spans into metric records as well
-    synchronized (this) {
-      for (Metric span : spans) {
-        MetricsRecordBuilder builder = collector.addRecord(new MetricsInfoImpl(TracingUtils
-            .getTraceMetricName(span.id), span.desc));
-        builder.setContext(TracingUtils.METRICS_CONTEXT);
-        for (Pair<MetricsInfo, Long> metric : span.counters) {
-          builder.addCounter(metric.getFirst(), metric.getSecond());
-        }
-        for (MetricsTag tag : span.tags) {
-          builder.add(tag);
-        }
+        .toString(spanCount.get())));
+    marker.addCounter(new MetricsInfoImpl("dropped", "num dropped spans"), droppedSpanCount.get());
+
+    // actually convert the known spans into metric records as well, removing them from the
+    // queue so we don't keep a big chunk of memory around
+    Metric span;
+    while ((span = spans.poll()) != null) {
+      spanCount.decrementAndGet();
+      MetricsRecordBuilder builder = collector.addRecord(new MetricsInfoImpl(TracingUtils
+          .getTraceMetricName(span.id), span.desc));
+      builder.setContext(TracingUtils.METRICS_CONTEXT);
+      for (Pair<MetricsInfo, Long> metric : span.counters) {
+        builder.addCounter(metric.getFirst(), metric.getSecond());
+      }
+      for (MetricsTag tag : span.tags) {
+        builder.add(tag);
       }
-      // reset the spans so we don't keep a big chunk of memory around
-      spans = new ArrayList<Metric>();
     }
   }
 
+  /**
+   * @return the number of spans dropped because too many were waiting to be written
+   */
+  public long getDroppedSpanCount() {
+    return droppedSpanCount.get();
+  }
+
   @Override
   public void close() throws IOException {
     // noop
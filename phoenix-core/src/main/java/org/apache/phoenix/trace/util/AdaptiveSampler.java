@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.trace.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.htrace.Sampler;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * {@link Sampler} that adjusts its sampling probability every second so that about a fixed number
+ * of traces per second are started, whatever the load. Statements that took longer than a threshold
+ * are always traced on their next execution, so that slow statements show up in the traces even
+ * when few other statements are sampled.
+ * <p>
+ * There is one sampler per target rate and threshold in the JVM, so that the rate applies across all
+ * connections rather than to each of them.
+ */
+public class AdaptiveSampler implements Sampler<Object> {
+    private static final long WINDOW_MS = 1000;
+    private static final int MAX_SLOW_STATEMENTS = 1000;
+    private static final ConcurrentMap<String, AdaptiveSampler> INSTANCES = new ConcurrentHashMap<String, AdaptiveSampler>();
+
+    private final double targetRate;
+    private final long slowThresholdNanos;
+    private final AtomicReference<Window> window;
+    private final Cache<String, Boolean> slowStatements = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SLOW_STATEMENTS).expireAfterWrite(10, TimeUnit.MINUTES).build();
+
+    /**
+     * Counts of a single window. The probability is derived from the number of requests
+     * of the previous window.
+     */
+    private static class Window {
+        private final long startTime;
+        private final double probability;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong sampled = new AtomicLong();
+
+        private Window(long startTime, double probability) {
+            this.startTime = startTime;
+            this.probability = probability;
+        }
+    }
+
+    @VisibleForTesting
+    AdaptiveSampler(double targetRate, long slowThresholdMs) {
+        this.targetRate = targetRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.window = new AtomicReference<Window>(new Window(EnvironmentEdgeManager.currentTimeMillis(), 1.0));
+    }
+
+    public static AdaptiveSampler getInstance(double targetRate, long slowThresholdMs) {
+        String key = targetRate + "/" + slowThresholdMs;
+        AdaptiveSampler sampler = INSTANCES.get(key);
+        if (sampler == null) {
+            AdaptiveSampler newSampler = new AdaptiveSampler(targetRate, slowThresholdMs);
+            sampler = INSTANCES.putIfAbsent(key, newSampler);
+            if (sampler == null) {
+                sampler = newSampler;
+            }
+        }
+        return sampler;
+    }
+
+    /**
+     * @param info the statement about to run, or null if not known
+     */
+    @Override
+    public boolean next(Object info) {
+        if (info != null && slowStatements.size() > 0 && slowStatements.getIfPresent(info.toString()) != null) {
+            return true;
+        }
+        Window current = getWindow(EnvironmentEdgeManager.currentTimeMillis());
+        current.requests.incrementAndGet();
+        if (current.sampled.get() >= targetRate) {
+            return false;
+        }
+        if (current.probability < 1.0 && ThreadLocalRandom.current().nextDouble() >= current.probability) {
+            return false;
+        }
+        return current.sampled.incrementAndGet() <= targetRate;
+    }
+
+    private Window getWindow(long now) {
+        Window current = window.get();
+        if (now - current.startTime < WINDOW_MS) {
+            return current;
+        }
+        // Spread the target number of traces over the requests expected in the next window
+        long requests = current.requests.get();
+        double probability = requests <= targetRate ? 1.0 : targetRate / requests;
+        Window next = new Window(now, probability);
+        return window.compareAndSet(current, next) ? next : window.get();
+    }
+
+    /**
+     * Record the time a statement took, so that it is always traced next time if it was slow.
+     * @param statement the statement, whose {@link Object#toString()} is only called if it was slow
+     * @param elapsedNanos time the statement took
+     */
+    public void update(Object statement, long elapsedNanos) {
+        if (elapsedNanos >= slowThresholdNanos) {
+            slowStatements.put(statement.toString(), Boolean.TRUE);
+        }
+    }
+
+    @VisibleForTesting
+    double getProbability() {
+        return window.get().probability;
+    }
+}
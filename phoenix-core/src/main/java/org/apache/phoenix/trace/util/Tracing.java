@@ -70,7 +70,8 @@ public class Tracing {
      */
     public static enum Frequency {
         NEVER("never", CREATE_NEVER), // default
-        ALWAYS("always", CREATE_ALWAYS), PROBABILITY("probability", CREATE_PROBABILITY);
+        ALWAYS("always", CREATE_ALWAYS), PROBABILITY("probability", CREATE_PROBABILITY),
+        ADAPTIVE("adaptive", CREATE_ADAPTIVE);
 
         String key;
         Function<ConfigurationAdapter, Sampler<?>> builder;
@@ -122,6 +123,18 @@ public class Tracing {
                 }
             };
 
+    private static Function<ConfigurationAdapter, Sampler<?>> CREATE_ADAPTIVE =
+            new Function<ConfigurationAdapter, Sampler<?>>() {
+                @Override
+                public Sampler<?> apply(ConfigurationAdapter conf) {
+                    double targetRate = Double.parseDouble(conf.get(QueryServices.TRACING_ADAPTIVE_TARGET_RATE_ATTRIB,
+                            Double.toString(QueryServicesOptions.DEFAULT_TRACING_ADAPTIVE_TARGET_RATE)));
+                    long slowThresholdMs = Long.parseLong(conf.get(QueryServices.TRACING_ADAPTIVE_SLOW_THRESHOLD_MS_ATTRIB,
+                            Long.toString(QueryServicesOptions.DEFAULT_TRACING_ADAPTIVE_SLOW_THRESHOLD_MS)));
+                    return AdaptiveSampler.getInstance(targetRate, slowThresholdMs);
+                }
+            };
+
     public static Sampler<?> getConfiguredSampler(PhoenixConnection connection) {
         String tracelevel = connection.getQueryServices().getProps().get(QueryServices.TRACING_FREQ_ATTRIB, QueryServicesOptions.DEFAULT_TRACING_FREQ);
         return getSampler(tracelevel, new ConfigurationAdapter.ConnectionConfigurationAdapter(
@@ -172,6 +185,45 @@ public class Tracing {
         return scope;
     }
 
+    /**
+     * Start a span with the given sampler, for callers that have already asked the sampler of the
+     * connection through {@link #isSampled(PhoenixConnection, Object)}.
+     * @see #startNewSpan(PhoenixConnection, String)
+     */
+    public static TraceScope startNewSpan(PhoenixConnection connection, String string, Sampler<?> sampler) {
+        TraceScope scope = Trace.startSpan(string, sampler);
+        addCustomAnnotationsToSpan(scope.getSpan(), connection);
+        return scope;
+    }
+
+    /**
+     * Determine whether an operation should be traced, before building the description of its span.
+     * @param connection connection whose sampler is asked
+     * @param statement the statement being run, used by the {@link AdaptiveSampler} to always trace
+     *            slow statements. May be null.
+     * @return true if already tracing or if the sampler chose to trace the operation
+     */
+    public static boolean isSampled(PhoenixConnection connection, Object statement) {
+        if (Trace.isTracing()) {
+            return true;
+        }
+        Sampler<?> sampler = connection.getSampler();
+        if (sampler instanceof AdaptiveSampler) {
+            return ((AdaptiveSampler)sampler).next(statement);
+        }
+        return sampler.next(null);
+    }
+
+    /**
+     * Let the sampler of the connection know how long a statement took
+     */
+    public static void updateSampler(PhoenixConnection connection, Object statement, long elapsedNanos) {
+        Sampler<?> sampler = connection.getSampler();
+        if (sampler instanceof AdaptiveSampler) {
+            ((AdaptiveSampler)sampler).update(statement, elapsedNanos);
+        }
+    }
+
     public static String getSpanName(Span span) {
         return Tracing.TRACE_METRIC_PREFIX + span.getTraceId() + SEPARATOR + span.getParentId()
                 + SEPARATOR + span.getSpanId();
@@ -23,18 +23,24 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.types.PDataType;
 import org.apache.phoenix.util.csv.CsvUpsertExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -45,8 +51,17 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /***
  * Upserts CSV data using Phoenix JDBC connection
@@ -70,6 +85,9 @@ public class CSVCommonsLoader {
                         .put('9', '\u0009')
                         .build();
 
+    // Marks the end of the input for the upsert workers
+    private static final List<CSVRecord> END_OF_INPUT = new ArrayList<CSVRecord>(0);
+
     private final PhoenixConnection conn;
     private final String tableName;
     private final List<String> columns;
@@ -79,6 +97,8 @@ public class CSVCommonsLoader {
     private final Character escapeCharacter;
     private PhoenixHeaderSource headerSource = PhoenixHeaderSource.FROM_TABLE;
     private final CSVFormat format;
+    private final int threadCount;
+    private final String rejectFile;
 
 
     private final String arrayElementSeparator;
@@ -97,6 +117,23 @@ public class CSVCommonsLoader {
     public CSVCommonsLoader(PhoenixConnection conn, String tableName,
             List<String> columns, boolean isStrict, char fieldDelimiter, char quoteCharacter,
             Character escapeCharacter, String arrayElementSeparator) {
+        this(conn, tableName, columns, isStrict, fieldDelimiter, quoteCharacter, escapeCharacter,
+                arrayElementSeparator, 1, null);
+    }
+
+    /**
+     * @param threadCount number of connections upserting in parallel. With more than one, records
+     *                    are handed out to the connections in batches of the connection batch size,
+     *                    and each batch is committed in row key order.
+     * @param rejectFile file to which records that could not be upserted are written, can be null
+     */
+    public CSVCommonsLoader(PhoenixConnection conn, String tableName,
+            List<String> columns, boolean isStrict, char fieldDelimiter, char quoteCharacter,
+            Character escapeCharacter, String arrayElementSeparator, int threadCount,
+            String rejectFile) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count (" + threadCount + ") must be at least one");
+        }
         this.conn = conn;
         this.tableName = tableName;
         this.columns = columns;
@@ -114,6 +151,8 @@ public class CSVCommonsLoader {
         }
 
         this.arrayElementSeparator = arrayElementSeparator;
+        this.threadCount = threadCount;
+        this.rejectFile = rejectFile;
         this.format = buildFormat();
     }
 
@@ -208,6 +247,9 @@ public class CSVCommonsLoader {
      * column value to correct type before upsert.
      *
      * The format is determined by the supplied csvParser.
+     *
+     * With a thread count above one, batches are upserted in parallel on
+     * separate connections, so they may be committed out of input order.
 
      * @param csvParser
      *            CSVParser instance
@@ -217,20 +259,31 @@ public class CSVCommonsLoader {
         List<ColumnInfo> columnInfoList = buildColumnInfoList(csvParser);
 
         boolean wasAutoCommit = conn.getAutoCommit();
+        CSVPrinter rejectPrinter = null;
         try {
             conn.setAutoCommit(false);
+            if (rejectFile != null) {
+                rejectPrinter = new CSVPrinter(new OutputStreamWriter(
+                        new FileOutputStream(rejectFile), Charsets.UTF_8), format.withHeader((String[]) null));
+            }
             long start = System.currentTimeMillis();
-            CsvUpsertListener upsertListener = new CsvUpsertListener(conn,
-                    conn.getMutateBatchSize(), isStrict);
-            CsvUpsertExecutor csvUpsertExecutor = CsvUpsertExecutor.create(conn, tableName,
-                    columnInfoList, upsertListener, arrayElementSeparator);
-
-            csvUpsertExecutor.execute(csvParser);
-            csvUpsertExecutor.close();
-
-            conn.commit();
+            long upsertCount;
+            if (threadCount == 1) {
+                CsvUpsertListener upsertListener = new CsvUpsertListener(conn,
+                        conn.getMutateBatchSize(), isStrict, rejectPrinter);
+                CsvUpsertExecutor csvUpsertExecutor = CsvUpsertExecutor.create(conn, tableName,
+                        columnInfoList, upsertListener, arrayElementSeparator);
+
+                csvUpsertExecutor.execute(csvParser);
+                csvUpsertExecutor.close();
+
+                conn.commit();
+                upsertCount = upsertListener.getTotalUpsertCount();
+            } else {
+                upsertCount = upsertInParallel(csvParser, columnInfoList, rejectPrinter);
+            }
             double elapsedDuration = ((System.currentTimeMillis() - start) / 1000.0);
-            System.out.println("CSV Upsert complete. " + upsertListener.getTotalUpsertCount()
+            System.out.println("CSV Upsert complete. " + upsertCount
                     + " rows upserted");
             System.out.println("Time: " + elapsedDuration + " sec(s)\n");
 
@@ -240,12 +293,121 @@ public class CSVCommonsLoader {
             if (csvParser != null) {
                 csvParser.close();
             }
+            if (rejectPrinter != null) {
+                rejectPrinter.close();
+            }
             if (wasAutoCommit) {
                 conn.setAutoCommit(true);
             }
         }
     }
 
+    /**
+     * Parse records on the calling thread and hand them out in batches to a pool of workers,
+     * each of which upserts and commits its batches on its own connection.
+     *
+     * @return the number of records upserted
+     */
+    private long upsertInParallel(CSVParser csvParser, List<ColumnInfo> columnInfoList,
+            CSVPrinter rejectPrinter) throws Exception {
+        int batchSize = conn.getMutateBatchSize();
+        BlockingQueue<List<CSVRecord>> queue =
+                new ArrayBlockingQueue<List<CSVRecord>>(threadCount * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount,
+                new ThreadFactoryBuilder().setNameFormat("csv-loader-%d").setDaemon(true).build());
+        List<Future<Long>> workers = new ArrayList<Future<Long>>(threadCount);
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                workers.add(executor.submit(
+                        new UpsertWorker(queue, columnInfoList, rejectPrinter)));
+            }
+            List<CSVRecord> batch = new ArrayList<CSVRecord>(batchSize);
+            for (CSVRecord csvRecord : csvParser) {
+                batch.add(csvRecord);
+                if (batch.size() == batchSize) {
+                    put(queue, batch, workers);
+                    batch = new ArrayList<CSVRecord>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                put(queue, batch, workers);
+            }
+            for (int i = 0; i < threadCount; i++) {
+                put(queue, END_OF_INPUT, workers);
+            }
+            long upsertCount = 0;
+            for (Future<Long> worker : workers) {
+                upsertCount += worker.get();
+            }
+            return upsertCount;
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), Exception.class);
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Hand a batch of records to the workers, waiting for room in the queue as long as none of
+     * the workers has stopped.
+     */
+    private static void put(BlockingQueue<List<CSVRecord>> queue, List<CSVRecord> batch,
+            List<Future<Long>> workers) throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+            for (Future<Long> worker : workers) {
+                if (worker.isDone()) {
+                    // Surfaces the failure of the worker
+                    worker.get();
+                    throw new IllegalStateException("CSV upsert worker stopped before end of input");
+                }
+            }
+        }
+    }
+
+    /**
+     * Upserts batches of records on a connection of its own, committing after each batch.
+     */
+    private class UpsertWorker implements Callable<Long> {
+
+        private final BlockingQueue<List<CSVRecord>> queue;
+        private final List<ColumnInfo> columnInfoList;
+        private final CSVPrinter rejectPrinter;
+
+        UpsertWorker(BlockingQueue<List<CSVRecord>> queue, List<ColumnInfo> columnInfoList,
+                CSVPrinter rejectPrinter) {
+            this.queue = queue;
+            this.columnInfoList = columnInfoList;
+            this.rejectPrinter = rejectPrinter;
+        }
+
+        @Override
+        public Long call() throws Exception {
+            Properties props = new Properties();
+            props.putAll(conn.getClientInfo());
+            props.setProperty(QueryServices.SORT_MUTATIONS_ON_COMMIT_ATTRIB, Boolean.TRUE.toString());
+            PhoenixConnection workerConn = new PhoenixConnection(conn.getQueryServices(),
+                    conn.getURL(), props, conn.getMetaDataCache());
+            try {
+                workerConn.setAutoCommit(false);
+                // Commits are done per batch below rather than by the listener
+                CsvUpsertListener upsertListener = new CsvUpsertListener(workerConn,
+                        Integer.MAX_VALUE, isStrict, rejectPrinter);
+                CsvUpsertExecutor csvUpsertExecutor = CsvUpsertExecutor.create(workerConn,
+                        tableName, columnInfoList, upsertListener, arrayElementSeparator);
+                List<CSVRecord> batch;
+                while ((batch = queue.take()) != END_OF_INPUT) {
+                    csvUpsertExecutor.execute(batch);
+                    workerConn.commit();
+                }
+                csvUpsertExecutor.close();
+                return upsertListener.getTotalUpsertCount();
+            } finally {
+                workerConn.close();
+            }
+        }
+    }
+
     private List<ColumnInfo> buildColumnInfoList(CSVParser parser) throws SQLException {
         List<String> columns = this.columns;
         switch (headerSource) {
@@ -397,11 +559,22 @@ public class CSVCommonsLoader {
         private final int upsertBatchSize;
         private long totalUpserts = 0L;
         private final boolean strict;
+        private final CSVPrinter rejectPrinter;
 
         CsvUpsertListener(PhoenixConnection conn, int upsertBatchSize, boolean strict) {
+            this(conn, upsertBatchSize, strict, null);
+        }
+
+        /**
+         * @param rejectPrinter printer to which failed records are written, can be null. It may be
+         *                      shared between listeners.
+         */
+        CsvUpsertListener(PhoenixConnection conn, int upsertBatchSize, boolean strict,
+                CSVPrinter rejectPrinter) {
             this.conn = conn;
             this.upsertBatchSize = upsertBatchSize;
             this.strict = strict;
+            this.rejectPrinter = rejectPrinter;
         }
 
         @Override
@@ -423,6 +596,15 @@ public class CSVCommonsLoader {
         @Override
         public void errorOnRecord(CSVRecord csvRecord, Throwable throwable) {
             LOG.error("Error upserting record " + csvRecord, throwable.getMessage());
+            if (rejectPrinter != null) {
+                synchronized (rejectPrinter) {
+                    try {
+                        rejectPrinter.printRecord(csvRecord);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
             if (strict) {
                 throw Throwables.propagate(throwable);
             }
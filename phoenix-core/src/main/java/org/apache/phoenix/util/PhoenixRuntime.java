@@ -66,6 +66,8 @@ import org.apache.phoenix.jdbc.PhoenixPreparedStatement;
 import org.apache.phoenix.jdbc.PhoenixResultSet;
 import org.apache.phoenix.monitoring.GlobalClientMetrics;
 import org.apache.phoenix.monitoring.GlobalMetric;
+import org.apache.phoenix.monitoring.LatencyHistogram;
+import org.apache.phoenix.monitoring.LatencyHistograms;
 import org.apache.phoenix.query.QueryConstants;
 import org.apache.phoenix.query.QueryServices;
 import org.apache.phoenix.schema.AmbiguousColumnException;
@@ -233,7 +235,8 @@ public class PhoenixRuntime {
                                 new CSVCommonsLoader(conn, tableName, execCmd.getColumns(),
                                         execCmd.isStrict(), execCmd.getFieldDelimiter(),
                                         execCmd.getQuoteCharacter(), execCmd.getEscapeCharacter(),
-                                        execCmd.getArrayElementSeparator());
+                                        execCmd.getArrayElementSeparator(),
+                                        execCmd.getThreadCount(), execCmd.getRejectFile());
                         csvLoader.upsert(inputFile);
                     }
                 }
@@ -490,6 +493,8 @@ public class PhoenixRuntime {
         private List<String> inputFiles;
         private boolean isUpgrade;
         private boolean isBypassUpgrade;
+        private int threadCount;
+        private String rejectFile;
 
         /**
          * Factory method to build up an {@code ExecutionCommand} based on supplied parameters.
@@ -528,6 +533,11 @@ public class PhoenixRuntime {
                     "This would only be the case if you have not relied on auto padding for BINARY and CHAR data, " +
                     "but instead have always provided data up to the full max length of the column. See PHOENIX-2067 " +
                     "and PHOENIX-2120 for more information. ");
+            Option threadCountOption = new Option("n", "threads", true,
+                    "Number of connections over which CSV records are upserted in parallel, " +
+                    "defaults to 1");
+            Option rejectFileOption = new Option("r", "reject-file", true,
+                    "File to which CSV records that could not be upserted are written");
             Options options = new Options();
             options.addOption(tableOption);
             options.addOption(headerOption);
@@ -538,6 +548,8 @@ public class PhoenixRuntime {
             options.addOption(arrayValueSeparatorOption);
             options.addOption(upgradeOption);
             options.addOption(bypassUpgradeOption);
+            options.addOption(threadCountOption);
+            options.addOption(rejectFileOption);
 
             CommandLineParser parser = new PosixParser();
             CommandLine cmdLine = null;
@@ -577,6 +589,17 @@ public class PhoenixRuntime {
             execCmd.arrayElementSeparator = cmdLine.getOptionValue(
                     arrayValueSeparatorOption.getOpt(),
                     CSVCommonsLoader.DEFAULT_ARRAY_ELEMENT_SEPARATOR);
+
+            try {
+                execCmd.threadCount = Integer.parseInt(
+                        cmdLine.getOptionValue(threadCountOption.getOpt(), "1"));
+            } catch (NumberFormatException e) {
+                execCmd.threadCount = 0;
+            }
+            if (execCmd.threadCount < 1) {
+                usageError("The number of threads must be a positive integer", options);
+            }
+            execCmd.rejectFile = cmdLine.getOptionValue(rejectFileOption.getOpt());
             
             if (cmdLine.hasOption(upgradeOption.getOpt())) {
                 execCmd.isUpgrade = true;
@@ -637,7 +660,8 @@ public class PhoenixRuntime {
                     "  psql localhost my_ddl.sql my_table.csv\n" +
                     "  psql -t MY_TABLE my_cluster:1825 my_table2012-Q3.csv\n" +
                     "  psql -t MY_TABLE -h COL1,COL2,COL3 my_cluster:1825 my_table2012-Q3.csv\n" +
-                    "  psql -t MY_TABLE -h COL1,COL2,COL3 -d : my_cluster:1825 my_table2012-Q3.csv");
+                    "  psql -t MY_TABLE -h COL1,COL2,COL3 -d : my_cluster:1825 my_table2012-Q3.csv\n" +
+                    "  psql -t MY_TABLE -n 8 -r rejected.csv my_cluster:1825 my_table2012-Q3.csv");
             System.exit(-1);
         }
 
@@ -684,6 +708,14 @@ public class PhoenixRuntime {
         public boolean isBypassUpgrade() {
             return isBypassUpgrade;
         }
+
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        public String getRejectFile() {
+            return rejectFile;
+        }
     }
     
     /**
@@ -991,6 +1023,33 @@ public class PhoenixRuntime {
         return GlobalClientMetrics.isMetricsEnabled();
     }
     
+    /**
+     * Exposes the latency histograms of each phase of executing statements (parse, compile, metadata lookup,
+     * scan submission, first row, execution and commit) collected at the client JVM level across all tables.
+     * Latencies are in microseconds. A typical pattern to watch tail latencies is:
+     * 
+     * <pre>
+     * {@code
+     * for (LatencyHistogram histogram : PhoenixRuntime.getGlobalPhoenixClientLatencies()) {
+     *     long p99 = histogram.getValueAtPercentile(99);
+     *     ....
+     * }
+     * }
+     * </pre>
+     */
+    public static Collection<LatencyHistogram> getGlobalPhoenixClientLatencies() {
+        return LatencyHistograms.getHistograms();
+    }
+    
+    /**
+     * Exposes the latency histograms of each phase of executing statements, collected per table.
+     * 
+     * @return a map of (physical table name) -> (latency histograms of the phases recorded for the table)
+     */
+    public static Map<String, Collection<LatencyHistogram>> getPhoenixClientLatenciesByTable() {
+        return LatencyHistograms.getTableHistograms();
+    }
+    
     /**
      * Method to expose the metrics associated with performing reads using the passed result set. A typical pattern is:
      * 
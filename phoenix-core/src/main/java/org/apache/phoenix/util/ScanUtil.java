@@ -48,6 +48,8 @@ import org.apache.phoenix.coprocessor.MetaDataProtocol;
 import org.apache.phoenix.exception.SQLExceptionCode;
 import org.apache.phoenix.exception.SQLExceptionInfo;
 import org.apache.phoenix.execute.DescVarLengthFastByteComparisons;
+import org.apache.phoenix.expression.InListExpression;
+import org.apache.phoenix.expression.visitor.StatelessTraverseAllExpressionVisitor;
 import org.apache.phoenix.filter.BooleanExpressionFilter;
 import org.apache.phoenix.filter.SkipScanFilter;
 import org.apache.phoenix.query.KeyRange;
@@ -724,6 +726,35 @@ public class ScanUtil {
         return filterIterator;
     }
     
+    /**
+     * Collects the IN list expressions of the WHERE clause filter(s) set on the scan.
+     */
+    public static List<InListExpression> getInListExpressions(Scan scan) {
+        List<InListExpression> inLists = Lists.newArrayList();
+        Iterator<Filter> filterIterator = getFilterIterator(scan);
+        while (filterIterator.hasNext()) {
+            inLists.addAll(getInListExpressions(filterIterator.next()));
+        }
+        return inLists;
+    }
+
+    /**
+     * Collects the IN list expressions of a single WHERE clause filter.
+     */
+    public static List<InListExpression> getInListExpressions(Filter filter) {
+        final List<InListExpression> inLists = Lists.newArrayList();
+        if (filter instanceof BooleanExpressionFilter) {
+            ((BooleanExpressionFilter)filter).getExpression().accept(new StatelessTraverseAllExpressionVisitor<Void>() {
+                @Override
+                public Void visitLeave(InListExpression node, List<Void> l) {
+                    inLists.add(node);
+                    return null;
+                }
+            });
+        }
+        return inLists;
+    }
+    
     public static boolean isRoundRobinPossible(OrderBy orderBy, StatementContext context) throws SQLException {
         int fetchSize  = context.getStatement().getFetchSize();
         /*
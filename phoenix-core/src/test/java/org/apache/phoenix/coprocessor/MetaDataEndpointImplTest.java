@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.coprocessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.phoenix.cache.GlobalCache;
+import org.apache.phoenix.coprocessor.generated.PTableProtos;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.schema.PTable;
+import org.apache.phoenix.schema.PTableKey;
+import org.junit.Test;
+
+public class MetaDataEndpointImplTest extends BaseConnectionlessQueryTest {
+
+    private static GlobalCache getGlobalCache() {
+        RegionCoprocessorEnvironment env = mock(RegionCoprocessorEnvironment.class);
+        when(env.getConfiguration()).thenReturn(HBaseConfiguration.create());
+        return GlobalCache.getInstance(env);
+    }
+
+    private static PTable getTable(Connection conn, String tableName) throws SQLException {
+        PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+        return pconn.getMetaDataCache().getTable(new PTableKey(pconn.getTenantId(), tableName));
+    }
+
+    @Test
+    public void testSerializedTableReusedUntilTableReplaced() throws Exception {
+        GlobalCache cache = getGlobalCache();
+        Connection conn = DriverManager.getConnection(getUrl());
+        try {
+            conn.createStatement().execute("CREATE TABLE SERIALIZED_T (k VARCHAR PRIMARY KEY, v1 VARCHAR)");
+            PTable table = getTable(conn, "SERIALIZED_T");
+            PTableProtos.PTable serializedTable = cache.getSerializedTable(table);
+            assertSame(serializedTable, cache.getSerializedTable(table));
+
+            // DDL replaces the PTable, so its serialized form must not be handed out anymore
+            conn.createStatement().execute("ALTER TABLE SERIALIZED_T ADD v2 VARCHAR");
+            PTable alteredTable = getTable(conn, "SERIALIZED_T");
+            assertNotSame(table, alteredTable);
+            PTableProtos.PTable serializedAlteredTable = cache.getSerializedTable(alteredTable);
+            assertNotSame(serializedTable, serializedAlteredTable);
+            assertEquals(serializedTable.getColumnsCount() + 1, serializedAlteredTable.getColumnsCount());
+            assertSame(serializedAlteredTable, cache.getSerializedTable(alteredTable));
+        } finally {
+            conn.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.expression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.schema.PColumn;
+import org.apache.phoenix.schema.PColumnImpl;
+import org.apache.phoenix.schema.PNameFactory;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.junit.Test;
+
+public class InListExpressionTest {
+
+    private static InListExpression newInListExpression() {
+        PColumn column = new PColumnImpl(PNameFactory.newName("c1"), PNameFactory.newName("f1"), PVarchar.INSTANCE, null, null,
+                true, 20, SortOrder.getDefault(), 0, null, false, null, false);
+        List<Expression> children = Arrays.<Expression>asList(new KeyValueColumnExpression(column),
+                LiteralExpression.newConstant("a"), LiteralExpression.newConstant("bb"), LiteralExpression.newConstant("ccc"));
+        return new InListExpression(children, false);
+    }
+
+    private static byte[] write(InListExpression expression, boolean valuesOnly) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dOut = new DataOutputStream(baos);
+        if (valuesOnly) {
+            expression.writeValues(dOut);
+        } else {
+            expression.write(dOut);
+        }
+        dOut.flush();
+        return baos.toByteArray();
+    }
+
+    @Test
+    public void testSerializationWithValues() throws Exception {
+        InListExpression expression = newInListExpression();
+        byte[] bytes = write(expression, false);
+        InListExpression expression2 = new InListExpression();
+        expression2.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertTrue(expression2.isValuesResolved());
+        assertEquals(expression, expression2);
+        assertEquals(expression.getValuesByteLength(), expression2.getValuesByteLength());
+    }
+
+    @Test
+    public void testSerializationWithValuesCacheId() throws Exception {
+        InListExpression expression = newInListExpression();
+        byte[] cacheId = Bytes.toBytes(12345L);
+        expression.setValuesCacheId(cacheId);
+        byte[] bytes = write(expression, false);
+        InListExpression expression2 = new InListExpression();
+        expression2.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertFalse(expression2.isValuesResolved());
+        assertArrayEquals(cacheId, expression2.getValuesCacheId());
+
+        // Resolve the values as the server-side does from the server cache
+        InListExpression cachedValues = new InListExpression();
+        cachedValues.readValues(new DataInputStream(new ByteArrayInputStream(write(expression, true))));
+        expression2.resolveValues(cachedValues);
+        assertTrue(expression2.isValuesResolved());
+        assertEquals(expression, expression2);
+        assertEquals(3, expression2.getValuesCount());
+        assertEquals(expression.getMinKey(), expression2.getMinKey());
+        assertEquals(expression.getMaxKey(), expression2.getMaxKey());
+    }
+}
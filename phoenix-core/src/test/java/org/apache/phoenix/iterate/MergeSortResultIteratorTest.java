@@ -24,15 +24,18 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.phoenix.query.KeyRange;
 import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
 import org.apache.phoenix.schema.tuple.Tuple;
 import org.apache.phoenix.util.AssertResults;
+import org.apache.phoenix.util.TupleUtil;
 import org.junit.Test;
 
 
@@ -95,4 +98,59 @@ public class MergeSortResultIteratorTest {
         AssertResults.assertResults(scanner, expectedResults);
     }
 
+    @Test
+    public void testMergeSortManyIterators() throws Throwable {
+        // Use a number of iterators that is not a power of two, including empty ones
+        int nIterators = 7;
+        final List<PeekingResultIterator> results = new ArrayList<PeekingResultIterator>(nIterators);
+        List<Tuple> expected = new ArrayList<Tuple>();
+        for (int i = 0; i < nIterators; i++) {
+            List<Tuple> tuples = new ArrayList<Tuple>();
+            for (int j = i; i % 3 != 0 && j < 30; j += i) {
+                Tuple tuple = new SingleKeyValueTuple(new KeyValue(Bytes.toBytes(String.format("%02d", j)), SINGLE_COLUMN_FAMILY, SINGLE_COLUMN, Bytes.toBytes(1)));
+                tuples.add(tuple);
+                expected.add(tuple);
+            }
+            results.add(new MaterializedResultIterator(tuples));
+        }
+        Collections.sort(expected, new Comparator<Tuple>() {
+            @Override
+            public int compare(Tuple t1, Tuple t2) {
+                return TupleUtil.compare(t1, t2, new ImmutableBytesWritable());
+            }
+        });
+        ResultIterators iterators = new ResultIterators() {
+
+            @Override
+            public List<PeekingResultIterator> getIterators() throws SQLException {
+                return results;
+            }
+
+            @Override
+            public int size() {
+                return results.size();
+            }
+
+            @Override
+            public void explain(List<String> planSteps) {
+            }
+
+            @Override
+            public List<KeyRange> getSplits() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public List<List<Scan>> getScans() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public void close() throws SQLException {
+            }
+        };
+        ResultIterator scanner = new MergeSortRowKeyResultIterator(iterators);
+        AssertResults.assertResults(scanner, expected.toArray(new Tuple[expected.size()]));
+    }
+
 }
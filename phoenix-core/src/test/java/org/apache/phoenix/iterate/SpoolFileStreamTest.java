@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class SpoolFileStreamTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("SpoolFileStreamTest", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static byte[] newData(int length) {
+        byte[] data = new byte[length];
+        Random random = new Random(length);
+        // Half compressible, half random so that both block codecs are used
+        for (int i = 0; i < length / 2; i++) {
+            data[i] = (byte)(i % 7);
+        }
+        byte[] randomBytes = new byte[length - length / 2];
+        random.nextBytes(randomBytes);
+        System.arraycopy(randomBytes, 0, data, length / 2, randomBytes.length);
+        return data;
+    }
+
+    private void write(byte[] data) throws IOException {
+        SpoolFileOutputStream out = new SpoolFileOutputStream(file);
+        try {
+            // Mix single byte and bulk writes across block boundaries
+            out.write(data[0]);
+            out.write(data, 1, data.length - 1);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] data = newData(SpoolFileOutputStream.BLOCK_SIZE * 5 + 123);
+        write(data);
+        byte[] read = new byte[data.length];
+        DataInputStream in = new DataInputStream(new SpoolFileInputStream(file));
+        try {
+            in.readFully(read);
+            assertEquals(-1, in.read());
+        } finally {
+            in.close();
+        }
+        assertArrayEquals(data, read);
+    }
+
+    @Test
+    public void testReopenAtPosition() throws IOException {
+        byte[] data = newData(SpoolFileOutputStream.BLOCK_SIZE * 3);
+        write(data);
+        int offset = SpoolFileOutputStream.BLOCK_SIZE * 2 + 10;
+        SpoolFileInputStream in = new SpoolFileInputStream(file);
+        long blockStart;
+        int positionInBlock;
+        try {
+            new DataInputStream(in).readFully(new byte[offset]);
+            blockStart = in.getBlockStart();
+            positionInBlock = in.getPositionInBlock();
+        } finally {
+            in.close();
+        }
+        DataInputStream reopened = new DataInputStream(new SpoolFileInputStream(file, blockStart, positionInBlock));
+        try {
+            byte[] read = new byte[data.length - offset];
+            reopened.readFully(read);
+            for (int i = 0; i < read.length; i++) {
+                assertEquals(data[offset + i], read[i]);
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void testCorruptBlock() throws IOException {
+        byte[] data = newData(SpoolFileOutputStream.BLOCK_SIZE);
+        write(data);
+        RandomAccessFile af = new RandomAccessFile(file, "rw");
+        try {
+            long pos = SpoolFileOutputStream.BLOCK_HEADER_SIZE + 5;
+            af.seek(pos);
+            int b = af.read();
+            af.seek(pos);
+            af.write(b ^ 0xff);
+        } finally {
+            af.close();
+        }
+        SpoolFileInputStream in = new SpoolFileInputStream(file);
+        try {
+            in.read();
+            fail();
+        } catch (IOException e) {
+            // expected checksum mismatch
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.iterate;
+
+import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN;
+import static org.apache.phoenix.query.QueryConstants.SINGLE_COLUMN_FAMILY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.util.AssertResults;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class StreamingResultIteratorTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static List<Tuple> newResults(int nRows) {
+        List<Tuple> results = new ArrayList<Tuple>(nRows);
+        for (int i = 0; i < nRows; i++) {
+            byte[] row = Bytes.toBytes(String.format("%05d", i));
+            results.add(new SingleKeyValueTuple(new KeyValue(row, SINGLE_COLUMN_FAMILY, SINGLE_COLUMN, Bytes.toBytes(1))));
+        }
+        return results;
+    }
+
+    /**
+     * Counts the rows read from the scan and fails once failAfterRows rows have been read
+     */
+    private static class CountingResultIterator extends DelegateResultIterator {
+        private final AtomicInteger rowCount = new AtomicInteger();
+        private final int failAfterRows;
+
+        private CountingResultIterator(ResultIterator delegate, int failAfterRows) {
+            super(delegate);
+            this.failAfterRows = failAfterRows;
+        }
+
+        @Override
+        public Tuple next() throws SQLException {
+            if (rowCount.get() >= failAfterRows) {
+                throw new SQLException("Scanner lease expired");
+            }
+            rowCount.incrementAndGet();
+            return super.next();
+        }
+    }
+
+    private void testStreaming(int nRows, int batchSize, int maxBufferedBatches) throws Throwable {
+        List<Tuple> results = new ArrayList<Tuple>(nRows);
+        List<Tuple> expectedResults = new ArrayList<Tuple>(nRows);
+        for (int i = 0; i < nRows; i++) {
+            byte[] row = Bytes.toBytes(String.format("%05d", i));
+            results.add(new SingleKeyValueTuple(new KeyValue(row, SINGLE_COLUMN_FAMILY, SINGLE_COLUMN, Bytes.toBytes(1))));
+            expectedResults.add(new SingleKeyValueTuple(new KeyValue(row, SINGLE_COLUMN_FAMILY, SINGLE_COLUMN, Bytes.toBytes(1))));
+        }
+        PeekingResultIterator iterator = new MaterializedResultIterator(results);
+        ResultIterator scanner = new StreamingResultIterator(iterator, executor, batchSize, maxBufferedBatches, 2, 60000);
+        AssertResults.assertResults(scanner, expectedResults.toArray(new Tuple[nRows]));
+    }
+
+    @Test
+    public void testEmptyScan() throws Throwable {
+        testStreaming(0, 10, 2);
+    }
+
+    @Test
+    public void testSingleBatch() throws Throwable {
+        testStreaming(5, 10, 2);
+    }
+
+    @Test
+    public void testManyBatches() throws Throwable {
+        // Exactly divisible by the batch size, so that the last batch read is empty
+        testStreaming(1000, 10, 2);
+        testStreaming(997, 10, 3);
+    }
+
+    @Test
+    public void testSynchronousReadWhenExecutorRejects() throws Throwable {
+        executor.shutdown();
+        testStreaming(95, 10, 2);
+    }
+
+    @Test
+    public void testKeepAliveBufferIsBounded() throws Throwable {
+        CountingResultIterator counter = new CountingResultIterator(new MaterializedResultIterator(newResults(100)), Integer.MAX_VALUE);
+        ResultIterator scanner = new StreamingResultIterator(counter, executor, 1, 1, 2, 10);
+        try {
+            // While the consumer is paused, keep alive reads stop once two batches past the read ahead limit are buffered
+            Thread.sleep(500);
+            assertEquals(4, counter.rowCount.get());
+            // and the remaining results are read once the consumer resumes
+            for (int i = 0; i < 100; i++) {
+                assertNotNull(scanner.next());
+            }
+            assertNull(scanner.next());
+        } finally {
+            scanner.close();
+        }
+    }
+
+    @Test
+    public void testExpiredLeaseAfterKeepAliveStopped() throws Throwable {
+        CountingResultIterator counter = new CountingResultIterator(new MaterializedResultIterator(newResults(100)), 4);
+        ResultIterator scanner = new StreamingResultIterator(counter, executor, 1, 1, 2, 10);
+        try {
+            Thread.sleep(500);
+            // The buffered results are returned before the failure to read past them
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(scanner.next());
+            }
+            scanner.next();
+            fail();
+        } catch (SQLTimeoutException e) {
+            assertEquals("Scanner lease expired", e.getCause().getMessage());
+        } finally {
+            scanner.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.phoenix.schema.stats.GuidePostsInfo;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests how {@link PhoenixInputFormat} combines and divides the scans of a query into splits.
+ */
+public class PhoenixInputFormatTest {
+    private static final TableName TABLE_NAME = TableName.valueOf("T");
+
+    private static HRegionLocation newRegion(String startKey, String endKey, String host) {
+        HRegionInfo regionInfo = new HRegionInfo(TABLE_NAME, Bytes.toBytes(startKey), Bytes.toBytes(endKey));
+        return new HRegionLocation(regionInfo, ServerName.valueOf(host, 16020, 1L));
+    }
+
+    private static Scan newScan(String startRow, String stopRow) {
+        return new Scan(Bytes.toBytes(startRow), Bytes.toBytes(stopRow));
+    }
+
+    /**
+     * @return statistics with a guidepost at each of the given keys and 100 bytes between them
+     */
+    private static GuidePostsInfo newGuidePosts(String... keys) {
+        List<byte[]> guidePosts = Lists.newArrayList();
+        for (String key : keys) {
+            guidePosts.add(Bytes.toBytes(key));
+        }
+        return new GuidePostsInfo(100L * (keys.length + 1), guidePosts, 10L * (keys.length + 1));
+    }
+
+    private static Map<byte[], Long> newRegionSizes(HRegionLocation region, long size) {
+        Map<byte[], Long> regionSizes = new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+        regionSizes.put(region.getRegionInfo().getRegionName(), size);
+        return regionSizes;
+    }
+
+    private static void assertSplit(InputSplit split, long expectedLength, String expectedStartRow,
+            String expectedStopRow, String expectedHost) throws Exception {
+        List<Scan> scans = ((PhoenixInputSplit)split).getScans();
+        assertEquals(expectedLength, split.getLength());
+        assertArrayEquals(Bytes.toBytes(expectedStartRow), scans.get(0).getStartRow());
+        assertArrayEquals(Bytes.toBytes(expectedStopRow), scans.get(scans.size() - 1).getStopRow());
+        assertArrayEquals(new String[] { expectedHost }, split.getLocations());
+    }
+
+    @Test
+    public void testCombineScansWithStats() throws Exception {
+        HRegionLocation region = newRegion("", "", "host1");
+        List<Scan> scans = ImmutableList.of(newScan("", "b"), newScan("b", "c"), newScan("c", "d"),
+                newScan("d", "e"), newScan("e", ""));
+        // The region size is far bigger than the scans, which are sized from the guideposts
+        List<InputSplit> splits = PhoenixInputFormat.generateSplits(scans, Collections.singletonList(region),
+                newRegionSizes(region, 100000), newGuidePosts("b", "c", "d", "e"), true, 250);
+        assertEquals(3, splits.size());
+        assertSplit(splits.get(0), 200, "", "c", "host1");
+        assertSplit(splits.get(1), 200, "c", "e", "host1");
+        assertSplit(splits.get(2), 100, "e", "", "host1");
+    }
+
+    @Test
+    public void testPartialScanSizedFromStats() throws Exception {
+        HRegionLocation region = newRegion("", "", "host1");
+        // Only the guidepost intervals the scan overlaps count towards its size
+        List<InputSplit> splits = PhoenixInputFormat.generateSplits(ImmutableList.of(newScan("bb", "cc")),
+                Collections.singletonList(region), newRegionSizes(region, 100000),
+                newGuidePosts("b", "c", "d", "e"), true, 1000);
+        assertEquals(1, splits.size());
+        assertSplit(splits.get(0), 200, "bb", "cc", "host1");
+    }
+
+    @Test
+    public void testDivideLargeScanWithStats() throws Exception {
+        HRegionLocation region = newRegion("a", "z", "host1");
+        List<InputSplit> splits = PhoenixInputFormat.generateSplits(ImmutableList.of(newScan("c", "g")),
+                Collections.singletonList(region), Collections.<byte[], Long>emptyMap(),
+                newGuidePosts("b", "d", "e", "f", "h"), true, 100);
+        assertEquals(4, splits.size());
+        assertSplit(splits.get(0), 100, "c", Bytes.toString(((PhoenixInputSplit)splits.get(1)).getScans().get(0).getStartRow()), "host1");
+        assertSplit(splits.get(3), 100, Bytes.toString(((PhoenixInputSplit)splits.get(3)).getScans().get(0).getStartRow()), "g", "host1");
+
+        // unless the scans may not be divided
+        splits = PhoenixInputFormat.generateSplits(ImmutableList.of(newScan("c", "g")),
+                Collections.singletonList(region), Collections.<byte[], Long>emptyMap(),
+                newGuidePosts("b", "d", "e", "f", "h"), false, 100);
+        assertEquals(1, splits.size());
+        assertSplit(splits.get(0), 400, "c", "g", "host1");
+    }
+
+    @Test
+    public void testRegionSizeFallbackWithoutStats() throws Exception {
+        HRegionLocation region1 = newRegion("", "m", "host1");
+        HRegionLocation region2 = newRegion("m", "", "host2");
+        Map<byte[], Long> regionSizes = newRegionSizes(region1, 1000);
+        regionSizes.put(region2.getRegionInfo().getRegionName(), 200L);
+        List<Scan> scans = ImmutableList.of(newScan("", "m"), newScan("m", "p"), newScan("p", ""));
+        List<InputSplit> splits = PhoenixInputFormat.generateSplits(scans, ImmutableList.of(region1, region2),
+                regionSizes, null, true, 500);
+        // A scan over a whole region is sized from the region and divided to the target size
+        assertEquals(3, splits.size());
+        assertSplit(splits.get(0), 500, "", Bytes.toString(((PhoenixInputSplit)splits.get(1)).getScans().get(0).getStartRow()), "host1");
+        assertSplit(splits.get(1), 500, Bytes.toString(((PhoenixInputSplit)splits.get(1)).getScans().get(0).getStartRow()), "m", "host1");
+        // and scans over part of a region share its size, staying on the server of their region
+        assertSplit(splits.get(2), 200, "m", "", "host2");
+        assertEquals(2, ((PhoenixInputSplit)splits.get(2)).getScans().size());
+        assertArrayEquals(HConstants.EMPTY_END_ROW, ((PhoenixInputSplit)splits.get(2)).getScans().get(1).getStopRow());
+    }
+}
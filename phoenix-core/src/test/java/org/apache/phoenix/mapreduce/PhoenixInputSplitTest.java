@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.mapreduce;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class PhoenixInputSplitTest {
+
+    @Test
+    public void testSerialization() throws Exception {
+        List<Scan> scans = ImmutableList.of(
+                new Scan(Bytes.toBytes("a"), Bytes.toBytes("b")),
+                new Scan(Bytes.toBytes("b"), Bytes.toBytes("c")));
+        PhoenixInputSplit split = new PhoenixInputSplit(scans, 1234L, "host1.example.com");
+
+        PhoenixInputSplit copy = copy(split);
+        assertEquals(split, copy);
+        assertEquals(2, copy.getScans().size());
+        assertEquals(1234L, copy.getLength());
+        assertArrayEquals(new String[] { "host1.example.com" }, copy.getLocations());
+    }
+
+    @Test
+    public void testSerializationWithoutLocation() throws Exception {
+        PhoenixInputSplit split = new PhoenixInputSplit(ImmutableList.of(new Scan()));
+
+        PhoenixInputSplit copy = copy(split);
+        assertEquals(split, copy);
+        assertEquals(0L, copy.getLength());
+        assertArrayEquals(new String[] {}, copy.getLocations());
+    }
+
+    private static PhoenixInputSplit copy(PhoenixInputSplit split) throws IOException {
+        DataOutputBuffer output = new DataOutputBuffer();
+        split.write(output);
+        DataInputBuffer input = new DataInputBuffer();
+        input.reset(output.getData(), output.getLength());
+        PhoenixInputSplit copy = new PhoenixInputSplit();
+        copy.readFields(input);
+        return copy;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsInfo;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.phoenix.cache.TenantCacheImpl;
+import org.apache.phoenix.coprocessor.ServerCachingProtocol.ServerCacheFactory;
+import org.apache.phoenix.hbase.index.exception.IndexWriteException;
+import org.apache.phoenix.hbase.index.exception.SingleIndexWriteFailureException;
+import org.apache.phoenix.hbase.index.table.HTableInterfaceReference;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.hbase.index.write.IndexCommitter;
+import org.apache.phoenix.hbase.index.write.IndexFailurePolicy;
+import org.apache.phoenix.hbase.index.write.IndexWriter;
+import org.apache.phoenix.memory.GlobalMemoryManager;
+import org.apache.phoenix.memory.MemoryManager.MemoryChunk;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+/**
+ * Test that the region server metrics move as the coprocessor code records its work.
+ * The source is a singleton shared by every test, so only the change in each metric
+ * is checked.
+ */
+public class PhoenixServerMetricsSourceTest {
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        DefaultMetricsSystem.setMiniClusterMode(true);
+    }
+
+    /**
+     * @return the value of every counter and gauge reported by the source, by name
+     */
+    private static Map<String, Number> getMetrics() {
+        final Map<String, Number> metrics = Maps.newHashMap();
+        MetricsRecordBuilder builder = Mockito.mock(MetricsRecordBuilder.class, new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                if (args.length == 2 && args[0] instanceof MetricsInfo && args[1] instanceof Number) {
+                    metrics.put(((MetricsInfo)args[0]).name(), (Number)args[1]);
+                }
+                return invocation.getMock();
+            }
+        });
+        MetricsCollector collector = Mockito.mock(MetricsCollector.class);
+        Mockito.when(collector.addRecord(Mockito.any(MetricsInfo.class))).thenReturn(builder);
+        PhoenixServerMetricsSource.getInstance().getMetrics(collector, true);
+        return metrics;
+    }
+
+    private static long getMetric(Map<String, Number> metrics, String name) {
+        Number value = metrics.get(name);
+        return value == null ? 0 : value.longValue();
+    }
+
+    private static void assertMoved(long expectedDelta, Map<String, Number> before, Map<String, Number> after, String name) {
+        assertEquals(name, expectedDelta, getMetric(after, name) - getMetric(before, name));
+    }
+
+    @Test
+    public void testScanCounters() {
+        Map<String, Number> before = getMetrics();
+        PhoenixServerMetricsSource.getInstance().updateScan("SCAN_TEST", 10, 3);
+        Map<String, Number> after = getMetrics();
+        assertMoved(10, before, after, PhoenixServerMetricsSource.ROWS_SCANNED);
+        assertMoved(3, before, after, PhoenixServerMetricsSource.ROWS_RETURNED);
+        assertMoved(7, before, after, PhoenixServerMetricsSource.ROWS_FILTERED);
+        assertMoved(10, before, after, "table.SCAN_TEST." + PhoenixServerMetricsSource.ROWS_SCANNED);
+    }
+
+    @Test
+    public void testAggregationAndSpillCounters() {
+        Map<String, Number> before = getMetrics();
+        PhoenixServerMetricsSource.getInstance().incrAggregationGroups(5);
+        PhoenixServerMetricsSource.getInstance().incrSpillBytes(1024);
+        Map<String, Number> after = getMetrics();
+        assertMoved(5, before, after, PhoenixServerMetricsSource.AGGREGATION_GROUPS);
+        assertMoved(1024, before, after, PhoenixServerMetricsSource.SPILL_BYTES);
+    }
+
+    @Test
+    public void testHashCacheGauge() throws SQLException {
+        TenantCacheImpl cache = new TenantCacheImpl(new GlobalMemoryManager(1000, 10), 60000);
+        ImmutableBytesPtr cacheId = new ImmutableBytesPtr(Bytes.toBytes("cache"));
+        ServerCacheFactory cacheFactory = new ServerCacheFactory() {
+            @Override
+            public Closeable newCache(ImmutableBytesWritable cachePtr, final MemoryChunk chunk) throws SQLException {
+                return new Closeable() {
+                    @Override
+                    public void close() throws IOException {
+                        chunk.close();
+                    }
+                };
+            }
+
+            @Override
+            public void write(DataOutput out) throws IOException {
+            }
+
+            @Override
+            public void readFields(DataInput in) throws IOException {
+            }
+        };
+
+        Map<String, Number> before = getMetrics();
+        cache.addServerCache(cacheId, new ImmutableBytesWritable(new byte[100]), cacheFactory);
+        Map<String, Number> after = getMetrics();
+        assertMoved(100, before, after, PhoenixServerMetricsSource.HASH_CACHE_BYTES);
+
+        // The bytes are released again once the cache is removed
+        cache.removeServerCache(cacheId);
+        assertMoved(0, before, getMetrics(), PhoenixServerMetricsSource.HASH_CACHE_BYTES);
+    }
+
+    @Test
+    public void testIndexWriteMetrics() throws Exception {
+        IndexCommitter committer = Mockito.mock(IndexCommitter.class);
+        IndexWriter writer = new IndexWriter(committer, Mockito.mock(IndexFailurePolicy.class),
+                Mockito.mock(RegionCoprocessorEnvironment.class), "test");
+        Multimap<HTableInterfaceReference, Mutation> toWrite = ArrayListMultimap.create();
+
+        Map<String, Number> before = getMetrics();
+        writer.write(toWrite);
+        Map<String, Number> after = getMetrics();
+        assertMoved(1, before, after, PhoenixServerMetricsSource.INDEX_WRITE + "NumOps");
+        assertMoved(0, before, after, PhoenixServerMetricsSource.INDEX_WRITE_FAILURES);
+
+        Mockito.doThrow(new SingleIndexWriteFailureException("Index table unavailable", null)).when(committer).write(toWrite);
+        try {
+            writer.write(toWrite);
+            fail();
+        } catch (IndexWriteException e) {
+        }
+        Map<String, Number> afterFailure = getMetrics();
+        assertMoved(1, after, afterFailure, PhoenixServerMetricsSource.INDEX_WRITE + "NumOps");
+        assertMoved(1, after, afterFailure, PhoenixServerMetricsSource.INDEX_WRITE_FAILURES);
+    }
+
+    @Test
+    public void testMemoryGauges() {
+        GlobalMemoryManager memoryManager = new GlobalMemoryManager(1000, 10);
+        PhoenixServerMetricsSource.getInstance().setMemoryManager(memoryManager);
+        MemoryChunk chunk = memoryManager.allocate(300);
+        try {
+            Map<String, Number> metrics = getMetrics();
+            assertEquals(300, getMetric(metrics, PhoenixServerMetricsSource.MEMORY_USED));
+            assertEquals(1000, getMetric(metrics, PhoenixServerMetricsSource.MEMORY_MAX));
+            assertEquals(0, getMetric(metrics, PhoenixServerMetricsSource.MEMORY_WAITERS));
+        } finally {
+            chunk.close();
+        }
+        assertEquals(0, getMetric(getMetrics(), PhoenixServerMetricsSource.MEMORY_USED));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.ObjectName;
+
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long value = 0; value < 1L << 20; value++) {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue(value <= LatencyHistogram.getBucketUpperBound(index));
+            if (index > 0) {
+                assertTrue(value > LatencyHistogram.getBucketUpperBound(index - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(MetricType.COMPILE_LATENCY);
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long value = 1; value <= 10000; value++) {
+            histogram.update(value);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 0.001);
+        assertWithinPrecision(5000, histogram.getMedian());
+        assertWithinPrecision(9900, histogram.getPercentile99());
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+        
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMedian());
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram(MetricType.COMMIT_LATENCY);
+        histogram.update(-1);
+        histogram.update(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testConnectionPropsRespected() {
+        LatencyHistogram parseLatency = null;
+        for (LatencyHistogram histogram : LatencyHistograms.getHistograms()) {
+            if (histogram.getName().equals(MetricType.PARSE_LATENCY.name())) {
+                parseLatency = histogram;
+            }
+        }
+        long count = parseLatency.getCount();
+        ReadOnlyProps disabledProps = new ReadOnlyProps(Collections.singletonMap(QueryServices.GLOBAL_METRICS_ENABLED, "false"));
+        LatencyHistograms.update(disabledProps, MetricType.PARSE_LATENCY, "PROPS_T", 1000);
+        assertEquals(count, parseLatency.getCount());
+        assertFalse(LatencyHistograms.getTableHistograms().containsKey("PROPS_T"));
+
+        // Per table histograms may be turned off on their own
+        ReadOnlyProps noTableProps = new ReadOnlyProps(Collections.singletonMap(QueryServices.TABLE_LATENCY_HISTOGRAMS_ENABLED, "false"));
+        LatencyHistograms.update(noTableProps, MetricType.PARSE_LATENCY, "PROPS_T", 1000);
+        assertEquals(count + 1, parseLatency.getCount());
+        assertFalse(LatencyHistograms.getTableHistograms().containsKey("PROPS_T"));
+    }
+
+    @Test
+    public void testTableHistogramsBounded() throws Exception {
+        int maxTables = QueryServicesOptions.DEFAULT_TABLE_LATENCY_HISTOGRAMS_MAX_TABLES;
+        for (int i = 0; i < 2 * maxTables; i++) {
+            LatencyHistograms.update(ReadOnlyProps.EMPTY_PROPS, MetricType.COMPILE_LATENCY, "BOUNDED_T" + i, 1000);
+        }
+        Map<String, ?> tableHistograms = LatencyHistograms.getTableHistograms();
+        assertTrue(tableHistograms.size() <= maxTables);
+        int keptTables = 0;
+        for (String tableName : tableHistograms.keySet()) {
+            if (tableName.startsWith("BOUNDED_T")) {
+                keptTables++;
+            }
+        }
+        // The MBeans of the tables that were dropped are unregistered
+        Set<ObjectName> names = ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName(
+                "org.apache.phoenix:type=LatencyHistograms,phase=" + MetricType.COMPILE_LATENCY.name() + ",*"), null);
+        int registeredTables = 0;
+        for (ObjectName name : names) {
+            String table = name.getKeyProperty("table");
+            if (table != null && ObjectName.unquote(table).startsWith("BOUNDED_T")) {
+                registeredTables++;
+            }
+        }
+        assertEquals(keptTables, registeredTables);
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("Expected " + expected + " but got " + actual, actual >= expected && actual <= expected * 1.04);
+    }
+}
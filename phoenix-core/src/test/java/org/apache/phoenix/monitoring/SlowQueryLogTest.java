@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.monitoring;
+
+import static org.apache.phoenix.monitoring.MetricType.SCAN_BYTES;
+import static org.apache.phoenix.monitoring.MetricType.TASK_EXECUTED_COUNTER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixPreparedStatement;
+import org.apache.phoenix.jdbc.PhoenixStatement;
+import org.apache.phoenix.query.BaseConnectionlessQueryTest;
+import org.apache.phoenix.query.QueryServices;
+import org.apache.phoenix.util.ReadOnlyProps;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class SlowQueryLogTest extends BaseConnectionlessQueryTest {
+
+    /**
+     * Log that logs every statement and keeps the SQL and parameter types of each in memory
+     */
+    private static class RecordingSlowQueryLog extends SlowQueryLog {
+        private final List<String> entries = Lists.newArrayList();
+
+        private RecordingSlowQueryLog() {
+            super(true, 0, 0, 16);
+        }
+
+        @Override
+        public boolean add(String sql, List<Object> parameters, List<String> planSteps, long elapsedNanos, long bytesRead,
+                Map<String, Long> queryMetrics, Map<String, Map<String, Long>> readMetrics) {
+            entries.add(sql + " " + parameters);
+            return true;
+        }
+    }
+
+    @Test
+    public void testThresholds() {
+        SlowQueryLog log = new SlowQueryLog(true, 1000, 1024, 16);
+        assertFalse(log.isSlow(TimeUnit.MILLISECONDS.toNanos(999), 1023));
+        assertTrue(log.isSlow(TimeUnit.MILLISECONDS.toNanos(1000), 0));
+        assertTrue(log.isSlow(0, 1024));
+        
+        SlowQueryLog disabledLog = new SlowQueryLog(false, 1000, 1024, 16);
+        assertFalse(disabledLog.isSlow(TimeUnit.MILLISECONDS.toNanos(5000), 4096));
+        
+        SlowQueryLog noBytesThresholdLog = new SlowQueryLog(true, 1000, 0, 16);
+        assertFalse(noBytesThresholdLog.isSlow(0, 4096));
+    }
+
+    @Test
+    public void testBytesRead() {
+        Map<String, Map<String, Long>> readMetrics = new HashMap<String, Map<String, Long>>();
+        Map<String, Long> t1 = new HashMap<String, Long>();
+        t1.put(SCAN_BYTES.name(), 100L);
+        t1.put(TASK_EXECUTED_COUNTER.name(), 3L);
+        readMetrics.put("T1", t1);
+        readMetrics.put("T2", Collections.singletonMap(SCAN_BYTES.name(), 50L));
+        assertEquals(150, SlowQueryLog.getBytesRead(readMetrics));
+    }
+
+    @Test
+    public void testMutationsLogged() throws SQLException {
+        final RecordingSlowQueryLog log = new RecordingSlowQueryLog();
+        Connection conn = DriverManager.getConnection(getUrl());
+        try {
+            PhoenixConnection pconn = conn.unwrap(PhoenixConnection.class);
+            // DDL statements are logged
+            PhoenixStatement stmt = new PhoenixStatement(pconn) {
+                @Override
+                protected SlowQueryLog getSlowQueryLog() {
+                    return log;
+                }
+            };
+            stmt.execute("CREATE TABLE SLOW_T (k VARCHAR PRIMARY KEY, v INTEGER)");
+            assertEquals(Collections.singletonList("CREATE TABLE SLOW_T (k VARCHAR PRIMARY KEY, v INTEGER) []"), log.entries);
+
+            // as are DML statements, along with the types of their bind parameters
+            PhoenixPreparedStatement upsert = new PhoenixPreparedStatement(pconn, "UPSERT INTO SLOW_T VALUES (?, ?)") {
+                @Override
+                protected SlowQueryLog getSlowQueryLog() {
+                    return log;
+                }
+            };
+            upsert.setString(1, "a");
+            upsert.setInt(2, 1);
+            assertEquals(1, upsert.executeUpdate());
+            assertEquals(2, log.entries.size());
+            assertEquals("UPSERT INTO SLOW_T VALUES (?, ?) [a, 1]", log.entries.get(1));
+        } finally {
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testEntriesDroppedWhenBufferFull() {
+        // Without a writer nothing is taken out of the buffer
+        SlowQueryLog log = new SlowQueryLog(true, 0, 0, 1) {
+            @Override
+            void startWriter() {
+            }
+        };
+        assertTrue(log.add("SELECT * FROM T1", Collections.<Object>singletonList("a"), Collections.<String>emptyList(), 0, 0,
+                Collections.<String, Long>emptyMap(), Collections.<String, Map<String, Long>>emptyMap()));
+        assertFalse(log.add("SELECT * FROM T2", Collections.<Object>singletonList("a"), Collections.<String>emptyList(), 0, 0,
+                Collections.<String, Long>emptyMap(), Collections.<String, Map<String, Long>>emptyMap()));
+        assertEquals(1, log.getDroppedCount());
+        assertNotNull(log.poll());
+        assertNull(log.poll());
+    }
+
+    @Test
+    public void testConfiguredFromQueryServicesProperties() {
+        Map<String, String> props = new HashMap<String, String>();
+        props.put(QueryServices.SLOW_QUERY_LOG_ENABLED, "true");
+        props.put(QueryServices.SLOW_QUERY_LOG_THRESHOLD_MS_ATTRIB, "5");
+        props.put(QueryServices.SLOW_QUERY_LOG_THRESHOLD_BYTES_ATTRIB, "0");
+        SlowQueryLog log = new SlowQueryLog(new ReadOnlyProps(props));
+        try {
+            assertTrue(log.isEnabled());
+            assertFalse(log.isSlow(TimeUnit.MILLISECONDS.toNanos(4), Long.MAX_VALUE));
+            assertTrue(log.isSlow(TimeUnit.MILLISECONDS.toNanos(5), 0));
+        } finally {
+            log.close();
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.phoenix.parse;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -765,4 +766,21 @@ public class QueryParserTest {
         String sql = "select * from t where 'a' <= ALL(a-b+1)";
         parseQuery(sql);
     }
+
+    @Test
+    public void testExplainAnalyze() throws Exception {
+        ExplainStatement stmt = (ExplainStatement)new SQLParser("explain select * from t").parseStatement();
+        assertFalse(stmt.isAnalyze());
+        stmt = (ExplainStatement)new SQLParser("explain analyze select * from t").parseStatement();
+        assertTrue(stmt.isAnalyze());
+        assertTrue(stmt.getStatement() instanceof SelectStatement);
+        // ANALYZE is not a reserved word
+        parseQuery("select analyze from analyze where analyze = 1");
+        try {
+            new SQLParser("explain analyse select * from t").parseStatement();
+            fail();
+        } catch (SQLException e) {
+            assertEquals(SQLExceptionCode.PARSER_ERROR.getErrorCode(), e.getErrorCode());
+        }
+    }
 }
@@ -26,6 +26,7 @@ import java.sql.SQLException;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class PMetaDataImplTest {
     
@@ -163,6 +164,23 @@ public class PMetaDataImplTest {
         assertNames(metaData, "f");
     }
 
+    @Test
+    public void testResolvedTimestamp() throws Exception {
+        PMetaData metaData = new PMetaDataImpl(5, 10, new TestTimeKeeper());
+        metaData = addToTable(metaData, "a", 1);
+        PTableKey key = new PTableKey(null, "a");
+        // The first tick of the time keeper is used both as access and resolved time
+        assertEquals(0, metaData.getTableRef(key).getResolvedTimeStamp());
+        metaData = metaData.updateResolvedTimestamp(getFromTable(metaData, "a"), 100);
+        assertEquals(100, metaData.getTableRef(key).getResolvedTimeStamp());
+        // Cloning must carry over the resolved time
+        metaData = metaData.clone();
+        assertEquals(100, metaData.getTableRef(key).getResolvedTimeStamp());
+        // Re-adding the table resets the resolved time
+        metaData = addToTable(metaData, "a", 1);
+        assertTrue(metaData.getTableRef(key).getResolvedTimeStamp() < 100);
+    }
+
     private static class PSizedTable extends PTableImpl {
         private final int size;
         private final PTableKey key;
@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.schema;
+
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.CACHE_SIZE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.CURRENT_VALUE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.CYCLE_FLAG_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.INCREMENT_BY_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.LIMIT_REACHED_FLAG_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.MAX_VALUE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.MIN_VALUE_BYTES;
+import static org.apache.phoenix.jdbc.PhoenixDatabaseMetaData.SEQUENCE_FAMILY_BYTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Append;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.phoenix.coprocessor.SequenceRegionObserver;
+import org.apache.phoenix.query.QueryServicesOptions;
+import org.apache.phoenix.schema.Sequence.ValueOp;
+import org.apache.phoenix.schema.types.PBoolean;
+import org.apache.phoenix.schema.types.PLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the client side bookkeeping of sequence blocks prefetched in the background.
+ */
+public class SequenceTest {
+    private static final long SEQUENCE_TIMESTAMP = 1000;
+    private static final long CACHE_SIZE = 10;
+    private static final int PREFETCH_THRESHOLD_PERC = 20;
+
+    private SequenceKey key;
+    private Sequence sequence;
+
+    @Before
+    public void setUp() {
+        key = new SequenceKey(null, "seqprefetch", "sequenceA", QueryServicesOptions.DEFAULT_SEQUENCE_TABLE_SALT_BUCKETS);
+        sequence = new Sequence(key);
+    }
+
+    /**
+     * @return the row returned by the server for an increment reserving the block ending before nextValue
+     */
+    private Result newIncrementResult(long nextValue) {
+        byte[] row = key.getKey();
+        List<Cell> cells = Lists.<Cell>newArrayList(
+                new KeyValue(row, SEQUENCE_FAMILY_BYTES, CURRENT_VALUE_BYTES, SEQUENCE_TIMESTAMP, PLong.INSTANCE.toBytes(nextValue)),
+                new KeyValue(row, SEQUENCE_FAMILY_BYTES, INCREMENT_BY_BYTES, SEQUENCE_TIMESTAMP, PLong.INSTANCE.toBytes(1L)),
+                new KeyValue(row, SEQUENCE_FAMILY_BYTES, CACHE_SIZE_BYTES, SEQUENCE_TIMESTAMP, PLong.INSTANCE.toBytes(CACHE_SIZE)),
+                new KeyValue(row, SEQUENCE_FAMILY_BYTES, MIN_VALUE_BYTES, SEQUENCE_TIMESTAMP, PLong.INSTANCE.toBytes(Long.MIN_VALUE)),
+                new KeyValue(row, SEQUENCE_FAMILY_BYTES, MAX_VALUE_BYTES, SEQUENCE_TIMESTAMP, PLong.INSTANCE.toBytes(Long.MAX_VALUE)),
+                new KeyValue(row, SEQUENCE_FAMILY_BYTES, CYCLE_FLAG_BYTES, SEQUENCE_TIMESTAMP, PBoolean.INSTANCE.toBytes(false)),
+                new KeyValue(row, SEQUENCE_FAMILY_BYTES, LIMIT_REACHED_FLAG_BYTES, SEQUENCE_TIMESTAMP, PBoolean.INSTANCE.toBytes(false)));
+        Collections.sort(cells, KeyValue.COMPARATOR);
+        return Result.create(cells);
+    }
+
+    private long nextValue() throws SQLException {
+        return sequence.incrementValue(HConstants.LATEST_TIMESTAMP, ValueOp.INCREMENT_SEQUENCE, 1);
+    }
+
+    private static long getExpectedValue(Append append) {
+        return PLong.INSTANCE.getCodec().decodeLong(append.getAttribute(SequenceRegionObserver.CURRENT_VALUE_ATTRIB), 0, SortOrder.getDefault());
+    }
+
+    private static long getReturnedValue(Append append) {
+        Cell cell = append.getFamilyCellMap().get(SEQUENCE_FAMILY_BYTES).get(0);
+        return PLong.INSTANCE.getCodec().decodeLong(cell.getValueArray(), cell.getValueOffset(), SortOrder.getDefault());
+    }
+
+    /**
+     * Reserves the block [1, 10] and takes values up to and including lastValue
+     */
+    private void allocateFirstBlock(long lastValue) throws SQLException {
+        assertEquals(1, sequence.incrementValue(newIncrementResult(CACHE_SIZE + 1), ValueOp.INCREMENT_SEQUENCE, 1));
+        for (long i = 2; i <= lastValue; i++) {
+            assertEquals(i, nextValue());
+        }
+    }
+
+    @Test
+    public void testPrefetchThreshold() throws SQLException {
+        allocateFirstBlock(1);
+        // Prefetch only once no more than 20% of the block is left
+        for (long i = 2; i < 8; i++) {
+            assertNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+            assertEquals(i, nextValue());
+        }
+        assertNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        assertEquals(8, nextValue());
+        assertNotNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        assertTrue(sequence.isPrefetching());
+        // Only one prefetch at a time
+        assertNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+    }
+
+    @Test
+    public void testConsumePrefetchedBlock() throws SQLException {
+        allocateFirstBlock(8);
+        assertNotNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        assertNull(sequence.setPrefetchedValues(HConstants.LATEST_TIMESTAMP, newIncrementResult(2 * CACHE_SIZE + 1)));
+        assertFalse(sequence.isPrefetching());
+        // No further prefetch while a block is waiting to be used
+        assertNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        // Values run on into the prefetched block without going back to the server
+        for (long i = 9; i <= 2 * CACHE_SIZE; i++) {
+            assertEquals(i, nextValue());
+        }
+        try {
+            nextValue();
+            fail();
+        } catch (EmptySequenceCacheException e) {
+        }
+    }
+
+    @Test
+    public void testClearPrefetch() throws SQLException {
+        allocateFirstBlock(8);
+        assertNotNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        sequence.clearPrefetch();
+        assertFalse(sequence.isPrefetching());
+        assertEquals(9, nextValue());
+        assertEquals(10, nextValue());
+        // Without a prefetched block the next value comes from the server
+        try {
+            nextValue();
+            fail();
+        } catch (EmptySequenceCacheException e) {
+        }
+        // and the failed prefetch may be retried
+        assertNotNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+    }
+
+    @Test
+    public void testReturnWithPrefetchedBlock() throws SQLException {
+        allocateFirstBlock(8);
+        assertNotNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        assertNull(sequence.setPrefetchedValues(HConstants.LATEST_TIMESTAMP, newIncrementResult(2 * CACHE_SIZE + 1)));
+        // Both the rest of the current block and the prefetched block are returned
+        Append append = sequence.newReturn(HConstants.LATEST_TIMESTAMP);
+        assertEquals(2 * CACHE_SIZE + 1, getExpectedValue(append));
+        assertEquals(9, getReturnedValue(append));
+
+        List<Append> appends = sequence.newReturns();
+        assertEquals(1, appends.size());
+        assertEquals(2 * CACHE_SIZE + 1, getExpectedValue(appends.get(0)));
+        assertEquals(9, getReturnedValue(appends.get(0)));
+    }
+
+    @Test
+    public void testReturnWhilePrefetching() throws SQLException {
+        allocateFirstBlock(8);
+        assertNotNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        List<Append> appends = sequence.newReturns();
+        assertEquals(1, appends.size());
+        assertEquals(CACHE_SIZE + 1, getExpectedValue(appends.get(0)));
+        assertEquals(9, getReturnedValue(appends.get(0)));
+        // The block arriving after the return is handed back rather than dropped
+        Append append = sequence.setPrefetchedValues(HConstants.LATEST_TIMESTAMP, newIncrementResult(2 * CACHE_SIZE + 1));
+        assertNotNull(append);
+        assertEquals(2 * CACHE_SIZE + 1, getExpectedValue(append));
+        assertEquals(CACHE_SIZE + 1, getReturnedValue(append));
+        assertFalse(sequence.isPrefetching());
+    }
+
+    @Test
+    public void testPrefetchedBlockKeptWhenValueReplaced() throws SQLException {
+        allocateFirstBlock(8);
+        assertNotNull(sequence.newPrefetchIncrement(HConstants.LATEST_TIMESTAMP, PREFETCH_THRESHOLD_PERC));
+        // A synchronous allocation replaces the cached value while the prefetch is in flight
+        assertEquals(2 * CACHE_SIZE + 1, sequence.incrementValue(newIncrementResult(3 * CACHE_SIZE + 1), ValueOp.INCREMENT_SEQUENCE, 1));
+        // The prefetched block is still kept for the new value
+        assertNull(sequence.setPrefetchedValues(HConstants.LATEST_TIMESTAMP, newIncrementResult(2 * CACHE_SIZE + 1)));
+        // and carried over when the value is replaced again
+        assertEquals(3 * CACHE_SIZE + 1, sequence.incrementValue(newIncrementResult(4 * CACHE_SIZE + 1), ValueOp.INCREMENT_SEQUENCE, 1));
+        Append append = sequence.newReturn(HConstants.LATEST_TIMESTAMP);
+        assertEquals(2 * CACHE_SIZE + 1, getExpectedValue(append));
+        assertEquals(CACHE_SIZE + 1, getReturnedValue(append));
+        for (long i = 3 * CACHE_SIZE + 2; i <= 4 * CACHE_SIZE; i++) {
+            assertEquals(i, nextValue());
+        }
+        assertEquals(CACHE_SIZE + 1, nextValue());
+    }
+}
@@ -17,10 +17,12 @@
  */
 package org.apache.phoenix.trace;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsInfo;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.MetricsTag;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
@@ -89,6 +91,23 @@ public class TraceMetricsSourceTest {
     Mockito.verify(builder).add(Mockito.any(MetricsTag.class));
   }
 
+  @Test
+  public void testDropsSpansWhenFull(){
+    TraceMetricSource source = new TraceMetricSource(1);
+    source.receiveSpan(getSpan());
+    source.receiveSpan(getSpan());
+    assertEquals(1, source.getDroppedSpanCount());
+
+    // once the waiting span is collected, there is room for another one
+    MetricsCollector collector = Mockito.mock(MetricsCollector.class);
+    MetricsRecordBuilder builder = Mockito.mock(MetricsRecordBuilder.class);
+    Mockito.when(collector.addRecord(Mockito.anyString())).thenReturn(builder);
+    Mockito.when(collector.addRecord(Mockito.any(MetricsInfo.class))).thenReturn(builder);
+    source.getMetrics(collector, true);
+    source.receiveSpan(getSpan());
+    assertEquals(1, source.getDroppedSpanCount());
+  }
+
   private Span getSpan(){
     return new MilliSpan("test span", 0, 1 , 2, "pid");
   }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.trace.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.phoenix.util.EnvironmentEdge;
+import org.apache.phoenix.util.EnvironmentEdgeManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveSamplerTest {
+    private long now;
+
+    @Before
+    public void setUp() {
+        now = 1000000;
+        EnvironmentEdgeManager.injectEdge(new EnvironmentEdge() {
+            @Override
+            public long currentTime() {
+                return now;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        EnvironmentEdgeManager.reset();
+    }
+
+    @Test
+    public void testTargetRate() {
+        AdaptiveSampler sampler = new AdaptiveSampler(10, 1000);
+        int sampled = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sampler.next(null)) {
+                sampled++;
+            }
+        }
+        assertEquals(10, sampled);
+
+        // The next window spreads the target over as many requests as the last one
+        now += 1000;
+        sampler.next(null);
+        assertEquals(0.01, sampler.getProbability(), 0.0001);
+        sampled = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (sampler.next(null)) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled <= 10);
+    }
+
+    @Test
+    public void testSlowStatementsAlwaysSampled() {
+        AdaptiveSampler sampler = new AdaptiveSampler(1, 1000);
+        String slowQuery = "SELECT * FROM T";
+        String fastQuery = "SELECT * FROM T LIMIT 1";
+        assertTrue(sampler.next(fastQuery));
+        assertFalse(sampler.next(fastQuery));
+        sampler.update(slowQuery, TimeUnit.MILLISECONDS.toNanos(2000));
+        sampler.update(fastQuery, TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(sampler.next(slowQuery));
+        assertTrue(sampler.next(slowQuery));
+        assertFalse(sampler.next(fastQuery));
+    }
+}
@@ -75,6 +75,9 @@ public class PhoenixRuntimeTest extends BaseConnectionlessQueryTest {
         assertEquals(
                 CSVCommonsLoader.DEFAULT_ARRAY_ELEMENT_SEPARATOR,
                 execCmd.getArrayElementSeparator());
+
+        assertEquals(1, execCmd.getThreadCount());
+        assertNull(execCmd.getRejectFile());
     }
 
     @Test
@@ -82,7 +85,7 @@ public class PhoenixRuntimeTest extends BaseConnectionlessQueryTest {
         PhoenixRuntime.ExecutionCommand execCmd = PhoenixRuntime.ExecutionCommand.parseArgs(
                 new String[] { "-t", "mytable", "myzkhost:2181",  "--strict", "file1.sql",
                         "test.csv", "file2.sql", "--header", "one, two,three", "-a", "!", "-d",
-                        ":", "-q", "3", "-e", "4" });
+                        ":", "-q", "3", "-e", "4", "-n", "8", "--reject-file", "rejects.csv" });
 
         assertEquals("myzkhost:2181", execCmd.getConnectionString());
 
@@ -98,6 +101,8 @@ public class PhoenixRuntimeTest extends BaseConnectionlessQueryTest {
         assertEquals(ImmutableList.of("one", "two", "three"), execCmd.getColumns());
         assertTrue(execCmd.isStrict());
         assertEquals("!", execCmd.getArrayElementSeparator());
+        assertEquals(8, execCmd.getThreadCount());
+        assertEquals("rejects.csv", execCmd.getRejectFile());
     }
     
     @Test
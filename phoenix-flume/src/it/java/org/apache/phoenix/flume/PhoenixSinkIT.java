@@ -39,11 +39,15 @@ import org.apache.phoenix.util.TestUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.util.Properties;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -251,6 +255,68 @@ public class PhoenixSinkIT extends BaseHBaseManagedTimeIT {
         assertTrue(rs.getLong(1) == 1L);
     }
     
+    @Test
+    public void testMultiThreadedSink() throws Exception {
+        final String fullTableName = "FLUME_TEST_THREADS";
+        String ddl = "CREATE TABLE " + fullTableName +
+                "  (flume_key varchar not null, col1 varchar , col2 varchar" +
+                "  CONSTRAINT pk PRIMARY KEY (flume_key))\n";
+
+        sinkContext = new Context ();
+        sinkContext.put(FlumeConstants.CONFIG_TABLE, fullTableName);
+        sinkContext.put(FlumeConstants.CONFIG_JDBC_URL, getUrl());
+        sinkContext.put(FlumeConstants.CONFIG_SERIALIZER,EventSerializers.REGEX.name());
+        sinkContext.put(FlumeConstants.CONFIG_TABLE_DDL, ddl);
+        sinkContext.put(FlumeConstants.CONFIG_BATCHSIZE, "20");
+        sinkContext.put(FlumeConstants.CONFIG_THREADS, "3");
+        sinkContext.put(FlumeConstants.CONFIG_SERIALIZER_PREFIX + FlumeConstants.CONFIG_REGULAR_EXPRESSION,"^([^\t]+)\t([^\t]+)$");
+        sinkContext.put(FlumeConstants.CONFIG_SERIALIZER_PREFIX + FlumeConstants.CONFIG_COLUMN_NAMES,"col1,col2");
+        sinkContext.put(FlumeConstants.CONFIG_SERIALIZER_PREFIX + FlumeConstants.CONFIG_ROWKEY_TYPE_GENERATOR,DefaultKeyGenerator.UUID.name());
+
+        sink = new PhoenixSink();
+        Configurables.configure(sink, sinkContext);
+
+        final Channel channel = this.initChannel();
+        sink.setChannel(channel);
+        sink.start();
+
+        final int eventCount = 50;
+        final Transaction transaction = channel.getTransaction();
+        transaction.begin();
+        for (int i = 0; i < eventCount; i++) {
+            channel.put(EventBuilder.withBody(Bytes.toBytes("value\t" + i)));
+        }
+        transaction.commit();
+        transaction.close();
+
+        // Two full batches of 20 events, then the remaining 10
+        Assert.assertEquals(Sink.Status.READY, sink.process());
+        Assert.assertEquals(Sink.Status.READY, sink.process());
+        Assert.assertEquals(Sink.Status.BACKOFF, sink.process());
+
+        // The counters of the sink are read the way a monitoring tool would, over JMX
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName counterName = new ObjectName("org.apache.flume.sink:type=" + sink.getName());
+        Assert.assertEquals((long)eventCount, mbeanServer.getAttribute(counterName, "EventDrainSuccessCount"));
+        Assert.assertEquals(2L, mbeanServer.getAttribute(counterName, "BatchCompleteCount"));
+        // Each transaction is cut into batches of at most 7 events, one per thread: 7+7+6, 7+7+6, then 7+3
+        Assert.assertEquals(8L, mbeanServer.getAttribute(counterName, "WriteBatchCount"));
+        assertTrue((Long)mbeanServer.getAttribute(counterName, "ChannelTakeTime") >= 0);
+        assertTrue((Long)mbeanServer.getAttribute(counterName, "WriteTime") >= 0);
+        assertTrue((Long)mbeanServer.getAttribute(counterName, "WriteWaitTime") >= 0);
+        sink.stop();
+
+        Properties props = PropertiesUtil.deepCopy(TEST_PROPERTIES);
+        final Connection conn = DriverManager.getConnection(getUrl(), props);
+        try {
+            ResultSet rs = conn.createStatement().executeQuery("SELECT count(*) FROM " + fullTableName);
+            assertTrue(rs.next());
+            Assert.assertEquals(eventCount, rs.getInt(1));
+        } finally {
+            conn.close();
+        }
+    }
+
     private Channel initChannel() {
         //Channel configuration
         Context channelContext = new Context();
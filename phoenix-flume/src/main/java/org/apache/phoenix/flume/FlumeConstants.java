@@ -55,6 +55,17 @@ public final class FlumeConstants {
      */
     public static final Integer DEFAULT_BATCH_SIZE = 100;
 
+    /**
+     * Number of writer threads, each with its own serializer and connection, that the events
+     * taken in a transaction are spread over.
+     */
+    public static final String CONFIG_THREADS = "threads";
+
+    /**
+     * Default number of writer threads, writing on the sink's own thread.
+     */
+    public static final Integer DEFAULT_THREADS = 1;
+
     /** Regular expression used to parse groups from event data. */
     public static final String CONFIG_REGULAR_EXPRESSION = "regex";
     public static final String REGEX_DEFAULT = "(.*)";
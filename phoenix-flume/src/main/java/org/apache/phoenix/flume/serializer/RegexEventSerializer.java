@@ -35,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import org.apache.phoenix.jdbc.PhoenixConnection;
 import org.apache.phoenix.schema.types.PDataType;
 
 public class RegexEventSerializer extends BaseEventSerializer {
@@ -42,6 +43,10 @@ public class RegexEventSerializer extends BaseEventSerializer {
     private static final Logger logger = LoggerFactory.getLogger(RegexEventSerializer.class);
   
     private Pattern inputPattern;
+    // Types of the columns in columnMetadata, looked up once rather than for every value
+    private PDataType[] columnTypes;
+    // Parsed once, as the upsert statement is the same for every batch
+    private PreparedStatement colUpsert;
     
     /**
      * 
@@ -59,7 +64,13 @@ public class RegexEventSerializer extends BaseEventSerializer {
      */
     @Override
     public void doInitialize() throws SQLException {
-        // NO-OP
+        columnTypes = new PDataType[columnMetadata.length];
+        for (int i = 0; i < columnMetadata.length; i++) {
+            if (columnMetadata[i] != null) {
+                columnTypes[i] = PDataType.fromTypeId(columnMetadata[i].getSqlType());
+            }
+        }
+        colUpsert = connection.prepareStatement(upsertStatement);
     }
     
    
@@ -67,11 +78,12 @@ public class RegexEventSerializer extends BaseEventSerializer {
     public void upsertEvents(List<Event> events) throws SQLException {
        Preconditions.checkNotNull(events);
        Preconditions.checkNotNull(connection);
-       Preconditions.checkNotNull(this.upsertStatement);
+       Preconditions.checkNotNull(this.colUpsert);
        
-       PreparedStatement colUpsert = connection.prepareStatement(upsertStatement);
        boolean wasAutoCommit = connection.getAutoCommit();
        connection.setAutoCommit(false);
+       // Every event of the batch may become a row, so size the pending mutations for all of them
+       connection.unwrap(PhoenixConnection.class).getMutationState().setExpectedRowCount(events.size());
        
        String value = null;
        Integer sqlType = null;
@@ -101,7 +113,7 @@ public class RegexEventSerializer extends BaseEventSerializer {
                    
                    value = m.group(i + 1);
                    sqlType = columnMetadata[offset].getSqlType();
-                   Object upsertValue = PDataType.fromTypeId(sqlType).toObject(value);
+                   Object upsertValue = columnTypes[offset].toObject(value);
                    if (upsertValue != null) {
                        colUpsert.setObject(index++, upsertValue, sqlType);
                    } else {
@@ -116,7 +128,7 @@ public class RegexEventSerializer extends BaseEventSerializer {
                    String headerName  = headers.get(i);
                    String headerValue = headerValues.get(headerName);
                    sqlType = columnMetadata[offset].getSqlType();
-                   Object upsertValue = PDataType.fromTypeId(sqlType).toObject(headerValue);
+                   Object upsertValue = columnTypes[offset].toObject(headerValue);
                    if (upsertValue != null) {
                        colUpsert.setObject(index++, upsertValue, sqlType);
                    } else {
@@ -127,7 +139,7 @@ public class RegexEventSerializer extends BaseEventSerializer {
                if(autoGenerateKey) {
                    sqlType = columnMetadata[offset].getSqlType();
                    String generatedRowValue = this.keyGenerator.generate();
-                   Object rowkeyValue = PDataType.fromTypeId(sqlType).toObject(generatedRowValue);
+                   Object rowkeyValue = columnTypes[offset].toObject(generatedRowValue);
                    colUpsert.setObject(index++, rowkeyValue ,sqlType);
                } 
                colUpsert.execute();
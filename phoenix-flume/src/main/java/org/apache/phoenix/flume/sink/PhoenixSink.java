@@ -19,6 +19,13 @@ package org.apache.phoenix.flume.sink;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -29,7 +36,6 @@ import org.apache.flume.Event;
 import org.apache.flume.EventDeliveryException;
 import org.apache.flume.Transaction;
 import org.apache.flume.conf.Configurable;
-import org.apache.flume.instrumentation.SinkCounter;
 import org.apache.flume.sink.AbstractSink;
 import org.apache.phoenix.flume.FlumeConstants;
 import org.apache.phoenix.flume.serializer.EventSerializer;
@@ -41,15 +47,31 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * Sink upserting the events it takes from its channel into a Phoenix table.
+ * <p>
+ * With more than one writer thread configured, the events of a transaction are cut into one
+ * batch per thread, and each batch is handed to the next idle serializer, each having its own
+ * connection, as soon as it has been taken from the channel. Taking and parsing events thereby
+ * overlaps with the commits of the batches still in flight. The transaction is committed once
+ * all of its batches have been written, and rolled back if any of them failed.
+ */
 public class PhoenixSink extends AbstractSink implements Configurable {
     private static final Logger logger = LoggerFactory.getLogger(PhoenixSink.class);
     private static AtomicInteger counter = new AtomicInteger();
     private static final String NAME   = "Phoenix Sink__";
   
-    private SinkCounter sinkCounter;
+    private PhoenixSinkCounter sinkCounter;
     private Integer    batchSize;
+    private int threads;
+    // Number of events written at once by a writer thread
+    private int writeBatchSize;
     private EventSerializer serializer;
+    private List<EventSerializer> serializers;
+    private BlockingQueue<EventSerializer> idleSerializers;
+    private ExecutorService writerPool;
  
     public PhoenixSink(){
     }
@@ -58,18 +80,28 @@ public class PhoenixSink extends AbstractSink implements Configurable {
     public void configure(Context context){
         this.setName(NAME + counter.incrementAndGet());
         this.batchSize = context.getInteger(FlumeConstants.CONFIG_BATCHSIZE, FlumeConstants.DEFAULT_BATCH_SIZE);
+        this.threads = context.getInteger(FlumeConstants.CONFIG_THREADS, FlumeConstants.DEFAULT_THREADS);
+        Preconditions.checkArgument(this.threads > 0, "Number of threads must be positive");
+        this.writeBatchSize = (this.batchSize + this.threads - 1) / this.threads;
         final String eventSerializerType = context.getString(FlumeConstants.CONFIG_SERIALIZER);
         
         Preconditions.checkNotNull(eventSerializerType,"Event serializer cannot be empty, please specify in the configuration file");
-        initializeSerializer(context,eventSerializerType);
-        this.sinkCounter = new SinkCounter(this.getName());
+        this.serializers = Lists.newArrayListWithExpectedSize(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            // Only the first serializer, initialized first, runs the table ddl
+            this.serializers.add(initializeSerializer(context,eventSerializerType, i == 0));
+        }
+        this.serializer = this.serializers.get(0);
+        this.sinkCounter = new PhoenixSinkCounter(this.getName());
     }
 
     /**
      * Initializes the serializer for flume events.
      * @param eventSerializerType
+     * @param createTable whether the serializer should run the table ddl
      */
-    private void initializeSerializer(final Context context,final String eventSerializerType) {
+    private EventSerializer initializeSerializer(final Context context,final String eventSerializerType,
+            final boolean createTable) {
         String serializerClazz = null;
         EventSerializers eventSerializer = null;
 
@@ -81,7 +113,7 @@ public class PhoenixSink extends AbstractSink implements Configurable {
        
        final Context serializerContext = new Context();
        serializerContext.putAll(context.getSubProperties(FlumeConstants.CONFIG_SERIALIZER_PREFIX));
-       copyPropertiesToSerializerContext(context,serializerContext);
+       copyPropertiesToSerializerContext(context,serializerContext,createTable);
              
        try {
          @SuppressWarnings("unchecked")
@@ -93,18 +125,20 @@ public class PhoenixSink extends AbstractSink implements Configurable {
              clazz = (Class<? extends EventSerializer>) Class.forName(serializerClazz);
          }
 
-         serializer = clazz.newInstance();
+         EventSerializer serializer = clazz.newInstance();
          serializer.configure(serializerContext);
-         
+         return serializer;
        } catch (Exception e) {
          logger.error("Could not instantiate event serializer." , e);
-         Throwables.propagate(e);
+         throw Throwables.propagate(e);
        }
     }
 
-    private void copyPropertiesToSerializerContext(Context context, Context serializerContext) {
+    private void copyPropertiesToSerializerContext(Context context, Context serializerContext, boolean createTable) {
         
-        serializerContext.put(FlumeConstants.CONFIG_TABLE_DDL,context.getString(FlumeConstants.CONFIG_TABLE_DDL));
+        if (createTable) {
+            serializerContext.put(FlumeConstants.CONFIG_TABLE_DDL,context.getString(FlumeConstants.CONFIG_TABLE_DDL));
+        }
         serializerContext.put(FlumeConstants.CONFIG_TABLE,context.getString(FlumeConstants.CONFIG_TABLE));
         serializerContext.put(FlumeConstants.CONFIG_ZK_QUORUM,context.getString(FlumeConstants.CONFIG_ZK_QUORUM));
         serializerContext.put(FlumeConstants.CONFIG_JDBC_URL,context.getString(FlumeConstants.CONFIG_JDBC_URL));
@@ -116,25 +150,43 @@ public class PhoenixSink extends AbstractSink implements Configurable {
         logger.info("Starting sink {} ",this.getName());
         sinkCounter.start();
         try {
-              serializer.initialize();
-              sinkCounter.incrementConnectionCreatedCount();
+              for (EventSerializer serializer : serializers) {
+                  serializer.initialize();
+                  sinkCounter.incrementConnectionCreatedCount();
+              }
         } catch(Exception ex) {
             sinkCounter.incrementConnectionFailedCount();
             logger.error("Error {} in initializing the serializer.",ex.getMessage());
             Throwables.propagate(ex);
        }
+       if (threads > 1) {
+           idleSerializers = new LinkedBlockingQueue<EventSerializer>(serializers);
+           writerPool = Executors.newFixedThreadPool(threads,
+                   new ThreadFactoryBuilder().setNameFormat(getName() + "-writer-%d").setDaemon(true).build());
+       }
        super.start();
     }
     
     @Override
     public void stop(){
       super.stop();
-      try {
-          serializer.close();
-        } catch (SQLException e) {
-            logger.error(" Error while closing connection {} for sink {} ",e.getMessage(),this.getName());
-        }
-      sinkCounter.incrementConnectionClosedCount();
+      if (writerPool != null) {
+          writerPool.shutdown();
+          try {
+              writerPool.awaitTermination(1, TimeUnit.MINUTES);
+          } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+          }
+          writerPool = null;
+      }
+      for (EventSerializer serializer : serializers) {
+          try {
+              serializer.close();
+          } catch (SQLException e) {
+              logger.error(" Error while closing connection {} for sink {} ",e.getMessage(),this.getName());
+          }
+          sinkCounter.incrementConnectionClosedCount();
+      }
       sinkCounter.stop();
     }
 
@@ -144,14 +196,19 @@ public class PhoenixSink extends AbstractSink implements Configurable {
         Status status = Status.READY;
         Channel channel = getChannel();
         Transaction transaction = null;
-        List<Event>  events = Lists.newArrayListWithExpectedSize(this.batchSize); 
+        List<Event>  events = Lists.newArrayListWithExpectedSize(writerPool == null ? this.batchSize : this.writeBatchSize); 
+        List<Future<?>> writes = Lists.newArrayListWithExpectedSize(this.threads);
+        int eventCount = 0;
         long startTime = System.nanoTime();
         try {
             transaction = channel.getTransaction();
             transaction.begin();
             
+            long takeTime = 0;
             for(long i = 0; i < this.batchSize; i++) {
+                long takeStartTime = System.nanoTime();
                 Event event = channel.take();
+                takeTime += System.nanoTime() - takeStartTime;
                 if(event == null){
                   status = Status.BACKOFF;
                   if (i == 0) {
@@ -162,10 +219,17 @@ public class PhoenixSink extends AbstractSink implements Configurable {
                   break;
                 } else {
                   events.add(event);
+                  eventCount++;
+                  // Start writing a full batch while the next one is taken from the channel
+                  if (writerPool != null && events.size() == this.writeBatchSize) {
+                      writes.add(writerPool.submit(new WriteTask(events)));
+                      events = Lists.newArrayListWithExpectedSize(this.writeBatchSize);
+                  }
                 }
             }
-            if (!events.isEmpty()) {
-               if (events.size() == this.batchSize) {
+            sinkCounter.addToChannelTakeTime(TimeUnit.MILLISECONDS.convert(takeTime, TimeUnit.NANOSECONDS));
+            if (eventCount > 0) {
+               if (eventCount == this.batchSize) {
                     sinkCounter.incrementBatchCompleteCount();
                 }
                 else {
@@ -173,8 +237,15 @@ public class PhoenixSink extends AbstractSink implements Configurable {
                     status = Status.BACKOFF;
                 }
                 // save to Hbase
-                serializer.upsertEvents(events);
-                sinkCounter.addToEventDrainSuccessCount(events.size());
+                if (writerPool == null) {
+                    writeEvents(serializer, events);
+                } else {
+                    if (!events.isEmpty()) {
+                        writes.add(writerPool.submit(new WriteTask(events)));
+                    }
+                    awaitWrites(writes);
+                }
+                sinkCounter.addToEventDrainSuccessCount(eventCount);
             }
             else {
                 logger.debug("no events to process ");
@@ -183,6 +254,7 @@ public class PhoenixSink extends AbstractSink implements Configurable {
             }
             transaction.commit();
         } catch (ChannelException e) {
+            awaitWritesQuietly(writes);
             transaction.rollback();
             status = Status.BACKOFF;
             sinkCounter.incrementConnectionFailedCount();
@@ -194,13 +266,14 @@ public class PhoenixSink extends AbstractSink implements Configurable {
             throw new EventDeliveryException("Failed to persist message to Hbase", e);
         }
         catch (Throwable e) {
+            awaitWritesQuietly(writes);
             transaction.rollback();
             logger.error("exception while processing in Phoenix Sink", e);
             throw new EventDeliveryException("Failed to persist message", e);
         }
         finally {
             logger.info(String.format("Time taken to process [%s] events was [%s] seconds",
-                    events.size(),
+                    eventCount,
                     TimeUnit.SECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS)));
             if( transaction != null ) {
                 transaction.close();
@@ -209,4 +282,69 @@ public class PhoenixSink extends AbstractSink implements Configurable {
         return status;
    }
 
+    private void writeEvents(EventSerializer serializer, List<Event> events) throws SQLException {
+        long writeStartTime = System.nanoTime();
+        serializer.upsertEvents(events);
+        sinkCounter.incrementWriteBatchCount();
+        sinkCounter.addToWriteTime(TimeUnit.MILLISECONDS.convert(System.nanoTime() - writeStartTime, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Waits for all the writes of a transaction, rethrowing the first failure once they are done
+     * so that the transaction is not rolled back while some of its events are still being written.
+     */
+    private void awaitWrites(List<Future<?>> writes) throws SQLException, InterruptedException {
+        long waitStartTime = System.nanoTime();
+        Throwable failure = null;
+        try {
+            for (Future<?> write : writes) {
+                try {
+                    write.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+        } finally {
+            sinkCounter.addToWriteWaitTime(TimeUnit.MILLISECONDS.convert(System.nanoTime() - waitStartTime, TimeUnit.NANOSECONDS));
+        }
+        if (failure != null) {
+            Throwables.propagateIfInstanceOf(failure, SQLException.class);
+            throw Throwables.propagate(failure);
+        }
+    }
+
+    private void awaitWritesQuietly(List<Future<?>> writes) {
+        try {
+            awaitWrites(writes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("exception while writing events of a failed transaction", e);
+        }
+    }
+
+    /**
+     * Writes a batch of events with the next idle serializer.
+     */
+    private class WriteTask implements Callable<Void> {
+        private final List<Event> events;
+
+        private WriteTask(List<Event> events) {
+            this.events = events;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            EventSerializer serializer = idleSerializers.take();
+            try {
+                writeEvents(serializer, events);
+            } finally {
+                idleSerializers.add(serializer);
+            }
+            return null;
+        }
+    }
+
 }
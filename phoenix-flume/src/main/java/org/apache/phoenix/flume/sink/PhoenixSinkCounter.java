@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.flume.sink;
+
+import org.apache.flume.instrumentation.SinkCounter;
+
+/**
+ * {@link SinkCounter} with the time spent in each stage of the {@link PhoenixSink}.
+ */
+public class PhoenixSinkCounter extends SinkCounter implements PhoenixSinkCounterMBean {
+
+    private static final String COUNTER_CHANNEL_TAKE_TIME = "phoenix.channel.take.time";
+    private static final String COUNTER_WRITE_TIME = "phoenix.write.time";
+    private static final String COUNTER_WRITE_WAIT_TIME = "phoenix.write.wait.time";
+    private static final String COUNTER_WRITE_BATCH_COUNT = "phoenix.write.batch.count";
+
+    private static final String[] ATTRIBUTES = {
+        COUNTER_CHANNEL_TAKE_TIME, COUNTER_WRITE_TIME, COUNTER_WRITE_WAIT_TIME, COUNTER_WRITE_BATCH_COUNT
+    };
+
+    public PhoenixSinkCounter(String name) {
+        super(name, ATTRIBUTES);
+    }
+
+    /**
+     * Time in milliseconds spent taking events from the channel.
+     */
+    public long addToChannelTakeTime(long delta) {
+        return addAndGet(COUNTER_CHANNEL_TAKE_TIME, delta);
+    }
+
+    public long getChannelTakeTime() {
+        return get(COUNTER_CHANNEL_TAKE_TIME);
+    }
+
+    /**
+     * Time in milliseconds spent by the serializers parsing, upserting and committing events,
+     * summed over the writer threads.
+     */
+    public long addToWriteTime(long delta) {
+        return addAndGet(COUNTER_WRITE_TIME, delta);
+    }
+
+    public long getWriteTime() {
+        return get(COUNTER_WRITE_TIME);
+    }
+
+    /**
+     * Time in milliseconds the sink waited on writes still in flight once it was done taking
+     * the events of a transaction.
+     */
+    public long addToWriteWaitTime(long delta) {
+        return addAndGet(COUNTER_WRITE_WAIT_TIME, delta);
+    }
+
+    public long getWriteWaitTime() {
+        return get(COUNTER_WRITE_WAIT_TIME);
+    }
+
+    /**
+     * Number of batches of events handed to a serializer.
+     */
+    public long incrementWriteBatchCount() {
+        return increment(COUNTER_WRITE_BATCH_COUNT);
+    }
+
+    public long getWriteBatchCount() {
+        return get(COUNTER_WRITE_BATCH_COUNT);
+    }
+}
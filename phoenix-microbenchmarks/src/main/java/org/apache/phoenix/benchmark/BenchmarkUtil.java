@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixDriver;
+import org.apache.phoenix.util.PhoenixRuntime;
+
+/**
+ * Utilities shared by the benchmarks.
+ */
+final class BenchmarkUtil {
+    /** URL of a connection that compiles and buffers mutations without an HBase cluster */
+    static final String CONNECTIONLESS_URL = PhoenixRuntime.JDBC_PROTOCOL + PhoenixRuntime.JDBC_PROTOCOL_SEPARATOR
+            + PhoenixRuntime.CONNECTIONLESS;
+
+    private BenchmarkUtil() {
+    }
+
+    static PhoenixConnection getConnectionlessConnection() throws SQLException {
+        return getConnectionlessConnection(new Properties());
+    }
+
+    static PhoenixConnection getConnectionlessConnection(Properties props) throws SQLException {
+        try {
+            Class.forName(PhoenixDriver.class.getName());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        return DriverManager.getConnection(CONNECTIONLESS_URL, props).unwrap(PhoenixConnection.class);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixPreparedStatement;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks the parsing, compilation and optimization of a catalog of
+ * statement shapes against the metadata cached by a connectionless
+ * connection, isolating the compiler from any RPC. Run through
+ * {@link #main(String[])} (or with <code>-prof gc</code>) to report the
+ * allocation rate per compiled statement along with the compiles per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompilerBenchmark {
+    private static final int WIDE_TABLE_COLUMNS = 500;
+    private static final int IN_LIST_SIZE = 1000;
+    private static final int INDEX_COUNT = 20;
+    private static final int TENANT_COUNT = 10;
+    private static final String TENANT_ID = "tenant0";
+
+    public enum StatementShape {
+        WIDE_TABLE(wideTableQuery(), false),
+        MULTI_WAY_JOIN("SELECT O.ID, C.NAME, I.NAME, S.NAME FROM ORDERS O"
+                + " JOIN CUSTOMERS C ON O.CUSTOMER_ID = C.ID"
+                + " JOIN ITEMS I ON O.ITEM_ID = I.ID"
+                + " LEFT JOIN SUPPLIERS S ON I.SUPPLIER_ID = S.ID"
+                + " WHERE C.REGION = 'EU' AND O.QUANTITY > 10 ORDER BY O.ID", false),
+        LARGE_IN_LIST(inListQuery(), false),
+        SUBQUERY("SELECT ID FROM ORDERS O WHERE CUSTOMER_ID IN (SELECT ID FROM CUSTOMERS WHERE REGION = 'EU')"
+                + " AND EXISTS (SELECT 1 FROM ITEMS I WHERE I.ID = O.ITEM_ID AND I.PRICE > 100)", false),
+        MANY_INDEXES("SELECT K, V4 FROM INDEXED_TABLE WHERE V3 = 'x' AND V7 > 'm'", false),
+        TENANT_VIEW("SELECT K, V2 FROM TENANT_VIEW WHERE V1 = 'x' AND K > 'a'", true);
+
+        private final String sql;
+        private final boolean isTenantSpecific;
+
+        private StatementShape(String sql, boolean isTenantSpecific) {
+            this.sql = sql;
+            this.isTenantSpecific = isTenantSpecific;
+        }
+    }
+
+    @Param
+    private StatementShape shape;
+
+    private PhoenixConnection globalConn;
+    private PhoenixConnection tenantConn;
+
+    private static String wideTableQuery() {
+        StringBuilder buf = new StringBuilder("SELECT K");
+        for (int i = 0; i < WIDE_TABLE_COLUMNS; i += 5) {
+            buf.append(", C").append(i);
+        }
+        buf.append(" FROM WIDE_TABLE WHERE K > 'a' AND C10 > 5 AND C255 = 'x' AND C499 IS NOT NULL");
+        return buf.toString();
+    }
+
+    private static String inListQuery() {
+        StringBuilder buf = new StringBuilder("SELECT * FROM ORDERS WHERE ID IN (");
+        for (int i = 0; i < IN_LIST_SIZE; i++) {
+            buf.append(i == 0 ? "" : ",").append(i * 7);
+        }
+        buf.append(")");
+        return buf.toString();
+    }
+
+    @Setup
+    public void setup() throws SQLException {
+        globalConn = BenchmarkUtil.getConnectionlessConnection();
+        Statement stmt = globalConn.createStatement();
+        StringBuilder wideTable = new StringBuilder("CREATE TABLE IF NOT EXISTS WIDE_TABLE (K VARCHAR PRIMARY KEY");
+        for (int i = 0; i < WIDE_TABLE_COLUMNS; i++) {
+            wideTable.append(", C").append(i).append(i % 2 == 0 ? " INTEGER" : " VARCHAR");
+        }
+        stmt.execute(wideTable.append(")").toString());
+        stmt.execute("CREATE TABLE IF NOT EXISTS ORDERS (ID BIGINT PRIMARY KEY, CUSTOMER_ID BIGINT, ITEM_ID BIGINT,"
+                + " QUANTITY INTEGER, ORDER_DATE DATE)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS CUSTOMERS (ID BIGINT PRIMARY KEY, NAME VARCHAR, REGION VARCHAR)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS ITEMS (ID BIGINT PRIMARY KEY, NAME VARCHAR, PRICE DECIMAL,"
+                + " SUPPLIER_ID BIGINT)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS SUPPLIERS (ID BIGINT PRIMARY KEY, NAME VARCHAR)");
+
+        StringBuilder indexedTable = new StringBuilder("CREATE TABLE IF NOT EXISTS INDEXED_TABLE (K VARCHAR PRIMARY KEY");
+        for (int i = 0; i < INDEX_COUNT; i++) {
+            indexedTable.append(", V").append(i).append(" VARCHAR");
+        }
+        stmt.execute(indexedTable.append(")").toString());
+        for (int i = 0; i < INDEX_COUNT; i++) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS INDEXED_TABLE_IDX" + i + " ON INDEXED_TABLE (V" + i
+                    + ") INCLUDE (V" + ((i + 1) % INDEX_COUNT) + ")");
+        }
+
+        stmt.execute("CREATE TABLE IF NOT EXISTS MULTI_TENANT_TABLE (TENANT_ID VARCHAR NOT NULL, K VARCHAR NOT NULL,"
+                + " V1 VARCHAR, V2 VARCHAR, V3 INTEGER CONSTRAINT PK PRIMARY KEY (TENANT_ID, K)) MULTI_TENANT=true");
+        stmt.execute("CREATE INDEX IF NOT EXISTS MULTI_TENANT_IDX1 ON MULTI_TENANT_TABLE (V1) INCLUDE (V2)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS MULTI_TENANT_IDX2 ON MULTI_TENANT_TABLE (V3)");
+        for (int i = 0; i < TENANT_COUNT; i++) {
+            PhoenixConnection conn = getTenantConnection("tenant" + i);
+            try {
+                conn.createStatement().execute("CREATE VIEW IF NOT EXISTS TENANT_VIEW (V4 VARCHAR)"
+                        + " AS SELECT * FROM MULTI_TENANT_TABLE WHERE V3 > " + i);
+            } finally {
+                conn.close();
+            }
+        }
+        stmt.close();
+        tenantConn = getTenantConnection(TENANT_ID);
+    }
+
+    private static PhoenixConnection getTenantConnection(String tenantId) throws SQLException {
+        Properties props = new Properties();
+        props.setProperty(PhoenixRuntime.TENANT_ID_ATTRIB, tenantId);
+        return BenchmarkUtil.getConnectionlessConnection(props);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        tenantConn.close();
+        globalConn.close();
+    }
+
+    @Benchmark
+    public QueryPlan compile() throws SQLException {
+        PhoenixConnection conn = shape.isTenantSpecific ? tenantConn : globalConn;
+        // Close each statement so that the connection does not hold on to every one prepared
+        PhoenixPreparedStatement stmt = conn.prepareStatement(shape.sql).unwrap(PhoenixPreparedStatement.class);
+        try {
+            return stmt.optimizeQuery();
+        } finally {
+            stmt.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CompilerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.QueryPlan;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.jdbc.PhoenixPreparedStatement;
+import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.apache.phoenix.schema.types.PDecimal;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.schema.types.PVarchar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link Expression#evaluate(Tuple, ImmutableBytesWritable)} for
+ * expression trees compiled from SQL on a connectionless connection and
+ * evaluated against in-memory rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExpressionBenchmark {
+    private static final int ROW_COUNT = 1024;
+    private static final String TABLE_NAME = "EXPRESSION_BENCHMARK";
+
+    public enum ExpressionTree {
+        ARITHMETIC("(A * 2 + B) / 3 > 10 AND C < 5.5"),
+        STRING("SUBSTR(D, 1, 3) = 'abc' OR D LIKE '%xyz%'"),
+        CASE("CASE WHEN A > B THEN C * 2 WHEN A = B THEN C ELSE C / 2 END"),
+        IN_LIST("A IN (1, 3, 5, 7, 11, 13, 17, 19, 23, 29)");
+
+        private final String sql;
+
+        private ExpressionTree(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    @Param
+    private ExpressionTree tree;
+
+    private PhoenixConnection conn;
+    private Expression expression;
+    private Tuple[] tuples;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = BenchmarkUtil.getConnectionlessConnection();
+        conn.createStatement().execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME
+                + " (K VARCHAR PRIMARY KEY, A INTEGER, B INTEGER, C DECIMAL, D VARCHAR)");
+        PhoenixPreparedStatement statement = conn.prepareStatement(
+                "SELECT " + tree.sql + " FROM " + TABLE_NAME).unwrap(PhoenixPreparedStatement.class);
+        QueryPlan plan = statement.optimizeQuery();
+        expression = plan.getProjector().getColumnProjector(0).getExpression();
+
+        Random random = new Random(0);
+        byte[] family = QueryConstants.DEFAULT_COLUMN_FAMILY_BYTES;
+        tuples = new Tuple[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            byte[] row = PVarchar.INSTANCE.toBytes("row" + i);
+            // Cells must be in qualifier order for the binary search done by the tuple
+            List<Cell> cells = Arrays.<Cell>asList(
+                    new KeyValue(row, family, Bytes.toBytes("A"), PInteger.INSTANCE.toBytes(random.nextInt(32))),
+                    new KeyValue(row, family, Bytes.toBytes("B"), PInteger.INSTANCE.toBytes(random.nextInt(32))),
+                    new KeyValue(row, family, Bytes.toBytes("C"),
+                            PDecimal.INSTANCE.toBytes(BigDecimal.valueOf(random.nextInt(1000), 2))),
+                    new KeyValue(row, family, Bytes.toBytes("D"),
+                            PVarchar.INSTANCE.toBytes((random.nextBoolean() ? "abc" : "def") + i + "xyz")));
+            tuples[i] = new MultiKeyValueTuple(cells);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROW_COUNT)
+    public void evaluate(Blackhole bh) {
+        ImmutableBytesWritable ptr = new ImmutableBytesWritable();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            bh.consume(expression.evaluate(tuples[i], ptr));
+            bh.consume(ptr.getLength());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.phoenix.cache.HashCache;
+import org.apache.phoenix.expression.Expression;
+import org.apache.phoenix.expression.ExpressionType;
+import org.apache.phoenix.expression.KeyValueColumnExpression;
+import org.apache.phoenix.hbase.index.util.ImmutableBytesPtr;
+import org.apache.phoenix.join.HashCacheFactory;
+import org.apache.phoenix.memory.GlobalMemoryManager;
+import org.apache.phoenix.memory.MemoryManager;
+import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.schema.tuple.MultiKeyValueTuple;
+import org.apache.phoenix.schema.types.PInteger;
+import org.apache.phoenix.util.SchemaUtil;
+import org.apache.phoenix.util.TrustedByteArrayOutputStream;
+import org.apache.phoenix.util.TupleUtil;
+import org.iq80.snappy.Snappy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks building the server side hash join cache from its serialized
+ * form through {@link HashCacheFactory} and probing it by join key. The
+ * serialized form is produced the same way as HashCacheClient does it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HashCacheBenchmark {
+    private static final int PROBE_COUNT = 1024;
+    private static final byte[] FAMILY = QueryConstants.DEFAULT_COLUMN_FAMILY_BYTES;
+    private static final byte[] JOIN_KEY_QUALIFIER = Bytes.toBytes("K");
+    private static final byte[] VALUE_QUALIFIER = Bytes.toBytes("V");
+
+    /** Number of rows on the build side of the join */
+    @Param({ "1000", "100000" })
+    private int rowCount;
+
+    private MemoryManager memoryManager;
+    private ImmutableBytesWritable serializedCache;
+    private HashCache cache;
+    private ImmutableBytesPtr[] probeKeys;
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        memoryManager = new GlobalMemoryManager(Long.MAX_VALUE, 0);
+        Expression onExpression = new KeyValueColumnExpression(SchemaUtil.VAR_BINARY_DATUM, FAMILY, JOIN_KEY_QUALIFIER);
+        serializedCache = serialize(onExpression);
+        cache = (HashCache)new HashCacheFactory().newCache(serializedCache, memoryManager.allocate(0));
+        probeKeys = new ImmutableBytesPtr[PROBE_COUNT];
+        for (int i = 0; i < PROBE_COUNT; i++) {
+            // Every other probe misses
+            int key = (i % 2 == 0) ? (i * 31) % rowCount : rowCount + i;
+            probeKeys[i] = new ImmutableBytesPtr(PInteger.INSTANCE.toBytes(key));
+        }
+    }
+
+    private ImmutableBytesWritable serialize(Expression onExpression) throws IOException {
+        TrustedByteArrayOutputStream baOut = new TrustedByteArrayOutputStream(rowCount * 64);
+        DataOutputStream out = new DataOutputStream(baOut);
+        out.writeInt(1);
+        WritableUtils.writeVInt(out, ExpressionType.valueOf(onExpression).ordinal());
+        onExpression.write(out);
+        int exprSize = baOut.size() + Bytes.SIZEOF_INT;
+        out.writeInt(exprSize);
+        out.writeInt(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            byte[] row = Bytes.toBytes(i);
+            Cell[] cells = new Cell[] {
+                    new KeyValue(row, FAMILY, JOIN_KEY_QUALIFIER, PInteger.INSTANCE.toBytes(i)),
+                    new KeyValue(row, FAMILY, VALUE_QUALIFIER, Bytes.toBytes("value" + i)) };
+            TupleUtil.write(new MultiKeyValueTuple(Arrays.asList(cells)), out);
+        }
+        out.close();
+        byte[] compressed = new byte[Snappy.maxCompressedLength(baOut.size())];
+        int compressedSize = Snappy.compress(baOut.getBuffer(), 0, baOut.size(), compressed, 0);
+        return new ImmutableBytesWritable(compressed, 0, compressedSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        cache.close();
+    }
+
+    @Benchmark
+    public void build() throws IOException, SQLException {
+        Closeable newCache = new HashCacheFactory().newCache(serializedCache, memoryManager.allocate(0));
+        newCache.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBE_COUNT)
+    public void probe(Blackhole bh) throws IOException {
+        for (int i = 0; i < PROBE_COUNT; i++) {
+            bh.consume(cache.get(probeKeys[i]));
+        }
+    }
+}
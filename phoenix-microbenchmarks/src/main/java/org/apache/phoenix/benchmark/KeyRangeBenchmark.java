@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.compile.ScanRanges;
+import org.apache.phoenix.query.KeyRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Benchmarks the {@link KeyRange} and {@link ScanRanges} intersections done
+ * while compiling a query and while pruning regions and guideposts for its
+ * scans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KeyRangeBenchmark {
+    private static final int REGION_COUNT = 100;
+
+    /** Number of point keys looked up */
+    @Param({ "10", "1000" })
+    private int keyCount;
+
+    private List<KeyRange> ranges;
+    private List<KeyRange> otherRanges;
+    private ScanRanges scanRanges;
+    private byte[][] regionBoundaries;
+
+    @Setup
+    public void setup() {
+        int keySpace = keyCount * 10;
+        List<KeyRange> points = Lists.newArrayListWithExpectedSize(keyCount);
+        ranges = Lists.newArrayListWithExpectedSize(keyCount);
+        otherRanges = Lists.newArrayListWithExpectedSize(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            int key = i * 10;
+            points.add(KeyRange.getKeyRange(key(key)));
+            ranges.add(KeyRange.getKeyRange(key(key), true, key(key + 5), false));
+            otherRanges.add(KeyRange.getKeyRange(key(key + 3), true, key(key + 8), false));
+        }
+        scanRanges = ScanRanges.createPointLookup(points);
+        regionBoundaries = new byte[REGION_COUNT + 1][];
+        regionBoundaries[0] = KeyRange.UNBOUND;
+        for (int i = 1; i < REGION_COUNT; i++) {
+            regionBoundaries[i] = key(i * keySpace / REGION_COUNT);
+        }
+        regionBoundaries[REGION_COUNT] = KeyRange.UNBOUND;
+    }
+
+    private static byte[] key(int value) {
+        return Bytes.toBytes(value);
+    }
+
+    @Benchmark
+    public List<KeyRange> intersectKeyRanges() {
+        return KeyRange.intersect(ranges, otherRanges);
+    }
+
+    @Benchmark
+    public int intersectsRegions() {
+        int count = 0;
+        for (int i = 0; i < REGION_COUNT; i++) {
+            if (scanRanges.intersects(regionBoundaries[i], regionBoundaries[i + 1], 0, true)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void intersectScan(Blackhole bh) {
+        Scan scan = new Scan();
+        for (int i = 0; i < REGION_COUNT; i++) {
+            bh.consume(scanRanges.intersectScan(scan, regionBoundaries[i], regionBoundaries[i + 1], 0, true));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.iterate.MaterializedResultIterator;
+import org.apache.phoenix.iterate.MergeSortResultIterator;
+import org.apache.phoenix.iterate.MergeSortRowKeyResultIterator;
+import org.apache.phoenix.iterate.PeekingResultIterator;
+import org.apache.phoenix.iterate.ResultIterators;
+import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.schema.tuple.SingleKeyValueTuple;
+import org.apache.phoenix.schema.tuple.Tuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Benchmarks the client side merge of sorted per-scan results done by
+ * {@link MergeSortResultIterator}, using in-memory iterators in place of the
+ * parallel scans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MergeSortBenchmark {
+    private static final int ROWS_PER_ITERATOR = 1000;
+
+    /** Number of parallel scans being merged */
+    @Param({ "4", "64" })
+    private int iteratorCount;
+
+    private List<List<Tuple>> results;
+
+    @Setup
+    public void setup() {
+        results = Lists.newArrayListWithExpectedSize(iteratorCount);
+        for (int i = 0; i < iteratorCount; i++) {
+            List<Tuple> tuples = Lists.newArrayListWithExpectedSize(ROWS_PER_ITERATOR);
+            for (int j = 0; j < ROWS_PER_ITERATOR; j++) {
+                // Interleave the row keys of the iterators so that the merge switches between them
+                byte[] row = Bytes.toBytes(j * iteratorCount + i);
+                tuples.add(new SingleKeyValueTuple(new KeyValue(row, QueryConstants.SINGLE_COLUMN_FAMILY,
+                        QueryConstants.SINGLE_COLUMN, Bytes.toBytes(j))));
+            }
+            results.add(tuples);
+        }
+    }
+
+    @Benchmark
+    public int mergeSort() throws SQLException {
+        final List<PeekingResultIterator> iterators = Lists.newArrayListWithExpectedSize(iteratorCount);
+        for (List<Tuple> tuples : results) {
+            iterators.add(new MaterializedResultIterator(tuples));
+        }
+        ResultIterators resultIterators = new ResultIterators() {
+
+            @Override
+            public List<PeekingResultIterator> getIterators() throws SQLException {
+                return iterators;
+            }
+
+            @Override
+            public int size() {
+                return iterators.size();
+            }
+
+            @Override
+            public void explain(List<String> planSteps) {
+            }
+
+            @Override
+            public List<KeyRange> getSplits() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public List<List<Scan>> getScans() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public void close() throws SQLException {
+            }
+        };
+        MergeSortResultIterator iterator = new MergeSortRowKeyResultIterator(resultIterators);
+        int count = 0;
+        try {
+            while (iterator.next() != null) {
+                count++;
+            }
+        } finally {
+            iterator.close();
+        }
+        return count;
+    }
+}
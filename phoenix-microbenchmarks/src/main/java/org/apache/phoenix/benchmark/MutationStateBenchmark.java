@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.execute.MutationState;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link MutationState#toMutations()}, which turns the rows
+ * buffered by UPSERT statements on a connection into HBase mutations at
+ * commit time. The rows are buffered on a connectionless connection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MutationStateBenchmark {
+    private static final String TABLE_NAME = "MUTATION_STATE_BENCHMARK";
+
+    /** Number of rows buffered before toMutations is called */
+    @Param({ "100", "10000" })
+    private int rowCount;
+
+    private PhoenixConnection conn;
+    private MutationState state;
+
+    @Setup
+    public void setup() throws SQLException {
+        conn = BenchmarkUtil.getConnectionlessConnection();
+        conn.createStatement().execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME
+                + " (K1 VARCHAR NOT NULL, K2 BIGINT NOT NULL, A INTEGER, B DECIMAL, C VARCHAR"
+                + " CONSTRAINT PK PRIMARY KEY (K1, K2))");
+        conn.setAutoCommit(false);
+        PreparedStatement stmt = conn.prepareStatement("UPSERT INTO " + TABLE_NAME + " VALUES (?, ?, ?, ?, ?)");
+        for (int i = 0; i < rowCount; i++) {
+            stmt.setString(1, "tenant" + (i % 10));
+            stmt.setLong(2, i);
+            stmt.setInt(3, i);
+            stmt.setBigDecimal(4, BigDecimal.valueOf(i, 2));
+            stmt.setString(5, "value" + i);
+            stmt.execute();
+        }
+        state = conn.getMutationState();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.rollback();
+        conn.close();
+    }
+
+    @Benchmark
+    public int toMutations() {
+        int count = 0;
+        Iterator<Pair<byte[],List<Mutation>>> iterator = state.toMutations();
+        while (iterator.hasNext()) {
+            count += iterator.next().getSecond().size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.phoenix.schema.types.PDecimal;
+import org.apache.phoenix.schema.types.PDecimalArray;
+import org.apache.phoenix.schema.types.PTimestamp;
+import org.apache.phoenix.schema.types.PhoenixArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the serialization of values to and from their row key and
+ * column value byte representation for {@link PDecimal}, {@link PTimestamp}
+ * and arrays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PDataTypeBenchmark {
+    private static final int VALUE_COUNT = 1024;
+
+    @Param({ "10", "100" })
+    private int arrayLength;
+
+    private BigDecimal[] decimals;
+    private byte[][] decimalBytes;
+    private Timestamp[] timestamps;
+    private byte[][] timestampBytes;
+    private PhoenixArray array;
+    private byte[] arrayBytes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        decimals = new BigDecimal[VALUE_COUNT];
+        decimalBytes = new byte[VALUE_COUNT][];
+        timestamps = new Timestamp[VALUE_COUNT];
+        timestampBytes = new byte[VALUE_COUNT][];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            decimals[i] = BigDecimal.valueOf(random.nextLong(), random.nextInt(10));
+            decimalBytes[i] = PDecimal.INSTANCE.toBytes(decimals[i]);
+            Timestamp timestamp = new Timestamp(random.nextInt(Integer.MAX_VALUE) * 1000L);
+            timestamp.setNanos(random.nextInt(1000000000));
+            timestamps[i] = timestamp;
+            timestampBytes[i] = PTimestamp.INSTANCE.toBytes(timestamp);
+        }
+        BigDecimal[] elements = new BigDecimal[arrayLength];
+        System.arraycopy(decimals, 0, elements, 0, arrayLength);
+        array = new PhoenixArray(PDecimal.INSTANCE, elements);
+        arrayBytes = PDecimalArray.INSTANCE.toBytes(array);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public void encodeDecimal(Blackhole bh) {
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            bh.consume(PDecimal.INSTANCE.toBytes(decimals[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public void decodeDecimal(Blackhole bh) {
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            bh.consume(PDecimal.INSTANCE.toObject(decimalBytes[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public void encodeTimestamp(Blackhole bh) {
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            bh.consume(PTimestamp.INSTANCE.toBytes(timestamps[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUE_COUNT)
+    public void decodeTimestamp(Blackhole bh) {
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            bh.consume(PTimestamp.INSTANCE.toObject(timestampBytes[i]));
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeDecimalArray() {
+        return PDecimalArray.INSTANCE.toBytes(array);
+    }
+
+    @Benchmark
+    public Object decodeDecimalArray() {
+        return PDecimalArray.INSTANCE.toObject(arrayBytes);
+    }
+}
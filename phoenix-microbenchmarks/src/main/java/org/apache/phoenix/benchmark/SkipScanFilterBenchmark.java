@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.phoenix.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.Filter.ReturnCode;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.phoenix.filter.SkipScanFilter;
+import org.apache.phoenix.query.KeyRange;
+import org.apache.phoenix.query.QueryConstants;
+import org.apache.phoenix.schema.PDatum;
+import org.apache.phoenix.schema.RowKeySchema;
+import org.apache.phoenix.schema.RowKeySchema.RowKeySchemaBuilder;
+import org.apache.phoenix.schema.SortOrder;
+import org.apache.phoenix.schema.types.PChar;
+import org.apache.phoenix.schema.types.PDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Benchmarks {@link SkipScanFilter#filterKeyValue(Cell)} over a sorted set of
+ * rows with a two column CHAR(3) primary key, following the seek hints the
+ * filter returns the way a region scanner would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SkipScanFilterBenchmark {
+    private static final int FIELD_WIDTH = 3;
+    private static final int FIELD_VALUES = 100;
+
+    /** Number of point keys in the leading slot */
+    @Param({ "1", "10", "50" })
+    private int pointKeys;
+
+    private RowKeySchema schema;
+    private List<List<KeyRange>> slots;
+    private byte[][] rows;
+    private Cell[] cells;
+
+    @Setup
+    public void setup() {
+        RowKeySchemaBuilder builder = new RowKeySchemaBuilder(2);
+        for (int i = 0; i < 2; i++) {
+            builder.addField(new PDatum() {
+                @Override
+                public boolean isNullable() {
+                    return false;
+                }
+
+                @Override
+                public PDataType getDataType() {
+                    return PChar.INSTANCE;
+                }
+
+                @Override
+                public Integer getMaxLength() {
+                    return FIELD_WIDTH;
+                }
+
+                @Override
+                public Integer getScale() {
+                    return null;
+                }
+
+                @Override
+                public SortOrder getSortOrder() {
+                    return SortOrder.getDefault();
+                }
+            }, false, SortOrder.getDefault());
+        }
+        schema = builder.build();
+
+        List<KeyRange> leading = Lists.newArrayListWithExpectedSize(pointKeys);
+        int step = FIELD_VALUES / pointKeys;
+        for (int i = 0; i < pointKeys; i++) {
+            leading.add(PChar.INSTANCE.getKeyRange(field(i * step)));
+        }
+        List<KeyRange> trailing = Lists.newArrayList(
+                PChar.INSTANCE.getKeyRange(field(20), true, field(40), false),
+                PChar.INSTANCE.getKeyRange(field(60), true, field(70), true));
+        slots = Lists.newArrayList();
+        slots.add(leading);
+        slots.add(trailing);
+
+        rows = new byte[FIELD_VALUES * FIELD_VALUES][];
+        cells = new Cell[rows.length];
+        for (int i = 0; i < FIELD_VALUES; i++) {
+            for (int j = 0; j < FIELD_VALUES; j++) {
+                int index = i * FIELD_VALUES + j;
+                rows[index] = Bytes.add(field(i), field(j));
+                cells[index] = new KeyValue(rows[index], QueryConstants.SINGLE_COLUMN_FAMILY,
+                        QueryConstants.SINGLE_COLUMN, Bytes.toBytes(index));
+            }
+        }
+    }
+
+    private static byte[] field(int value) {
+        return Bytes.toBytes(String.format("%0" + FIELD_WIDTH + "d", value));
+    }
+
+    @Benchmark
+    public int filterKeyValue() {
+        SkipScanFilter filter = new SkipScanFilter(slots, schema);
+        int included = 0;
+        int i = 0;
+        while (i < cells.length && !filter.filterAllRemaining()) {
+            Cell cell = cells[i];
+            ReturnCode code = filter.filterKeyValue(cell);
+            if (code == ReturnCode.SEEK_NEXT_USING_HINT) {
+                Cell hint = filter.getNextCellHint(cell);
+                if (hint == null) {
+                    break;
+                }
+                int next = Arrays.binarySearch(rows, CellUtil.cloneRow(hint), Bytes.BYTES_COMPARATOR);
+                i = Math.max(i + 1, next < 0 ? -(next + 1) : next);
+            } else {
+                if (code == ReturnCode.INCLUDE) {
+                    included++;
+                }
+                i++;
+            }
+        }
+        return included;
+    }
+}
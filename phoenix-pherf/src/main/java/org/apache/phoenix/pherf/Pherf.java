@@ -27,6 +27,7 @@ import org.apache.phoenix.pherf.schema.SchemaReader;
 import org.apache.phoenix.pherf.util.GoogleChartGenerator;
 import org.apache.phoenix.pherf.util.PhoenixUtil;
 import org.apache.phoenix.pherf.util.ResourceList;
+import org.apache.phoenix.pherf.workload.HFileWriteWorkload;
 import org.apache.phoenix.pherf.workload.QueryExecutor;
 import org.apache.phoenix.pherf.workload.Workload;
 import org.apache.phoenix.pherf.workload.WorkloadExecutor;
@@ -76,6 +77,11 @@ public class Pherf {
         options.addOption("writerThreadSize", true,
                 "Override the default number of writer threads. "
                         + "See pherf.default.dataloader.threadpool in Pherf.properties.");
+        options.addOption("hfile", true,
+                "Used with -l. Generates the data as sorted HFiles under the given directory "
+                        + "and bulk loads them, instead of upserting it.");
+        options.addOption("disableBulkLoad", false,
+                "Used with -hfile. Only writes the HFiles, leaving them to be bulk loaded later.");
         options.addOption("h", "help", false, "Get help on using this utility.");
         options.addOption("d", "debug", false, "Put tool in debug mode");
         options.addOption("stats", false,
@@ -90,6 +96,8 @@ public class Pherf {
     private final String queryHint;
     private final Properties properties;
     private final boolean preLoadData;
+    private final String hfileOutputDir;
+    private final boolean bulkLoad;
     private final String dropPherfTablesRegEx;
     private final boolean executeQuerySets;
     private final boolean exportCSV;
@@ -128,6 +136,8 @@ public class Pherf {
         logger.debug("Using Monitor: " + monitor);
         logger.debug("Monitor Frequency Ms:" + monitorFrequency);
         preLoadData = command.hasOption("l");
+        hfileOutputDir = command.getOptionValue("hfile", null);
+        bulkLoad = !command.hasOption("disableBulkLoad");
         executeQuerySets = command.hasOption("q");
         zookeeper = command.getOptionValue("z", "localhost");
         queryHint = command.getOptionValue("hint", null);
@@ -230,7 +240,11 @@ public class Pherf {
             // Schema and Data Load
             if (preLoadData) {
                 logger.info("\nStarting Data Load...");
-                WriteWorkload workload = new WriteWorkload(parser, generateStatistics);
+                Workload workload =
+                        (hfileOutputDir == null) ?
+                                new WriteWorkload(parser, generateStatistics) :
+                                new HFileWriteWorkload(parser, hfileOutputDir, bulkLoad,
+                                        generateStatistics);
                 workloadExecutor.add(workload);
 
                 // Wait for dataLoad to complete
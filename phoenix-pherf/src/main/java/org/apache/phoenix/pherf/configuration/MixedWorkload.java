@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+import org.apache.phoenix.pherf.PherfConstants;
+
+/**
+ * Operations of a scenario that run concurrently against its table. Each thread repeatedly
+ * picks an operation at random according to the operation weights, so reads are measured
+ * while writes are in progress.
+ */
+public class MixedWorkload {
+    private List<Operation> operation = new ArrayList<>();
+    private int threadCount = 1;
+    private long numberOfExecutions = PherfConstants.DEFAULT_NUMBER_OF_EXECUTIONS;
+    private long executionDurationInMs = PherfConstants.DEFAULT_THREAD_DURATION_IN_MS;
+    private double targetQps = 0;
+
+    /**
+     * Operations of the mix
+     *
+     * @return
+     */
+    public List<Operation> getOperation() {
+        return operation;
+    }
+
+    @SuppressWarnings("unused")
+    public void setOperation(List<Operation> operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Number of threads issuing operations
+     *
+     * @return
+     */
+    @XmlAttribute
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Number of operations issued per thread. Minimum of either number of executions
+     * or execution duration is taken for each thread run
+     *
+     * @return
+     */
+    @XmlAttribute
+    public long getNumberOfExecutions() {
+        return numberOfExecutions;
+    }
+
+    public void setNumberOfExecutions(long numberOfExecutions) {
+        this.numberOfExecutions = numberOfExecutions;
+    }
+
+    /**
+     * Execution duration per thread. Minimum of either number of executions
+     * or execution duration is taken for each thread run
+     *
+     * @return
+     */
+    @XmlAttribute
+    public long getExecutionDurationInMs() {
+        return executionDurationInMs;
+    }
+
+    public void setExecutionDurationInMs(long executionDurationInMs) {
+        this.executionDurationInMs = executionDurationInMs;
+    }
+
+    /**
+     * Target rate of operations per second across all threads. When set, each thread
+     * schedules its operations at an even share of the rate and latency is measured from
+     * the scheduled start. The default of 0 issues the next operation as soon as the
+     * previous one returns.
+     *
+     * @return
+     */
+    @XmlAttribute
+    public double getTargetQps() {
+        return targetQps;
+    }
+
+    public void setTargetQps(double targetQps) {
+        this.targetQps = targetQps;
+    }
+
+    /**
+     * @return sum of the weights of all operations
+     */
+    public int getTotalWeight() {
+        int totalWeight = 0;
+        for (Operation op : operation) {
+            totalWeight += op.getWeight();
+        }
+        return totalWeight;
+    }
+}
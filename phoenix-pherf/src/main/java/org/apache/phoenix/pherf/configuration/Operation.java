@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.configuration;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * A weighted operation of a {@link MixedWorkload}. A QUERY operation executes its statement.
+ * An UPSERT operation writes one row to the scenario's table, generated from the data model
+ * rules the same way as the write workload generates them.
+ */
+@XmlType
+public class Operation extends Query {
+    private int weight = 1;
+    private OperationType type = OperationType.QUERY;
+
+    /**
+     * Relative frequency of the operation within the mix. For example weights of 70, 20 and
+     * 10 issue the first operation 70% of the time.
+     *
+     * @return
+     */
+    @XmlAttribute
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * This can be either QUERY or UPSERT
+     *
+     * @return
+     */
+    @XmlAttribute
+    public OperationType getType() {
+        return type;
+    }
+
+    public void setType(OperationType type) {
+        this.type = type;
+    }
+}
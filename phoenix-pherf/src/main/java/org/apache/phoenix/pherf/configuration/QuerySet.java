@@ -31,6 +31,7 @@ public class QuerySet {
 	private long numberOfExecutions = PherfConstants.DEFAULT_NUMBER_OF_EXECUTIONS;
 	private long executionDurationInMs = PherfConstants.DEFAULT_THREAD_DURATION_IN_MS;
 	private ExecutionType executionType = ExecutionType.SERIAL;
+	private double targetQps = 0;
 
 	/**
 	 * List of queries in each query set
@@ -129,6 +130,24 @@ public class QuerySet {
 		this.executionDurationInMs = executionDurationInMs;
 	}
 
+	/**
+	 * Target rate, in queries per second across all threads, at which the queries of
+	 * the set are issued. When set, queries are issued on schedule whether or not
+	 * earlier ones have returned, and latency is measured from the scheduled start.
+	 * The maximum concurrency is used as the number of threads, and the number of
+	 * executions applies to the whole set rather than to each thread.
+	 * The default of 0 runs each thread in a closed loop.
+	 * @return
+	 */
+	@XmlAttribute
+	public double getTargetQps() {
+		return targetQps;
+	}
+
+	public void setTargetQps(double targetQps) {
+		this.targetQps = targetQps;
+	}
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
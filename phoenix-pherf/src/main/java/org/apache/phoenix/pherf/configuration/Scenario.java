@@ -37,6 +37,7 @@ public class Scenario {
     private DataOverride dataOverride;
     private List<QuerySet> querySet = new ArrayList<>();
     private WriteParams writeParams;
+    private MixedWorkload mixedWorkload;
     private String name;
     private String tenantId;
     private String ddl;
@@ -199,6 +200,19 @@ public class Scenario {
         this.writeParams = writeParams;
     }
 
+    /**
+     * Operations run concurrently against the scenario's table
+     *
+     * @return
+     */
+    public MixedWorkload getMixedWorkload() {
+        return mixedWorkload;
+    }
+
+    public void setMixedWorkload(MixedWorkload mixedWorkload) {
+        this.mixedWorkload = mixedWorkload;
+    }
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
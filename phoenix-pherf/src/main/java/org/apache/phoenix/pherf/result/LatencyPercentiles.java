@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.result;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency distribution of a query run at a target rate. Latencies are measured from the time
+ * each execution was scheduled to start rather than from when it actually started, so time
+ * spent queued behind slow executions is included and the percentiles are not skewed by
+ * coordinated omission.
+ */
+public class LatencyPercentiles {
+    private double targetQps;
+    private double achievedQps;
+    private long count;
+    private double p50InMs;
+    private double p99InMs;
+    private double p999InMs;
+    private double maxInMs;
+
+    @SuppressWarnings("unused") public LatencyPercentiles() {
+    }
+
+    /**
+     * @param histogram      latencies recorded in microseconds
+     * @param targetQps      rate at which executions were scheduled
+     * @param durationInNanos time from the first scheduled execution to the last completion
+     */
+    public LatencyPercentiles(Histogram histogram, double targetQps, long durationInNanos) {
+        this.targetQps = targetQps;
+        this.count = histogram.getTotalCount();
+        this.achievedQps =
+                durationInNanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / durationInNanos;
+        this.p50InMs = toMs(histogram.getValueAtPercentile(50));
+        this.p99InMs = toMs(histogram.getValueAtPercentile(99));
+        this.p999InMs = toMs(histogram.getValueAtPercentile(99.9));
+        this.maxInMs = toMs(histogram.getMaxValue());
+    }
+
+    private static double toMs(long micros) {
+        return micros / 1000d;
+    }
+
+    @XmlAttribute() public double getTargetQps() {
+        return targetQps;
+    }
+
+    @SuppressWarnings("unused") public void setTargetQps(double targetQps) {
+        this.targetQps = targetQps;
+    }
+
+    @XmlAttribute() public double getAchievedQps() {
+        return achievedQps;
+    }
+
+    @SuppressWarnings("unused") public void setAchievedQps(double achievedQps) {
+        this.achievedQps = achievedQps;
+    }
+
+    @XmlAttribute() public long getCount() {
+        return count;
+    }
+
+    @SuppressWarnings("unused") public void setCount(long count) {
+        this.count = count;
+    }
+
+    @XmlAttribute() public double getP50InMs() {
+        return p50InMs;
+    }
+
+    @SuppressWarnings("unused") public void setP50InMs(double p50InMs) {
+        this.p50InMs = p50InMs;
+    }
+
+    @XmlAttribute() public double getP99InMs() {
+        return p99InMs;
+    }
+
+    @SuppressWarnings("unused") public void setP99InMs(double p99InMs) {
+        this.p99InMs = p99InMs;
+    }
+
+    @XmlAttribute() public double getP999InMs() {
+        return p999InMs;
+    }
+
+    @SuppressWarnings("unused") public void setP999InMs(double p999InMs) {
+        this.p999InMs = p999InMs;
+    }
+
+    @XmlAttribute() public double getMaxInMs() {
+        return maxInMs;
+    }
+
+    @SuppressWarnings("unused") public void setMaxInMs(double maxInMs) {
+        this.maxInMs = maxInMs;
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 
 public class QueryResult extends Query {
     private List<ThreadTime> threadTimes = new ArrayList<>();
+    private LatencyPercentiles latencyPercentiles;
     private static PhoenixUtil pUtil = PhoenixUtil.create();
     
     public QueryResult() {
@@ -45,6 +46,17 @@ public class QueryResult extends Query {
         this.threadTimes = threadTimes;
     }
 
+    /**
+     * @return latency percentiles if the query was run at a target rate, otherwise null
+     */
+    public synchronized LatencyPercentiles getLatencyPercentiles() {
+        return this.latencyPercentiles;
+    }
+
+    public synchronized void setLatencyPercentiles(LatencyPercentiles latencyPercentiles) {
+        this.latencyPercentiles = latencyPercentiles;
+    }
+
     public QueryResult(Query query) {
         this.setStatement(query.getStatement());
         this.setExpectedAggregateRowCount(query.getExpectedAggregateRowCount());
@@ -111,6 +123,19 @@ public class QueryResult extends Query {
         rowValues.add(new ResultValue(util.convertNull(String.valueOf(getRunCount()))));
         rowValues.add(new ResultValue(util.convertNull(String.valueOf(getExplainPlan()))));
         rowValues.add(new ResultValue(util.convertNull(String.valueOf(getResultRowCount()))));
+        LatencyPercentiles latency = getLatencyPercentiles();
+        if (latency == null) {
+            for (int i = 0; i < 6; i++) {
+                rowValues.add(new ResultValue(util.convertNull(null)));
+            }
+        } else {
+            rowValues.add(new ResultValue(String.valueOf(latency.getTargetQps())));
+            rowValues.add(new ResultValue(String.valueOf(latency.getAchievedQps())));
+            rowValues.add(new ResultValue(String.valueOf(latency.getP50InMs())));
+            rowValues.add(new ResultValue(String.valueOf(latency.getP99InMs())));
+            rowValues.add(new ResultValue(String.valueOf(latency.getP999InMs())));
+            rowValues.add(new ResultValue(String.valueOf(latency.getMaxInMs())));
+        }
         return rowValues;
     }
     
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.workload;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.apache.phoenix.jdbc.PhoenixConnection;
+import org.apache.phoenix.mapreduce.HFileWriterUtil;
+import org.apache.phoenix.pherf.PherfConstants;
+import org.apache.phoenix.pherf.PherfConstants.GeneratePhoenixStats;
+import org.apache.phoenix.pherf.configuration.Column;
+import org.apache.phoenix.pherf.configuration.Scenario;
+import org.apache.phoenix.pherf.configuration.XMLConfigParser;
+import org.apache.phoenix.pherf.result.DataLoadThreadTime;
+import org.apache.phoenix.pherf.result.DataLoadTimeSummary;
+import org.apache.phoenix.pherf.result.ResultUtil;
+import org.apache.phoenix.pherf.rules.RulesApplier;
+import org.apache.phoenix.pherf.util.PhoenixUtil;
+import org.apache.phoenix.pherf.util.RowCalculator;
+import org.apache.phoenix.util.PhoenixRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates the data of the scenarios as sorted HFiles instead of upserting it through JDBC.
+ * <p/>
+ * Rows come from the {@link RulesApplier} exactly as for {@link WriteWorkload}, but each writer
+ * thread executes its upserts on a connection that is never committed. The KeyValues of the
+ * data table and of its indexes are then taken from the uncommitted state and the connection is
+ * rolled back, the same encoding path as the CSV bulk load mapper uses. Each thread buffers its
+ * KeyValues, sorts them and writes one HFile per table and column family whenever the buffer
+ * fills up. Files of different threads may overlap, which bulk load handles. Once all threads
+ * are done, the HFiles are optionally bulk loaded into the tables.
+ */
+public class HFileWriteWorkload implements Workload {
+    private static final Logger logger = LoggerFactory.getLogger(HFileWriteWorkload.class);
+    private static final String FLUSH_SIZE_PROPERTY = "pherf.default.dataloader.hfile.flushsize";
+    private static final long DEFAULT_FLUSH_SIZE = 64 * 1024 * 1024;
+
+    private final PhoenixUtil pUtil;
+    private final XMLConfigParser parser;
+    private final Scenario scenario;
+    private final RulesApplier rulesApplier;
+    private final ResultUtil resultUtil;
+    private final ExecutorService pool;
+    private final String outputDir;
+    private final boolean bulkLoad;
+    private final int threadPoolSize;
+    private final int batchSize;
+    private final long flushSize;
+    private final GeneratePhoenixStats generateStatistics;
+
+    public HFileWriteWorkload(XMLConfigParser parser, String outputDir, boolean bulkLoad,
+            GeneratePhoenixStats generateStatistics) throws Exception {
+        this(PhoenixUtil.create(), parser, null, outputDir, bulkLoad, generateStatistics);
+    }
+
+    public HFileWriteWorkload(PhoenixUtil phoenixUtil, XMLConfigParser parser, Scenario scenario,
+            String outputDir, boolean bulkLoad, GeneratePhoenixStats generateStatistics)
+            throws Exception {
+        this(phoenixUtil, PherfConstants.create().getProperties(PherfConstants.PHERF_PROPERTIES,
+                false), parser, scenario, outputDir, bulkLoad, generateStatistics);
+    }
+
+    /**
+     * @param phoenixUtil        {@link org.apache.phoenix.pherf.util.PhoenixUtil} Query helper
+     * @param properties         {@link java.util.Properties} default properties to use
+     * @param parser             {@link org.apache.phoenix.pherf.configuration.XMLConfigParser}
+     * @param scenario           {@link org.apache.phoenix.pherf.configuration.Scenario} If null
+     *                           is passed it will run against all scenarios in the parsers list.
+     * @param outputDir          directory under which HFiles are written, one sub directory
+     *                           per table
+     * @param bulkLoad           whether to bulk load the HFiles once they are written
+     * @param generateStatistics whether to update Phoenix statistics after the load
+     * @throws Exception
+     */
+    public HFileWriteWorkload(PhoenixUtil phoenixUtil, Properties properties,
+            XMLConfigParser parser, Scenario scenario, String outputDir, boolean bulkLoad,
+            GeneratePhoenixStats generateStatistics) throws Exception {
+        this.pUtil = phoenixUtil;
+        this.parser = parser;
+        this.scenario = scenario;
+        this.rulesApplier = new RulesApplier(parser);
+        this.resultUtil = new ResultUtil();
+        this.outputDir = outputDir;
+        this.bulkLoad = bulkLoad;
+        this.generateStatistics = generateStatistics;
+
+        int size = Integer.parseInt(properties.getProperty("pherf.default.dataloader.threadpool"));
+        this.threadPoolSize = (size == 0) ? Runtime.getRuntime().availableProcessors() : size;
+        this.pool = Executors.newFixedThreadPool(this.threadPoolSize);
+
+        String bSize = properties.getProperty("pherf.default.dataloader.batchsize");
+        this.batchSize =
+                (bSize == null) ? PherfConstants.DEFAULT_BATCH_SIZE : Integer.parseInt(bSize);
+        String fSize = properties.getProperty(FLUSH_SIZE_PROPERTY);
+        this.flushSize = (fSize == null) ? DEFAULT_FLUSH_SIZE : Long.parseLong(fSize);
+    }
+
+    @Override
+    public void complete() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public Runnable execute() throws Exception {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    DataLoadTimeSummary dataLoadTimeSummary = new DataLoadTimeSummary();
+                    DataLoadThreadTime dataLoadThreadTime = new DataLoadThreadTime();
+
+                    if (HFileWriteWorkload.this.scenario == null) {
+                        for (Scenario scenario : parser.getScenarios()) {
+                            exec(dataLoadTimeSummary, dataLoadThreadTime, scenario);
+                        }
+                    } else {
+                        exec(dataLoadTimeSummary, dataLoadThreadTime,
+                                HFileWriteWorkload.this.scenario);
+                    }
+                    resultUtil.write(dataLoadTimeSummary);
+                    resultUtil.write(dataLoadThreadTime);
+                } catch (Exception e) {
+                    logger.warn("", e);
+                }
+            }
+        };
+    }
+
+    private void exec(DataLoadTimeSummary dataLoadTimeSummary,
+            DataLoadThreadTime dataLoadThreadTime, Scenario scenario) throws Exception {
+        logger.info("\nGenerating HFiles of " + scenario.getRowCount() + " rows for "
+                + scenario.getTableName());
+        long start = System.currentTimeMillis();
+
+        // Execute any Scenario DDL before generating the data
+        pUtil.executeScenarioDdl(scenario);
+
+        Path scenarioDir = new Path(outputDir, scenario.getTableName());
+        RowCalculator rowCalculator = new RowCalculator(threadPoolSize, scenario.getRowCount());
+        List<Future<Long>> writeBatches = new ArrayList<>();
+        for (int i = 0; i < threadPoolSize; i++) {
+            writeBatches.add(generateData(scenario, scenarioDir, rowCalculator.getNext(),
+                    dataLoadThreadTime));
+        }
+        long sumRows = 0;
+        for (Future<Long> write : writeBatches) {
+            sumRows += write.get();
+        }
+        logger.info("HFiles of " + sumRows + " rows written to " + scenarioDir + " in "
+                + (System.currentTimeMillis() - start) + " Ms");
+
+        if (bulkLoad) {
+            bulkLoad(scenario, scenarioDir);
+        }
+        dataLoadTimeSummary
+                .add(scenario.getTableName(), (int) sumRows, (int) (System.currentTimeMillis() - start));
+
+        if (this.generateStatistics == GeneratePhoenixStats.YES) {
+            logger.info("Updating Phoenix table statistics...");
+            pUtil.updatePhoenixStats(scenario.getTableName(), scenario);
+        }
+    }
+
+    private Future<Long> generateData(final Scenario scenario, final Path scenarioDir,
+            final int rowCount, final DataLoadThreadTime dataLoadThreadTime) {
+        return pool.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                PhoenixConnection connection =
+                        pUtil.getConnection(scenario.getTenantId()).unwrap(PhoenixConnection.class);
+                try {
+                    connection.setAutoCommit(false);
+                    List<Column> columns = pUtil.getColumnsFromPhoenix(scenario.getSchemaName(),
+                            scenario.getTableNameWithoutSchemaName(), connection);
+                    PreparedStatement stmt = connection.prepareStatement(
+                            WriteWorkload.buildSql(columns, scenario.getTableName()));
+                    KeyValueBuffer buffer = new KeyValueBuffer(connection, scenarioDir);
+                    long logStartTime = System.currentTimeMillis();
+                    for (int i = 1; i <= rowCount; i++) {
+                        WriteWorkload.buildStatement(rulesApplier, scenario, columns, stmt,
+                                simpleDateFormat);
+                        stmt.executeUpdate();
+                        if (i % batchSize == 0) {
+                            buffer.addUncommittedData();
+                        }
+                        if (i % PherfConstants.LOG_PER_NROWS == 0) {
+                            dataLoadThreadTime.add(scenario.getTableName(),
+                                    Thread.currentThread().getName(), i,
+                                    System.currentTimeMillis() - logStartTime);
+                            logStartTime = System.currentTimeMillis();
+                        }
+                    }
+                    buffer.addUncommittedData();
+                    buffer.flush();
+                    stmt.close();
+                    return (long) rowCount;
+                } finally {
+                    connection.close();
+                }
+            }
+        });
+    }
+
+    private void bulkLoad(Scenario scenario, Path scenarioDir) throws Exception {
+        PhoenixConnection connection =
+                pUtil.getConnection().unwrap(PhoenixConnection.class);
+        try {
+            Configuration conf = getConfiguration(connection);
+            FileSystem fs = scenarioDir.getFileSystem(conf);
+            if (!fs.exists(scenarioDir)) {
+                logger.info("No HFiles to load for " + scenario.getTableName());
+                return;
+            }
+            LoadIncrementalHFiles loader = new LoadIncrementalHFiles(conf);
+            for (FileStatus tableDir : fs.listStatus(scenarioDir)) {
+                String tableName = tableDir.getPath().getName();
+                logger.info("Bulk loading HFiles of " + tableName);
+                HTable htable = new HTable(conf, tableName);
+                try {
+                    loader.doBulkLoad(tableDir.getPath(), htable);
+                } finally {
+                    htable.close();
+                }
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static Configuration getConfiguration(PhoenixConnection connection) {
+        Configuration conf = new Configuration(false);
+        for (Map.Entry<String, String> entry : connection.getQueryServices().getProps()) {
+            conf.set(entry.getKey(), entry.getValue());
+        }
+        return conf;
+    }
+
+    /**
+     * KeyValues of a writer thread waiting to be written, kept per physical table
+     */
+    private class KeyValueBuffer {
+        private final PhoenixConnection connection;
+        private final Path scenarioDir;
+        private final Configuration conf;
+        private final byte[] now = Bytes.toBytes(System.currentTimeMillis());
+        private final Map<String, List<KeyValue>> keyValues = new TreeMap<>();
+        private long size;
+
+        KeyValueBuffer(PhoenixConnection connection, Path scenarioDir) {
+            this.connection = connection;
+            this.scenarioDir = scenarioDir;
+            this.conf = getConfiguration(connection);
+        }
+
+        /**
+         * Move the KeyValues of the uncommitted upserts of the connection, including index
+         * rows, into the buffer and roll the connection back
+         */
+        void addUncommittedData() throws SQLException, IOException {
+            Iterator<Pair<byte[], List<KeyValue>>> uncommittedDataIterator =
+                    PhoenixRuntime.getUncommittedDataIterator(connection, true);
+            while (uncommittedDataIterator.hasNext()) {
+                Pair<byte[], List<KeyValue>> kvPair = uncommittedDataIterator.next();
+                String tableName = Bytes.toString(kvPair.getFirst());
+                List<KeyValue> tableKeyValues = keyValues.get(tableName);
+                if (tableKeyValues == null) {
+                    tableKeyValues = new ArrayList<>();
+                    keyValues.put(tableName, tableKeyValues);
+                }
+                for (KeyValue kv : kvPair.getSecond()) {
+                    kv.updateLatestStamp(now);
+                    tableKeyValues.add(kv);
+                    size += kv.getLength();
+                }
+            }
+            connection.rollback();
+            if (size >= flushSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Sort the buffered KeyValues and write them out as one HFile per table and column
+         * family
+         */
+        void flush() throws SQLException, IOException {
+            FileSystem fs = scenarioDir.getFileSystem(conf);
+            for (Map.Entry<String, List<KeyValue>> entry : keyValues.entrySet()) {
+                List<KeyValue> tableKeyValues = entry.getValue();
+                if (tableKeyValues.isEmpty()) {
+                    continue;
+                }
+                Collections.sort(tableKeyValues, KeyValue.COMPARATOR);
+                HTableDescriptor tableDesc = connection.getQueryServices()
+                        .getTableDescriptor(Bytes.toBytes(entry.getKey()));
+                Map<byte[], StoreFile.Writer> writers = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+                try {
+                    for (KeyValue kv : tableKeyValues) {
+                        byte[] family = kv.getFamily();
+                        StoreFile.Writer writer = writers.get(family);
+                        if (writer == null) {
+                            writer = HFileWriterUtil.newWriter(conf, fs,
+                                    new Path(scenarioDir, entry.getKey()), tableDesc.getFamily(family));
+                            writers.put(family, writer);
+                        }
+                        writer.append(kv);
+                    }
+                } finally {
+                    for (StoreFile.Writer writer : writers.values()) {
+                        HFileWriterUtil.close(writer, Thread.currentThread().getName());
+                    }
+                }
+                logger.info("Writer (" + Thread.currentThread().getName() + ") wrote "
+                        + tableKeyValues.size() + " KeyValues of " + entry.getKey());
+                tableKeyValues.clear();
+            }
+            size = 0;
+        }
+    }
+}
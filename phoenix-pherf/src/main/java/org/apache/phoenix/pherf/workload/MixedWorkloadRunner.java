@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.workload;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Recorder;
+import org.apache.phoenix.pherf.configuration.Column;
+import org.apache.phoenix.pherf.configuration.MixedWorkload;
+import org.apache.phoenix.pherf.configuration.Operation;
+import org.apache.phoenix.pherf.configuration.OperationType;
+import org.apache.phoenix.pherf.configuration.Scenario;
+import org.apache.phoenix.pherf.result.LatencyPercentiles;
+import org.apache.phoenix.pherf.result.QueryResult;
+import org.apache.phoenix.pherf.result.QuerySetResult;
+import org.apache.phoenix.pherf.result.RunTime;
+import org.apache.phoenix.pherf.result.ThreadTime;
+import org.apache.phoenix.pherf.rules.RulesApplier;
+import org.apache.phoenix.pherf.util.PhoenixUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the {@link MixedWorkload} of a scenario. Every thread repeatedly picks one of the
+ * operations at random in proportion to its weight, so reads and writes against the
+ * scenario's table overlap in time. Results are kept per operation: each operation gets a
+ * {@link QueryResult} in the query set result with one {@link ThreadTime} per thread.
+ * When a target rate is set, each thread schedules its operations at an even share of it
+ * and latencies are measured from the scheduled start time.
+ */
+class MixedWorkloadRunner implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(MixedWorkloadRunner.class);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final PhoenixUtil pUtil;
+    private final RulesApplier rulesApplier;
+    private final Scenario scenario;
+    private final MixedWorkload mixedWorkload;
+    private final List<Operation> operations;
+    private final int[] cumulativeWeights;
+    private final List<QueryResult> queryResults;
+    private final List<Recorder> recorders;
+    // Thread times indexed by operation, then by thread
+    private final List<List<ThreadTime>> threadTimes;
+    private List<Column> columns;
+
+    MixedWorkloadRunner(PhoenixUtil pUtil, RulesApplier rulesApplier, Scenario scenario,
+            QuerySetResult querySetResult) {
+        this.pUtil = pUtil;
+        this.rulesApplier = rulesApplier;
+        this.scenario = scenario;
+        this.mixedWorkload = scenario.getMixedWorkload();
+        this.operations = mixedWorkload.getOperation();
+        this.cumulativeWeights = new int[operations.size()];
+        this.queryResults = new ArrayList<>(operations.size());
+        this.recorders = new ArrayList<>(operations.size());
+        this.threadTimes = new ArrayList<>(operations.size());
+
+        int threadCount = mixedWorkload.getThreadCount();
+        int totalWeight = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            if (operation.getWeight() < 0) {
+                throw new IllegalArgumentException("Weight of operation " + operation.getId()
+                        + " must not be negative: " + operation.getWeight());
+            }
+            totalWeight += operation.getWeight();
+            cumulativeWeights[i] = totalWeight;
+            if (operation.getType() == OperationType.UPSERT && operation.getStatement() == null) {
+                operation.setStatement("UPSERT INTO " + scenario.getTableName());
+            }
+            QueryResult queryResult = new QueryResult(operation);
+            querySetResult.getQueryResults().add(queryResult);
+            queryResults.add(queryResult);
+            recorders.add(new Recorder(SIGNIFICANT_DIGITS));
+            List<ThreadTime> operationThreadTimes = new ArrayList<>(threadCount);
+            for (int t = 0; t < threadCount; t++) {
+                ThreadTime threadTime = new ThreadTime();
+                threadTime.setThreadName((t + 1) + "," + threadCount);
+                queryResult.getThreadTimes().add(threadTime);
+                operationThreadTimes.add(threadTime);
+            }
+            threadTimes.add(operationThreadTimes);
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Mixed workload of scenario " + scenario.getName()
+                    + " needs at least one operation with a positive weight");
+        }
+    }
+
+    @Override
+    public void run() {
+        int threadCount = mixedWorkload.getThreadCount();
+        logger.info("\n\nMixed workload of scenario " + scenario.getName() + " starting with "
+                + threadCount + " threads for " + operations.size() + " operations\n\n");
+        final long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            columns = getColumns();
+            for (int t = 0; t < threadCount; t++) {
+                final int thread = t;
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        runThread(thread, start);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            logger.error("", e);
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for threads of the mixed workload to complete");
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        long duration = System.nanoTime() - start;
+        int totalWeight = mixedWorkload.getTotalWeight();
+        for (int i = 0; i < operations.size(); i++) {
+            double targetQps = mixedWorkload.getTargetQps() * operations.get(i).getWeight() / totalWeight;
+            queryResults.get(i).setLatencyPercentiles(new LatencyPercentiles(
+                    recorders.get(i).getIntervalHistogram(), targetQps, duration));
+        }
+        logger.info("\n\nMixed workload of scenario " + scenario.getName() + " complete\n\n");
+    }
+
+    private List<Column> getColumns() throws Exception {
+        for (Operation operation : operations) {
+            if (operation.getType() == OperationType.UPSERT) {
+                Connection connection = null;
+                try {
+                    connection = pUtil.getConnection(scenario.getTenantId());
+                    return pUtil.getColumnsFromPhoenix(scenario.getSchemaName(),
+                            scenario.getTableNameWithoutSchemaName(), connection);
+                } finally {
+                    if (connection != null) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void runThread(int thread, long start) {
+        Random random = new Random();
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long intervalInNanos = mixedWorkload.getTargetQps() > 0 ?
+                (long) (TimeUnit.SECONDS.toNanos(1) * mixedWorkload.getThreadCount()
+                        / mixedWorkload.getTargetQps()) : 0;
+        // Stagger the threads so that their schedules interleave evenly
+        long offset = intervalInNanos * thread / mixedWorkload.getThreadCount();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(mixedWorkload.getExecutionDurationInMs());
+        Connection connection = null;
+        try {
+            for (long i = 0; i < mixedWorkload.getNumberOfExecutions(); i++) {
+                long scheduledStart = intervalInNanos > 0 ? start + offset + i * intervalInNanos : System.nanoTime();
+                if (scheduledStart - end >= 0) {
+                    break;
+                }
+                long delay;
+                while ((delay = scheduledStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                int index = nextOperation(random);
+                if (operations.get(index).getType() == OperationType.UPSERT && connection == null) {
+                    connection = pUtil.getConnection(scenario.getTenantId());
+                }
+                timedOperation(index, thread, scheduledStart, connection, simpleDateFormat);
+            }
+        } catch (Exception e) {
+            logger.error("", e);
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (Exception e) {
+                    logger.warn("", e);
+                }
+            }
+        }
+    }
+
+    private int nextOperation(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private void timedOperation(int index, int thread, long scheduledStart,
+            Connection connection, SimpleDateFormat simpleDateFormat) {
+        Date startDate = new Date(System.currentTimeMillis()
+                - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledStart));
+        String exception = null;
+        long resultRowCount = 0;
+        try {
+            if (operations.get(index).getType() == OperationType.UPSERT) {
+                resultRowCount = upsert(connection, simpleDateFormat);
+            } else {
+                resultRowCount = MultiThreadedRunner.executeQuery(pUtil, queryResults.get(index));
+            }
+        } catch (Exception e) {
+            logger.warn("", e);
+            exception = e.getMessage();
+        } finally {
+            long latencyInNanos = System.nanoTime() - scheduledStart;
+            recorders.get(index).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyInNanos));
+            threadTimes.get(index).get(thread).getRunTimesInMs().add(new RunTime(exception,
+                    startDate, resultRowCount, (int) TimeUnit.NANOSECONDS.toMillis(latencyInNanos)));
+        }
+    }
+
+    private long upsert(Connection connection, SimpleDateFormat simpleDateFormat) throws Exception {
+        PreparedStatement stmt =
+                connection.prepareStatement(WriteWorkload.buildSql(columns, scenario.getTableName()));
+        try {
+            stmt = WriteWorkload.buildStatement(rulesApplier, scenario, columns, stmt, simpleDateFormat);
+            long rowCount = stmt.executeUpdate();
+            connection.commit();
+            return rowCount;
+        } finally {
+            stmt.close();
+        }
+    }
+}
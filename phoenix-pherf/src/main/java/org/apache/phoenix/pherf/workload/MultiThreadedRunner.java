@@ -102,6 +102,31 @@ class MultiThreadedRunner implements Runnable {
      * @throws Exception
      */
     private void timedQuery() throws Exception {
+        Long start = System.currentTimeMillis();
+        Date startDate = Calendar.getInstance().getTime();
+        String exception = null;
+        long resultRowCount = 0;
+
+        try {
+            resultRowCount = executeQuery(pUtil, query);
+        } catch (Exception e) {
+            e.printStackTrace();
+            exception = e.getMessage();
+        } finally {
+            getThreadTime().getRunTimesInMs().add(new RunTime(exception, startDate, resultRowCount,
+                    (int) (System.currentTimeMillis() - start)));
+        }
+    }
+
+    /**
+     * Executes the query, reading all of its results
+     *
+     * @param pUtil
+     * @param query
+     * @return the number of rows read, or the count returned by a COUNT(*) query
+     * @throws Exception if the query fails or does not match its expected aggregate row count
+     */
+    static long executeQuery(PhoenixUtil pUtil, Query query) throws Exception {
         boolean
                 isSelectCountStatement =
                 query.getStatement().toUpperCase().trim().contains("COUNT(*)") ? true : false;
@@ -109,9 +134,6 @@ class MultiThreadedRunner implements Runnable {
         Connection conn = null;
         PreparedStatement statement = null;
         ResultSet rs = null;
-        Long start = System.currentTimeMillis();
-        Date startDate = Calendar.getInstance().getTime();
-        String exception = null;
         long resultRowCount = 0;
 
         try {
@@ -137,16 +159,11 @@ class MultiThreadedRunner implements Runnable {
             } else {
                 conn.commit();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            exception = e.getMessage();
         } finally {
-            getThreadTime().getRunTimesInMs().add(new RunTime(exception, startDate, resultRowCount,
-                    (int) (System.currentTimeMillis() - start)));
-
             if (rs != null) rs.close();
             if (statement != null) statement.close();
             if (conn != null) conn.close();
         }
+        return resultRowCount;
     }
 }
\ No newline at end of file
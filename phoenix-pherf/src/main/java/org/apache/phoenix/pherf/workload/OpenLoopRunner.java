@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.apache.phoenix.pherf.workload;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Recorder;
+import org.apache.phoenix.pherf.result.LatencyPercentiles;
+import org.apache.phoenix.pherf.result.QueryResult;
+import org.apache.phoenix.pherf.result.RunTime;
+import org.apache.phoenix.pherf.result.ThreadTime;
+import org.apache.phoenix.pherf.util.PhoenixUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues the queries of a query set at a fixed target rate (open loop), cycling through the
+ * queries in order. Each execution is scheduled at its own start time and handed to a pool of
+ * worker threads, so a slow query delays neither the executions scheduled after it nor the
+ * measurement of their latency: latencies are measured from the scheduled start time and
+ * include any time spent waiting for a free worker.
+ */
+class OpenLoopRunner implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(OpenLoopRunner.class);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final PhoenixUtil pUtil = PhoenixUtil.create();
+    private final List<QueryResult> queryResults;
+    private final List<ThreadTime> threadTimes;
+    private final List<Recorder> recorders;
+    private final double targetQps;
+    private final int threadCount;
+    private final long numberOfExecutions;
+    private final long executionDurationInMs;
+
+    /**
+     * @param queryResults          queries to issue, and where their results are recorded
+     * @param targetQps             rate at which executions are scheduled across all queries
+     * @param threadCount           number of threads executing the queries
+     * @param numberOfExecutions    maximum number of executions across all queries
+     * @param executionDurationInMs time during which executions are scheduled
+     */
+    OpenLoopRunner(List<QueryResult> queryResults, double targetQps, int threadCount,
+            long numberOfExecutions, long executionDurationInMs) {
+        this.queryResults = queryResults;
+        this.targetQps = targetQps;
+        this.threadCount = threadCount;
+        this.numberOfExecutions = numberOfExecutions;
+        this.executionDurationInMs = executionDurationInMs;
+        this.threadTimes = new ArrayList<>(queryResults.size());
+        this.recorders = new ArrayList<>(queryResults.size());
+        for (QueryResult queryResult : queryResults) {
+            ThreadTime threadTime = new ThreadTime();
+            threadTime.setThreadName("1," + threadCount);
+            queryResult.getThreadTimes().add(threadTime);
+            threadTimes.add(threadTime);
+            recorders.add(new Recorder(SIGNIFICANT_DIGITS));
+        }
+    }
+
+    @Override
+    public void run() {
+        logger.info("\n\nOpen loop run starting at " + targetQps + " queries per second with "
+                + threadCount + " threads for " + queryResults.size() + " queries\n\n");
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        long intervalInNanos = (long) (TimeUnit.SECONDS.toNanos(1) / targetQps);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(executionDurationInMs);
+        try {
+            for (long i = 0; i < numberOfExecutions; i++) {
+                final long scheduledStart = start + i * intervalInNanos;
+                if (scheduledStart - end >= 0) {
+                    break;
+                }
+                long delay;
+                while ((delay = scheduledStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                final int index = (int) (i % queryResults.size());
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        timedQuery(index, scheduledStart);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for queued queries of the open loop run to complete");
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        long duration = System.nanoTime() - start;
+        for (int i = 0; i < queryResults.size(); i++) {
+            queryResults.get(i).setLatencyPercentiles(new LatencyPercentiles(
+                    recorders.get(i).getIntervalHistogram(), targetQps / queryResults.size(), duration));
+        }
+        logger.info("\n\nOpen loop run complete\n\n");
+    }
+
+    private void timedQuery(int index, long scheduledStart) {
+        Date startDate = new Date(System.currentTimeMillis()
+                - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledStart));
+        String exception = null;
+        long resultRowCount = 0;
+        try {
+            resultRowCount = MultiThreadedRunner.executeQuery(pUtil, queryResults.get(index));
+        } catch (Exception e) {
+            logger.warn("", e);
+            exception = e.getMessage();
+        } finally {
+            long latencyInNanos = System.nanoTime() - scheduledStart;
+            recorders.get(index).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyInNanos));
+            threadTimes.get(index).getRunTimesInMs().add(new RunTime(exception, startDate,
+                    resultRowCount, (int) TimeUnit.NANOSECONDS.toMillis(latencyInNanos)));
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.phoenix.pherf.PherfConstants.GeneratePhoenixStats;
 import org.apache.phoenix.pherf.configuration.*;
 import org.apache.phoenix.pherf.result.*;
+import org.apache.phoenix.pherf.rules.RulesApplier;
 import org.apache.phoenix.pherf.util.PhoenixUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -160,12 +161,18 @@ public class QueryExecutor implements Workload {
                             scenarioResult.getQuerySetResult().add(querySetResult);
 
                             util.executeQuerySetDdls(querySet);
-                            if (querySet.getExecutionType() == ExecutionType.SERIAL) {
+                            if (querySet.getTargetQps() > 0 && workloadExecutor.isPerformance()) {
+                                executeQuerySetOpenLoop(querySet, querySetResult);
+                            } else if (querySet.getExecutionType() == ExecutionType.SERIAL) {
                                 executeQuerySetSerial(dataModelResult, querySet, querySetResult);
                             } else {
                                 executeQuerySetParallel(dataModelResult, querySet, querySetResult);
                             }
                         }
+
+                        if (scenario.getMixedWorkload() != null && workloadExecutor.isPerformance()) {
+                            executeMixedWorkload(scenario, scenarioResult);
+                        }
                         resultManager.write(dataModelResult);
                     }
                     resultManager.write(dataModelResults);
@@ -249,6 +256,65 @@ public class QueryExecutor implements Workload {
         }
     }
 
+    /**
+     * Execute query set at its target rate, using its maximum concurrency as the number of
+     * threads
+     *
+     * @param querySet
+     * @param querySetResult
+     * @throws InterruptedException
+     */
+    protected void executeQuerySetOpenLoop(QuerySet querySet, QuerySetResult querySetResult)
+            throws InterruptedException {
+        List<QueryResult> queryResults = new ArrayList<>();
+        for (Query query : querySet.getQuery()) {
+            QueryResult queryResult = new QueryResult(query);
+            queryResult.setHint(this.queryHint);
+            querySetResult.getQueryResults().add(queryResult);
+            queryResults.add(queryResult);
+        }
+        Runnable
+                runner =
+                new OpenLoopRunner(queryResults, querySet.getTargetQps(),
+                        querySet.getMaxConcurrency(), querySet.getNumberOfExecutions(),
+                        querySet.getExecutionDurationInMs());
+        try {
+            workloadExecutor.getPool().submit(runner).get();
+        } catch (ExecutionException e) {
+            logger.error("", e);
+        }
+    }
+
+    /**
+     * Execute the mixed workload of a scenario. Its results are reported as a query set
+     * with one query per operation.
+     *
+     * @param scenario
+     * @param scenarioResult
+     * @throws InterruptedException
+     */
+    protected void executeMixedWorkload(Scenario scenario, ScenarioResult scenarioResult)
+            throws InterruptedException {
+        MixedWorkload mixedWorkload = scenario.getMixedWorkload();
+        QuerySetResult querySetResult = new QuerySetResult();
+        querySetResult.setConcurrency(String.valueOf(mixedWorkload.getThreadCount()));
+        querySetResult.setNumberOfExecutions(mixedWorkload.getNumberOfExecutions());
+        querySetResult.setExecutionDurationInMs(mixedWorkload.getExecutionDurationInMs());
+        querySetResult.setExecutionType(ExecutionType.PARALLEL);
+        querySetResult.setTargetQps(mixedWorkload.getTargetQps());
+        scenarioResult.getQuerySetResult().add(querySetResult);
+
+        Runnable
+                runner =
+                new MixedWorkloadRunner(PhoenixUtil.create(), new RulesApplier(parser), scenario,
+                        querySetResult);
+        try {
+            workloadExecutor.getPool().submit(runner).get();
+        } catch (ExecutionException e) {
+            logger.error("", e);
+        }
+    }
+
     /**
      * Execute multi-thread runner
      *
@@ -266,7 +266,7 @@ public class WriteWorkload implements Workload {
                             < maxDuration); i--) {
                         String sql = buildSql(columns, tableName);
                         PreparedStatement stmt = connection.prepareStatement(sql);
-                        stmt = buildStatement(scenario, columns, stmt, simpleDateFormat);
+                        stmt = buildStatement(getRulesApplier(), scenario, columns, stmt, simpleDateFormat);
                         start = System.currentTimeMillis();
                         rowsCreated += stmt.executeUpdate();
                         stmt.close();
@@ -310,12 +310,13 @@ public class WriteWorkload implements Workload {
         return future;
     }
 
-    private PreparedStatement buildStatement(Scenario scenario, List<Column> columns,
-            PreparedStatement statement, SimpleDateFormat simpleDateFormat) throws Exception {
+    static PreparedStatement buildStatement(RulesApplier rulesApplier, Scenario scenario,
+            List<Column> columns, PreparedStatement statement, SimpleDateFormat simpleDateFormat)
+            throws Exception {
         int count = 1;
         for (Column column : columns) {
 
-            DataValue dataValue = getRulesApplier().getDataForRule(scenario, column);
+            DataValue dataValue = rulesApplier.getDataForRule(scenario, column);
             switch (column.getType()) {
             case VARCHAR:
                 if (dataValue.getValue().equals("")) {
@@ -364,7 +365,7 @@ public class WriteWorkload implements Workload {
         return statement;
     }
 
-    private String buildSql(final List<Column> columns, final String tableName) {
+    static String buildSql(final List<Column> columns, final String tableName) {
         StringBuilder builder = new StringBuilder();
         builder.append("upsert into ");
         builder.append(tableName);
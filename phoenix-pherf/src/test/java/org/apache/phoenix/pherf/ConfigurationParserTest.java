@@ -61,6 +61,33 @@ public class ConfigurationParserTest extends ResultBaseTest {
         assertNotNull("Could not find writer count: ", params.getWriterThreadCount());
     }
 
+    @Test
+    public void testMixedWorkloadReader() throws Exception {
+        Scenario target = null;
+        for (Scenario scenario : getScenarios()) {
+            if ("testScenarioRW".equals(scenario.getName())) {
+                target = scenario;
+            }
+        }
+        assertNotNull("Could not find scenario: testScenarioRW", target);
+        MixedWorkload mixedWorkload = target.getMixedWorkload();
+
+        assertNotNull("Could not find mixedWorkload in scenario: testScenarioRW", mixedWorkload);
+        assertEquals(2, mixedWorkload.getThreadCount());
+        assertEquals(1000, mixedWorkload.getExecutionDurationInMs());
+        assertEquals(3, mixedWorkload.getOperation().size());
+        assertEquals(10, mixedWorkload.getTotalWeight());
+
+        Operation read = mixedWorkload.getOperation().get(0);
+        assertEquals("m1", read.getId());
+        assertEquals(7, read.getWeight());
+        assertEquals(OperationType.QUERY, read.getType());
+
+        Operation upsert = mixedWorkload.getOperation().get(2);
+        assertEquals(OperationType.UPSERT, upsert.getType());
+        assertNull(upsert.getStatement());
+    }
+
     @Test
     // TODO Break this into multiple smaller tests.
     public void testConfigReader() {
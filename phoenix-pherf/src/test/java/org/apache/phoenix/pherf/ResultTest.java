@@ -24,6 +24,9 @@ import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
 
 import org.apache.phoenix.pherf.jmx.MonitorManager;
 
@@ -160,6 +163,24 @@ public class ResultTest extends ResultBaseTest {
         assertEquals(20, queryResultFromFile.getAvgRunTimeInMs());
     }
 
+    @Test
+    public void testLatencyPercentiles() {
+        Histogram histogram = new Histogram(3);
+        // 1ms through 1000ms
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * 1000);
+        }
+        LatencyPercentiles latency =
+                new LatencyPercentiles(histogram, 200, TimeUnit.SECONDS.toNanos(10));
+        assertEquals(1000, latency.getCount());
+        assertEquals(200, latency.getTargetQps(), 0);
+        assertEquals(100, latency.getAchievedQps(), 0.001);
+        assertEquals(500, latency.getP50InMs(), 1);
+        assertEquals(990, latency.getP99InMs(), 1);
+        assertEquals(999, latency.getP999InMs(), 1);
+        assertEquals(1000, latency.getMaxInMs(), 1);
+    }
+
     private DataModelResult setUpDataModelResult() {
         DataModelResult dataModelResult = new DataModelResult();
         dataModelResult.setZookeeper("mytestzk");
@@ -36,4 +36,6 @@ CREATE TABLE OUTPUT_TEST_TABLE (id BIGINT NOT NULL PRIMARY KEY, col1 VARCHAR, co
 CREATE TABLE CUSTOM_ENTITY."z02"(id BIGINT NOT NULL PRIMARY KEY)
 UPSERT INTO CUSTOM_ENTITY."z02" (id) VALUES(1)
 CREATE TABLE TEST_DECIMAL (ID BIGINT NOT NULL PRIMARY KEY, COL1 DECIMAL)
-UPSERT INTO TEST_DECIMAL VALUES (1, 123.456789)
\ No newline at end of file
+UPSERT INTO TEST_DECIMAL VALUES (1, 123.456789)
+CREATE TABLE BULK_LOAD_TEST_TABLE (ID BIGINT NOT NULL PRIMARY KEY, COL1 VARCHAR, COL2 INTEGER) SPLIT ON (3)
+CREATE INDEX BULK_LOAD_TEST_INDEX ON BULK_LOAD_TEST_TABLE (COL1) INCLUDE (COL2)
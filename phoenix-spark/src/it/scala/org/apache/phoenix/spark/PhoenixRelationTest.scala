@@ -0,0 +1,74 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.apache.phoenix.spark
+
+import org.apache.spark.sql.sources._
+import org.scalatest._
+
+// A filter Phoenix has no translation for
+case object UnsupportedFilter extends Filter
+
+/*
+  Checks the WHERE clause PhoenixRelation pushes down to Phoenix for Spark filters. No
+  cluster is needed, as the clause is built without reading the table.
+ */
+class PhoenixRelationTest extends FunSuite with Matchers {
+  val relation = PhoenixRelation("TABLE1", "localhost")(null)
+
+  test("Comparison and null filters are translated") {
+    relation.buildFilter(Array(EqualTo("ID", 1L), GreaterThan("ID", 2), LessThanOrEqual("ID", 3),
+      IsNull("COL1"), IsNotNull("COL2"))) shouldEqual
+      "ID = 1 AND ID > 2 AND ID <= 3 AND COL1 IS NULL AND COL2 IS NOT NULL"
+    relation.compileFilter(EqualNullSafe("COL1", null)) shouldEqual Some("COL1 IS NULL")
+    relation.compileFilter(EqualNullSafe("COL1", "a")) shouldEqual Some("COL1 = 'a'")
+  }
+
+  test("IN lists are translated") {
+    relation.compileFilter(In("ID", Array(1L, 3L))) shouldEqual Some("ID IN (1, 3)")
+    relation.compileFilter(In("COL1", Array("a", "b"))) shouldEqual Some("COL1 IN ('a', 'b')")
+    relation.compileFilter(In("ID", Array())) shouldEqual Some("FALSE")
+  }
+
+  test("String constants are quoted and escaped") {
+    relation.compileFilter(EqualTo("COL1", "it's")) shouldEqual Some("COL1 = 'it''s'")
+    relation.compileFilter(EqualTo("COL1", """a\b""")) shouldEqual Some("""COL1 = 'a\\b'""")
+  }
+
+  test("LIKE wildcards and backslashes are matched literally") {
+    relation.compileFilter(StringStartsWith("COL1", "a%b")) shouldEqual Some("""COL1 LIKE 'a\\%b%'""")
+    relation.compileFilter(StringEndsWith("COL1", "a_b")) shouldEqual Some("""COL1 LIKE '%a\\_b'""")
+    relation.compileFilter(StringContains("COL1", """a\b""")) shouldEqual Some("""COL1 LIKE '%a\\\\b%'""")
+    relation.compileFilter(StringContains("COL1", "it's")) shouldEqual Some("COL1 LIKE '%it''s%'")
+  }
+
+  test("And, Or and Not are translated when all their children are") {
+    relation.compileFilter(And(EqualTo("ID", 1L), IsNull("COL1"))) shouldEqual Some("(ID = 1 AND COL1 IS NULL)")
+    relation.compileFilter(Or(EqualTo("ID", 1L), IsNull("COL1"))) shouldEqual Some("(ID = 1 OR COL1 IS NULL)")
+    relation.compileFilter(Not(Or(EqualTo("ID", 1L), IsNull("COL1")))) shouldEqual
+      Some("NOT ((ID = 1 OR COL1 IS NULL))")
+  }
+
+  test("And, Or and Not with a child that cannot be translated are left to Spark") {
+    // Pushing only part of these down could drop rows that match the whole filter
+    relation.compileFilter(UnsupportedFilter) shouldEqual None
+    relation.compileFilter(And(EqualTo("ID", 1L), UnsupportedFilter)) shouldEqual None
+    relation.compileFilter(Or(UnsupportedFilter, EqualTo("ID", 1L))) shouldEqual None
+    relation.compileFilter(Not(UnsupportedFilter)) shouldEqual None
+    relation.compileFilter(Not(And(EqualTo("ID", 1L), UnsupportedFilter))) shouldEqual None
+    // while the other top level filters are still pushed down
+    relation.buildFilter(Array(EqualTo("ID", 1L), Or(UnsupportedFilter, IsNull("COL1")), IsNotNull("COL2"))) shouldEqual
+      "ID = 1 AND COL2 IS NOT NULL"
+    relation.buildFilter(Array(UnsupportedFilter)) shouldEqual ""
+  }
+}
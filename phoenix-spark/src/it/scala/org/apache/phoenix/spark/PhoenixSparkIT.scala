@@ -293,6 +293,33 @@ class PhoenixSparkIT extends FunSuite with Matchers with BeforeAndAfterAll {
     }
   }
 
+  test("Can bulk load to phoenix table and its index") {
+    val dataSet = List((1L, "1", 1), (2L, "2", 2), (3L, "3", 3), (4L, "4", 4))
+
+    sc
+      .parallelize(dataSet)
+      .bulkLoadToPhoenix(
+        "BULK_LOAD_TEST_TABLE",
+        Seq("ID", "COL1", "COL2"),
+        hbaseConfiguration
+      )
+
+    // Load the results back from the data table
+    val stmt = conn.createStatement()
+    var rs = stmt.executeQuery("SELECT /*+ NO_INDEX */ ID, COL1, COL2 FROM BULK_LOAD_TEST_TABLE")
+    val results = ListBuffer[(Long, String, Int)]()
+    while (rs.next()) {
+      results.append((rs.getLong(1), rs.getString(2), rs.getInt(3)))
+    }
+    results.toList shouldEqual dataSet
+
+    // and from the index
+    rs = stmt.executeQuery("SELECT COL1, COL2 FROM BULK_LOAD_TEST_TABLE WHERE COL1 = '3'")
+    rs.next() shouldEqual true
+    rs.getInt(2) shouldEqual 3
+    rs.next() shouldEqual false
+  }
+
   test("Can save Java and Joda dates to Phoenix (no config)") {
     val dt = new DateTime()
     val date = new Date()
@@ -354,6 +381,21 @@ class PhoenixSparkIT extends FunSuite with Matchers with BeforeAndAfterAll {
      */
   }
 
+  test("Spark SQL can push down IN, string and null filters to Phoenix") {
+    val sqlContext = new SQLContext(sc)
+    val df = sqlContext.load("org.apache.phoenix.spark", Map("table" -> "TABLE1",
+      "zkUrl" -> quorumAddress, "splitTargetSize" -> "1"))
+
+    df.filter(df("ID").isin(1L, 3L)).count() shouldEqual 1
+    df.filter(df("COL1").startsWith("test_row")).count() shouldEqual 2
+    df.filter(df("COL1").endsWith("_2")).select(df("ID")).first().getLong(0) shouldEqual 2L
+    df.filter(df("COL1").contains("row_1")).select(df("ID")).first().getLong(0) shouldEqual 1L
+    // LIKE wildcards in the value must be matched literally
+    df.filter(df("COL1").contains("row%")).count() shouldEqual 0
+    df.filter(df("COL1").isNull || df("ID") === 2L).count() shouldEqual 1
+    df.filter(!df("COL1").isNotNull).count() shouldEqual 0
+  }
+
   test("Can persist a dataframe using 'DataFrame.saveToPhoenix'") {
     // Load from TABLE1
     val sqlContext = new SQLContext(sc)
@@ -60,4 +60,18 @@ class DataFrameFunctions(data: DataFrame) extends Logging with Serializable {
       outConfig
     )
   }
+
+  /*
+  Save to Phoenix by writing HFiles for the table and its indexes and bulk loading them, instead of
+  upserting over JDBC. 'outputPath' is the directory in which the HFiles are staged, a temporary
+  directory by default.
+   */
+  def bulkLoadToPhoenix(tableName: String, conf: Configuration = new Configuration,
+                        zkUrl: Option[String] = None, outputPath: Option[String] = None): Unit = {
+
+    // Retrieve the schema field names and normalize to Phoenix
+    val fieldArray = data.schema.fieldNames.map(x => SchemaUtil.normalizeIdentifier(x))
+
+    PhoenixBulkLoader.save(data.rdd.map(_.toSeq), tableName, fieldArray, conf, zkUrl, outputPath)
+  }
 }
@@ -0,0 +1,221 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.apache.phoenix.spark
+
+import java.util.UUID
+
+import org.apache.hadoop.conf.Configuration
+import org.apache.hadoop.fs.{FileSystem, Path}
+import org.apache.hadoop.hbase.client.HTable
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles
+import org.apache.hadoop.hbase.regionserver.StoreFile
+import org.apache.hadoop.hbase.util.Bytes
+import org.apache.hadoop.hbase.{HColumnDescriptor, KeyValue, KeyValueUtil}
+import org.apache.phoenix.jdbc.PhoenixConnection
+import org.apache.phoenix.mapreduce.HFileWriterUtil
+import org.apache.phoenix.mapreduce.util.{ConnectionUtil, PhoenixConfigurationUtil}
+import org.apache.phoenix.schema.PTable.IndexType
+import org.apache.phoenix.util.{MetaDataUtil, PhoenixRuntime}
+import org.apache.spark.rdd.RDD
+import org.apache.spark.{Logging, Partitioner, SerializableWritable, TaskContext}
+import scala.collection.JavaConversions._
+import scala.collection.mutable
+
+/*
+  Bulk write path for saveToPhoenix. Instead of upserting each partition over JDBC, the rows are
+  encoded into Phoenix KeyValues for the table and its indexes within the Spark job, shuffled into
+  one partition per target region, sorted, written out as HFiles and bulk loaded into HBase.
+  This bypasses the region servers' write path, which makes it a better fit for large backfills.
+
+  As with the CSV bulk load tool, mutable index rows are only generated for the new data rows, so
+  index rows of data rows being overwritten are not removed.
+ */
+object PhoenixBulkLoader extends Logging {
+
+  // Shuffle key of an encoded cell: the physical table it belongs to and its serialized KeyValue
+  private case class CellKey(table: String, keyValue: Array[Byte]) {
+    def toKeyValue: KeyValue = new KeyValue(keyValue, 0, keyValue.length)
+  }
+
+  private implicit val cellKeyOrdering: Ordering[CellKey] = new Ordering[CellKey] {
+    override def compare(x: CellKey, y: CellKey): Int = {
+      val c = x.table.compareTo(y.table)
+      if (c != 0) c else KeyValue.COMPARATOR.compare(x.toKeyValue, y.toKeyValue)
+    }
+  }
+
+  // Routes each cell to the partition of the region of its table containing its row
+  private class RegionPartitioner(startKeys: Map[String, Array[Array[Byte]]]) extends Partitioner {
+    // Index of the first partition of each table, the tables' regions being numbered consecutively
+    private val offsets = {
+      val tables = startKeys.keys.toArray.sorted
+      tables.zip(tables.scanLeft(0)((offset, table) => offset + startKeys(table).length)).toMap
+    }
+
+    override val numPartitions: Int = math.max(1, startKeys.values.map(_.length).sum)
+
+    override def getPartition(key: Any): Int = {
+      val cellKey = key.asInstanceOf[CellKey]
+      val keys = startKeys(cellKey.table)
+      val kv = cellKey.toKeyValue
+      // Last region whose start key is at or before the row
+      var low = 0
+      var high = keys.length - 1
+      while (low < high) {
+        val mid = (low + high + 1) >>> 1
+        if (Bytes.compareTo(keys(mid), 0, keys(mid).length,
+          kv.getRowArray, kv.getRowOffset, kv.getRowLength) <= 0) {
+          low = mid
+        } else {
+          high = mid - 1
+        }
+      }
+      offsets(cellKey.table) + low
+    }
+  }
+
+  /*
+    Save the rows, each holding the values of the given columns in order, to the Phoenix table.
+    HFiles are staged under outputPath, or a temporary directory if none is given, and removed
+    once they have been loaded.
+   */
+  def save(rows: RDD[Seq[Any]], tableName: String, cols: Seq[String], conf: Configuration,
+           zkUrl: Option[String], outputPath: Option[String]): Unit = {
+
+    val outConfig = ConfigurationUtil.getOutputConfiguration(tableName, cols, zkUrl, Some(conf))
+    val batchSize = PhoenixConfigurationUtil.getBatchSize(outConfig).toInt
+
+    // Look up the region boundaries and family settings of the table and its indexes
+    val startKeys = mutable.Map[String, Array[Array[Byte]]]()
+    // Serialized descriptors of the column families, which the HFiles written for them follow
+    val familyDescriptors = mutable.Map[(String, String), Array[Byte]]()
+    val conn = ConnectionUtil.getOutputConnection(outConfig).unwrap(classOf[PhoenixConnection])
+    try {
+      val table = PhoenixRuntime.getTable(conn, tableName)
+      val physicalName = table.getPhysicalName.getString
+      val targets = physicalName +: table.getIndexes.map { index =>
+        if (index.getIndexType == IndexType.LOCAL) {
+          MetaDataUtil.getLocalIndexTableName(physicalName)
+        } else {
+          index.getPhysicalName.getString
+        }
+      }
+      val services = conn.getQueryServices
+      for (target <- targets.distinct) {
+        val name = Bytes.toBytes(target)
+        startKeys(target) = services.getAllTableRegions(name).map(_.getRegionInfo.getStartKey).toArray
+        for (family <- services.getTableDescriptor(name).getColumnFamilies) {
+          familyDescriptors((target, family.getNameAsString)) = family.toByteArray
+        }
+      }
+    } finally {
+      conn.close()
+    }
+
+    val serializableConf = new SerializableWritable(outConfig)
+    // Cells without an explicit timestamp all get the same one, as they would from HFileOutputFormat
+    val now = Bytes.toBytes(System.currentTimeMillis())
+
+    val cells = rows.mapPartitions { partitionRows =>
+      encodeCells(partitionRows, new Configuration(serializableConf.value), batchSize, now)
+    }
+
+    val stagingDir = outputPath.getOrElse("/tmp/" + UUID.randomUUID())
+    val familyDescriptorsMap = familyDescriptors.toMap
+    val stagingPath = new Path(stagingDir)
+    val fs = stagingPath.getFileSystem(outConfig)
+    // Remove the staged HFiles even if writing or loading them fails part way
+    try {
+      cells
+        .repartitionAndSortWithinPartitions(new RegionPartitioner(startKeys.toMap))
+        .foreachPartition { sortedCells =>
+          writeHFiles(sortedCells.map(_._1), new Configuration(serializableConf.value),
+            new Path(stagingDir), familyDescriptorsMap)
+        }
+
+      // Load the HFiles of each table into its regions
+      for (target <- startKeys.keys if fs.exists(new Path(stagingPath, target))) {
+        val tablePath = new Path(stagingPath, target)
+        logInfo(s"Loading HFiles from $tablePath into $target")
+        val htable = new HTable(outConfig, target)
+        try {
+          new LoadIncrementalHFiles(outConfig).doBulkLoad(tablePath, htable)
+        } finally {
+          htable.close()
+        }
+      }
+    } finally {
+      logInfo(s"Removing output directory $stagingPath")
+      // Nothing may have been staged if the write failed early
+      if (fs.exists(stagingPath) && !fs.delete(stagingPath, true)) {
+        logError(s"Removing output directory $stagingPath failed")
+      }
+    }
+  }
+
+  // Upsert the rows in batches on an uncommitted connection and collect the resulting KeyValues
+  private def encodeCells(rows: Iterator[Seq[Any]], conf: Configuration, batchSize: Int,
+                          now: Array[Byte]): Iterator[(CellKey, Unit)] = {
+    val columns = PhoenixConfigurationUtil.getUpsertColumnMetadataList(conf).toList
+    val upsertStatement = PhoenixConfigurationUtil.getUpsertStatement(conf)
+    val conn = ConnectionUtil.getOutputConnection(conf)
+    TaskContext.get().addTaskCompletionListener { (context: TaskContext) => conn.close() }
+    conn.setAutoCommit(false)
+    val statement = conn.prepareStatement(upsertStatement)
+
+    rows.grouped(batchSize).flatMap { batch =>
+      for (row <- batch) {
+        val rec = new PhoenixRecordWritable(columns)
+        row.foreach(rec.add)
+        rec.write(statement)
+        statement.execute()
+      }
+
+      val cells = mutable.ArrayBuffer[(CellKey, Unit)]()
+      val uncommittedData = PhoenixRuntime.getUncommittedDataIterator(conn, true)
+      while (uncommittedData.hasNext) {
+        val tableCells = uncommittedData.next()
+        val table = Bytes.toString(tableCells.getFirst)
+        for (kv <- tableCells.getSecond) {
+          kv.updateLatestStamp(now)
+          cells += ((CellKey(table, KeyValueUtil.copyToNewByteArray(kv)), ()))
+        }
+      }
+      conn.rollback()
+      cells
+    }
+  }
+
+  // Write the sorted cells of a region into one HFile per column family
+  private def writeHFiles(cells: Iterator[CellKey], conf: Configuration, stagingPath: Path,
+                          familyDescriptors: Map[(String, String), Array[Byte]]): Unit = {
+    val fs = stagingPath.getFileSystem(conf)
+    val taskName = s"stage-${TaskContext.get().stageId()}-partition-${TaskContext.get().partitionId()}"
+    val writers = mutable.Map[String, StoreFile.Writer]()
+    try {
+      for (cell <- cells) {
+        val kv = cell.toKeyValue
+        val family = Bytes.toString(kv.getFamilyArray, kv.getFamilyOffset, kv.getFamilyLength)
+        val writer = writers.getOrElseUpdate(family,
+          HFileWriterUtil.newWriter(conf, fs, new Path(stagingPath, cell.table),
+            HColumnDescriptor.parseFrom(familyDescriptors((cell.table, family)))))
+        writer.append(kv)
+      }
+    } finally {
+      for (writer <- writers.values) {
+        HFileWriterUtil.close(writer, taskName)
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.apache.phoenix.spark
+
+import java.sql.{PreparedStatement, ResultSet, Timestamp}
+
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable
+import org.apache.hadoop.mapreduce.lib.db.DBWritable
+import org.apache.phoenix.compile.RowProjector
+import org.apache.phoenix.jdbc.PhoenixResultSet
+import org.apache.phoenix.schema.types.PhoenixArray
+import org.apache.spark.sql.catalyst.InternalRow
+import org.apache.spark.sql.catalyst.expressions.GenericInternalRow
+import org.apache.spark.sql.catalyst.util.{DateTimeUtils, GenericArrayData}
+import org.apache.spark.sql.types._
+import org.apache.spark.unsafe.types.UTF8String
+
+/*
+  Read-only DBWritable that evaluates the projected columns straight off the current Phoenix
+  tuple and converts them into a Spark InternalRow, skipping the intermediate JDBC objects,
+  map of column labels and external Row representation of PhoenixRecordWritable.
+ */
+class PhoenixInternalRowWritable extends DBWritable {
+  private val ptr = new ImmutableBytesWritable()
+  private var converters: Array[Any => Any] = _
+  private var _row: InternalRow = _
+
+  def row: InternalRow = _row
+
+  override def write(statement: PreparedStatement): Unit = {
+    throw new UnsupportedOperationException("PhoenixInternalRowWritable is read-only")
+  }
+
+  override def readFields(resultSet: ResultSet): Unit = {
+    val phoenixResultSet = resultSet.unwrap(classOf[PhoenixResultSet])
+    val projector = phoenixResultSet.getRowProjector
+    if (converters == null) {
+      converters = createConverters(projector)
+    }
+
+    val tuple = phoenixResultSet.getCurrentRow
+    val values = new Array[Any](converters.length)
+    for (i <- 0 until converters.length) {
+      val columnProjector = projector.getColumnProjector(i)
+      val value = columnProjector.getValue(tuple, columnProjector.getExpression.getDataType, ptr)
+      values(i) = if (value == null) null else converters(i)(value)
+    }
+
+    // A new row for each record, as Spark may hold on to rows across calls
+    _row = new GenericInternalRow(values)
+  }
+
+  private def createConverters(projector: RowProjector): Array[Any => Any] = {
+    val converters = new Array[Any => Any](projector.getColumnCount)
+    for (i <- 0 until converters.length) {
+      val phoenixType = projector.getColumnProjector(i).getExpression.getDataType
+      converters(i) = toCatalyst(PhoenixRDD.phoenixTypeToCatalystType(phoenixType))
+    }
+    converters
+  }
+
+  // Converters from the Java objects of Phoenix types to Spark's internal representation
+  private def toCatalyst(dataType: DataType): Any => Any = dataType match {
+    case StringType => v => UTF8String.fromString(v.toString)
+    case TimestampType => {
+      case t: Timestamp => DateTimeUtils.fromJavaTimestamp(t)
+      case d: java.util.Date => DateTimeUtils.fromJavaTimestamp(new Timestamp(d.getTime))
+    }
+    case _: DecimalType => v => Decimal(v.asInstanceOf[java.math.BigDecimal])
+    case ArrayType(elementType, _) => {
+      val elementConverter = toCatalyst(elementType)
+      v => {
+        val array = v.asInstanceOf[PhoenixArray].getArray.asInstanceOf[Array[_]]
+        val elements = new Array[Any](array.length)
+        for (i <- 0 until array.length) {
+          val element = array(i)
+          elements(i) = if (element == null) null else elementConverter(element)
+        }
+        new GenericArrayData(elements)
+      }
+    }
+    case _ => v => v
+  }
+}
@@ -27,6 +27,7 @@ import org.apache.spark.annotation.DeveloperApi
 import org.apache.spark.rdd.RDD
 import org.apache.spark.sql.types.{DataType, StructField, StructType}
 import org.apache.spark.sql.{Row, DataFrame, SQLContext}
+import org.apache.spark.sql.catalyst.InternalRow
 import org.apache.spark.sql.types._
 import scala.collection.JavaConverters._
 
@@ -48,6 +49,11 @@ class PhoenixRDD(sc: SparkContext, table: String, columns: Seq[String],
     phoenixRDD.partitions
   }
 
+  // Schedule each partition on the region server hosting its region
+  override protected def getPreferredLocations(split: Partition): Seq[String] = {
+    phoenixRDD.preferredLocations(split)
+  }
+
   @DeveloperApi
   override def compute(split: Partition, context: TaskContext) = {
     phoenixRDD.compute(split, context).map(r => r._2)
@@ -122,6 +128,17 @@ class PhoenixRDD(sc: SparkContext, table: String, columns: Seq[String],
     }), new StructType(structFields))
   }
 
+  // Read the rows in Spark's internal format, converted directly from the Phoenix tuples
+  def toInternalRowRDD: RDD[InternalRow] = {
+    val config = getPhoenixConfiguration
+    PhoenixConfigurationUtil.setInputClass(config, classOf[PhoenixInternalRowWritable])
+
+    sparkContext.newAPIHadoopRDD(config,
+      classOf[PhoenixInputFormat[PhoenixInternalRowWritable]],
+      classOf[NullWritable],
+      classOf[PhoenixInternalRowWritable]).map(r => r._2.row)
+  }
+
   def phoenixSchemaToCatalystSchema(columnList: Seq[ColumnInfo]) = {
     columnList.map(ci => {
       val structType = phoenixTypeToCatalystType(ci.getPDataType)
@@ -130,6 +147,13 @@ class PhoenixRDD(sc: SparkContext, table: String, columns: Seq[String],
   }
 
 
+  def phoenixTypeToCatalystType(phoenixType: PDataType[_]): DataType = {
+    PhoenixRDD.phoenixTypeToCatalystType(phoenixType)
+  }
+}
+
+object PhoenixRDD {
+
   // Lookup table for Phoenix types to Spark catalyst types
   def phoenixTypeToCatalystType(phoenixType: PDataType[_]): DataType = phoenixType match {
     case t if t.isInstanceOf[PVarchar] || t.isInstanceOf[PChar] => StringType
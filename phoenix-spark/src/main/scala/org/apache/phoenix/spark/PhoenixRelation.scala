@@ -18,15 +18,20 @@
 package org.apache.phoenix.spark
 
 import org.apache.hadoop.conf.Configuration
+import org.apache.phoenix.mapreduce.util.PhoenixConfigurationUtil
 import org.apache.spark.rdd.RDD
 import org.apache.spark.sql.types.StructType
 import org.apache.spark.sql.{Row, SQLContext}
 import org.apache.spark.sql.sources._
-import org.apache.phoenix.util.StringUtil.escapeStringConstant
+import org.apache.phoenix.util.StringUtil.{escapeBackslash, escapeStringConstant}
 
-case class PhoenixRelation(tableName: String, zkUrl: String)(@transient val sqlContext: SQLContext)
+case class PhoenixRelation(tableName: String, zkUrl: String, splitTargetSize: Option[Long] = None)
+                          (@transient val sqlContext: SQLContext)
     extends BaseRelation with PrunedFilteredScan {
 
+  // The scan produces rows in Spark's internal format, converted directly from Phoenix tuples
+  override val needConversion: Boolean = false
+
   /*
     This is the buildScan() implementing Spark's PrunedFilteredScan.
     Spark SQL queries with columns or predicates specified will be pushed down
@@ -41,8 +46,8 @@ case class PhoenixRelation(tableName: String, zkUrl: String)(@transient val sqlC
       requiredColumns,
       Some(buildFilter(filters)),
       Some(zkUrl),
-      new Configuration()
-    ).toDataFrame(sqlContext).rdd
+      getConfiguration
+    ).toInternalRowRDD.asInstanceOf[RDD[Row]]
   }
 
   // Required by BaseRelation, this will return the full schema for a table
@@ -53,51 +58,67 @@ case class PhoenixRelation(tableName: String, zkUrl: String)(@transient val sqlC
       Seq(),
       None,
       Some(zkUrl),
-      new Configuration()
+      getConfiguration
     ).toDataFrame(sqlContext).schema
   }
 
-  // Attempt to create Phoenix-accepted WHERE clauses from Spark filters,
-  // mostly inspired from Spark SQL JDBCRDD and the couchbase-spark-connector
-  private def buildFilter(filters: Array[Filter]): String = {
-    if (filters.isEmpty) {
-      return ""
-    }
-
-    val filter = new StringBuilder("")
-    var i = 0
+  // Partitions are built from the guidepost chunks of the scan, combined up to the target size
+  private def getConfiguration: Configuration = {
+    val conf = new Configuration()
+    splitTargetSize.foreach(size => PhoenixConfigurationUtil.setSplitTargetSize(conf, size))
+    conf
+  }
 
-    filters.foreach(f => {
-      if (i > 0) {
-        filter.append(" AND")
-      }
+  // Attempt to create Phoenix-accepted WHERE clauses from Spark filters,
+  // mostly inspired from Spark SQL JDBCRDD and the couchbase-spark-connector.
+  // Filters that can't be expressed are left for Spark to evaluate.
+  private[spark] def buildFilter(filters: Array[Filter]): String = {
+    filters.flatMap(compileFilter).mkString(" AND ")
+  }
 
-      f match {
-        case EqualTo(attr, value) => filter.append(s" $attr = ${compileValue(value)}")
-        case GreaterThan(attr, value) => filter.append(s" $attr > ${compileValue(value)}")
-        case GreaterThanOrEqual(attr, value) => filter.append(s" $attr >= ${compileValue(value)}")
-        case LessThan(attr, value) => filter.append(s" $attr < ${compileValue(value)}")
-        case LessThanOrEqual(attr, value) => filter.append(s" $attr <= ${compileValue(value)}")
-        case IsNull(attr) => filter.append(s" $attr IS NULL")
-        case IsNotNull(attr) => filter.append(s" $attr IS NOT NULL")
-        case _ => throw new Exception("Unsupported filter")
-      }
+  private[spark] def compileFilter(f: Filter): Option[String] = f match {
+    case EqualTo(attr, value) => Some(s"$attr = ${compileValue(value)}")
+    case EqualNullSafe(attr, null) => Some(s"$attr IS NULL")
+    case EqualNullSafe(attr, value) => Some(s"$attr = ${compileValue(value)}")
+    case GreaterThan(attr, value) => Some(s"$attr > ${compileValue(value)}")
+    case GreaterThanOrEqual(attr, value) => Some(s"$attr >= ${compileValue(value)}")
+    case LessThan(attr, value) => Some(s"$attr < ${compileValue(value)}")
+    case LessThanOrEqual(attr, value) => Some(s"$attr <= ${compileValue(value)}")
+    case IsNull(attr) => Some(s"$attr IS NULL")
+    case IsNotNull(attr) => Some(s"$attr IS NOT NULL")
+    case In(_, values) if values.isEmpty => Some("FALSE")
+    case In(attr, values) => Some(s"$attr IN (${values.map(compileValue).mkString(", ")})")
+    case StringStartsWith(attr, value) => Some(s"$attr LIKE ${compileLikePattern("", value, "%")}")
+    case StringEndsWith(attr, value) => Some(s"$attr LIKE ${compileLikePattern("%", value, "")}")
+    case StringContains(attr, value) => Some(s"$attr LIKE ${compileLikePattern("%", value, "%")}")
+    case And(left, right) =>
+      for (l <- compileFilter(left); r <- compileFilter(right)) yield s"($l AND $r)"
+    case Or(left, right) =>
+      for (l <- compileFilter(left); r <- compileFilter(right)) yield s"($l OR $r)"
+    case Not(child) => compileFilter(child).map(c => s"NOT ($c)")
+    case _ => None
+  }
 
-      i = i + 1
-    })
+  // Escape the LIKE wildcards so that the value is matched literally
+  private def compileLikePattern(prefix: String, value: String, suffix: String): String = {
+    val escaped = value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+    compileString(prefix + escaped + suffix)
+  }
 
-    filter.toString()
+  // Quote a string constant, escaping the characters the SQL parser would interpret
+  private def compileString(value: String): String = {
+    s"'${escapeStringConstant(escapeBackslash(value))}'"
   }
 
   // Helper function to escape string values in SQL queries
   private def compileValue(value: Any): Any = value match {
-    case stringValue: String => s"'${escapeStringConstant(stringValue)}'"
+    case stringValue: String => compileString(stringValue)
 
     // Borrowed from 'elasticsearch-hadoop', support these internal UTF types across Spark versions
     // Spark 1.4
-    case utf if (isClass(utf, "org.apache.spark.sql.types.UTF8String")) => s"'${escapeStringConstant(utf.toString)}'"
+    case utf if (isClass(utf, "org.apache.spark.sql.types.UTF8String")) => compileString(utf.toString)
     // Spark 1.5
-    case utf if (isClass(utf, "org.apache.spark.unsafe.types.UTF8String")) => s"'${escapeStringConstant(utf.toString)}'"
+    case utf if (isClass(utf, "org.apache.spark.unsafe.types.UTF8String")) => compileString(utf.toString)
 
     // Pass through anything else
     case _ => value
@@ -56,4 +56,16 @@ class ProductRDDFunctions[A <: Product](data: RDD[A]) extends Logging with Seria
       outConfig
     )
   }
-}
\ No newline at end of file
+
+  /*
+  Save to Phoenix by writing HFiles for the table and its indexes and bulk loading them, instead of
+  upserting over JDBC. 'outputPath' is the directory in which the HFiles are staged, a temporary
+  directory by default.
+   */
+  def bulkLoadToPhoenix(tableName: String, cols: Seq[String],
+                        conf: Configuration = new Configuration, zkUrl: Option[String] = None,
+                        outputPath: Option[String] = None): Unit = {
+
+    PhoenixBulkLoader.save(data.map[Seq[Any]](_.productIterator.toList), tableName, cols, conf, zkUrl, outputPath)
+  }
+}